@@ -0,0 +1,169 @@
+package tasktracker;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets for the hot paths: code that runs for every cell,
+ * every click or every API call should not make garbage once warmed up.
+ *
+ * How it measures: com.sun.management.ThreadMXBean counts the bytes this
+ * thread has allocated. Each operation is run WARM_UP times first (so the
+ * JIT has compiled it, as it would be in a running app), then CALLS times
+ * per round; the best of ROUNDS rounds divided by CALLS is the cost of
+ * one call. A budget is "at most this many bytes per call":
+ *  - GARBAGE_FREE (under one byte: not even one object per call — the
+ *    smallest object is 16 bytes, so a single leftover allocation fails)
+ *  - or a small number for calls that must return something new
+ *
+ * These tests are skipped on a JVM that cannot count allocations.
+ */
+class AllocationBudgetTest {
+
+    private static final int WARM_UP = 20_000;
+    private static final int CALLS = 20_000;
+    private static final int ROUNDS = 5;
+
+    /** Less than one object per call. */
+    private static final double GARBAGE_FREE = 1.0;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    /** Results go here, so the JIT cannot drop the calls as unused. */
+    private static volatile Object sink;
+    /** ...and numbers here (an int stored into "sink" would be boxed: garbage of our own). */
+    private static volatile long number;
+
+    private static final String[] ASSIGNEES = { "Alice", "Bob", "Carol", "" };
+    private static final String[] TYPES = { "Work", "Home", "School" };
+
+    private static TaskManager manager;
+    private static List<Task> tasks;
+
+    /** Task number i: every assignee, type and priority, due dates over a year, a quarter done. */
+    private static Task task(int i) {
+        Task t = new Task("Task #" + i, ASSIGNEES[i % ASSIGNEES.length],
+                LocalDate.of(2025, 1, 1).plusDays(i % 365), TYPES[i % TYPES.length],
+                Task.Priority.values()[i % 3]);
+        t.setCompleted(i % 4 == 0);
+        return t;
+    }
+
+    @BeforeAll
+    static void setUp() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        }
+        manager = new TaskManager();
+        for (int i = 0; i < 10_000; i++) {
+            manager.addTask(task(i));
+        }
+        tasks = manager.getTasks();
+    }
+
+    /** Bytes one call of "operation" allocates, after warm-up (best round). */
+    private static double bytesPerCall(Runnable operation) {
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported(),
+                "this JVM cannot count allocated bytes");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARM_UP; i++) {
+            operation.run();
+        }
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < CALLS; i++) {
+                operation.run();
+            }
+            long after = threads.getThreadAllocatedBytes(thread);
+            best = Math.min(best, (after - before) / (double) CALLS);
+        }
+        return best;
+    }
+
+    private static void assertBudget(String name, double budget, Runnable operation) {
+        double bytes = bytesPerCall(operation);
+        assertTrue(bytes <= budget, String.format(
+                "%s allocates %.1f bytes per call (budget: %.1f)", name, bytes, budget));
+    }
+
+    // ───────────────────────────────────────────────
+    // TaskManager reads
+    // ───────────────────────────────────────────────
+
+    @Test
+    void testTaskManagerReadsAreGarbageFree() {
+        int[] i = {0};
+        assertBudget("getTask", GARBAGE_FREE, () -> sink = manager.getTask(1 + (i[0]++ & 8191)));
+        assertBudget("getTotalCount", GARBAGE_FREE, () -> number = manager.getTotalCount());
+        assertBudget("getCompletedCount", GARBAGE_FREE, () -> number = manager.getCompletedCount());
+        assertBudget("getVersion", GARBAGE_FREE, () -> number = manager.getVersion(TaskQuery.Attribute.PRIORITY));
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+        assertBudget("countDue", GARBAGE_FREE, () -> number = manager.countDue(from, to, true));
+        assertBudget("isArchived", GARBAGE_FREE, () -> number = manager.isArchived(tasks.get(i[0]++ & 8191)) ? 1 : 0);
+    }
+
+    @Test
+    void testRepeatedFindTasksIsGarbageFree() {
+        // The same filter again (refreshView after a click): answered from the QueryCache
+        TaskQuery query = TaskQuery.pending().and(TaskQuery.priorityIn(Task.Priority.HIGH));
+        assertBudget("findTasks (cached)", GARBAGE_FREE, () -> sink = manager.findTasks(query));
+    }
+
+    @Test
+    void testGetNextUpOnlyAllocatesItsResult() {
+        // A list of 5 (about 100 bytes) and the heap walk's small candidate queue
+        assertBudget("getNextUp(5)", 512, () -> sink = manager.getNextUp(5));
+    }
+
+    // ───────────────────────────────────────────────
+    // Filter evaluation
+    // ───────────────────────────────────────────────
+
+    @Test
+    void testQueryMatchesIsGarbageFree() {
+        TaskQuery query = TaskQuery.priorityIn(Task.Priority.HIGH, Task.Priority.MEDIUM)
+                .and(TaskQuery.typeIs("Work").or(TaskQuery.assigneeIs("Bob")))
+                .and(TaskQuery.overdue())
+                .and(TaskQuery.completed().not());
+        LocalDate today = LocalDate.of(2025, 6, 1);
+        int[] i = {0};
+        assertBudget("TaskQuery.matches", GARBAGE_FREE,
+                () -> number = query.matches(tasks.get(i[0]++ & 8191), today) ? 1 : 0);
+    }
+
+    @Test
+    void testSingleAttributeCountsAreGarbageFree() {
+        // One bitmap straight from the index: nothing to combine
+        assertBudget("countTasks(completed)", GARBAGE_FREE, () -> number = manager.countTasks(TaskQuery.completed()));
+        TaskQuery work = TaskQuery.typeIs("Work");
+        assertBudget("countTasks(type)", GARBAGE_FREE, () -> number = manager.countTasks(work));
+    }
+
+    // ───────────────────────────────────────────────
+    // The list renderer
+    // ───────────────────────────────────────────────
+
+    @Test
+    void testCellRendererIsGarbageFree() {
+        JList<Task> list = new JList<>();
+        TaskCellRenderer renderer = new TaskCellRenderer(manager::isArchived);
+        int[] i = {0};
+        // Painting the visible rows again and again (scrolling, hovering)
+        assertBudget("TaskCellRenderer", GARBAGE_FREE, () -> {
+            int row = i[0]++ & 63;
+            sink = renderer.getListCellRendererComponent(list, tasks.get(row), row, row == 3, false);
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package tasktracker;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * AutoCompleteSupport adds a suggestion popup to a text field.
+ *
+ * While the user types, the popup lists matching words (for example
+ * assignees from TaskSuggestions). The user can:
+ *  - press UP / DOWN to pick a suggestion
+ *  - press ENTER or click to accept it
+ *  - press ESCAPE (or just keep typing) to ignore it
+ *
+ * Usage:
+ *   AutoCompleteSupport.install(field, prefix -> suggestions.suggestAssignees(prefix, 8));
+ */
+public final class AutoCompleteSupport {
+
+    private final JTextComponent field;
+    private final Function<String, List<String>> source;
+
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+
+    private boolean accepting = false;   // true while we set the text ourselves
+
+    private AutoCompleteSupport(JTextComponent field, Function<String, List<String>> source) {
+        this.field = field;
+        this.source = source;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        popup.setFocusable(false);   // keep typing in the text field
+        popup.add(new JScrollPane(list));
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // attribute changes only — nothing to do
+            }
+        });
+
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                accept();
+            }
+        });
+    }
+
+    /**
+     * Attaches autocomplete to a text field (or the editor of an editable combo box).
+     */
+    public static void install(JTextComponent field, Function<String, List<String>> source) {
+        new AutoCompleteSupport(field, source);
+    }
+
+    private void textChanged() {
+        if (accepting) return;
+        // The document is locked while listeners run, so update afterwards
+        SwingUtilities.invokeLater(this::showSuggestions);
+    }
+
+    private void showSuggestions() {
+        String text = field.getText();
+        if (text.isBlank() || !field.isShowing() || !field.hasFocus()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        List<String> suggestions = source.apply(text);
+        // Nothing useful to show if the only suggestion is what was typed
+        if (suggestions.isEmpty()
+                || (suggestions.size() == 1 && suggestions.get(0).equals(text))) {
+            popup.setVisible(false);
+            return;
+        }
+
+        model.clear();
+        model.addAll(suggestions);
+        list.setVisibleRowCount(Math.min(8, suggestions.size()));
+        list.clearSelection();
+
+        popup.pack();
+        popup.setPopupSize(Math.max(field.getWidth(), popup.getPreferredSize().width),
+                popup.getPreferredSize().height);
+        popup.show(field, 0, field.getHeight());
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (!popup.isVisible()) return;
+
+        int size = model.getSize();
+        int selected = list.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(size - 1, selected + 1));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                list.setSelectedIndex(Math.max(0, selected - 1));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (selected >= 0) {
+                    accept();
+                    e.consume();   // don't also press the dialog's default button
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                popup.setVisible(false);
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Puts the selected suggestion into the text field. */
+    private void accept() {
+        String value = list.getSelectedValue();
+        popup.setVisible(false);
+        if (value == null) return;
+
+        accepting = true;
+        field.setText(value);
+        accepting = false;
+    }
+}
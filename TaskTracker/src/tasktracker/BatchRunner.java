@@ -0,0 +1,587 @@
+package tasktracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * BatchRunner applies a script of text commands to a TaskManager, without
+ * a window — for servers, cron jobs and bulk imports (see Main --batch).
+ *
+ * One command per line; values with spaces go in double quotes:
+ *
+ *   add title="Write report" assignee=Ann due=2026-03-01 type=Work priority=HIGH
+ *   edit id=7 due=2026-03-08 priority=LOW      (only the given fields change)
+ *   edit id=7 title=Draft version=4           (only if the task is still at version 4)
+ *   complete id=7
+ *   delete id=7
+ *   query status=pending priority=HIGH assignee=Ann overdue limit=20
+ *   report
+ *   # lines starting with '#' (and empty lines) are skipped
+ *
+ * Every command prints ONE line of JSON ("JSON Lines"), so other programs
+ * can read the results line by line:
+ *
+ *   {"line":1,"ok":true,"id":1}
+ *   {"line":5,"ok":true,"count":1,"tasks":[{"id":1,"title":"Write report",...}]}
+ *   {"line":6,"ok":false,"error":"unknown task id 99"}
+ *
+ * A failed command does not stop the script; run() returns how many failed.
+ *
+ * Why batches?
+ *  - Commands are applied BATCH_SIZE at a time under one write lock
+ *    (TaskManager.batch), so locking costs almost nothing per command
+ *  - Output is collected per batch and written in one go, instead of
+ *    flushing the stream after every line
+ *  - A query or report sees the board exactly as the commands before it
+ *    left it (they are in the same batch, or an earlier one)
+ *
+ * Parsing is a small hand-written loop instead of regular expressions:
+ * this runs hundreds of thousands of times per second.
+ */
+public final class BatchRunner {
+
+    /** Commands applied under one lock and written out together. */
+    public static final int BATCH_SIZE = 4096;
+
+    private final TaskManager manager;
+    private final Writer out;
+    private final int batchSize;
+
+    // ==== Totals of the run ====
+    private long commands = 0;
+    private long failures = 0;
+
+    public BatchRunner(TaskManager manager, Writer out) {
+        this(manager, out, BATCH_SIZE);
+    }
+
+    public BatchRunner(TaskManager manager, Writer out, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+        }
+        this.manager = manager;
+        this.out = out;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads commands until the end of the input, applies them batch by
+     * batch and writes one result line per command.
+     *
+     * @return how many commands failed in this run (0 = all went well)
+     */
+    public long run(BufferedReader in) throws IOException {
+        long failedBefore = failures;
+        List<String> lines = new ArrayList<>(batchSize);
+        long firstLine = 1;   // line number of lines.get(0)
+        StringBuilder results = new StringBuilder(batchSize * 32);
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lines.add(line);
+            if (lines.size() == batchSize) {
+                applyBatch(lines, firstLine, results);
+                firstLine += lines.size();
+                lines.clear();
+            }
+        }
+        applyBatch(lines, firstLine, results);
+        out.flush();
+        return failures - failedBefore;
+    }
+
+    /** Number of commands run so far (comments and empty lines not counted). */
+    public long getCommandCount() {
+        return commands;
+    }
+
+    /** Number of commands that failed so far. */
+    public long getFailureCount() {
+        return failures;
+    }
+
+    private void applyBatch(List<String> lines, long firstLine, StringBuilder results) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        results.setLength(0);
+        manager.batch(() -> {
+            for (int i = 0; i < lines.size(); i++) {
+                execute(lines.get(i), firstLine + i, results);
+            }
+        });
+        out.append(results);
+        out.flush();   // one flush per batch: followers see progress, but not per line
+    }
+
+    // ───────────────────────────────────────────────
+    // Commands
+    // ───────────────────────────────────────────────
+
+    /** Runs one line and appends its result (nothing for comments and empty lines). */
+    void execute(String line, long lineNumber, StringBuilder results) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+            return;
+        }
+        commands++;
+        int start = results.length();
+        results.append("{\"line\":").append(lineNumber).append(",\"ok\":true");
+        try {
+            Command command = Command.parse(trimmed);
+            switch (command.name) {
+                case "add":
+                    add(command, results);
+                    break;
+                case "edit":
+                    edit(command, results);
+                    break;
+                case "complete":
+                    complete(command, results);
+                    break;
+                case "delete":
+                    delete(command, results);
+                    break;
+                case "query":
+                    query(command, results);
+                    break;
+                case "report":
+                    command.checkAllUsed();
+                    report(results);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown command \"" + command.name + "\"");
+            }
+        } catch (IllegalArgumentException e) {
+            // Throw away whatever was written for this line, and say why
+            failures++;
+            results.setLength(start);
+            results.append("{\"line\":").append(lineNumber).append(",\"ok\":false,\"error\":");
+            appendString(results, e.getMessage());
+        }
+        results.append("}\n");
+    }
+
+    private void add(Command command, StringBuilder results) {
+        String title = command.take("title");
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("add needs a title");
+        }
+        Task task = new Task(title.trim(),
+                command.take("assignee"),
+                parseDate(command.take("due")),
+                command.take("type"),
+                parsePriority(command.take("priority"), Task.Priority.MEDIUM));
+        command.checkAllUsed();
+        manager.addTask(task);
+        results.append(",\"id\":").append(task.getId());
+    }
+
+    /** Only the fields that are given change; "due=" (empty) removes the due date. */
+    private void edit(Command command, StringBuilder results) {
+        Task task = findTask(command);
+        String expected = command.take("version");
+
+        Task changes = task.snapshot();
+        String title = command.take("title");
+        if (title != null) {
+            if (title.trim().isEmpty()) {
+                throw new IllegalArgumentException("the title cannot be empty");
+            }
+            changes.setTitle(title.trim());
+        }
+        String assignee = command.take("assignee");
+        if (assignee != null) {
+            changes.setAssignee(assignee);
+        }
+        String due = command.take("due");
+        if (due != null) {
+            changes.setDueDate(parseDate(due));
+        }
+        String type = command.take("type");
+        if (type != null) {
+            changes.setType(type);
+        }
+        String priority = command.take("priority");
+        if (priority != null) {
+            changes.setPriority(parsePriority(priority, null));
+        }
+
+        command.checkAllUsed();
+        if (expected == null) {
+            manager.updateTask(task, changes);
+            results.append(",\"id\":").append(task.getId()).append(",\"version\":").append(task.getVersion());
+            return;
+        }
+        UpdateResult result = manager.updateTask(task, changes, parseLong("version", expected));
+        switch (result.getStatus()) {
+            case APPLIED:
+                results.append(",\"id\":").append(task.getId()).append(",\"version\":").append(result.getVersion());
+                break;
+            case CONFLICT:
+                throw new IllegalArgumentException("task " + task.getId() + " was changed since version "
+                        + expected + " (now " + result.getVersion() + ")");
+            default:
+                throw new IllegalArgumentException("unknown task id " + task.getId());
+        }
+    }
+
+    private void complete(Command command, StringBuilder results) {
+        Task task = findTask(command);
+        command.checkAllUsed();
+        boolean changed = manager.markComplete(task);
+        results.append(",\"id\":").append(task.getId()).append(",\"changed\":").append(changed);
+    }
+
+    private void delete(Command command, StringBuilder results) {
+        Task task = findTask(command);
+        command.checkAllUsed();
+        manager.removeTask(task);
+        results.append(",\"id\":").append(task.getId());
+    }
+
+    /** Every filter that is given must match (they are combined with "and"). */
+    private void query(Command command, StringBuilder results) {
+        TaskQuery query = TaskQuery.all();
+        String status = command.take("status");
+        if (status != null) {
+            switch (status.toLowerCase(Locale.ROOT)) {
+                case "pending":
+                    query = query.and(TaskQuery.pending());
+                    break;
+                case "completed":
+                    query = query.and(TaskQuery.completed());
+                    break;
+                case "all":
+                    break;
+                default:
+                    throw new IllegalArgumentException("status must be pending, completed or all: " + status);
+            }
+        }
+        String priority = command.take("priority");
+        if (priority != null) {
+            query = query.and(TaskQuery.priorityIn(parsePriority(priority, null)));
+        }
+        String type = command.take("type");
+        if (type != null) {
+            query = query.and(TaskQuery.typeIs(type));
+        }
+        String assignee = command.take("assignee");
+        if (assignee != null) {
+            query = query.and(TaskQuery.assigneeIs(assignee));
+        }
+        if (command.takeFlag("overdue")) {
+            query = query.and(TaskQuery.overdue());
+        }
+        String limitText = command.take("limit");
+        long limit = limitText == null ? Integer.MAX_VALUE : parseLong("limit", limitText);
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative: " + limit);
+        }
+        command.checkAllUsed();
+
+        // "count" is every match; only the first "limit" are listed
+        List<Task> found = manager.findTasks(query, (int) Math.min(limit, Integer.MAX_VALUE));
+        int count = limitText == null ? found.size() : manager.countTasks(query);
+        results.append(",\"count\":").append(count).append(",\"tasks\":[");
+        for (int i = 0; i < found.size(); i++) {
+            if (i > 0) {
+                results.append(',');
+            }
+            appendTask(results, found.get(i));
+        }
+        results.append(']');
+    }
+
+    /** Totals, like the summary line of the window. */
+    private void report(StringBuilder results) {
+        int total = manager.getTotalCount();
+        int completed = manager.getCompletedCount();
+        results.append(",\"total\":").append(total)
+               .append(",\"completed\":").append(completed)
+               .append(",\"pending\":").append(total - completed)
+               .append(",\"overdue\":").append(manager.countTasks(TaskQuery.overdue().and(TaskQuery.pending())))
+               .append(",\"pendingByPriority\":{");
+        Task.Priority[] priorities = Task.Priority.values();
+        for (int i = 0; i < priorities.length; i++) {
+            if (i > 0) {
+                results.append(',');
+            }
+            int count = manager.countTasks(TaskQuery.priorityIn(priorities[i]).and(TaskQuery.pending()));
+            appendString(results, priorities[i].name());
+            results.append(':').append(count);
+        }
+        results.append('}');
+    }
+
+    // ───────────────────────────────────────────────
+    // Values
+    // ───────────────────────────────────────────────
+
+    private Task findTask(Command command) {
+        String idText = command.take("id");
+        if (idText == null) {
+            throw new IllegalArgumentException(command.name + " needs an id");
+        }
+        long id = parseLong("id", idText);
+        Task task = manager.getTask(id);
+        if (task == null) {
+            throw new IllegalArgumentException("unknown task id " + id);
+        }
+        return task;
+    }
+
+    /** "2026-03-01", or null for a missing or empty value (no due date). */
+    private static LocalDate parseDate(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        // Fast path for the plain YYYY-MM-DD form: LocalDate.parse is
+        // general (and slow), and scripts carry a date on most lines
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (DateTimeException e) {
+                    throw new IllegalArgumentException("not a date: " + text);   // e.g. 2026-02-30
+                }
+            }
+        }
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("not a date (use YYYY-MM-DD): " + text);
+        }
+    }
+
+    /** "high", "Medium", "LOW", ... */
+    private static Task.Priority parsePriority(String text, Task.Priority ifMissing) {
+        if (text == null) {
+            return ifMissing;
+        }
+        try {
+            return Task.Priority.valueOf(text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("priority must be HIGH, MEDIUM or LOW: " + text);
+        }
+    }
+
+    /** The number in text[from, to), or -1 if there is anything but digits. */
+    private static int digits(String text, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    private static long parseLong(String key, String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a number: " + text);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // JSON output
+    // ───────────────────────────────────────────────
+
+    private static void appendTask(StringBuilder sb, Task task) {
+        sb.append("{\"id\":").append(task.getId()).append(",\"title\":");
+        appendString(sb, task.getTitle());
+        sb.append(",\"assignee\":");
+        appendString(sb, task.getAssignee());
+        sb.append(",\"due\":");
+        if (task.getDueDate() == null) {
+            sb.append("null");
+        } else {
+            appendString(sb, task.getDueDate().toString());
+        }
+        sb.append(",\"type\":");
+        appendString(sb, task.getType());
+        sb.append(",\"priority\":");
+        appendString(sb, task.getPriority().name());
+        sb.append(",\"completed\":").append(task.isCompleted())
+          .append(",\"version\":").append(task.getVersion())
+          .append('}');
+    }
+
+    /** A JSON string: quotes, backslashes and control characters are escaped. */
+    static void appendString(StringBuilder sb, String text) {
+        sb.append('"');
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':  sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    // ───────────────────────────────────────────────
+    // Parsing one line
+    // ───────────────────────────────────────────────
+
+    /**
+     * One parsed line: the command name, its key=value pairs and its bare
+     * words (flags such as "overdue").
+     *
+     * Handlers take() the values they understand and call checkAllUsed()
+     * BEFORE changing anything: whatever is left over is a typo, and the
+     * command fails instead of half-applying it.
+     *
+     * A line has only a handful of values, so they are kept in two small
+     * arrays and searched one by one — cheaper than a HashMap per line.
+     */
+    static final class Command {
+        final String name;
+        private String[] keys = new String[8];
+        private String[] values = new String[8];
+        private int valueCount = 0;   // slots in use; taken ones are set to null
+        private final List<String> flags = new ArrayList<>(2);
+
+        private Command(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Splits a line into words. A word is a bare word, key=value, or
+         * key="value with spaces" (inside quotes, \" is a quote and \\ a
+         * backslash).
+         */
+        static Command parse(String line) {
+            Command command = null;
+            int i = 0;
+            int n = line.length();
+            StringBuilder value = new StringBuilder();
+            while (i < n) {
+                // Skip spaces between words
+                while (i < n && Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                if (i == n) {
+                    break;
+                }
+                int wordStart = i;
+                while (i < n && line.charAt(i) != '=' && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                String key = line.substring(wordStart, i);
+                if (command == null) {
+                    if (i < n && line.charAt(i) == '=') {
+                        throw new IllegalArgumentException("a line must start with a command, not " + key + "=");
+                    }
+                    command = new Command(key.toLowerCase(Locale.ROOT));
+                    continue;
+                }
+                if (i == n || line.charAt(i) != '=') {
+                    command.flags.add(key);
+                    continue;
+                }
+                i++;   // the '='
+
+                value.setLength(0);
+                if (i < n && line.charAt(i) == '"') {
+                    i++;
+                    boolean closed = false;
+                    while (i < n) {
+                        char c = line.charAt(i++);
+                        if (c == '"') {
+                            closed = true;
+                            break;
+                        }
+                        if (c == '\\' && i < n) {
+                            c = line.charAt(i++);
+                        }
+                        value.append(c);
+                    }
+                    if (!closed) {
+                        throw new IllegalArgumentException("missing closing quote after " + key + "=");
+                    }
+                } else {
+                    while (i < n && !Character.isWhitespace(line.charAt(i))) {
+                        value.append(line.charAt(i++));
+                    }
+                }
+                command.put(key, value.toString());
+            }
+            return command;
+        }
+
+        private void put(String key, String value) {
+            if (indexOf(key) >= 0) {
+                throw new IllegalArgumentException(key + " is given twice");
+            }
+            if (valueCount == keys.length) {
+                keys = Arrays.copyOf(keys, valueCount * 2);
+                values = Arrays.copyOf(values, valueCount * 2);
+            }
+            keys[valueCount] = key;
+            values[valueCount] = value;
+            valueCount++;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < valueCount; i++) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** The value of key=..., or null if the line has none. */
+        String take(String key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            keys[i] = null;   // taken
+            return values[i];
+        }
+
+        /** True if the bare word was on the line. */
+        boolean takeFlag(String flag) {
+            return flags.remove(flag);
+        }
+
+        void checkAllUsed() {
+            for (int i = 0; i < valueCount; i++) {
+                if (keys[i] != null) {
+                    throw new IllegalArgumentException(name + " does not know " + keys[i] + "=");
+                }
+            }
+            if (!flags.isEmpty()) {
+                throw new IllegalArgumentException(name + " does not know \"" + flags.get(0) + "\"");
+            }
+        }
+    }
+}
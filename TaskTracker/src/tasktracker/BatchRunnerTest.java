@@ -0,0 +1,120 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BatchRunner (the headless command mode).
+ */
+class BatchRunnerTest {
+
+    /** Runs a script and returns the output lines. */
+    private static List<String> run(TaskManager manager, String script, int batchSize) throws IOException {
+        StringWriter out = new StringWriter();
+        new BatchRunner(manager, out, batchSize).run(new BufferedReader(new StringReader(script)));
+        return out.toString().lines().toList();
+    }
+
+    @Test
+    void testEveryCommandPrintsOneJsonLine() throws IOException {
+        TaskManager manager = new TaskManager();
+        String script = String.join("\n",
+                "# a comment, then an empty line",
+                "",
+                "add title=\"Write report\" assignee=Ann due=2020-01-01 type=Work priority=high",
+                "add title=\"Say \\\"hi\\\"\"",
+                "edit id=2 priority=LOW due=2099-12-31",
+                "complete id=1",
+                "query status=pending",
+                "report",
+                "delete id=2",
+                "query");
+        List<String> out = run(manager, script, 3);   // small batches: several flushes
+
+        assertEquals(List.of(
+                "{\"line\":3,\"ok\":true,\"id\":1}",
+                "{\"line\":4,\"ok\":true,\"id\":2}",
+                "{\"line\":5,\"ok\":true,\"id\":2,\"version\":2}",
+                "{\"line\":6,\"ok\":true,\"id\":1,\"changed\":true}",
+                "{\"line\":7,\"ok\":true,\"count\":1,\"tasks\":[{\"id\":2,\"title\":\"Say \\\"hi\\\"\","
+                        + "\"assignee\":\"\",\"due\":\"2099-12-31\",\"type\":\"\",\"priority\":\"LOW\","
+                        + "\"completed\":false,\"version\":2}]}",
+                "{\"line\":8,\"ok\":true,\"total\":2,\"completed\":1,\"pending\":1,\"overdue\":0,"
+                        + "\"pendingByPriority\":{\"LOW\":1,\"MEDIUM\":0,\"HIGH\":0}}",
+                "{\"line\":9,\"ok\":true,\"id\":2}",
+                "{\"line\":10,\"ok\":true,\"count\":1,\"tasks\":[{\"id\":1,\"title\":\"Write report\","
+                        + "\"assignee\":\"Ann\",\"due\":\"2020-01-01\",\"type\":\"Work\",\"priority\":\"HIGH\","
+                        + "\"completed\":true,\"version\":2}]}"),
+                out);
+
+        Task report = manager.getTask(1);
+        assertEquals(LocalDate.of(2020, 1, 1), report.getDueDate());
+        assertTrue(report.isCompleted());
+        assertNull(manager.getTask(2));
+    }
+
+    @Test
+    void testBadCommandsFailWithoutChangingAnything() throws IOException {
+        TaskManager manager = new TaskManager();
+        StringWriter out = new StringWriter();
+        BatchRunner runner = new BatchRunner(manager, out);
+        String script = String.join("\n",
+                "add title=Keep",
+                "add title=Typo priorty=HIGH",       // unknown key: nothing is added
+                "add title=X due=tomorrow",
+                "add title=X due=2026-02-30",
+                "add title=\"no end",
+                "complete id=99",
+                "edit id=1 title=Changed version=0",   // a new task is at version 0
+                "edit id=1 title=Again version=0",     // now at 2: conflict
+                "launch id=1",
+                "query overdue sorted");
+
+        long failed = runner.run(new BufferedReader(new StringReader(script)));
+        List<String> lines = out.toString().lines().toList();
+
+        assertEquals(10, lines.size());
+        assertEquals(8, failed);
+        assertEquals(10, runner.getCommandCount());
+        assertEquals("{\"line\":2,\"ok\":false,\"error\":\"add does not know priorty=\"}", lines.get(1));
+        assertTrue(lines.get(2).contains("not a date"), lines.get(2));
+        assertTrue(lines.get(3).contains("not a date"), lines.get(3));
+        assertTrue(lines.get(4).contains("missing closing quote"), lines.get(4));
+        assertTrue(lines.get(5).contains("unknown task id 99"), lines.get(5));
+        assertTrue(lines.get(6).startsWith("{\"line\":7,\"ok\":true"), lines.get(6));
+        assertTrue(lines.get(7).contains("was changed since version 0"), lines.get(7));
+        assertTrue(lines.get(8).contains("unknown command"), lines.get(8));
+        assertTrue(lines.get(9).contains("does not know \\\"sorted\\\""), lines.get(9));
+
+        assertEquals(1, manager.getTotalCount());
+        assertEquals("Changed", manager.getTask(1).getTitle());
+    }
+
+    /** --batch opens its board without undo: the batches must not pile up as undo steps. */
+    @Test
+    void testHeadlessBoardKeepsNoUndoSteps(@TempDir Path dir) throws IOException {
+        try (Board board = Board.open("batch", dir.resolve("batch.board"), false)) {
+            TaskManager manager = board.getManager();
+            run(manager, "add title=One\nadd title=Two\ncomplete id=1", 2);
+
+            assertEquals(2, manager.getTotalCount());
+            assertFalse(manager.getUndoJournal().isEnabled());
+            assertEquals(0, manager.getUndoJournal().getUndoCount());
+            assertEquals(0, manager.getUndoJournal().getBytes());
+        }
+        try (Board board = Board.open("batch", dir.resolve("batch.board"))) {
+            assertTrue(board.getManager().getUndoJournal().isEnabled(), "the GUI's boards keep undo");
+            assertEquals(2, board.getManager().getTotalCount(), "saved all the same");
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package tasktracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Board is one project's tasks, LOADED and ready to use: its TaskManager,
+ * its change history, and the operation log that protects it from crashes.
+ *
+ * On disk a board named "website" is a group of files next to each other:
+ *   website.board          the tasks (a SnapshotCodec checkpoint)
+ *   website.board.log/     changes since that checkpoint (see WriteBehindLog)
+ *   website.board.history  who changed what, and when (see TaskHistory)
+ *   website.board.archive  tasks completed long ago (see TaskArchive)
+ *
+ * open() reads them (checkpoint, then the newer logged changes, then the
+ * history and the archive) and starts logging; close() writes a fresh
+ * checkpoint and history and clears the log. A board that was never
+ * closed properly (a crash) simply has more log to replay next time.
+ *
+ * Tasks completed more than ARCHIVE_AFTER_DAYS ago are moved to the
+ * archive when the board is opened and when it is closed, so the board
+ * in memory only holds recent work.
+ *
+ * Boards are normally opened through BoardRegistry, which keeps only the
+ * recently used ones in memory. The GUI's single-file mode streams the
+ * tasks in the background instead (see BoardLoader), so the first page
+ * shows at once, and then hands them to attach() — from there on it is
+ * the same Board, with the same logging, archiving and saving.
+ */
+public final class Board implements Closeable {
+
+    /**
+     * Rough heap cost of one task with its index entries, used for the
+     * registry's memory budget (measured with TaskBenchmarks "boards").
+     */
+    static final long BYTES_PER_TASK = 700;
+
+    /** Rough fixed cost of a loaded board: indexes, log buffer, history. */
+    static final long BYTES_PER_BOARD = 64 * 1024;
+
+    /** Completed tasks older than this many days go to the archive. */
+    static final int ARCHIVE_AFTER_DAYS = 30;
+
+    /** Compact once sealed log segments take this much disk space. */
+    private static final long COMPACT_THRESHOLD_BYTES = 16L * 1024 * 1024;
+    private static final long COMPACT_CHECK_MILLIS = 5_000;
+
+    /** How often read() tries when the checkpoint keeps changing under it. */
+    private static final int READ_ATTEMPTS = 3;
+
+    /** Test hook step of read(): the checkpoint is read, the log not yet. */
+    static final String STEP_CHECKPOINT_READ = "checkpoint-read";
+
+    private final String name;
+    private final Path file;
+    private final TaskManager manager;
+    private final TaskHistory history;
+    private WriteBehindLog log;
+    private LogCompactor compactor;
+    private int archivedOnOpen = 0;
+    private final List<String> warnings = new ArrayList<>();
+    private boolean closed = false;
+
+    private Board(String name, Path file, TaskManager manager, TaskHistory history) {
+        this.name = name;
+        this.file = file;
+        this.manager = manager;
+        this.history = history;
+    }
+
+    /**
+     * Loads the board stored in this file (a missing file is a new, empty
+     * board) and starts logging its changes.
+     */
+    public static Board open(String name, Path file) throws IOException {
+        return open(name, file, true);
+    }
+
+    /**
+     * Same as open(name, file), but with undo = false the undo journal
+     * stays OFF: nobody will ever press Undo in a headless run (--batch,
+     * --report), so recording every change would only cost memory.
+     */
+    public static Board open(String name, Path file, boolean undo) throws IOException {
+        // 1. The checkpoint, then the changes logged after it
+        TaskManager manager = new TaskManager();
+        manager.getUndoJournal().setEnabled(false);   // loading is nothing to undo
+        long lastSequence = readTasks(file, manager, step -> { });
+
+        // 2. The history and the archive, and start logging
+        List<String> warnings = new ArrayList<>();
+        TaskHistory history = readHistory(name, file, warnings);
+        return attach(name, file, manager, lastSequence,
+                history, TaskArchive.open(archiveFileFor(file)), warnings, undo);
+    }
+
+    /**
+     * Reads the board stored in this file WITHOUT opening it: the
+     * checkpoint, the changes logged after it, and the archive, into a
+     * plain TaskManager (undo off). Nothing is logged, archived or written
+     * — the --report mode uses it.
+     *
+     * The board may be open in a window at the same time. Its LogCompactor
+     * (or its close()) can then write a new checkpoint and delete the log
+     * segments between our reading the checkpoint and reading the log: we
+     * would find a hole ("missing changes"), a segment gone, or no log at
+     * all. So if the checkpoint has changed by the time the log is read,
+     * or reading failed, everything is read again from the new checkpoint
+     * (up to READ_ATTEMPTS times).
+     */
+    public static TaskManager read(Path file) throws IOException {
+        return read(file, step -> { });
+    }
+
+    /** Same as read(file); "steps" hears STEP_CHECKPOINT_READ (a test hook). */
+    static TaskManager read(Path file, LogCompactor.StepListener steps) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            Object before = checkpointStamp(file);
+            TaskManager manager = new TaskManager();
+            manager.getUndoJournal().setEnabled(false);
+            try {
+                readTasks(file, manager, steps);
+            } catch (IOException e) {
+                if (attempt == READ_ATTEMPTS || before.equals(checkpointStamp(file))) {
+                    throw e;   // not a checkpoint written under our feet: a real error
+                }
+                continue;
+            }
+            if (attempt < READ_ATTEMPTS && !before.equals(checkpointStamp(file))) {
+                continue;      // the log we read may already have been cut off
+            }
+            manager.setArchive(TaskArchive.read(archiveFileFor(file)));   // only in memory
+            return manager;
+        }
+    }
+
+    /**
+     * Something that changes whenever the checkpoint file is replaced:
+     * its file key (the inode, where there is one), time and size.
+     */
+    private static Object checkpointStamp(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return "missing";
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+    }
+
+    /**
+     * Adds the checkpoint's tasks to the manager and replays the changes
+     * logged after it. Only reads files. Returns the last sequence read.
+     */
+    private static long readTasks(Path file, TaskManager manager, LogCompactor.StepListener steps)
+            throws IOException {
+        Map<Long, Task> checkpoint = new LinkedHashMap<>();
+        long lastSequence = LogCompactor.readCheckpoint(file, checkpoint);
+        for (Task t : checkpoint.values()) {
+            manager.addTask(t);
+        }
+        steps.reached(STEP_CHECKPOINT_READ);
+        for (WriteBehindLog.Entry e : WriteBehindLog.readEntries(logDirectoryFor(file), lastSequence)) {
+            manager.apply(e.getOperation());
+            lastSequence = e.getSequence();
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Makes a Board of tasks that were already read from this board's
+     * files: "manager" holds the checkpoint plus the logged changes up to
+     * lastSequence (nothing more — those would not be logged), with its
+     * undo journal off. The GUI uses this after BoardLoader has streamed
+     * the tasks in.
+     *
+     * history = the saved history (see readHistory), archive = the opened
+     * archive file, warnings = what went wrong while reading them (kept
+     * for getWarnings), undo = switch the undo journal on once loaded.
+     * Returns the board with logging started.
+     */
+    static Board attach(String name, Path file, TaskManager manager, long lastSequence,
+                        TaskHistory history, TaskArchive archive, List<String> warnings,
+                        boolean undo) throws IOException {
+        // 1. The history hears about what it has not seen (e.g. changes replayed from the log)
+        history.syncWith(manager.getTasks());
+        manager.addListener(history);
+
+        // 2. The archive (a task on the board wins over its archived copy),
+        //    then every change is logged from now on
+        Board board = new Board(name, file, manager, history);
+        board.warnings.addAll(warnings);
+        try {
+            manager.setArchive(archive);
+            board.startLog(lastSequence, List.of());
+        } catch (IOException e) {
+            manager.removeListener(history);   // leave the manager as it was given
+            throw e;
+        }
+
+        // 3. Old work goes to the archive (logged like any change)
+        board.archivedOnOpen = board.archiveOldTasks();
+        manager.getUndoJournal().setEnabled(undo);   // empty: undo starts from here
+        return board;
+    }
+
+    /**
+     * Reads the change history of a board file. A missing one is a new,
+     * empty history — and so is an unreadable one: it does not stop the
+     * board from opening, but the reason is added to "warnings" so the
+     * user can be told (see getWarnings).
+     */
+    static TaskHistory readHistory(String name, Path file, List<String> warnings) {
+        Path historyFile = historyFileFor(file);
+        if (Files.exists(historyFile)) {
+            try {
+                return TaskHistory.readFile(historyFile);
+            } catch (IOException e) {
+                warnings.add("Could not read the task history of " + name
+                        + ", started a new one: " + e.getMessage());
+            }
+        }
+        return new TaskHistory();
+    }
+
+    /**
+     * Moves tasks completed more than ARCHIVE_AFTER_DAYS ago to the archive.
+     * A failure (of the archive, or of the log that records the moves)
+     * only means they stay on the board for now; it is kept for getWarnings.
+     * Returns how many were moved.
+     */
+    private int archiveOldTasks() {
+        try {
+            return manager.archiveCompleted(Today.get().minusDays(ARCHIVE_AFTER_DAYS));
+        } catch (IOException | UncheckedIOException e) {
+            warnings.add("Could not archive the old tasks of " + name + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Starts the log after lastSequence, first writing "again" (entries of a
+     * failed log) that the directory does not hold yet.
+     */
+    private void startLog(long lastSequence, List<WriteBehindLog.Entry> again) throws IOException {
+        log = new WriteBehindLog(logDirectoryFor(file),
+                WriteBehindLog.DurabilityPolicy.ON_IDLE, 0,
+                lastSequence, WriteBehindLog.DEFAULT_SEGMENT_BYTES);
+        for (WriteBehindLog.Entry e : again) {
+            if (e.getSequence() <= log.getLastSequence()) {
+                continue;   // it reached the disk after all
+            }
+            if (e.getSequence() != log.getLastSequence() + 1) {
+                log.close();
+                throw new IOException("Operation log " + log.getDirectory()
+                        + " is missing changes " + (log.getLastSequence() + 1) + " to " + (e.getSequence() - 1));
+            }
+            log.append(e.getOperation());
+        }
+        manager.addListener(log);
+        compactor = new LogCompactor(file, log, COMPACT_THRESHOLD_BYTES);
+        compactor.start(COMPACT_CHECK_MILLIS);
+    }
+
+    public String getName() { return name; }
+    public Path getFile() { return file; }
+    public TaskManager getManager() { return manager; }
+    public TaskHistory getHistory() { return history; }
+
+    /** How many old completed tasks were moved to the archive when the board was opened. */
+    public int getArchivedOnOpen() { return archivedOnOpen; }
+
+    /**
+     * What went wrong without stopping the board: an unreadable history
+     * (a new one was started) or old tasks that could not be archived.
+     * The GUI shows them in its status bar. Empty if all went well.
+     */
+    public synchronized List<String> getWarnings() { return new ArrayList<>(warnings); }
+
+    /** Rough heap size of this board (see BYTES_PER_TASK), archive included. */
+    public long estimatedBytes() {
+        return BYTES_PER_BOARD + manager.getTotalCount() * BYTES_PER_TASK
+                + manager.getArchive().encodedBytes();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops logging and writes the checkpoint and the history. The log is
+     * only cleared once both are safely written.
+     *
+     * If the log's writer has failed, the checkpoint is written all the
+     * same: it holds every change, logged or not. If writing fails the
+     * board stays open and logging starts again (see restartLog), so
+     * nothing is lost and close() can be tried later.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        archiveOldTasks();   // logged like any change, so still safe if saving fails
+        compactor.close();   // waits for a running compaction
+        manager.removeListener(log);
+        long lastSequence = log.getLastSequence();
+        IOException logFailure = null;
+        try {
+            log.close();     // every logged change is on disk now...
+        } catch (IOException e) {
+            logFailure = e;  // ...or not: then only the checkpoint has them
+        }
+        try {
+            SnapshotCodec.writeFile(manager.getTasks(), file, true, lastSequence);
+            history.writeFile(historyFileFor(file));
+            WriteBehindLog.deleteSegments(logDirectoryFor(file));
+        } catch (IOException e) {
+            if (logFailure != null) {
+                e.addSuppressed(logFailure);
+            }
+            try {
+                restartLog(log, logFailure != null);
+            } catch (IOException again) {
+                e.addSuppressed(again);
+            }
+            throw e;
+        }
+        closed = true;
+    }
+
+    /**
+     * Starts logging again after close() could not save the board.
+     *
+     * If the old log's writer had failed, the changes after its durable
+     * sequence may be missing from disk. Numbering on after them would
+     * leave a hole, and a log with a hole cannot be replayed (see
+     * WriteBehindLog.readEntries) — the board would not open again. So the
+     * new log continues after what IS on disk, and the missing changes are
+     * written again, with the same numbers.
+     */
+    private void restartLog(WriteBehindLog old, boolean failed) throws IOException {
+        if (!failed) {
+            startLog(old.getLastSequence(), List.of());
+        } else {
+            startLog(old.getDurableSequence(), old.getUnwrittenEntries());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + manager.getTotalCount() + " tasks)";
+    }
+
+    // ───────────────────────────────────────────────
+    // Files that belong to a board
+    // ───────────────────────────────────────────────
+
+    /** The operation log directory belonging to a board file: "<board>.log". */
+    static Path logDirectoryFor(Path board) {
+        return board.resolveSibling(board.getFileName() + ".log");
+    }
+
+    /** The change history belonging to a board file: "<board>.history". */
+    static Path historyFileFor(Path board) {
+        return board.resolveSibling(board.getFileName() + ".history");
+    }
+
+    /** The archive belonging to a board file: "<board>.archive". */
+    static Path archiveFileFor(Path board) {
+        return board.resolveSibling(board.getFileName() + ".archive");
+    }
+}
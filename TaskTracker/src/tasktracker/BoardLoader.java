@@ -0,0 +1,173 @@
+package tasktracker;
+
+import javax.swing.SwingWorker;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BoardLoader reads a saved board (a SnapshotCodec file) in the BACKGROUND,
+ * followed by the operation log written since that snapshot (see WriteBehindLog).
+ * The snapshot remembers the last log sequence it contains, so only newer
+ * operations are replayed.
+ *
+ * Why?
+ *  - Reading a big board can take a while.
+ *  - If we did it before opening the window, the user would stare at
+ *    nothing until every task was loaded.
+ *
+ * SwingWorker runs doInBackground() on a worker thread. Every call to
+ * publish(...) hands tasks to process(...), which Swing runs on the EDT,
+ * so the GUI can safely add them to the TaskManager.
+ *
+ * The first PAGE_SIZE tasks are published straight away so the list fills
+ * quickly; after that tasks are handed over in larger batches.
+ *
+ * The log operations are read last and handed to the GUI in done(), which
+ * applies them on top of the snapshot (for example after a crash) and then
+ * hands the loaded tasks to Board.attach — BoardLoader only does the
+ * reading; logging, archiving and saving are the Board's job.
+ *
+ * The board's change history (see TaskHistory) is read too. A missing or
+ * unreadable history does not stop the board from loading; a new one is
+ * started instead, and the reason is handed on as a warning.
+ *
+ * So is the archive of old completed tasks (see TaskArchive). An
+ * unreadable archive DOES stop loading, like an unreadable snapshot:
+ * otherwise archiving more tasks would overwrite it.
+ */
+public class BoardLoader extends SwingWorker<Integer, Task> {
+
+    /** Tasks in the first batch (roughly one screen of the list). */
+    static final int PAGE_SIZE = 50;
+
+    /** Tasks per batch after the first page. */
+    private static final int BATCH_SIZE = 5_000;
+
+    private final Path file;
+    private final Path logDirectory;
+    private final TaskTrackerGUI gui;
+
+    // Read on the worker thread, used in done() (after get(), so it is visible)
+    private List<TaskOperation> loggedOperations = new ArrayList<>();
+    private long snapshotSequence = 0;
+    private long lastSequence = 0;
+    private TaskHistory history = null;   // never null once loaded (see Board.readHistory)
+    private TaskArchive archive = null;
+    private final List<String> warnings = new ArrayList<>();
+
+    public BoardLoader(Path file, TaskTrackerGUI gui) {
+        this.file = file;
+        this.logDirectory = Board.logDirectoryFor(file);
+        this.gui = gui;
+    }
+
+    /**
+     * Runs on a background thread. Returns the number of tasks read.
+     */
+    @Override
+    protected Integer doInBackground() throws IOException {
+        int count = Files.exists(file) ? readSnapshot() : 0;
+
+        // Changes made after the snapshot was saved
+        List<TaskOperation> operations = new ArrayList<>();
+        long last = snapshotSequence;
+        for (WriteBehindLog.Entry entry : WriteBehindLog.readEntries(logDirectory, snapshotSequence)) {
+            operations.add(entry.getOperation());
+            last = entry.getSequence();
+        }
+        loggedOperations = operations;
+        lastSequence = last;
+
+        history = Board.readHistory(file.getFileName().toString(), file, warnings);
+
+        // Only opened: its tasks stay packed until someone searches it
+        archive = TaskArchive.open(Board.archiveFileFor(file));
+        return count;
+    }
+
+    private int readSnapshot() throws IOException {
+        long fileSize = Math.max(1, Files.size(file));
+        int count = 0;
+
+        CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+        try (InputStream in = new BufferedInputStream(counter)) {
+            SnapshotCodec.Reader reader = new SnapshotCodec.Reader(in);
+            snapshotSequence = reader.getLogSequence();
+
+            List<Task> batch = new ArrayList<>(PAGE_SIZE);
+            int batchLimit = PAGE_SIZE;
+            Task task;
+            while ((task = reader.read()) != null && !isCancelled()) {
+                batch.add(task);
+                count++;
+
+                if (batch.size() >= batchLimit) {
+                    publish(batch.toArray(new Task[0]));
+                    batch.clear();
+                    batchLimit = BATCH_SIZE;
+                    setProgress((int) Math.min(99, counter.count * 100 / fileSize));
+                }
+            }
+            publish(batch.toArray(new Task[0]));
+        }
+        return count;
+    }
+
+    /**
+     * Runs on the EDT: hands the next tasks to the GUI.
+     */
+    @Override
+    protected void process(List<Task> chunk) {
+        gui.appendLoadedTasks(chunk);
+    }
+
+    /**
+     * Runs on the EDT when loading has finished (or failed).
+     */
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            int count = get();
+            gui.replayOperations(loggedOperations, lastSequence);
+            gui.finishLoading(count, history, archive, warnings, null);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            gui.finishLoading(0, null, null, List.of(), cause);
+        }
+    }
+
+    /**
+     * Counts bytes read so we can show a progress percentage
+     * (the number of tasks in the file is not known in advance).
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;   // only used on the worker thread
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
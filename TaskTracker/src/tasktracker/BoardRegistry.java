@@ -0,0 +1,209 @@
+package tasktracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * BoardRegistry holds many boards (one per project) in one directory and
+ * keeps only the RECENTLY USED ones in memory.
+ *
+ *  - Every "<name>.board" file in the directory is a board. Listing them
+ *    never loads anything, so a directory with hundreds of boards is fine.
+ *  - open(name) returns the loaded Board. If it is already in memory this
+ *    is instant; otherwise it is loaded from disk (see Board.open).
+ *  - MEMORY BUDGET: after every open, the least recently used boards are
+ *    saved and closed until the loaded boards fit in the budget again
+ *    (sizes are estimates, see Board.estimatedBytes). The board just
+ *    opened is never evicted, even if it alone is over budget.
+ *  - A LinkedHashMap in ACCESS order does the LRU bookkeeping, the same
+ *    way as in CachingTaskRepository.
+ *
+ * A board whose save fails stays loaded (nothing is dropped that is not
+ * safely on disk) and eviction stops for this round; getEvictionFailure()
+ * tells why, so the GUI can show it.
+ *
+ * A Board object is only valid until it is evicted, so don't keep one
+ * around: ask open(name) again (it is instant for a recent board).
+ *
+ * All methods are synchronized. Loading happens inside open(), so call it
+ * from a background thread when the board may not be loaded yet.
+ */
+public final class BoardRegistry implements Closeable {
+
+    /** File name ending of a board. */
+    public static final String EXTENSION = ".board";
+
+    /** Letters, digits, spaces, '-' and '_' (so a name is always a safe file name). */
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9 _-]{1,64}");
+
+    private final Path directory;
+    private final long budgetBytes;
+
+    // Loaded boards, least recently used first (true = access order)
+    private final LinkedHashMap<String, Board> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    // ==== Metrics ====
+    private long loads = 0;
+    private long evictions = 0;
+    private String evictionFailure = null;
+
+    /**
+     * @param directory   where the board files are (created if needed)
+     * @param budgetBytes how much memory the loaded boards may use (estimated)
+     */
+    public BoardRegistry(Path directory, long budgetBytes) throws IOException {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("budget must be positive: " + budgetBytes);
+        }
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+        Files.createDirectories(directory);
+    }
+
+    /** True if this can be used as a board name. */
+    public static boolean isValidName(String name) {
+        return name != null && VALID_NAME.matcher(name).matches() && name.trim().equals(name);
+    }
+
+    // ───────────────────────────────────────────────
+    // Boards
+    // ───────────────────────────────────────────────
+
+    /** Names of all boards (on disk or loaded), in alphabetical order. */
+    public synchronized List<String> getBoardNames() throws IOException {
+        TreeSet<String> names = new TreeSet<>(loaded.keySet());
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(f -> f.getFileName().toString())
+                 .filter(f -> f.endsWith(EXTENSION))
+                 .map(f -> f.substring(0, f.length() - EXTENSION.length()))
+                 .filter(BoardRegistry::isValidName)
+                 .forEach(names::add);
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * The board with this name, loading it if needed (a new name creates
+     * an empty board). Makes it the most recently used board, then evicts
+     * others if the budget is exceeded.
+     */
+    public synchronized Board open(String name) throws IOException {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Not a valid board name: \"" + name + "\"");
+        }
+        Board board = loaded.get(name);   // moves it to the "recent" end
+        if (board == null) {
+            board = Board.open(name, fileFor(name));
+            loaded.put(name, board);
+            loads++;
+        }
+        evictOverBudget();
+        return board;
+    }
+
+    /** True if the board is in memory (so open(name) will be instant). */
+    public synchronized boolean isLoaded(String name) {
+        return loaded.containsKey(name);
+    }
+
+    /** Names of the loaded boards, most recently used first. */
+    public synchronized List<String> getLoadedNames() {
+        List<String> names = new ArrayList<>(loaded.keySet());
+        Collections.reverse(names);
+        return names;
+    }
+
+    /** Estimated memory used by the loaded boards. */
+    public synchronized long getLoadedBytes() {
+        long total = 0;
+        for (Board b : loaded.values()) {
+            total += b.estimatedBytes();
+        }
+        return total;
+    }
+
+    public long getBudgetBytes() { return budgetBytes; }
+    public synchronized long getLoads() { return loads; }
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Why the last eviction round could not save a board (it stays loaded,
+     * unsaved), or null if that round saved everything it evicted.
+     */
+    public synchronized String getEvictionFailure() { return evictionFailure; }
+
+    /** Saves and closes every loaded board. Tries all of them, then throws the first error. */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException first = null;
+        Iterator<Board> it = loaded.values().iterator();
+        while (it.hasNext()) {
+            try {
+                it.next().close();
+                it.remove();
+            } catch (IOException e) {
+                if (first == null) {
+                    first = e;
+                } else {
+                    first.addSuppressed(e);
+                }
+            }
+        }
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Eviction
+    // ───────────────────────────────────────────────
+
+    /** Closes least recently used boards until the rest fit (the newest always stays). */
+    private void evictOverBudget() {
+        evictionFailure = null;
+        long total = getLoadedBytes();
+        Iterator<Map.Entry<String, Board>> it = loaded.entrySet().iterator();   // eldest first
+        while (total > budgetBytes && loaded.size() > 1 && it.hasNext()) {
+            Board eldest = it.next().getValue();
+            long size = eldest.estimatedBytes();
+            try {
+                eldest.close();   // saves it
+            } catch (IOException e) {
+                evictionFailure = "Could not save board " + eldest.getName()
+                        + ", keeping it loaded: " + e.getMessage();
+                return;
+            }
+            it.remove();
+            evictions++;
+            total -= size;
+        }
+    }
+
+    private Path fileFor(String name) {
+        return directory.resolve(name + EXTENSION);
+    }
+
+    /** Example: "3 of 120 boards loaded, 41 MB of 64 MB (loads 9, evictions 6)" */
+    @Override
+    public synchronized String toString() {
+        int total;
+        try {
+            total = getBoardNames().size();
+        } catch (IOException e) {
+            total = loaded.size();
+        }
+        return String.format("%d of %d boards loaded, %,d MB of %,d MB (loads %d, evictions %d)",
+                loaded.size(), total, getLoadedBytes() >> 20, budgetBytes >> 20, loads, evictions);
+    }
+}
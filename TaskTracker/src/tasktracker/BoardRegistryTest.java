@@ -0,0 +1,176 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoardRegistry (many boards, LRU eviction to disk), and
+ * for a Board that cannot save.
+ */
+class BoardRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    /** Room for two boards with one task each. */
+    private static final long TWO_BOARDS = 2 * (Board.BYTES_PER_BOARD + Board.BYTES_PER_TASK);
+
+    @Test
+    void testLeastRecentlyUsedBoardIsEvictedAndReloaded() throws IOException {
+        try (BoardRegistry registry = new BoardRegistry(dir, TWO_BOARDS)) {
+            Board alpha = registry.open("alpha");
+            alpha.getManager().addTask("Alpha task");
+            registry.open("beta").getManager().addTask("Beta task");
+
+            assertSame(alpha, registry.open("alpha"), "still loaded: the same object");
+            registry.open("gamma");   // over budget: beta is the least recently used
+
+            assertEquals(List.of("gamma", "alpha"), registry.getLoadedNames());
+            assertFalse(registry.isLoaded("beta"));
+            assertTrue(Files.exists(dir.resolve("beta.board")), "saved on eviction");
+            assertEquals(1, registry.getEvictions());
+
+            // Opening beta again loads it from disk, with its history
+            Board beta = registry.open("beta");
+            assertEquals("Beta task", beta.getManager().getTasks().get(0).getTitle());
+            assertEquals(1, beta.getHistory().historyOf(beta.getManager().getTasks().get(0).getId()).size());
+            assertEquals(4, registry.getLoads());
+            assertEquals(List.of("alpha", "beta", "gamma"), registry.getBoardNames());
+        }
+
+        // Closing the registry saved the rest
+        try (BoardRegistry again = new BoardRegistry(dir, TWO_BOARDS)) {
+            assertEquals(List.of("alpha", "beta", "gamma"), again.getBoardNames());
+            assertEquals("Alpha task", again.open("alpha").getManager().getTasks().get(0).getTitle());
+        }
+    }
+
+    @Test
+    void testNewestBoardStaysEvenOverBudget() throws IOException {
+        try (BoardRegistry registry = new BoardRegistry(dir, 1)) {
+            Board big = registry.open("big");
+            for (int i = 0; i < 100; i++) {
+                big.getManager().addTask(TaskBenchmarks.sampleTask(i));
+            }
+            registry.open("small");
+            assertEquals(List.of("small"), registry.getLoadedNames());
+            assertTrue(big.isClosed());
+            assertEquals(100, registry.open("big").getManager().getTotalCount());
+        }
+    }
+
+    /**
+     * The log's writer dies, and then saving fails too: the board must
+     * log again WITHOUT a hole, so that it can still be opened.
+     */
+    @Test
+    void testFailedLogAndFailedSaveLeaveNoHole() throws Exception {
+        Path file = dir.resolve("team.board");
+        Set<Thread> before = logWriters();
+        Board board = Board.open("team", file);
+        Set<Thread> writers = logWriters();
+        writers.removeAll(before);
+        assertEquals(1, writers.size());
+        TaskManager manager = board.getManager();
+        manager.addTask("Logged");
+
+        Thread writer = writers.iterator().next();
+        writer.interrupt();   // the writer fails (like a broken disk would)
+        writer.join();
+        assertThrows(UncheckedIOException.class, () -> manager.addTask("After the failure"),
+                "the change is not on disk, and the caller is told");
+        assertEquals(2, manager.getTotalCount(), "but it is on the board");
+
+        // A directory where the checkpoint's temp file should go: saving fails
+        Path blocker = dir.resolve("team.board.tmp");
+        Files.createDirectories(blocker.resolve("in the way"));
+        assertThrows(IOException.class, board::close);
+        assertFalse(board.isClosed());
+        manager.addTask("After the restart");
+
+        // The log on disk replays (no "missing changes") to all three tasks
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Board.read(file).getTotalCount() < 3) {
+            assertTrue(System.currentTimeMillis() < deadline, "the new log never caught up");
+            Thread.sleep(10);
+        }
+        assertEquals(3, Board.read(file).getTotalCount());
+
+        Files.delete(blocker.resolve("in the way"));
+        Files.delete(blocker);
+        board.close();
+        try (Board again = Board.open("team", file)) {
+            assertEquals(3, again.getManager().getTotalCount());
+        }
+    }
+
+    private static Set<Thread> logWriters() {
+        Set<Thread> writers = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("task-log-writer") && t.isAlive()) {
+                writers.add(t);
+            }
+        }
+        return writers;
+    }
+
+    /** A board that cannot be saved on eviction stays loaded, and the registry says why. */
+    @Test
+    void testFailedEvictionIsReported() throws IOException {
+        try (BoardRegistry registry = new BoardRegistry(dir, TWO_BOARDS)) {
+            registry.open("alpha").getManager().addTask("Alpha task");
+            registry.open("beta").getManager().addTask("Beta task");
+            Path blocker = dir.resolve("alpha.board.tmp");
+            Files.createDirectories(blocker.resolve("in the way"));
+
+            registry.open("gamma");   // alpha should go, but cannot be saved
+            assertTrue(registry.isLoaded("alpha"));
+            assertNotNull(registry.getEvictionFailure());
+            assertTrue(registry.getEvictionFailure().contains("alpha"), registry.getEvictionFailure());
+
+            Files.delete(blocker.resolve("in the way"));
+            Files.delete(blocker);
+            registry.open("gamma");   // the next round saves it
+            assertFalse(registry.isLoaded("alpha"));
+            assertNull(registry.getEvictionFailure());
+        }
+    }
+
+    /** An unreadable history does not stop the board, but it is not kept quiet either. */
+    @Test
+    void testUnreadableHistoryIsAWarning() throws IOException {
+        Path file = dir.resolve("team.board");
+        try (Board board = Board.open("team", file)) {
+            assertEquals(List.of(), board.getWarnings());
+            board.getManager().addTask("Task");
+        }
+        Files.write(Board.historyFileFor(file), new byte[] { 1, 2, 3 });
+
+        try (Board board = Board.open("team", file)) {
+            assertEquals(1, board.getManager().getTotalCount());
+            assertEquals(1, board.getWarnings().size());
+            assertTrue(board.getWarnings().get(0).contains("history"), board.getWarnings().get(0));
+        }
+    }
+
+    @Test
+    void testBoardNamesAreChecked() throws IOException {
+        try (BoardRegistry registry = new BoardRegistry(dir, TWO_BOARDS)) {
+            assertThrows(IllegalArgumentException.class, () -> registry.open("../escape"));
+            assertThrows(IllegalArgumentException.class, () -> registry.open(""));
+            assertThrows(IllegalArgumentException.class, () -> registry.open(" padded "));
+            assertTrue(BoardRegistry.isValidName("Website 2025_v-2"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BoardRegistry(dir, 0));
+    }
+}
@@ -0,0 +1,420 @@
+package tasktracker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BoardReport holds the numbers of one report over a board (its archived
+ * tasks included), as of one day:
+ *
+ *  - OVERDUE BY ASSIGNEE: per person, how many open tasks are overdue,
+ *    and by how many days (in total, and the worst one)
+ *  - AGING: open tasks per priority, by how long they are overdue
+ *    (no due date, not due yet, 1-7 days, 8-30, 31-90, 91-365, over a year)
+ *  - COMPLETION TREND: per type, how many tasks were completed in each of
+ *    the last N weeks (by their completion date), plus how many are open
+ *
+ * ReportEngine fills it in. Every thread of the engine fills its own
+ * BoardReport for its part of the board (add), and the parts are then
+ * added together (merge) — so no locks or shared counters are needed
+ * while counting. Only the totals are kept: the report never holds on
+ * to the tasks themselves, however big the board is.
+ *
+ * The result is written straight to a Writer as CSV or HTML (writeCsv,
+ * writeHtml), one row at a time, without building the text in memory.
+ */
+public final class BoardReport {
+
+    /** Weeks in the completion trend, unless asked otherwise. */
+    public static final int DEFAULT_WEEKS = 12;
+
+    /** Column names of the aging histogram, see ageBucket. */
+    private static final String[] AGE_BUCKETS = {
+            "no due date", "not due yet", "1-7 days", "8-30 days", "31-90 days", "91-365 days", "over a year"
+    };
+
+    /** Shown for tasks without an assignee or type. */
+    private static final String NONE = "(none)";
+
+    /** One person's overdue tasks. */
+    private static final class Overdue {
+        long tasks;
+        long days;      // days overdue, all tasks together
+        long maxDays;   // the task overdue the longest
+
+        void merge(Overdue other) {
+            tasks += other.tasks;
+            days += other.days;
+            maxDays = Math.max(maxDays, other.maxDays);
+        }
+    }
+
+    /** One type's completions per week, and its open tasks. */
+    private static final class Trend {
+        final long[] completedByWeek;   // [0] = oldest week, [weeks - 1] = this week
+        long open;
+
+        Trend(int weeks) {
+            completedByWeek = new long[weeks];
+        }
+
+        void merge(Trend other) {
+            for (int w = 0; w < completedByWeek.length; w++) {
+                completedByWeek[w] += other.completedByWeek[w];
+            }
+            open += other.open;
+        }
+    }
+
+    private final LocalDate today;
+    private final long todayDay;   // today.toEpochDay(), so add() needs no LocalDate math
+    private final int weeks;
+
+    private long total;
+    private long completed;
+    private long overdue;
+    private final Map<String, Overdue> overdueByAssignee = new HashMap<>();
+    private final long[][] aging = new long[Task.Priority.values().length][AGE_BUCKETS.length];
+    private final Map<String, Trend> trendByType = new HashMap<>();
+
+    BoardReport(LocalDate today, int weeks) {
+        if (weeks < 1) {
+            throw new IllegalArgumentException("weeks must be at least 1: " + weeks);
+        }
+        this.today = today;
+        this.todayDay = today.toEpochDay();
+        this.weeks = weeks;
+    }
+
+    // ───────────────────────────────────────────────
+    // Counting (ReportEngine)
+    // ───────────────────────────────────────────────
+
+    /** Counts one task. */
+    void add(Task task) {
+        total++;
+        String type = task.getType() == null ? "" : task.getType();
+        Trend trend = trendByType.get(type);
+        if (trend == null) {
+            trend = new Trend(weeks);
+            trendByType.put(type, trend);
+        }
+
+        if (task.isCompleted()) {
+            completed++;
+            LocalDate completedOn = task.getCompletedOn();
+            if (completedOn != null) {
+                long daysAgo = todayDay - completedOn.toEpochDay();
+                if (daysAgo >= 0 && daysAgo < 7L * weeks) {
+                    trend.completedByWeek[weeks - 1 - (int) (daysAgo / 7)]++;
+                }
+            }
+            return;
+        }
+
+        trend.open++;
+        LocalDate due = task.getNextDueDate();
+        long daysOverdue = due == null ? 0 : todayDay - due.toEpochDay();
+        aging[task.getPriority().ordinal()][ageBucket(due, daysOverdue)]++;
+        if (due != null && daysOverdue > 0) {
+            overdue++;
+            String assignee = task.getAssignee() == null ? "" : task.getAssignee();
+            Overdue person = overdueByAssignee.get(assignee);
+            if (person == null) {
+                person = new Overdue();
+                overdueByAssignee.put(assignee, person);
+            }
+            person.tasks++;
+            person.days += daysOverdue;
+            person.maxDays = Math.max(person.maxDays, daysOverdue);
+        }
+    }
+
+    /**
+     * Adds the counts of another part of the same board (same day and
+     * weeks). "other" is used up: its counters may now belong to this one.
+     */
+    void merge(BoardReport other) {
+        total += other.total;
+        completed += other.completed;
+        overdue += other.overdue;
+        for (Map.Entry<String, Overdue> e : other.overdueByAssignee.entrySet()) {
+            Overdue mine = overdueByAssignee.putIfAbsent(e.getKey(), e.getValue());
+            if (mine != null) {
+                mine.merge(e.getValue());
+            }
+        }
+        for (int p = 0; p < aging.length; p++) {
+            for (int b = 0; b < AGE_BUCKETS.length; b++) {
+                aging[p][b] += other.aging[p][b];
+            }
+        }
+        for (Map.Entry<String, Trend> e : other.trendByType.entrySet()) {
+            Trend mine = trendByType.putIfAbsent(e.getKey(), e.getValue());
+            if (mine != null) {
+                mine.merge(e.getValue());
+            }
+        }
+    }
+
+    /** Which column of the aging histogram an open task goes in. */
+    private static int ageBucket(LocalDate due, long daysOverdue) {
+        if (due == null) {
+            return 0;
+        } else if (daysOverdue <= 0) {
+            return 1;
+        } else if (daysOverdue <= 7) {
+            return 2;
+        } else if (daysOverdue <= 30) {
+            return 3;
+        } else if (daysOverdue <= 90) {
+            return 4;
+        } else if (daysOverdue <= 365) {
+            return 5;
+        } else {
+            return 6;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Reading the numbers
+    // ───────────────────────────────────────────────
+
+    public LocalDate getToday() { return today; }
+    public int getWeeks() { return weeks; }
+    public long getTotal() { return total; }
+    public long getCompleted() { return completed; }
+    public long getOpen() { return total - completed; }
+    public long getOverdue() { return overdue; }
+
+    /** The names of the aging histogram's columns, in order. */
+    public static List<String> getAgeBuckets() {
+        return List.of(AGE_BUCKETS);
+    }
+
+    /** Open tasks of this priority, per column of getAgeBuckets(). */
+    public long[] getAging(Task.Priority priority) {
+        return aging[priority.ordinal()].clone();
+    }
+
+    /** Overdue open tasks of this assignee ("" = unassigned). */
+    public long getOverdueCount(String assignee) {
+        Overdue person = overdueByAssignee.get(assignee);
+        return person == null ? 0 : person.tasks;
+    }
+
+    /** Assignees with overdue tasks: most overdue tasks first, then by name. */
+    public List<String> getOverdueAssignees() {
+        List<String> names = new ArrayList<>(overdueByAssignee.keySet());
+        names.sort((a, b) -> {
+            int byCount = Long.compare(overdueByAssignee.get(b).tasks, overdueByAssignee.get(a).tasks);
+            return byCount != 0 ? byCount : a.compareTo(b);
+        });
+        return names;
+    }
+
+    /** All types on the board, by name ("" = no type). */
+    public List<String> getTypes() {
+        List<String> types = new ArrayList<>(trendByType.keySet());
+        types.sort(null);
+        return types;
+    }
+
+    /** Tasks of this type completed per week, oldest week first (see getWeekStart). */
+    public long[] getCompletedByWeek(String type) {
+        Trend trend = trendByType.get(type);
+        return trend == null ? new long[weeks] : trend.completedByWeek.clone();
+    }
+
+    /** Open tasks of this type. */
+    public long getOpen(String type) {
+        Trend trend = trendByType.get(type);
+        return trend == null ? 0 : trend.open;
+    }
+
+    /** First day of trend week w (0 = oldest); the last week ends today. */
+    public LocalDate getWeekStart(int w) {
+        return today.minusDays(7L * (weeks - w) - 1);
+    }
+
+    // ───────────────────────────────────────────────
+    // CSV
+    // ───────────────────────────────────────────────
+
+    /**
+     * Writes the report as one CSV table of "report,group,column,value"
+     * rows, e.g.
+     *
+     *   totals,,open,1520
+     *   overdue,Ann,tasks,12
+     *   aging,HIGH,8-30 days,40
+     *   trend,Work,2025-05-26,17
+     *
+     * One table (instead of three with different columns) so a
+     * spreadsheet can filter or pivot it, and a script can read it with
+     * any CSV reader. Trend columns are the first day of each week.
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("report,group,column,value\r\n");
+        csvRow(out, "totals", "", "tasks", total);
+        csvRow(out, "totals", "", "open", getOpen());
+        csvRow(out, "totals", "", "completed", completed);
+        csvRow(out, "totals", "", "overdue", overdue);
+
+        for (String name : getOverdueAssignees()) {
+            Overdue person = overdueByAssignee.get(name);
+            String group = name.isEmpty() ? NONE : name;
+            csvRow(out, "overdue", group, "tasks", person.tasks);
+            csvRow(out, "overdue", group, "days overdue", person.days);
+            csvRow(out, "overdue", group, "most days overdue", person.maxDays);
+        }
+
+        for (Task.Priority priority : Task.Priority.values()) {
+            for (int b = 0; b < AGE_BUCKETS.length; b++) {
+                csvRow(out, "aging", priority.name(), AGE_BUCKETS[b], aging[priority.ordinal()][b]);
+            }
+        }
+
+        for (String type : getTypes()) {
+            Trend trend = trendByType.get(type);
+            String group = type.isEmpty() ? NONE : type;
+            for (int w = 0; w < weeks; w++) {
+                csvRow(out, "trend", group, getWeekStart(w).toString(), trend.completedByWeek[w]);
+            }
+            csvRow(out, "trend", group, "open", trend.open);
+        }
+    }
+
+    private static void csvRow(Writer out, String report, String group, String column, long value)
+            throws IOException {
+        out.write(report);
+        out.write(',');
+        writeCsvField(out, group);
+        out.write(',');
+        writeCsvField(out, column);
+        out.write(',');
+        out.write(Long.toString(value));
+        out.write("\r\n");   // RFC 4180 line ends
+    }
+
+    /** A field in quotes if it needs them (comma, quote or line break), with quotes doubled. */
+    private static void writeCsvField(Writer out, String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    // ───────────────────────────────────────────────
+    // HTML
+    // ───────────────────────────────────────────────
+
+    /** Writes the report as a small HTML page with one table per report. */
+    public void writeHtml(Writer out) throws IOException {
+        out.write("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Task report ");
+        out.write(today.toString());
+        out.write("</title>\n<style>table{border-collapse:collapse;margin-bottom:1.5em}"
+                + "th,td{border:1px solid #ccc;padding:2px 8px}td{text-align:right}"
+                + "th:first-child,td:first-child{text-align:left}</style></head><body>\n");
+        out.write("<h1>Task report " + today + "</h1>\n");
+        out.write("<p>" + total + " tasks: " + getOpen() + " open, " + completed + " completed, "
+                + overdue + " overdue.</p>\n");
+
+        out.write("<h2>Overdue by assignee</h2>\n<table>\n");
+        htmlHeader(out, "Assignee", "Tasks", "Days overdue", "Average", "Longest");
+        for (String name : getOverdueAssignees()) {
+            Overdue person = overdueByAssignee.get(name);
+            out.write("<tr><td>");
+            writeHtmlText(out, name.isEmpty() ? NONE : name);
+            out.write("</td><td>" + person.tasks + "</td><td>" + person.days
+                    + "</td><td>" + (person.days / person.tasks) + "</td><td>" + person.maxDays + "</td></tr>\n");
+        }
+        out.write("</table>\n");
+
+        out.write("<h2>Aging of open tasks</h2>\n<table>\n");
+        String[] columns = new String[AGE_BUCKETS.length + 1];
+        columns[0] = "Priority";
+        System.arraycopy(AGE_BUCKETS, 0, columns, 1, AGE_BUCKETS.length);
+        htmlHeader(out, columns);
+        for (Task.Priority priority : Task.Priority.values()) {
+            out.write("<tr><td>" + priority + "</td>");
+            for (long count : aging[priority.ordinal()]) {
+                out.write("<td>" + count + "</td>");
+            }
+            out.write("</tr>\n");
+        }
+        out.write("</table>\n");
+
+        out.write("<h2>Completed per week, by type</h2>\n<table>\n");
+        columns = new String[weeks + 2];
+        columns[0] = "Type";
+        for (int w = 0; w < weeks; w++) {
+            columns[w + 1] = getWeekStart(w).toString();
+        }
+        columns[weeks + 1] = "Open";
+        htmlHeader(out, columns);
+        for (String type : getTypes()) {
+            Trend trend = trendByType.get(type);
+            out.write("<tr><td>");
+            writeHtmlText(out, type.isEmpty() ? NONE : type);
+            out.write("</td>");
+            for (long count : trend.completedByWeek) {
+                out.write("<td>" + count + "</td>");
+            }
+            out.write("<td>" + trend.open + "</td></tr>\n");
+        }
+        out.write("</table>\n</body></html>\n");
+    }
+
+    private static void htmlHeader(Writer out, String... columns) throws IOException {
+        out.write("<tr>");
+        for (String column : columns) {
+            out.write("<th>");
+            writeHtmlText(out, column);
+            out.write("</th>");
+        }
+        out.write("</tr>\n");
+    }
+
+    /** Names come from users: &, <, >, and quotes must not become markup. */
+    private static void writeHtmlText(Writer out, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    out.write("&amp;");
+                    break;
+                case '<':
+                    out.write("&lt;");
+                    break;
+                case '>':
+                    out.write("&gt;");
+                    break;
+                case '"':
+                    out.write("&quot;");
+                    break;
+                default:
+                    out.write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package tasktracker;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache in front of another (slower) TaskRepository.
+ *
+ *  - READ-THROUGH: findById first looks in the cache; only on a miss does
+ *    it ask the repository behind it, and keeps the answer.
+ *  - WRITE-THROUGH: save and delete go straight to the repository behind,
+ *    and the cache is updated too. Nothing is ever "dirty", so an evicted
+ *    task never has to be written back.
+ *  - LRU EVICTION: at most "capacity" tasks are kept. When a new one comes
+ *    in, the Least Recently Used one is dropped. A LinkedHashMap in
+ *    access order does the bookkeeping: every get moves an entry to the
+ *    end, so the eldest entry is always the least recently used.
+ *
+ * Why LRU? Boards are used with strong locality — the tasks on screen and
+ * the ones just edited are read again and again, the rest rarely.
+ *
+ * It is meant for code that READS a big repository by id (e.g. a tool
+ * looking tasks up in a FileTaskRepository). TaskManager never reads its
+ * repository after it has started (see TaskRepository), so in front of
+ * TaskManager's repository a cache gets no hits.
+ *
+ * findAll (a full scan) reads around the cache instead of through it, so
+ * one scan does not push the whole working set out.
+ *
+ * Hits, misses and evictions are counted, so the hit rate can be checked
+ * (see getHitRate and TaskBenchmarks "repository").
+ *
+ * All methods are synchronized: even a read changes the LRU order.
+ */
+public class CachingTaskRepository implements TaskRepository {
+
+    private final TaskRepository backing;
+    private final int capacity;
+    private final LinkedHashMap<Long, Task> cache;
+
+    // ==== Metrics ====
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param backing  the repository that really stores the tasks
+     * @param capacity the most tasks kept in the cache (at least 1)
+     */
+    public CachingTaskRepository(TaskRepository backing, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.backing = backing;
+        this.capacity = capacity;
+        // true = access order (LRU), not insertion order
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Task> eldest) {
+                if (size() > CachingTaskRepository.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void save(Task task) {
+        backing.save(task);   // first, so a failed write leaves the cache alone
+        cache.put(task.getId(), task);
+    }
+
+    @Override
+    public synchronized boolean delete(long id) {
+        cache.remove(id);
+        return backing.delete(id);
+    }
+
+    @Override
+    public synchronized Task findById(long id) {
+        Task task = cache.get(id);
+        if (task != null) {
+            hits++;
+            return task;
+        }
+        misses++;
+        task = backing.findById(id);
+        if (task != null) {
+            cache.put(id, task);
+        }
+        return task;
+    }
+
+    @Override
+    public synchronized boolean contains(long id) {
+        return backing.contains(id);   // a cached task is always stored behind too
+    }
+
+    /**
+     * Every task from the repository behind, with cached objects used where
+     * there are any. The LRU order and the metrics are not changed.
+     */
+    @Override
+    public synchronized List<Task> findAll() {
+        Map<Long, Task> cached = new HashMap<>(cache);   // copying does not count as access
+        List<Task> all = backing.findAll();
+        for (int i = 0; i < all.size(); i++) {
+            Task same = cached.get(all.get(i).getId());
+            if (same != null) {
+                all.set(i, same);
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public synchronized int size() {
+        return backing.size();
+    }
+
+    /** Closes the repository behind the cache. */
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        backing.close();
+    }
+
+    // ───────────────────────────────────────────────
+    // Metrics
+    // ───────────────────────────────────────────────
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int getCachedCount() { return cache.size(); }
+    public int getCapacity() { return capacity; }
+
+    /** Share of findById calls answered from the cache (0–1). */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /** Example: "cache 4,096/4,096, hit rate 93.1% (hits 9,310, misses 690, evictions 12)" */
+    @Override
+    public synchronized String toString() {
+        return String.format("cache %,d/%,d, hit rate %.1f%% (hits %,d, misses %,d, evictions %,d)",
+                cache.size(), capacity, getHitRate() * 100, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,274 @@
+package tasktracker;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * CalendarHeatMapPanel shows the WORKLOAD ahead: how many open tasks are
+ * due on each day, week or month, as cells that get darker the more is
+ * due. Hovering a cell shows the exact numbers (open and all tasks).
+ *
+ *   Days   — a calendar: one row per week (Mon..Sun), from two weeks ago
+ *   Weeks  — one bar per week, for the next WEEKS_SHOWN weeks
+ *   Months — one bar per month, for the next MONTHS_SHOWN months
+ *
+ * Every number comes from TaskManager.countDue / countDueByDay, which
+ * are range counts over Fenwick trees (see DueDateCounter) — so redrawing
+ * after every change costs a few hundred O(log n) lookups, however big
+ * the board is. Nothing here loops over the tasks.
+ *
+ * Call showWorkload(manager) after every change (TaskTrackerGUI.refreshView does).
+ */
+public class CalendarHeatMapPanel extends JPanel {
+
+    private enum Granularity { DAYS, WEEKS, MONTHS }
+
+    /** Rows of the day calendar (two past weeks, this week, and the rest ahead). */
+    private static final int CALENDAR_WEEKS = 10;
+    private static final int WEEKS_SHOWN = 12;
+    private static final int MONTHS_SHOWN = 6;
+    private static final int NEXT_DAYS = 30;
+
+    private static final int CELL = 26;        // size of a day cell, in pixels
+    private static final int ROW = 18;         // height of a week/month bar
+    private static final int LABEL_WIDTH = 52; // room for "Jun 02" left of a bar
+
+    private static final Color EMPTY = new Color(235, 237, 240);
+    private static final Color LIGHT = new Color(255, 224, 178);
+    private static final Color DARK = new Color(191, 54, 12);
+
+    private static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("MMM dd", Locale.ENGLISH);
+
+    private final JComboBox<Granularity> granularityCombo = new JComboBox<>(Granularity.values());
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final Grid grid = new Grid();
+
+    private TaskManager manager;
+
+    // ==== What is drawn (filled in by recount) ====
+    private Granularity shown = Granularity.DAYS;
+    private LocalDate[] starts = new LocalDate[0];   // first day of every cell
+    private LocalDate[] ends = new LocalDate[0];     // last day of every cell
+    private int[] open = new int[0];
+    private int[] all = new int[0];
+    private int maxOpen = 0;
+    private LocalDate today = Today.get();
+
+    public CalendarHeatMapPanel() {
+        super(new BorderLayout(5, 5));
+        setBorder(BorderFactory.createTitledBorder("Workload"));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        top.add(new JLabel("Due per:"));
+        top.add(granularityCombo);
+        granularityCombo.addActionListener(e -> {
+            recount();
+            grid.revalidate();
+            grid.repaint();
+        });
+        add(top, BorderLayout.NORTH);
+
+        add(grid, BorderLayout.CENTER);
+        add(summaryLabel, BorderLayout.SOUTH);
+    }
+
+    /** Shows the workload of this board (call again after every change). */
+    public void showWorkload(TaskManager manager) {
+        this.manager = manager;
+        recount();
+        grid.revalidate();
+        grid.repaint();
+    }
+
+    // ───────────────────────────────────────────────
+    // Counting
+    // ───────────────────────────────────────────────
+
+    private void recount() {
+        if (manager == null) {
+            return;
+        }
+        today = Today.get();
+        Granularity picked = (Granularity) granularityCombo.getSelectedItem();
+        shown = picked == null ? Granularity.DAYS : picked;
+        switch (shown) {
+            case WEEKS:
+                countWeeks();
+                break;
+            case MONTHS:
+                countMonths();
+                break;
+            default:
+                countDays();
+                break;
+        }
+        maxOpen = 0;
+        for (int n : open) {
+            maxOpen = Math.max(maxOpen, n);
+        }
+
+        int overdue = manager.countDue(null, today.minusDays(1), true);
+        int soon = manager.countDue(today, today.plusDays(NEXT_DAYS - 1), true);
+        summaryLabel.setText("<html>Open, due in the next " + NEXT_DAYS + " days: <b>" + soon
+                + "</b><br>Overdue: <b>" + overdue + "</b></html>");
+    }
+
+    private void countDays() {
+        LocalDate first = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(2);
+        int days = CALENDAR_WEEKS * 7;
+        open = manager.countDueByDay(first, days, true);
+        all = manager.countDueByDay(first, days, false);
+        starts = new LocalDate[days];
+        for (int i = 0; i < days; i++) {
+            starts[i] = first.plusDays(i);
+        }
+        ends = starts;   // one day per cell
+    }
+
+    private void countWeeks() {
+        LocalDate first = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        fillRanges(WEEKS_SHOWN, i -> first.plusWeeks(i), start -> start.plusDays(6));
+    }
+
+    private void countMonths() {
+        LocalDate first = today.withDayOfMonth(1);
+        fillRanges(MONTHS_SHOWN, i -> first.plusMonths(i), start -> start.plusMonths(1).minusDays(1));
+    }
+
+    private void fillRanges(int count, IntFunction<LocalDate> startOf, UnaryOperator<LocalDate> endOf) {
+        starts = new LocalDate[count];
+        ends = new LocalDate[count];
+        open = new int[count];
+        all = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = startOf.apply(i);
+            ends[i] = endOf.apply(starts[i]);
+            open[i] = manager.countDue(starts[i], ends[i], true);
+            all[i] = manager.countDue(starts[i], ends[i], false);
+        }
+    }
+
+    /** EMPTY for 0, then from LIGHT to DARK as the count nears the busiest cell. */
+    private Color colorFor(int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        double share = maxOpen <= 1 ? 1 : (count - 1) / (double) (maxOpen - 1);
+        return new Color(
+                (int) (LIGHT.getRed() + share * (DARK.getRed() - LIGHT.getRed())),
+                (int) (LIGHT.getGreen() + share * (DARK.getGreen() - LIGHT.getGreen())),
+                (int) (LIGHT.getBlue() + share * (DARK.getBlue() - LIGHT.getBlue())));
+    }
+
+    private boolean isDayCalendar() {
+        return shown == Granularity.DAYS;
+    }
+
+    // ───────────────────────────────────────────────
+    // Drawing
+    // ───────────────────────────────────────────────
+
+    /** The cells themselves; tooltips come from getToolTipText(event). */
+    private final class Grid extends JComponent {
+
+        Grid() {
+            setToolTipText("");   // turns tooltips on
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            if (isDayCalendar()) {
+                return new Dimension(7 * CELL, ROW + CALENDAR_WEEKS * CELL);
+            }
+            return new Dimension(LABEL_WIDTH + 7 * CELL, starts.length * (ROW + 2));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(getFont().deriveFont(10f));
+            FontMetrics fm = g2.getFontMetrics();
+
+            if (isDayCalendar()) {
+                // Weekday letters, then one row per week
+                for (int d = 0; d < 7; d++) {
+                    String name = DayOfWeek.of(d + 1).getDisplayName(TextStyle.NARROW, Locale.ENGLISH);
+                    g2.setColor(Color.GRAY);
+                    g2.drawString(name, d * CELL + (CELL - fm.stringWidth(name)) / 2, fm.getAscent());
+                }
+                for (int i = 0; i < starts.length; i++) {
+                    int x = (i % 7) * CELL;
+                    int y = ROW + (i / 7) * CELL;
+                    g2.setColor(colorFor(open[i]));
+                    g2.fillRect(x + 1, y + 1, CELL - 2, CELL - 2);
+                    if (starts[i].equals(today)) {
+                        g2.setColor(Color.BLUE);
+                        g2.drawRect(x, y, CELL - 1, CELL - 1);
+                    }
+                    String day = String.valueOf(starts[i].getDayOfMonth());
+                    g2.setColor(starts[i].isBefore(today) ? Color.GRAY : Color.DARK_GRAY);
+                    g2.drawString(day, x + (CELL - fm.stringWidth(day)) / 2, y + (CELL + fm.getAscent()) / 2 - 1);
+                }
+                return;
+            }
+
+            // One bar per week or month: length and colour grow with the open count
+            int barRoom = getWidth() - LABEL_WIDTH - 4;
+            for (int i = 0; i < starts.length; i++) {
+                int y = i * (ROW + 2);
+                String label = shown == Granularity.MONTHS ? starts[i].getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH)
+                        + " " + starts[i].getYear() % 100
+                        : starts[i].format(SHORT_DATE);
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawString(label, 2, y + (ROW + fm.getAscent()) / 2 - 1);
+
+                int length = maxOpen == 0 ? 0 : Math.max(open[i] > 0 ? 2 : 0, barRoom * open[i] / maxOpen);
+                g2.setColor(EMPTY);
+                g2.fillRect(LABEL_WIDTH, y + 2, barRoom, ROW - 4);
+                g2.setColor(colorFor(open[i]));
+                g2.fillRect(LABEL_WIDTH, y + 2, length, ROW - 4);
+                if (open[i] > 0) {
+                    String n = String.valueOf(open[i]);
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(n, LABEL_WIDTH + 3, y + (ROW + fm.getAscent()) / 2 - 1);
+                }
+            }
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            int i = cellAt(e.getX(), e.getY());
+            if (i < 0) {
+                return null;
+            }
+            String when = isDayCalendar()
+                    ? starts[i].getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + starts[i]
+                    : starts[i] + " .. " + ends[i];
+            return when + ": " + open[i] + " open of " + all[i] + " due";
+        }
+
+        /** The cell under a point, or -1. */
+        private int cellAt(int x, int y) {
+            int i;
+            if (isDayCalendar()) {
+                if (y < ROW || x >= 7 * CELL) {
+                    return -1;
+                }
+                i = (y - ROW) / CELL * 7 + x / CELL;
+            } else {
+                i = y / (ROW + 2);
+            }
+            return i < starts.length ? i : -1;
+        }
+    }
+}
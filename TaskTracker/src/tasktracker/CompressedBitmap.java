@@ -0,0 +1,592 @@
+package tasktracker;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * CompressedBitmap is a set of non-negative ints, stored the way
+ * "Roaring" bitmaps do it.
+ *
+ * How it works:
+ *  - Every number is split into a HIGH part (top 16 bits) and a LOW part
+ *    (bottom 16 bits).
+ *  - All numbers with the same high part live in one CONTAINER.
+ *  - A container with few values (up to 4096) is a sorted char[] array
+ *    ("array container", 2 bytes per value).
+ *  - A container with many values is a plain bitmap of 65536 bits
+ *    ("bitmap container", always 8 KB).
+ *
+ * This keeps sparse sets small and dense sets fast, and AND / OR / AND NOT
+ * work container by container without looking at single values.
+ *
+ * The set operations (and, or, andNot) never change their inputs —
+ * they always return a new bitmap.
+ *
+ * This class is NOT thread-safe.
+ */
+public class CompressedBitmap {
+
+    /** Above this many values an array container turns into a bitmap container. */
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;   // 1024 longs = 65536 bits
+
+    private char[] keys = new char[4];              // high 16 bits, sorted
+    private Container[] containers = new Container[4];
+    private int size = 0;                           // number of containers in use
+
+    // ==== Single values ====
+
+    public void add(int value) {
+        checkValue(value);
+        char key = highBits(value);
+        int i = findKey(key);
+        if (i >= 0) {
+            containers[i] = containers[i].add(lowBits(value));
+        } else {
+            insertContainer(-i - 1, key, new ArrayContainer().add(lowBits(value)));
+        }
+    }
+
+    /** Removes every value. */
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    public void remove(int value) {
+        if (value < 0) return;
+        int i = findKey(highBits(value));
+        if (i < 0) return;
+
+        Container c = containers[i].remove(lowBits(value));
+        if (c.cardinality() == 0) {
+            removeContainer(i);
+        } else {
+            containers[i] = c;
+        }
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int i = findKey(highBits(value));
+        return i >= 0 && containers[i].contains(lowBits(value));
+    }
+
+    /** Number of values in the set. */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Calls the action for every value, in increasing order. */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /** Rough number of bytes used by the containers (for memory budgets). */
+    public long estimatedBytes() {
+        long total = 16L + keys.length * 2L + containers.length * 8L;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].bytes();
+        }
+        return total;
+    }
+
+    // ==== Set operations ====
+
+    /** Values that are in BOTH bitmaps. */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0) {
+                    result.appendContainer(keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Values that are in EITHER bitmap. */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendContainer(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Values in this bitmap that are NOT in the other one. */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container c = (j < other.size && other.keys[j] == keys[i])
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (c.cardinality() > 0) {
+                result.appendContainer(keys[i], c);
+            }
+        }
+        return result;
+    }
+
+    /** Number of values in both bitmaps, without building the result. */
+    public int andCardinality(CompressedBitmap other) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * OR of any number of bitmaps.
+     *
+     * Instead of OR-ing them one after another (which would copy the growing
+     * result every time), all containers with the same key are OR-ed into one
+     * 65536-bit accumulator, which is converted to the right container at the end.
+     */
+    public static CompressedBitmap orAll(Iterable<CompressedBitmap> bitmaps) {
+        Map<Character, BitmapContainer> accumulators = new TreeMap<>();
+        for (CompressedBitmap b : bitmaps) {
+            for (int i = 0; i < b.size; i++) {
+                BitmapContainer target = accumulators.computeIfAbsent(b.keys[i], k -> new BitmapContainer());
+                b.containers[i].orInto(target.words);
+            }
+        }
+
+        CompressedBitmap result = new CompressedBitmap();
+        for (Map.Entry<Character, BitmapContainer> e : accumulators.entrySet()) {
+            BitmapContainer c = e.getValue();
+            int count = 0;
+            for (long w : c.words) {
+                count += Long.bitCount(w);
+            }
+            c.cardinality = count;
+            result.appendContainer(e.getKey(), count <= ARRAY_LIMIT ? c.toArray() : c);
+        }
+        return result;
+    }
+
+    public CompressedBitmap copy() {
+        return new CompressedBitmap().or(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompressedBitmap)) return false;
+        CompressedBitmap other = (CompressedBitmap) o;
+        if (size != other.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i] || !containers[i].sameValues(other.containers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {size};
+        forEach(v -> hash[0] = 31 * hash[0] + v);
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(v -> sb.append(sb.length() > 1 ? ", " : "").append(v));
+        return sb.append('}').toString();
+    }
+
+    // ───────────────────────────────────────────────
+    // Container bookkeeping
+    // ───────────────────────────────────────────────
+
+    private static char highBits(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char lowBits(int value) {
+        return (char) value;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative values allowed: " + value);
+        }
+    }
+
+    /** Binary search; returns -(insertPoint + 1) if not found (like Arrays.binarySearch). */
+    private int findKey(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = c;
+        size++;
+    }
+
+    /** Adds a container with a key larger than all current keys. */
+    private void appendContainer(char key, Container c) {
+        insertContainer(size, key, c);
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    // ───────────────────────────────────────────────
+    // Containers
+    // ───────────────────────────────────────────────
+
+    /**
+     * One block of up to 65536 values that share the same high 16 bits.
+     * Methods return the container to use afterwards — it may be a
+     * different kind (array ↔ bitmap) when the cardinality crosses ARRAY_LIMIT.
+     */
+    private abstract static class Container {
+        abstract Container add(char value);
+        abstract Container remove(char value);
+        abstract boolean contains(char value);
+        abstract int cardinality();
+        abstract void forEach(int high, IntConsumer action);
+        abstract long bytes();
+        abstract Container copy();
+        abstract BitmapContainer toBitmap();
+        abstract void orInto(long[] words);
+
+        Container and(Container other) {
+            if (this instanceof ArrayContainer) {
+                return ((ArrayContainer) this).filter(other, true);
+            }
+            if (other instanceof ArrayContainer) {
+                return ((ArrayContainer) other).filter(this, true);
+            }
+            return ((BitmapContainer) this).combine((BitmapContainer) other, Op.AND);
+        }
+
+        Container or(Container other) {
+            if (this instanceof ArrayContainer && other instanceof ArrayContainer
+                    && cardinality() + other.cardinality() <= ARRAY_LIMIT) {
+                return ((ArrayContainer) this).merge((ArrayContainer) other);
+            }
+            return toBitmap().combine(other.toBitmap(), Op.OR);
+        }
+
+        Container andNot(Container other) {
+            if (this instanceof ArrayContainer) {
+                return ((ArrayContainer) this).filter(other, false);
+            }
+            return ((BitmapContainer) this).combine(other.toBitmap(), Op.AND_NOT);
+        }
+
+        int andCardinality(Container other) {
+            if (this instanceof BitmapContainer && other instanceof BitmapContainer) {
+                long[] a = ((BitmapContainer) this).words;
+                long[] b = ((BitmapContainer) other).words;
+                int count = 0;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    count += Long.bitCount(a[i] & b[i]);
+                }
+                return count;
+            }
+            ArrayContainer small = (ArrayContainer) (this instanceof ArrayContainer ? this : other);
+            Container big = small == this ? other : this;
+            int count = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (big.contains(small.values[i])) count++;
+            }
+            return count;
+        }
+
+        boolean sameValues(Container other) {
+            if (cardinality() != other.cardinality()) return false;
+            return andCardinality(other) == cardinality();
+        }
+    }
+
+    private enum Op { AND, OR, AND_NOT }
+
+    /** Sorted array of up to ARRAY_LIMIT values. */
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) return this;
+            if (cardinality >= ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            int insert = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(values, insert, values, insert + 1, cardinality - insert);
+            values[insert] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+                // Give memory back when the array is mostly empty
+                if (values.length > 16 && cardinality < values.length / 4) {
+                    values = Arrays.copyOf(values, values.length / 2);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        long bytes() {
+            return 16L + values.length * 2L;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                b.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            b.cardinality = cardinality;
+            return b;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        /** Keeps values that are (keep = true) or are not (keep = false) in the other container. */
+        ArrayContainer filter(Container other, boolean keep) {
+            char[] out = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]) == keep) {
+                    out[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        /** Sorted merge of two arrays (the result fits in an array container). */
+        ArrayContainer merge(ArrayContainer other) {
+            char[] out = new char[Math.max(1, cardinality + other.cardinality)];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < cardinality && j < other.cardinality) {
+                char a = values[i];
+                char b = other.values[j];
+                if (a < b) {
+                    out[n++] = a;
+                    i++;
+                } else if (a > b) {
+                    out[n++] = b;
+                    j++;
+                } else {
+                    out[n++] = a;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < cardinality) out[n++] = values[i++];
+            while (j < other.cardinality) out[n++] = other.values[j++];
+            return new ArrayContainer(out, n);
+        }
+    }
+
+    /** 65536 bits, one per possible low value. */
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[BITMAP_WORDS];
+        int cardinality;
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;   // clear lowest set bit
+                }
+            }
+        }
+
+        @Override
+        long bytes() {
+            return 16L + BITMAP_WORDS * 8L;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer b = new BitmapContainer();
+            System.arraycopy(words, 0, b.words, 0, BITMAP_WORDS);
+            b.cardinality = cardinality;
+            return b;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        @Override
+        void orInto(long[] target) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                target[i] |= words[i];
+            }
+        }
+
+        Container toArray() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int[] n = {0};
+            forEach(0, v -> values[n[0]++] = (char) v);
+            return new ArrayContainer(values, n[0]);
+        }
+
+        /** Word-by-word AND / OR / AND NOT, shrunk to an array if it gets small. */
+        Container combine(BitmapContainer other, Op op) {
+            BitmapContainer result = new BitmapContainer();
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long w;
+                switch (op) {
+                    case AND: w = words[i] & other.words[i]; break;
+                    case OR: w = words[i] | other.words[i]; break;
+                    default: w = words[i] & ~other.words[i]; break;
+                }
+                result.words[i] = w;
+                count += Long.bitCount(w);
+            }
+            result.cardinality = count;
+            return count <= ARRAY_LIMIT ? result.toArray() : result;
+        }
+    }
+}
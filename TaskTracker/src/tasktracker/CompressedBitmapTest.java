@@ -0,0 +1,131 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompressedBitmap.
+ *
+ * The results are compared against java.util.BitSet, which does the
+ * same job in a simple (uncompressed) way.
+ */
+class CompressedBitmapTest {
+
+    /** Fills both sets with the same random values. */
+    private static CompressedBitmap randomBitmap(Random random, BitSet expected, int count, int range) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < count; i++) {
+            int v = random.nextInt(range);
+            bitmap.add(v);
+            expected.set(v);
+        }
+        return bitmap;
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        BitSet values = new BitSet();
+        actual.forEach(values::set);
+        assertEquals(expected, values);
+        assertEquals(expected.cardinality(), actual.cardinality());
+    }
+
+    @Test
+    void testAddContainsRemove() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(5);
+        bitmap.add(70_000);   // different container
+        bitmap.add(5);        // duplicates are ignored
+
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(6));
+        assertEquals(2, bitmap.cardinality());
+
+        bitmap.remove(5);
+        bitmap.remove(5);     // removing twice is harmless
+
+        assertFalse(bitmap.contains(5));
+        assertEquals(1, bitmap.cardinality());
+    }
+
+    @Test
+    void testNegativeValuesRejected() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+        assertFalse(bitmap.contains(-1));
+    }
+
+    @Test
+    void testDenseContainerConvertsBackWhenEmptied() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+
+        // More than 4096 values in one container → bitmap container
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i);
+            expected.set(i);
+        }
+        assertSame(expected, bitmap);
+
+        // Remove most of them again → back to an array container
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.remove(i);
+            expected.clear(i);
+        }
+        assertSame(expected, bitmap);
+        assertTrue(bitmap.estimatedBytes() < 8192, "Small set should not keep an 8 KB bitmap");
+    }
+
+    @Test
+    void testSetOperationsMatchBitSet() {
+        Random random = new Random(42);
+
+        // Mix of sparse and dense sets across several containers
+        int[][] shapes = {{100, 300_000}, {20_000, 100_000}, {60_000, 70_000}};
+        for (int[] a : shapes) {
+            for (int[] b : shapes) {
+                BitSet expectedA = new BitSet();
+                BitSet expectedB = new BitSet();
+                CompressedBitmap bitmapA = randomBitmap(random, expectedA, a[0], a[1]);
+                CompressedBitmap bitmapB = randomBitmap(random, expectedB, b[0], b[1]);
+
+                BitSet and = (BitSet) expectedA.clone();
+                and.and(expectedB);
+                BitSet or = (BitSet) expectedA.clone();
+                or.or(expectedB);
+                BitSet andNot = (BitSet) expectedA.clone();
+                andNot.andNot(expectedB);
+
+                assertSame(and, bitmapA.and(bitmapB));
+                assertSame(or, bitmapA.or(bitmapB));
+                assertSame(andNot, bitmapA.andNot(bitmapB));
+                assertEquals(and.cardinality(), bitmapA.andCardinality(bitmapB));
+
+                // Inputs must not change
+                assertSame(expectedA, bitmapA);
+                assertSame(expectedB, bitmapB);
+            }
+        }
+    }
+
+    @Test
+    void testEqualsAndCopy() {
+        CompressedBitmap a = new CompressedBitmap();
+        for (int i = 0; i < 5000; i += 3) {
+            a.add(i);
+        }
+        CompressedBitmap b = a.copy();
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        b.add(1);
+        assertNotEquals(a, b);
+        assertFalse(a.contains(1), "Copy must be independent");
+    }
+}
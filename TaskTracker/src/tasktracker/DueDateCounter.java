@@ -0,0 +1,221 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DueDateCounter answers "how many tasks (or open tasks) are due between
+ * these two days?" in O(log n), for the calendar heat map and workload
+ * numbers — without looking at every task's due date.
+ *
+ * How it works — a FENWICK TREE (binary indexed tree):
+ *  - Picture an array with one count per day: count[d] = tasks due on d.
+ *    "Due between a and b" is then prefix(b) − prefix(a − 1), where
+ *    prefix(x) = count[first day] + ... + count[x].
+ *  - A plain array makes prefix() O(days); an array of running totals
+ *    makes every change O(days). A Fenwick tree stores partial sums whose
+ *    lengths are powers of two, so BOTH are O(log days):
+ *
+ *      tree[i] = sum of the (i & -i) days ending at day i
+ *
+ *    prefix(i) walks i → i − (i & -i) → ... → 0, adding tree[i];
+ *    add(i, delta) walks i → i + (i & -i) → ... upwards.
+ *  - Two trees: one for every dated task, one for OPEN tasks only.
+ *
+ * Which day counts:
+ *  - The same day as TaskQueryIndex: the due date, or for a recurring
+ *    task its next open occurrence. Tasks without a due date are not
+ *    counted.
+ *  - For every task we remember the day (and open or not) it was counted
+ *    with, so an edit or a remove can take exactly that back out.
+ *
+ * The range of days grows when a task is due outside it: the trees are
+ * rebuilt (in O(days), from the per-day counts) at least twice as big, so
+ * this only happens a few times.
+ *
+ * Kept up to date as a TaskListener. Changes are NOT thread-safe
+ * (TaskManager makes them under its write lock); counts only read, so
+ * any number of them may run at once under the read lock.
+ */
+public class DueDateCounter implements TaskListener {
+
+    /** Days covered at first (grows when needed). */
+    private static final int INITIAL_DAYS = 1024;
+
+    // ==== The trees ====
+    private long firstDay;       // epoch day stored at tree position 1
+    private int[] allTree;       // 1-based; position 0 is unused
+    private int[] openTree;
+
+    // ==== What each task was counted as ====
+    // (epoch day << 1) | 1 if open. Tasks without a due date are not in here.
+    private final Map<Long, Long> countedAs = new HashMap<>();
+
+    public DueDateCounter() {
+        firstDay = Today.get().toEpochDay() - INITIAL_DAYS / 2;
+        allTree = new int[INITIAL_DAYS + 1];
+        openTree = new int[INITIAL_DAYS + 1];
+    }
+
+    // ───────────────────────────────────────────────
+    // Counting
+    // ───────────────────────────────────────────────
+
+    /**
+     * Tasks due between from and to, both included. A null "from" means
+     * since the earliest due date, a null "to" means up to the latest.
+     */
+    public int count(LocalDate from, LocalDate to, boolean openOnly) {
+        long first = from == null ? firstDay : from.toEpochDay();
+        long last = to == null ? lastDay() : to.toEpochDay();
+        return countDays(first, last, openOnly ? openTree : allTree);
+    }
+
+    /**
+     * One count per day for "days" days starting at "from" (for drawing a
+     * calendar). Costs O(days × log n).
+     */
+    public int[] countByDay(LocalDate from, int days, boolean openOnly) {
+        int[] tree = openOnly ? openTree : allTree;
+        int[] counts = new int[days];
+        long day = from.toEpochDay();
+        for (int i = 0; i < days; i++) {
+            counts[i] = countDays(day + i, day + i, tree);
+        }
+        return counts;
+    }
+
+    /** Number of tasks counted (every task with a due date). */
+    public int size() {
+        return countedAs.size();
+    }
+
+    private long lastDay() {
+        return firstDay + allTree.length - 2;
+    }
+
+    private int countDays(long first, long last, int[] tree) {
+        first = Math.max(first, firstDay);   // nothing is due outside the range
+        last = Math.min(last, lastDay());
+        if (first > last) {
+            return 0;
+        }
+        return prefix(tree, (int) (last - firstDay + 1)) - prefix(tree, (int) (first - firstDay));
+    }
+
+    /** Sum of positions 1..i. */
+    private static int prefix(int[] tree, int i) {
+        int sum = 0;
+        for (; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static void add(int[] tree, int i, int delta) {
+        for (; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Keeping the counts up to date (TaskListener)
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void taskAdded(Task task) {
+        if (!countedAs.containsKey(task.getId())) {
+            count(task.getId(), keyOf(task));
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        Long old = countedAs.remove(task.getId());
+        if (old != null) {
+            change(old, -1);
+        }
+    }
+
+    /** Only moves the task if its day or open/completed changed. */
+    @Override
+    public void taskUpdated(Task task) {
+        Long key = keyOf(task);
+        Long old = countedAs.get(task.getId());
+        if (key == null ? old == null : key.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            countedAs.remove(task.getId());
+            change(old, -1);
+        }
+        count(task.getId(), key);
+    }
+
+    private void count(long id, Long key) {
+        if (key != null) {
+            change(key, +1);   // first: a grow() rebuilds from countedAs
+            countedAs.put(id, key);
+        }
+    }
+
+    /**
+     * The day and open flag a task is counted with (null = not counted).
+     * Dates outside years 0..9999 are not counted either, so the range
+     * (and the arrays) stay a sane size.
+     */
+    private static Long keyOf(Task task) {
+        LocalDate due = task.getNextDueDate();
+        if (due == null || due.getYear() < 0 || due.getYear() > 9999) {
+            return null;
+        }
+        return (due.toEpochDay() << 1) | (task.isCompleted() ? 0 : 1);
+    }
+
+    private void change(long key, int delta) {
+        long day = key >> 1;
+        if (day < firstDay || day > lastDay()) {
+            grow(day);
+        }
+        int position = (int) (day - firstDay + 1);
+        add(allTree, position, delta);
+        if ((key & 1) != 0) {
+            add(openTree, position, delta);
+        }
+    }
+
+    /**
+     * Makes the range at least twice as big, and big enough for "day".
+     * The new trees are built from the per-day counts in O(days): every
+     * position adds its total to its parent, i + (i & -i).
+     */
+    private void grow(long day) {
+        long newFirst = Math.min(firstDay, day);
+        long newLast = Math.max(lastDay(), day);
+        long days = Math.max(newLast - newFirst + 1, 2L * (allTree.length - 1));
+        // Grow on the side that was too small
+        if (day < firstDay) {
+            newFirst = newLast - days + 1;
+        }
+        int[] all = new int[(int) days + 1];
+        int[] open = new int[(int) days + 1];
+        for (long key : countedAs.values()) {
+            int position = (int) ((key >> 1) - newFirst + 1);
+            all[position]++;
+            if ((key & 1) != 0) {
+                open[position]++;
+            }
+        }
+        for (int i = 1; i < all.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < all.length) {
+                all[parent] += all[i];
+                open[parent] += open[i];
+            }
+        }
+        firstDay = newFirst;
+        allTree = all;
+        openTree = open;
+    }
+}
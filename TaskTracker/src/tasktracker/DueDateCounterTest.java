@@ -0,0 +1,109 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DueDateCounter (Fenwick-tree range counts over due dates).
+ *
+ * These tests verify:
+ *  - range counts match a plain loop over the tasks, after any mix of
+ *    adds, removes, completes and due date changes
+ *  - the range of days grows in both directions without losing counts
+ *  - recurring tasks count on their next open occurrence
+ */
+class DueDateCounterTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 6, 1);
+
+    /** The slow way: look at every task. */
+    private static int scan(TaskManager manager, LocalDate from, LocalDate to, boolean openOnly) {
+        int n = 0;
+        for (Task t : manager.getTasks()) {
+            LocalDate due = t.getNextDueDate();
+            if (due != null && !due.isBefore(from) && !due.isAfter(to) && !(openOnly && t.isCompleted())) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Test
+    void testCountsMatchAScanAfterRandomChanges() {
+        Random random = new Random(11);
+        TaskManager manager = new TaskManager();
+        for (int step = 0; step < 4_000; step++) {
+            List<Task> tasks = manager.getTasks();
+            int roll = random.nextInt(10);
+            if (tasks.isEmpty() || roll < 4) {
+                LocalDate due = random.nextInt(10) == 0 ? null : START.plusDays(random.nextInt(400) - 200);
+                manager.addTask(new Task("Task " + step, "", due, "", Task.Priority.LOW));
+            } else {
+                Task task = tasks.get(random.nextInt(tasks.size()));
+                if (roll < 6) {
+                    manager.markComplete(task);
+                } else if (roll < 9) {
+                    Task changes = task.snapshot();
+                    changes.setDueDate(random.nextBoolean() ? null : START.plusDays(random.nextInt(400) - 200));
+                    manager.updateTask(task, changes);
+                } else {
+                    manager.removeTask(task);
+                }
+            }
+
+            if (step % 50 == 0) {
+                LocalDate from = START.plusDays(random.nextInt(400) - 200);
+                LocalDate to = from.plusDays(random.nextInt(60));
+                for (boolean openOnly : new boolean[] {false, true}) {
+                    assertEquals(scan(manager, from, to, openOnly), manager.countDue(from, to, openOnly),
+                            "step " + step + ": " + from + ".." + to);
+                }
+            }
+        }
+        LocalDate min = LocalDate.of(1900, 1, 1);
+        LocalDate max = LocalDate.of(2200, 1, 1);
+        assertEquals(scan(manager, min, max, false), manager.countDue(null, null, false));
+        assertEquals(scan(manager, min, max, true), manager.countDue(null, null, true));
+    }
+
+    @Test
+    void testRangeGrowsBothWays() {
+        TaskManager manager = new TaskManager();
+        LocalDate today = Today.get();
+        manager.addTask(new Task("Today", "", today, "", Task.Priority.LOW));
+        manager.addTask(new Task("Far ahead", "", today.plusYears(20), "", Task.Priority.LOW));
+        manager.addTask(new Task("Long ago", "", today.minusYears(30), "", Task.Priority.LOW));
+        manager.addTask(new Task("No date"));
+
+        assertEquals(3, manager.countDue(null, null, false));
+        assertEquals(1, manager.countDue(today, today, true));
+        assertEquals(1, manager.countDue(null, today.minusDays(1), true), "overdue");
+        assertEquals(2, manager.countDue(today, null, true));
+        assertEquals(0, manager.countDue(today.plusDays(1), today.plusYears(19), false));
+        assertEquals(0, manager.countDue(today.plusDays(1), today, false), "empty range");
+    }
+
+    @Test
+    void testCountByDayAndRecurringTasks() {
+        TaskManager manager = new TaskManager();
+        Task daily = new Task("Stand-up", "", START, "", Task.Priority.HIGH);
+        daily.setRecurrence(Recurrence.of(Recurrence.Frequency.DAILY));
+        manager.addTask(daily);
+        manager.addTask(new Task("Report", "", START.plusDays(2), "", Task.Priority.LOW));
+        Task done = new Task("Done", "", START.plusDays(2), "", Task.Priority.LOW);
+        manager.addTask(done);
+        manager.markComplete(done);
+
+        assertArrayEquals(new int[] {1, 0, 1, 0}, manager.countDueByDay(START, 4, true));
+        assertArrayEquals(new int[] {1, 0, 2, 0}, manager.countDueByDay(START, 4, false));
+
+        // Completing today's stand-up moves it to tomorrow
+        manager.markComplete(daily);
+        assertArrayEquals(new int[] {0, 1, 1, 0}, manager.countDueByDay(START, 4, true));
+    }
+}
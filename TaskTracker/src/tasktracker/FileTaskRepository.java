@@ -0,0 +1,326 @@
+package tasktracker;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A TaskRepository that keeps the tasks in a FILE. Only the position of
+ * each task's record is kept in memory (one map entry per task), so the
+ * repository itself can hold far more tasks than the heap. (A TaskManager
+ * on top of it still keeps its live tasks in memory, see TaskRepository.)
+ *
+ * How it works:
+ *  - The file is APPEND-ONLY. Saving a task writes a new record at the end;
+ *    deleting one writes a small "deleted" record.
+ *  - An in-memory map says where the latest record of every task starts.
+ *    findById reads just that record (one positional read) and decodes it
+ *    with SnapshotCodec — so every call returns a NEW Task object.
+ *  - Old records are garbage. Once garbage outweighs live data (and is at
+ *    least 1 MB), the file is COMPACTED: live records are copied to a new
+ *    file, which atomically replaces the old one.
+ *  - Opening an existing file scans it once to rebuild the map. A record
+ *    cut off by a crash is dropped.
+ *
+ * Layout:
+ *   header: "TTRP" | version (1 byte)
+ *   record: kind (1 byte) | length (4 bytes) | payload
+ *           SAVED:   SnapshotCodec task record (full task state)
+ *           DELETED: task id (varint)
+ *
+ * Records are written but not forced to disk: surviving a crash is the
+ * job of the operation log (see WriteBehindLog).
+ *
+ * Writes must happen one at a time; reads may run in parallel with each
+ * other (positional reads don't share a file position).
+ */
+public class FileTaskRepository implements TaskRepository {
+
+    private static final byte[] MAGIC = {'T', 'T', 'R', 'P'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int RECORD_HEADER_SIZE = 5;   // kind + length
+    private static final int SAVED = 1;
+    private static final int DELETED = 2;
+
+    /** Record lengths are packed into the low bits of a map value (see location). */
+    private static final int LENGTH_BITS = 24;
+    private static final int MAX_RECORD_SIZE = (1 << LENGTH_BITS) - 1;
+
+    /** Don't compact files with less garbage than this. */
+    private static final long MIN_COMPACT_BYTES = 1L << 20;
+
+    private final Path file;
+    private FileChannel channel;
+    private long end;               // where the next record is written
+
+    // Latest record of every task, in the order tasks were first saved.
+    // Value = offset << LENGTH_BITS | record length (header included).
+    private final Map<Long, Long> locations = new LinkedHashMap<>();
+    private long liveBytes = 0;
+    private long garbageBytes = 0;
+
+    /**
+     * Opens the repository file, creating it if needed.
+     */
+    public FileTaskRepository(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.put(MAGIC).put((byte) VERSION).flip();
+                writeFully(header, 0);
+                end = HEADER_SIZE;
+            } else {
+                end = scan();
+                channel.truncate(end);   // drop a half-written last record
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Reads the whole file once to find the latest record of every task. */
+    private long scan() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), 64 * 1024));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Not a task repository file: " + file);
+        }
+
+        long position = HEADER_SIZE;
+        while (true) {
+            int kind;
+            byte[] payload;
+            try {
+                kind = in.readUnsignedByte();
+                int length = in.readInt();
+                if ((kind != SAVED && kind != DELETED) || length < 0 || length > MAX_RECORD_SIZE) {
+                    return position;   // garbage after a crash
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+            } catch (EOFException e) {
+                return position;       // end of file (or a cut-off record)
+            }
+            int size = RECORD_HEADER_SIZE + payload.length;
+            ByteArrayInputStream record = new ByteArrayInputStream(payload);
+            if (kind == SAVED) {
+                record.skip(1);        // flags come before the id
+                long id = SnapshotCodec.readVarLong(record);
+                forget(locations.put(id, location(position, size)));
+                liveBytes += size;
+            } else {
+                forget(locations.remove(SnapshotCodec.readVarLong(record)));
+                garbageBytes += size;
+            }
+            position += size;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // TaskRepository
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void save(Task task) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+            SnapshotCodec.writeTaskRecord(payload, task);
+            long at = append(SAVED, payload.toByteArray());
+            forget(locations.put(task.getId(), location(at, RECORD_HEADER_SIZE + payload.size())));
+            liveBytes += RECORD_HEADER_SIZE + payload.size();
+            compactIfWorthIt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean delete(long id) {
+        Long old = locations.remove(id);
+        if (old == null) {
+            return false;
+        }
+        forget(old);
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(10);
+            SnapshotCodec.writeVarLong(payload, id);
+            append(DELETED, payload.toByteArray());
+            garbageBytes += RECORD_HEADER_SIZE + payload.size();
+            compactIfWorthIt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public Task findById(long id) {
+        Long location = locations.get(id);
+        return location == null ? null : read(location);
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return locations.containsKey(id);
+    }
+
+    @Override
+    public List<Task> findAll() {
+        List<Task> result = new ArrayList<>(locations.size());
+        for (long location : locations.values()) {
+            result.add(read(location));
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return locations.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Size of the file in bytes (live records + garbage + header). */
+    public long fileSize() {
+        return end;
+    }
+
+    // ───────────────────────────────────────────────
+    // Records
+    // ───────────────────────────────────────────────
+
+    private static long location(long offset, int size) {
+        return offset << LENGTH_BITS | size;
+    }
+
+    private static long offsetOf(long location) {
+        return location >>> LENGTH_BITS;
+    }
+
+    private static int sizeOf(long location) {
+        return (int) (location & MAX_RECORD_SIZE);
+    }
+
+    /** The record at this location is no longer live. */
+    private void forget(Long location) {
+        if (location != null) {
+            liveBytes -= sizeOf(location);
+            garbageBytes += sizeOf(location);
+        }
+    }
+
+    /** Appends one record and returns where it starts. */
+    private long append(int kind, byte[] payload) throws IOException {
+        if (payload.length > MAX_RECORD_SIZE - RECORD_HEADER_SIZE) {
+            throw new IOException("Task record too large: " + payload.length + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.put((byte) kind).putInt(payload.length).put(payload).flip();
+        long at = end;
+        writeFully(record, at);
+        end += record.limit();
+        return at;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private Task read(long location) {
+        ByteBuffer record = ByteBuffer.allocate(sizeOf(location));
+        try {
+            long position = offsetOf(location);
+            while (record.hasRemaining()) {
+                int n = channel.read(record, position);
+                if (n < 0) {
+                    throw new EOFException("Task record past the end of " + file);
+                }
+                position += n;
+            }
+            return SnapshotCodec.readTaskRecord(new ByteArrayInputStream(
+                    record.array(), RECORD_HEADER_SIZE, record.capacity() - RECORD_HEADER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Compaction
+    // ───────────────────────────────────────────────
+
+    private void compactIfWorthIt() throws IOException {
+        if (garbageBytes >= MIN_COMPACT_BYTES && garbageBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Copies the live records to "<file>.tmp" and renames it over the file.
+     * If anything fails, the old file stays as it was.
+     */
+    public void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<Long, Long> moved = new LinkedHashMap<>();
+        long position;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).put((byte) VERSION).flip();
+            position = out.write(header);
+            for (Map.Entry<Long, Long> e : locations.entrySet()) {
+                long location = e.getValue();
+                long from = offsetOf(location);
+                long remaining = sizeOf(location);
+                while (remaining > 0) {
+                    long n = channel.transferTo(from, remaining, out);
+                    from += n;
+                    remaining -= n;
+                }
+                moved.put(e.getKey(), location(position, sizeOf(location)));
+                position += sizeOf(location);
+            }
+            out.force(true);
+        }
+        channel.close();   // some systems can't replace an open file
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            WriteBehindLog.forceDirectory(file.toAbsolutePath().getParent());
+        } finally {
+            // The new file, or the old one if the rename failed
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        locations.clear();
+        locations.putAll(moved);
+        end = position;
+        garbageBytes = 0;
+    }
+}
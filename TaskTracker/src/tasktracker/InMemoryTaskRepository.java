@@ -0,0 +1,48 @@
+package tasktracker;
+
+import java.util.List;
+
+/**
+ * The simplest TaskRepository: every task stays on the heap, in a
+ * LongTaskMap (id → task) that remembers the order tasks were added.
+ * (A LinkedHashMap<Long, Task> would box the id on every lookup.)
+ *
+ * findById always returns the same object that was saved, so changes made
+ * to it are visible right away.
+ *
+ * This is what TaskManager uses unless it is given another repository.
+ */
+public class InMemoryTaskRepository implements TaskRepository {
+
+    private final LongTaskMap tasks = new LongTaskMap();
+
+    @Override
+    public void save(Task task) {
+        tasks.put(task.getId(), task);   // an existing id keeps its place
+    }
+
+    @Override
+    public boolean delete(long id) {
+        return tasks.remove(id) != null;
+    }
+
+    @Override
+    public Task findById(long id) {
+        return tasks.get(id);
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return tasks.containsKey(id);
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return tasks.values();
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+}
@@ -0,0 +1,130 @@
+package tasktracker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts how long operations took, so we can ask for
+ * percentiles ("99% of edits finished within X µs") without storing every
+ * single measurement.
+ *
+ * How the buckets work:
+ *  - Values 0–15 ns each get their own bucket.
+ *  - Above that, every power of two (16–31, 32–63, 64–127, ...) is split
+ *    into 16 equal buckets.
+ *  - So a bucket is never wider than 1/16 of its values: a reported
+ *    percentile is at most ~6% too high, whether it is 200 ns or 2 s.
+ *  - Values from about 18 minutes up all land in the last bucket.
+ *
+ * Why not just keep a list of all latencies?
+ *  - A soak test runs for hours at hundreds of thousands of operations per
+ *    second. A list would grow by gigabytes — and the harness itself would
+ *    become the memory leak we are trying to find.
+ *  - Here memory is fixed (592 counters) no matter how long we record.
+ *
+ * record(...) is safe to call from many threads at once. A copy taken
+ * while others are recording may miss the newest values, never corrupt.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;   // 16
+
+    /** Values with more than this many bits all go to the last bucket. */
+    private static final int MAX_BITS = 40;
+
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** Adds one measurement (in nanoseconds; negative values count as 0). */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+    }
+
+    /** Number of measurements recorded. */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * The value that p percent (0–100) of all measurements are at or below,
+     * rounded UP to the end of its bucket. Returns 0 when nothing was recorded.
+     *
+     * percentile(100) is the (bucket of the) slowest measurement.
+     */
+    public long percentile(double p) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, p)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return highestValueIn(i);
+            }
+        }
+        return highestValueIn(BUCKETS - 1);
+    }
+
+    /** Adds all measurements of another histogram to this one. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = other.counts.get(i);
+            if (n != 0) {
+                counts.addAndGet(i, n);
+            }
+        }
+    }
+
+    /** A new histogram with the same counts as this one right now. */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * A new histogram with only the measurements recorded since "earlier"
+     * (an older copy of this histogram). Used for per-interval reports.
+     */
+    public LatencyHistogram since(LatencyHistogram earlier) {
+        LatencyHistogram delta = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            delta.counts.set(i, counts.get(i) - earlier.counts.get(i));
+        }
+        return delta;
+    }
+
+    // ───────────────────────────────────────────────
+    // Bucket math
+    // ───────────────────────────────────────────────
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int bits = 63 - Long.numberOfLeadingZeros(value);   // position of the highest 1 bit
+        if (bits >= MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = bits - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** The largest value that falls into this bucket. */
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,72 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LatencyHistogram: bucket math, percentiles and
+ * per-interval differences.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Every value must land in a bucket whose upper end is at or above it
+     * and at most ~6% (1/16) higher.
+     */
+    @Test
+    void testBucketsAreTightAndContinuous() {
+        for (long v = 0; v < 100_000; v++) {
+            checkBucket(v);
+        }
+        for (long v = 100_000; v < (1L << 39); v = v * 3 / 2 + 7) {
+            checkBucket(v);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketOf(-5));
+    }
+
+    private static void checkBucket(long value) {
+        long high = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+        assertTrue(high >= value, "bucket of " + value + " ends at " + high);
+        assertTrue(high - value <= value / 16, "bucket of " + value + " too wide: " + high);
+        if (value > 0) {
+            int previous = LatencyHistogram.bucketOf(value - 1);
+            int current = LatencyHistogram.bucketOf(value);
+            assertTrue(current == previous || current == previous + 1, "gap at " + value);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(99), "empty histogram");
+
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1_000L);   // 1 µs ... 1 ms
+        }
+
+        assertEquals(1000, h.count());
+        assertEquals(500_000, h.percentile(50), 500_000 / 16.0);
+        assertEquals(990_000, h.percentile(99), 990_000 / 16.0);
+        assertTrue(h.percentile(100) >= 1_000_000);
+        assertTrue(h.percentile(0) >= 1_000 && h.percentile(0) < 1_100);
+    }
+
+    @Test
+    void testSinceGivesOnlyTheNewMeasurements() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            h.record(10_000_000);   // 10 ms
+        }
+        LatencyHistogram earlier = h.copy();
+        for (int i = 0; i < 50; i++) {
+            h.record(100);
+        }
+
+        LatencyHistogram interval = h.since(earlier);
+        assertEquals(50, interval.count());
+        assertTrue(interval.percentile(100) < 1_000, "the 10 ms values are not part of it");
+        assertEquals(150, h.count(), "since(...) leaves the original alone");
+    }
+}
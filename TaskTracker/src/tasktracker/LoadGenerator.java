@@ -0,0 +1,681 @@
+package tasktracker;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LoadGenerator hammers a TaskManager from many threads at once, without
+ * any GUI, for as long as you like (seconds for a quick check, hours for a
+ * soak test).
+ *
+ * Every worker thread loops over a random mix of operations:
+ *   add, edit, complete, delete  — changes (TaskManager's write lock)
+ *   query                        — findTasks / countTasks (read lock)
+ *
+ * Every few seconds it prints one line, and a summary at the end:
+ *  - throughput   operations per second
+ *  - latency      p50 / p99 / p99.9 / max per operation (see LatencyHistogram)
+ *  - heap         used heap after the last garbage collection — if this
+ *                 keeps climbing while the board size stays the same,
+ *                 something is leaking
+ *  - GC           collections and time spent in them
+ *  - contention   how long worker threads sat waiting for locks
+ *  - errors       any exception a worker hit (the first one is printed)
+ *
+ * Keeping the board size steady:
+ *  Each worker owns its own share of the tasks (it only edits, completes and
+ *  deletes tasks it added), so two workers never pick the same task. With
+ *  the same add and delete weight (the default), a worker adds when it is
+ *  below its share and deletes when it is above — the board stays at
+ *  --board tasks, and heap growth can't be explained by a bigger board.
+ *  Different weights let the board grow or shrink on purpose.
+ *
+ * Note: every worker starts its next operation as soon as the previous one
+ * returns (a "closed loop"). When the manager gets slower, throughput drops
+ * instead of a queue of waiting requests building up — so compare
+ * throughput between runs, not just latencies.
+ *
+ * Usage (from the "bin" folder):
+ *   java tasktracker.LoadGenerator [options]
+ *     --threads N        worker threads (default: number of CPUs)
+ *     --virtual          use virtual threads (Java 21+; ignored on older JVMs)
+ *     --board N          tasks on the board (default 10000)
+ *     --duration T       how long to run, e.g. 90s, 30m, 8h (default 60s)
+ *     --report T         time between progress lines (default 10s)
+ *     --mix a=..,e=..    weights for add, edit, complete, delete, query
+ *                        (default add=10,edit=30,complete=10,delete=10,query=40)
+ *     --log              also write every change to an operation log
+ *                        (WriteBehindLog + LogCompactor in a temp folder)
+ *
+ * Example soak test with a heap limit, so a leak ends in an error quickly:
+ *   java -Xmx512m tasktracker.LoadGenerator --threads 16 --duration 4h --report 1m
+ */
+public class LoadGenerator {
+
+    /** What one step of a worker does. */
+    enum Operation { ADD, EDIT, COMPLETE, DELETE, QUERY }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    /**
+     * All settings of a run. The defaults are a short run on every CPU.
+     */
+    static final class Config {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean virtualThreads = false;
+        int boardSize = 10_000;
+        Duration duration = Duration.ofSeconds(60);
+        Duration reportEvery = Duration.ofSeconds(10);
+        int[] weights = {10, 30, 10, 10, 40};   // same order as Operation
+        boolean operationLog = false;
+
+        /**
+         * Reads the command-line options (see the class comment).
+         * Throws IllegalArgumentException for anything it doesn't understand.
+         */
+        static Config parse(String[] args) {
+            Config config = new Config();
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                switch (option) {
+                    case "--virtual":
+                        config.virtualThreads = true;
+                        break;
+                    case "--log":
+                        config.operationLog = true;
+                        break;
+                    case "--threads":
+                        config.threads = parsePositive(option, valueAfter(args, ++i, option));
+                        break;
+                    case "--board":
+                        config.boardSize = parsePositive(option, valueAfter(args, ++i, option));
+                        break;
+                    case "--duration":
+                        config.duration = parseDuration(valueAfter(args, ++i, option));
+                        break;
+                    case "--report":
+                        config.reportEvery = parseDuration(valueAfter(args, ++i, option));
+                        break;
+                    case "--mix":
+                        config.weights = parseMix(valueAfter(args, ++i, option));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+            return config;
+        }
+
+        private static String valueAfter(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[index];
+        }
+
+        private static int parsePositive(String option, String text) {
+            try {
+                int value = Integer.parseInt(text);
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " must be a positive number: " + text);
+        }
+
+        /** "500ms", "90s", "30m", "8h" (a plain number means seconds). */
+        static Duration parseDuration(String text) {
+            String t = text.trim().toLowerCase(Locale.ROOT);
+            try {
+                if (t.endsWith("ms")) {
+                    return positive(Duration.ofMillis(Long.parseLong(t.substring(0, t.length() - 2))), text);
+                }
+                char unit = t.isEmpty() ? 's' : t.charAt(t.length() - 1);
+                String number = Character.isDigit(unit) ? t : t.substring(0, t.length() - 1);
+                long amount = Long.parseLong(number);
+                switch (Character.isDigit(unit) ? 's' : unit) {
+                    case 's': return positive(Duration.ofSeconds(amount), text);
+                    case 'm': return positive(Duration.ofMinutes(amount), text);
+                    case 'h': return positive(Duration.ofHours(amount), text);
+                    default: break;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Not a duration (try 90s, 30m or 8h): " + text);
+        }
+
+        private static Duration positive(Duration d, String text) {
+            if (d.isZero() || d.isNegative()) {
+                throw new IllegalArgumentException("Duration must be positive: " + text);
+            }
+            return d;
+        }
+
+        /** "add=10,edit=30,..." — missing operations get weight 0. */
+        static int[] parseMix(String text) {
+            int[] weights = new int[OPERATIONS.length];
+            for (String part : text.split(",")) {
+                String[] kv = part.trim().split("=");
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("Bad mix entry: " + part);
+                }
+                Operation op;
+                try {
+                    op = Operation.valueOf(kv[0].trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown operation in mix: " + kv[0]);
+                }
+                try {
+                    weights[op.ordinal()] = Integer.parseInt(kv[1].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad weight in mix: " + part);
+                }
+                if (weights[op.ordinal()] < 0) {
+                    throw new IllegalArgumentException("Weights can't be negative: " + part);
+                }
+            }
+            int total = 0;
+            for (int w : weights) {
+                total += w;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("At least one operation needs a weight above 0");
+            }
+            return weights;
+        }
+    }
+
+    /** What a finished run measured (used by the tests). */
+    static final class Result {
+        final long[] operations = new long[OPERATIONS.length];
+        long errors;
+        Throwable firstError;
+        int boardSizeAtEnd;
+        long heapGrowthBytes;
+    }
+
+    /**
+     * One worker: its own share of the board, and where it records latencies.
+     */
+    private static final class Worker {
+        final List<Task> mine = new ArrayList<>();
+        final int target;           // how many tasks this worker keeps when balanced
+        final LatencyHistogram[] latencies;
+
+        Worker(int target, LatencyHistogram[] latencies) {
+            this.target = target;
+            this.latencies = latencies;
+        }
+    }
+
+    private final Config config;
+    private final TaskManager manager = new TaskManager();
+    private final LocalDate today = Today.get();
+    private final int totalWeight;
+
+    /**
+     * Latencies per stripe and operation. Workers share a stripe only when
+     * there are more workers than stripes (e.g. thousands of virtual
+     * threads), so recording hardly ever contends and memory stays small.
+     */
+    private final LatencyHistogram[][] stripes;
+
+    private final AtomicInteger nextTaskNumber = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+    private final AtomicLong waitedMillis = new AtomicLong();
+    private final AtomicLong workerMillis = new AtomicLong();
+    private volatile boolean running;
+
+    LoadGenerator(Config config) {
+        this.config = config;
+        int sum = 0;
+        for (int w : config.weights) {
+            sum += w;
+        }
+        this.totalWeight = sum;
+
+        int stripeCount = Math.min(config.threads, 2 * Runtime.getRuntime().availableProcessors());
+        stripes = new LatencyHistogram[stripeCount][OPERATIONS.length];
+        for (LatencyHistogram[] stripe : stripes) {
+            for (int i = 0; i < stripe.length; i++) {
+                stripe[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    TaskManager getManager() {
+        return manager;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --threads N  --virtual  --board N  --duration T  --report T"
+                    + "  --mix add=10,edit=30,complete=10,delete=10,query=40  --log");
+            System.exit(1);
+            return;
+        }
+        Result result = new LoadGenerator(config).run(System.out);
+        if (result.errors > 0) {
+            System.exit(2);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Running
+    // ───────────────────────────────────────────────
+
+    /**
+     * Fills the board, runs the workers for the configured time while
+     * printing progress, and prints a summary.
+     */
+    Result run(PrintStream out) throws IOException, InterruptedException {
+        ExecutorService executor = createExecutor(out);
+        List<Worker> workers = fillBoard();
+
+        Path logDirectory = null;
+        WriteBehindLog log = null;
+        LogCompactor compactor = null;
+        if (config.operationLog) {
+            logDirectory = Files.createTempDirectory("tasktracker-load");
+            log = new WriteBehindLog(logDirectory.resolve("board.log"),
+                    WriteBehindLog.DurabilityPolicy.ON_IDLE, 0);
+            compactor = new LogCompactor(logDirectory.resolve("board.tasks"), log, 16L << 20);
+            compactor.start(1_000);
+            manager.addListener(log);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads.isThreadContentionMonitoringSupported()) {
+            threads.setThreadContentionMonitoringEnabled(true);
+        }
+
+        long heapBefore = usedHeapAfterFullGc();
+        long[] gcBefore = TaskBenchmarks.gcTotals();
+        out.printf(Locale.ROOT, "%d %s threads, %d tasks, %s, mix %s%s%n",
+                config.threads, config.virtualThreads ? "virtual" : "platform", config.boardSize,
+                config.duration, mixText(), config.operationLog ? ", with operation log" : "");
+        out.printf(Locale.ROOT, "heap after GC at start: %s%n", megabytes(heapBefore));
+
+        // ==== Run ====
+        running = true;
+        long start = System.nanoTime();
+        for (Worker worker : workers) {
+            executor.execute(() -> work(worker));
+        }
+        printProgress(out, start);
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - start;
+
+        if (log != null) {
+            manager.removeListener(log);
+            compactor.close();
+            log.close();
+            out.printf(Locale.ROOT, "operation log: %,d changes, %,d fsyncs, %d compactions%n",
+                    log.getLastSequence(), log.getSyncCount(), compactor.getCompactions());
+            WriteBehindLog.deleteSegments(logDirectory.resolve("board.log"));
+            Files.deleteIfExists(logDirectory.resolve("board.log"));
+            Files.deleteIfExists(logDirectory.resolve("board.tasks"));
+            Files.deleteIfExists(logDirectory);
+        }
+
+        long[] gcAfter = TaskBenchmarks.gcTotals();
+        long heapAfter = usedHeapAfterFullGc();
+        return summarize(out, elapsedNanos, heapBefore, heapAfter,
+                new long[] {gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]});
+    }
+
+    /**
+     * Virtual threads only exist from Java 21 on. This code also has to run
+     * on Java 17, so the factory method is looked up by name; without it we
+     * fall back to ordinary threads.
+     */
+    private ExecutorService createExecutor(PrintStream out) {
+        if (config.virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                out.println("Virtual threads need Java 21+ — using platform threads instead");
+                config.virtualThreads = false;
+            }
+        }
+        AtomicInteger number = new AtomicInteger();
+        return Executors.newFixedThreadPool(config.threads, r -> {
+            Thread t = new Thread(r, "load-worker-" + number.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Adds the starting tasks and shares them out between the workers. */
+    private List<Worker> fillBoard() {
+        List<Worker> workers = new ArrayList<>(config.threads);
+        for (int i = 0; i < config.threads; i++) {
+            int target = config.boardSize / config.threads + (i < config.boardSize % config.threads ? 1 : 0);
+            workers.add(new Worker(target, stripes[i % stripes.length]));
+        }
+        for (int i = 0; i < config.boardSize; i++) {
+            Task task = newTask();
+            manager.addTask(task);
+            workers.get(i % workers.size()).mine.add(task);
+        }
+        return workers;
+    }
+
+    /** Sleeps until the run is over, printing one line per report interval. */
+    private void printProgress(PrintStream out, long start) throws InterruptedException {
+        long end = start + config.duration.toNanos();
+        long reportNanos = config.reportEvery.toNanos();
+        LatencyHistogram previous = totalLatencies();
+        long[] previousGc = TaskBenchmarks.gcTotals();
+        long previousTime = start;
+
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(reportNanos - (now - start) % reportNanos, end - now));
+            now = System.nanoTime();
+
+            LatencyHistogram current = totalLatencies();
+            LatencyHistogram interval = current.since(previous);
+            long[] gc = TaskBenchmarks.gcTotals();
+            double seconds = (now - previousTime) / 1e9;
+            out.printf(Locale.ROOT, "%7s  %,10.0f ops/s  p50=%-8s p99=%-8s p99.9=%-8s max=%-8s"
+                            + "  board=%,d  heap after GC=%s  gc=%d (%d ms)  errors=%d%n",
+                    formatElapsed(now - start), interval.count() / seconds,
+                    formatNanos(interval.percentile(50)), formatNanos(interval.percentile(99)),
+                    formatNanos(interval.percentile(99.9)), formatNanos(interval.percentile(100)),
+                    manager.getTotalCount(), megabytes(heapAfterLastGc()),
+                    gc[0] - previousGc[0], gc[1] - previousGc[1], errors.get());
+            previous = current;
+            previousGc = gc;
+            previousTime = now;
+        }
+    }
+
+    private Result summarize(PrintStream out, long elapsedNanos, long heapBefore, long heapAfter, long[] gc) {
+        Result result = new Result();
+        double seconds = elapsedNanos / 1e9;
+        LatencyHistogram all = new LatencyHistogram();
+
+        out.println();
+        out.printf(Locale.ROOT, "%-9s %12s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "p50", "p90", "p99", "p99.9", "max");
+        for (Operation op : OPERATIONS) {
+            LatencyHistogram h = new LatencyHistogram();
+            for (LatencyHistogram[] stripe : stripes) {
+                h.add(stripe[op.ordinal()]);
+            }
+            all.add(h);
+            result.operations[op.ordinal()] = h.count();
+            printRow(out, op.name().toLowerCase(Locale.ROOT), h, seconds);
+        }
+        printRow(out, "all", all, seconds);
+
+        result.errors = errors.get();
+        result.firstError = firstError.get();
+        result.boardSizeAtEnd = manager.getTotalCount();
+        result.heapGrowthBytes = heapAfter - heapBefore;
+
+        out.println();
+        out.printf(Locale.ROOT, "board:      %,d tasks at the end (%,d at the start)%n",
+                result.boardSizeAtEnd, config.boardSize);
+        out.printf(Locale.ROOT, "heap:       %s after GC at the end (%+.1f MB, %.1f bytes per 1000 operations)%n",
+                megabytes(heapAfter), result.heapGrowthBytes / (1024.0 * 1024.0),
+                all.count() == 0 ? 0.0 : result.heapGrowthBytes * 1000.0 / all.count());
+        out.printf(Locale.ROOT, "GC:         %d collections, %d ms (%.1f%% of the run)%n",
+                gc[0], gc[1], gc[1] / (seconds * 10.0));
+        if (!config.virtualThreads && workerMillis.get() > 0) {
+            out.printf(Locale.ROOT, "contention: workers waited for locks %.1f%% of their time%n",
+                    waitedMillis.get() * 100.0 / workerMillis.get());
+        }
+        out.printf(Locale.ROOT, "errors:     %d%n", result.errors);
+        if (result.firstError != null) {
+            out.println("first error:");
+            result.firstError.printStackTrace(out);
+        }
+        return result;
+    }
+
+    private static void printRow(PrintStream out, String name, LatencyHistogram h, double seconds) {
+        out.printf(Locale.ROOT, "%-9s %,12d %,10.0f %9s %9s %9s %9s %9s%n",
+                name, h.count(), h.count() / seconds,
+                formatNanos(h.percentile(50)), formatNanos(h.percentile(90)),
+                formatNanos(h.percentile(99)), formatNanos(h.percentile(99.9)),
+                formatNanos(h.percentile(100)));
+    }
+
+    // ───────────────────────────────────────────────
+    // Workers
+    // ───────────────────────────────────────────────
+
+    private void work(Worker worker) {
+        long startMillis = System.currentTimeMillis();
+        Random random = ThreadLocalRandom.current();
+        while (running) {
+            Operation op = balance(pick(random.nextInt(totalWeight)), worker);
+            long start = System.nanoTime();
+            boolean done;
+            try {
+                done = perform(op, worker, random);
+            } catch (RuntimeException e) {
+                errors.incrementAndGet();
+                firstError.compareAndSet(null, e);
+                continue;
+            }
+            if (done) {
+                worker.latencies[op.ordinal()].record(System.nanoTime() - start);
+            }
+        }
+        recordWaiting(System.currentTimeMillis() - startMillis);
+    }
+
+    private Operation pick(int roll) {
+        for (Operation op : OPERATIONS) {
+            roll -= config.weights[op.ordinal()];
+            if (roll < 0) {
+                return op;
+            }
+        }
+        return Operation.QUERY;   // not reached
+    }
+
+    /**
+     * With equal add and delete weights, turns an add into a delete (and the
+     * other way round) so the worker stays at its share of the board.
+     */
+    private Operation balance(Operation op, Worker worker) {
+        if (config.weights[Operation.ADD.ordinal()] != config.weights[Operation.DELETE.ordinal()]) {
+            return op;
+        }
+        if (op == Operation.ADD && worker.mine.size() > worker.target) {
+            return Operation.DELETE;
+        }
+        if (op == Operation.DELETE && worker.mine.size() < worker.target) {
+            return Operation.ADD;
+        }
+        return op;
+    }
+
+    /** Runs one operation. Returns false if there was nothing to do. */
+    private boolean perform(Operation op, Worker worker, Random random) {
+        List<Task> mine = worker.mine;
+        switch (op) {
+            case ADD: {
+                Task task = newTask();
+                manager.addTask(task);
+                mine.add(task);
+                return true;
+            }
+            case EDIT:
+                if (mine.isEmpty()) {
+                    return false;
+                }
+                manager.updateTask(mine.get(random.nextInt(mine.size())), newTask());
+                return true;
+            case COMPLETE:
+                if (mine.isEmpty()) {
+                    return false;
+                }
+                manager.markComplete(mine.get(random.nextInt(mine.size())));
+                return true;
+            case DELETE: {
+                if (mine.isEmpty()) {
+                    return false;
+                }
+                // Swap with the last one, so removing from our own list is O(1)
+                int i = random.nextInt(mine.size());
+                Task task = mine.get(i);
+                mine.set(i, mine.get(mine.size() - 1));
+                mine.remove(mine.size() - 1);
+                manager.removeTask(task);
+                return true;
+            }
+            default:
+                query(random);
+                return true;
+        }
+    }
+
+    /** A few typical filter-bar queries, picked at random. */
+    private void query(Random random) {
+        Task like = TaskBenchmarks.sampleTask(random.nextInt(1_000));
+        switch (random.nextInt(4)) {
+            case 0:
+                manager.findTasks(TaskQuery.assigneeIs(like.getAssignee()).and(TaskQuery.pending()));
+                break;
+            case 1:
+                manager.findTasks(TaskQuery.priorityIn(Task.Priority.HIGH).and(TaskQuery.typeIs(like.getType())));
+                break;
+            case 2:
+                manager.findTasks(TaskQuery.dueBetween(today, today.plusDays(7)));
+                break;
+            default:
+                manager.countTasks(TaskQuery.overdue());
+                break;
+        }
+    }
+
+    /** A new task, due somewhere between 20 days ago and 40 days from now. */
+    private Task newTask() {
+        int n = nextTaskNumber.getAndIncrement();
+        Task task = TaskBenchmarks.sampleTask(n);
+        task.setDueDate(today.plusDays(Math.floorMod(n, 60) - 20));
+        return task;
+    }
+
+    /** Adds up how long this (platform) worker thread waited for locks. */
+    private void recordWaiting(long runMillis) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (config.virtualThreads || !threads.isThreadContentionMonitoringEnabled()) {
+            return;
+        }
+        ThreadInfo info = threads.getThreadInfo(Thread.currentThread().getId());
+        if (info != null) {
+            waitedMillis.addAndGet(Math.max(0, info.getWaitedTime()) + Math.max(0, info.getBlockedTime()));
+            workerMillis.addAndGet(runMillis);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Measuring
+    // ───────────────────────────────────────────────
+
+    private LatencyHistogram totalLatencies() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram[] stripe : stripes) {
+            for (LatencyHistogram h : stripe) {
+                total.add(h);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Heap still in use right after the most recent collection of each heap
+     * area. Unlike the current heap usage, this doesn't go up and down with
+     * every short-lived object, so a steady climb points to a leak.
+     */
+    private static long heapAfterLastGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                used += pool.getCollectionUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /** Forces a full collection and returns the heap still in use. */
+    private static long usedHeapAfterFullGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private String mixText() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation op : OPERATIONS) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(op.name().toLowerCase(Locale.ROOT)).append('=').append(config.weights[op.ordinal()]);
+        }
+        return sb.toString();
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fµs", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+    private static String formatElapsed(long nanos) {
+        long s = TimeUnit.NANOSECONDS.toSeconds(nanos);
+        return s < 3600
+                ? String.format(Locale.ROOT, "%d:%02d", s / 60, s % 60)
+                : String.format(Locale.ROOT, "%d:%02d:%02d", s / 3600, s / 60 % 60, s % 60);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,84 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Short runs of the LoadGenerator: TaskManager must survive many threads
+ * without errors, and its indexes must still agree with its task list.
+ */
+class LoadGeneratorTest {
+
+    private static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    private static LoadGenerator.Config shortRun(String... args) {
+        LoadGenerator.Config config = LoadGenerator.Config.parse(args);
+        config.duration = Duration.ofMillis(500);
+        config.reportEvery = Duration.ofMillis(200);
+        return config;
+    }
+
+    @Test
+    void testConcurrentRunKeepsManagerConsistent() throws Exception {
+        LoadGenerator generator = new LoadGenerator(shortRun("--threads", "8", "--board", "2000"));
+
+        LoadGenerator.Result result = generator.run(QUIET);
+
+        assertEquals(0, result.errors, () -> "first error: " + result.firstError);
+        for (LoadGenerator.Operation op : LoadGenerator.Operation.values()) {
+            assertTrue(result.operations[op.ordinal()] > 0, op + " never ran");
+        }
+        // Equal add and delete weights: every worker stays within one task of its share
+        assertEquals(2000, result.boardSizeAtEnd, 8);
+
+        TaskManager manager = generator.getManager();
+        List<Task> tasks = manager.getTasks();
+        Set<Long> ids = new HashSet<>();
+        for (Task t : tasks) {
+            assertTrue(ids.add(t.getId()), "duplicate id " + t.getId());
+            assertSame(t, manager.getTask(t.getId()));
+        }
+        assertEquals(tasks, manager.findTasks(TaskQuery.all()));
+        assertEquals(manager.getCompletedCount(), manager.countTasks(TaskQuery.completed()));
+    }
+
+    @Test
+    void testOperationLogUnderLoad() throws Exception {
+        LoadGenerator.Result result = new LoadGenerator(
+                shortRun("--threads", "4", "--board", "500", "--log")).run(QUIET);
+
+        assertEquals(0, result.errors, () -> "first error: " + result.firstError);
+    }
+
+    @Test
+    void testParseOptions() {
+        LoadGenerator.Config config = LoadGenerator.Config.parse(new String[] {
+                "--threads", "3", "--virtual", "--board", "42", "--duration", "2h",
+                "--report", "500ms", "--mix", "add=5, query=95"});
+
+        assertEquals(3, config.threads);
+        assertTrue(config.virtualThreads);
+        assertEquals(42, config.boardSize);
+        assertEquals(Duration.ofHours(2), config.duration);
+        assertEquals(Duration.ofMillis(500), config.reportEvery);
+        assertArrayEquals(new int[] {5, 0, 0, 0, 95}, config.weights);
+        assertEquals(Duration.ofSeconds(90), LoadGenerator.Config.parseDuration("90"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadGenerator.Config.parse(new String[] {"--threads", "0"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadGenerator.Config.parse(new String[] {"--duration", "soon"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadGenerator.Config.parse(new String[] {"--mix", "rename=3"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadGenerator.Config.parse(new String[] {"--board"}));
+    }
+}
@@ -0,0 +1,219 @@
+package tasktracker;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogCompactor keeps the operation log (WriteBehindLog) from growing forever.
+ *
+ * Tasks are edited and deleted all the time, so most of the log quickly
+ * describes states that no longer matter. In the BACKGROUND, the compactor:
+ *  1. reads the current checkpoint (a SnapshotCodec file),
+ *  2. applies every operation from the SEALED log segments on top of it —
+ *     older edits of a task are simply overwritten, deleted tasks dropped,
+ *  3. writes the result as the new checkpoint (temp file + rename, see
+ *     SnapshotCodec.writeFile), remembering the last sequence it includes,
+ *  4. deletes the segments that are now part of the checkpoint.
+ *
+ * The app keeps accepting changes the whole time: they go to the log's
+ * ACTIVE segment, which the compactor never touches, and TaskManager is
+ * not used at all.
+ *
+ * Crash safety — whenever the program stops, the files on disk describe
+ * every acknowledged change:
+ *  - before the rename: the old checkpoint and all segments are intact
+ *  - after the rename:  the new checkpoint knows its last sequence, so the
+ *                       segments that were not deleted yet are skipped
+ *                       when the board is loaded
+ *
+ * Bounds:
+ *  - disk:   about one checkpoint (the live tasks) + thresholdBytes of
+ *            sealed segments + one active segment
+ *  - replay: at most thresholdBytes + one segment of operations on startup
+ */
+public final class LogCompactor implements Closeable {
+
+    /**
+     * Test hook: called at the named steps of a compaction.
+     * Crash-injection tests throw from here to stop a compaction half-way.
+     */
+    interface StepListener {
+        void reached(String step) throws IOException;
+    }
+
+    static final String STEP_CHECKPOINT_WRITTEN = "checkpoint-written";
+    static final String STEP_SEGMENT_DELETED = "segment-deleted";
+
+    private final Path checkpointFile;
+    private final WriteBehindLog log;
+    private final long thresholdBytes;
+
+    private ScheduledExecutorService scheduler;
+    private StepListener stepListener = step -> { };
+
+    // ==== Statistics (updated under "this") ====
+    private int compactions = 0;
+    private long operationsFolded = 0;
+    private long lastDurationMillis = 0;
+    private IOException lastFailure;
+
+    /**
+     * @param checkpointFile  the board's snapshot file
+     * @param thresholdBytes  compact once the sealed segments take this much disk
+     */
+    public LogCompactor(Path checkpointFile, WriteBehindLog log, long thresholdBytes) {
+        this.checkpointFile = checkpointFile;
+        this.log = log;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    void setStepListener(StepListener listener) {
+        this.stepListener = listener;
+    }
+
+    /**
+     * Starts checking the log size every checkMillis on a background thread.
+     */
+    public synchronized void start(long checkMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactIfNeeded, checkMillis, checkMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread, waiting for a running compaction to finish.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService s;
+        synchronized (this) {
+            s = scheduler;
+            scheduler = null;
+        }
+        if (s == null) {
+            return;
+        }
+        s.shutdown();
+        try {
+            s.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compactIfNeeded() {
+        try {
+            long sealedBytes = 0;
+            for (Path segment : log.getSealedSegments()) {
+                sealedBytes += Files.size(segment);
+            }
+            if (sealedBytes >= thresholdBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            // Keep the old files; the next run tries again
+            synchronized (this) {
+                lastFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Folds all sealed segments into a new checkpoint.
+     * Returns the number of operations folded (0 = nothing to do).
+     */
+    public synchronized long compact() throws IOException {
+        List<Path> sealed = log.getSealedSegments();
+        if (sealed.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+
+        // 1. The current checkpoint
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        long covered = readCheckpoint(checkpointFile, tasks);
+
+        // 2. Sealed operations on top (only the newest state of a task survives)
+        long upTo = covered;
+        long folded = 0;
+        // (a damaged segment or a gap throws: the files are kept as they are)
+        for (WriteBehindLog.Entry entry : WriteBehindLog.readSealed(sealed, covered)) {
+            apply(tasks, entry.getOperation());
+            upTo = entry.getSequence();
+            folded++;
+        }
+
+        // 3. New checkpoint — atomic, so a crash leaves either the old or the new one
+        if (upTo > covered) {
+            SnapshotCodec.writeFile(tasks.values(), checkpointFile, true, upTo);
+        }
+        stepListener.reached(STEP_CHECKPOINT_WRITTEN);
+
+        // 4. The folded segments are no longer needed
+        for (Path segment : sealed) {
+            Files.deleteIfExists(segment);
+            stepListener.reached(STEP_SEGMENT_DELETED);
+        }
+
+        compactions++;
+        operationsFolded += folded;
+        lastDurationMillis = (System.nanoTime() - start) / 1_000_000;
+        return folded;
+    }
+
+    /**
+     * Reads a checkpoint into the map (id → task) and returns the last log
+     * sequence it contains. A missing file is an empty board.
+     */
+    static long readCheckpoint(Path file, Map<Long, Task> tasks) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            SnapshotCodec.Reader reader = new SnapshotCodec.Reader(in);
+            Task t;
+            while ((t = reader.read()) != null) {
+                tasks.put(t.getId(), t);
+            }
+            return reader.getLogSequence();
+        }
+    }
+
+    /** Same rules as TaskManager.apply(...), on a plain map. */
+    private static void apply(Map<Long, Task> tasks, TaskOperation op) {
+        if (op.getKind() == TaskOperation.Kind.REMOVE) {
+            tasks.remove(op.getTaskId());
+        } else {
+            // put() on an existing key keeps its place, like an edit in TaskManager
+            tasks.put(op.getTaskId(), op.toTask());
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Statistics
+    // ───────────────────────────────────────────────
+
+    public synchronized int getCompactions() { return compactions; }
+    public synchronized long getOperationsFolded() { return operationsFolded; }
+    public synchronized long getLastDurationMillis() { return lastDurationMillis; }
+
+    /** The last background error (null if the last attempts succeeded or none failed). */
+    public synchronized IOException getLastFailure() { return lastFailure; }
+}
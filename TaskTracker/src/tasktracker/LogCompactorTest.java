@@ -0,0 +1,292 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LogCompactor (and log segments).
+ *
+ * These tests verify:
+ *  - compaction keeps the newest state of every live task and drops the rest
+ *  - changes made WHILE compacting are not lost
+ *  - a crash at any step of a compaction loses no acknowledged change
+ *  - disk usage stays bounded while the board keeps changing
+ *  - Board.read reads again when a compaction replaces the checkpoint under it
+ */
+class LogCompactorTest {
+
+    /** Small segments so a few hundred changes already fill several. */
+    private static final long SEGMENT_BYTES = 2048;
+
+    @TempDir
+    Path dir;
+
+    private Path board() {
+        return dir.resolve("tasks.board");
+    }
+
+    private Path logDir() {
+        return dir.resolve("tasks.board.log");
+    }
+
+    private WriteBehindLog openLog(long afterSequence) throws IOException {
+        return new WriteBehindLog(logDir(), WriteBehindLog.DurabilityPolicy.ON_IDLE, 0,
+                afterSequence, SEGMENT_BYTES);
+    }
+
+    /** Thrown by the step hook to stop a compaction half-way, like a crash. */
+    private static final class SimulatedCrash extends IOException {
+        SimulatedCrash(String step) {
+            super("crash at " + step);
+        }
+    }
+
+    /** Loads the board the way the app does: checkpoint, then newer log operations. */
+    private TaskManager recover() throws IOException {
+        Map<Long, Task> checkpoint = new LinkedHashMap<>();
+        long covered = LogCompactor.readCheckpoint(board(), checkpoint);
+
+        TaskManager manager = new TaskManager();
+        for (Task t : checkpoint.values()) {
+            manager.addTask(t);
+        }
+        for (WriteBehindLog.Entry e : WriteBehindLog.readEntries(logDir(), covered)) {
+            manager.apply(e.getOperation());
+        }
+        return manager;
+    }
+
+    private static void assertSameBoard(TaskManager expected, TaskManager actual) {
+        assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        for (Task t : expected.getTasks()) {
+            Task other = actual.getTask(t.getId());
+            assertNotNull(other, "lost task " + t.getId());
+            assertEquals(t.toString(), other.toString());
+        }
+    }
+
+    /** Random adds, edits, completions and deletes. */
+    private static void churn(TaskManager manager, Random random, int changes) {
+        for (int i = 0; i < changes; i++) {
+            List<Task> tasks = manager.getTasks();
+            int action = tasks.size() < 20 ? 0 : random.nextInt(4);
+            switch (action) {
+                case 0:
+                    manager.addTask(TaskBenchmarks.sampleTask(random.nextInt(1000)));
+                    break;
+                case 1:
+                    Task t = tasks.get(random.nextInt(tasks.size()));
+                    manager.updateTask(t, TaskBenchmarks.sampleTask(random.nextInt(1000)));
+                    break;
+                case 2:
+                    manager.markComplete(tasks.get(random.nextInt(tasks.size())));
+                    break;
+                default:
+                    manager.removeTask(tasks.get(random.nextInt(tasks.size())));
+                    break;
+            }
+        }
+    }
+
+    private long logBytes() throws IOException {
+        long total = 0;
+        for (Path segment : WriteBehindLog.listSegments(logDir())) {
+            total += Files.size(segment);
+        }
+        return total;
+    }
+
+    @Test
+    void testSegmentsRollOverAndContinueAfterReopen() throws IOException {
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = openLog(0)) {
+            manager.addListener(log);
+            churn(manager, new Random(1), 300);
+            log.flush();
+            assertFalse(log.getSealedSegments().isEmpty(), "log should have rolled over");
+        }
+
+        try (WriteBehindLog log = openLog(0)) {
+            assertEquals(300, log.getLastSequence());
+        }
+        assertEquals(300, WriteBehindLog.readEntries(logDir(), 0).size());
+        assertEquals(100, WriteBehindLog.readEntries(logDir(), 200).size());
+    }
+
+    @Test
+    void testCompactionKeepsOnlyLiveState() throws IOException {
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = openLog(0)) {
+            manager.addListener(log);
+            LogCompactor compactor = new LogCompactor(board(), log, 0);
+
+            churn(manager, new Random(2), 2000);
+            log.flush();
+            long before = logBytes();
+
+            long folded = compactor.compact();
+
+            assertTrue(folded > 0);
+            assertTrue(log.getSealedSegments().isEmpty(), "sealed segments should be deleted");
+            assertTrue(logBytes() < before);
+            assertSameBoard(manager, recover());
+
+            // Only live tasks are in the checkpoint
+            Map<Long, Task> checkpoint = new LinkedHashMap<>();
+            LogCompactor.readCheckpoint(board(), checkpoint);
+            assertTrue(checkpoint.size() <= manager.getTotalCount());
+        }
+    }
+
+    @Test
+    void testChangesDuringCompactionAreKept() throws Exception {
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = openLog(0)) {
+            manager.addListener(log);
+            LogCompactor compactor = new LogCompactor(board(), log, 0);
+            churn(manager, new Random(3), 500);
+
+            // Keep compacting on another thread while the board changes
+            Thread background = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        compactor.compact();
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            background.start();
+            churn(manager, new Random(4), 2000);
+            background.join();
+
+            log.flush();
+        }
+        assertSameBoard(manager, recover());
+    }
+
+    @Test
+    void testReadDuringCompactionStartsAgain() throws IOException {
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = openLog(0)) {
+            manager.addListener(log);
+            LogCompactor compactor = new LogCompactor(board(), log, 0);
+            churn(manager, new Random(5), 500);
+            log.flush();
+            compactor.compact();
+            churn(manager, new Random(6), 500);
+            log.flush();
+            assertFalse(log.getSealedSegments().isEmpty());
+
+            // The board (open elsewhere) compacts right after --report read the
+            // old checkpoint: the segments it would replay next are deleted
+            int[] reads = {0};
+            TaskManager read = Board.read(board(), step -> {
+                if (reads[0]++ == 0) {
+                    compactor.compact();
+                }
+            });
+            assertEquals(2, reads[0], "read again from the new checkpoint");
+            assertSameBoard(manager, read);
+        }
+    }
+
+    @Test
+    void testCrashAtAnyStepLosesNothing() throws IOException {
+        for (String step : new String[] {LogCompactor.STEP_CHECKPOINT_WRITTEN,
+                                         LogCompactor.STEP_SEGMENT_DELETED}) {
+            // Fresh board for every step
+            Files.deleteIfExists(board());
+            WriteBehindLog.deleteSegments(logDir());
+
+            TaskManager manager = new TaskManager();
+            WriteBehindLog log = openLog(0);
+            manager.addListener(log);
+            churn(manager, new Random(step.hashCode()), 1500);
+            log.flush();   // every change so far is acknowledged
+
+            LogCompactor compactor = new LogCompactor(board(), log, 0);
+            compactor.setStepListener(reached -> {
+                if (reached.equals(step)) {
+                    throw new SimulatedCrash(reached);
+                }
+            });
+            assertThrows(SimulatedCrash.class, compactor::compact);
+            manager.removeListener(log);
+            log.close();
+
+            // "Restart": everything acknowledged is still there
+            assertSameBoard(manager, recover());
+
+            // ...and a later compaction cleans up what the crash left behind
+            long covered = LogCompactor.readCheckpoint(board(), new LinkedHashMap<>());
+            try (WriteBehindLog reopened = openLog(covered)) {
+                manager.addListener(reopened);
+                churn(manager, new Random(5), 300);
+                reopened.flush();
+                new LogCompactor(board(), reopened, 0).compact();
+                manager.removeListener(reopened);
+            }
+            assertSameBoard(manager, recover());
+        }
+    }
+
+    @Test
+    void testLeftoverTempFileIsIgnored() throws IOException {
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = openLog(0)) {
+            manager.addListener(log);
+            churn(manager, new Random(6), 800);
+            log.flush();
+            new LogCompactor(board(), log, 0).compact();
+
+            // A crash while writing the next checkpoint leaves a half-written temp file
+            Files.write(dir.resolve("tasks.board.tmp"), new byte[] {'T', 'T', 'S'});
+
+            churn(manager, new Random(7), 800);
+            log.flush();
+            assertSameBoard(manager, recover());
+
+            new LogCompactor(board(), log, 0).compact();
+        }
+        assertSameBoard(manager, recover());
+    }
+
+    @Test
+    void testDiskUsageStaysBounded() throws IOException {
+        long threshold = 4 * SEGMENT_BYTES;
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = openLog(0)) {
+            manager.addListener(log);
+            LogCompactor compactor = new LogCompactor(board(), log, threshold);
+            Random random = new Random(8);
+
+            long maxLogBytes = 0;
+            for (int round = 0; round < 50; round++) {
+                churn(manager, random, 200);
+                log.flush();
+                compactor.compact();
+                assertTrue(log.getSealedSegments().isEmpty());
+                maxLogBytes = Math.max(maxLogBytes, logBytes());
+            }
+
+            // Only the active segment is left after each compaction; it can
+            // overshoot the segment size by at most one write batch
+            long written = 50 * 200 * 30L;   // ~30+ bytes per logged change
+            assertTrue(maxLogBytes < written / 20, "log grew to " + maxLogBytes);
+            assertEquals(50, compactor.getCompactions());
+            assertTrue(Files.size(board()) < written / 4, "checkpoint holds only live tasks");
+        }
+        assertSameBoard(manager, recover());
+    }
+}
@@ -0,0 +1,174 @@
+package tasktracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LongTaskMap is a map from task id (a plain long) to Task that keeps the
+ * order tasks were added — what InMemoryTaskRepository needs, without
+ * the boxing of a LinkedHashMap<Long, Task>.
+ *
+ * Why not LinkedHashMap? Every get(id) turns the long into a Long object
+ * first (Java only keeps ready-made Longs for -128..127), so looking up
+ * task #5000 made garbage on every call. Here nothing is allocated to
+ * look a task up.
+ *
+ * How it works:
+ *  - ids[] and tasks[] hold the entries by POSITION, in the order they
+ *    were added. A removed entry leaves a null task behind (positions are
+ *    never reused, like TaskQueryIndex slots). When the arrays are full
+ *    and at least half of it is removed entries, the live ones are moved
+ *    together (same order) instead of growing.
+ *  - table[] is an open-addressing hash table (linear probing) holding
+ *    position + 1 for every live entry, 0 = empty. It is kept at most
+ *    half full. Removing uses "backward shift": the entries after the
+ *    hole that belong before it move up, so no tombstones are needed.
+ *
+ * NOT thread-safe (TaskManager's lock protects the repository).
+ */
+final class LongTaskMap {
+
+    private long[] ids = new long[16];
+    private Task[] tasks = new Task[16];   // null = removed
+    private int used = 0;                  // positions handed out, removed ones included
+    private int size = 0;
+
+    private int[] table = new int[32];     // position + 1; 0 = empty
+    private int shift = 64 - 5;            // table.length == 1 << (64 - shift)
+
+    int size() {
+        return size;
+    }
+
+    Task get(long id) {
+        int i = indexOf(id);
+        return i < 0 ? null : tasks[table[i] - 1];
+    }
+
+    boolean containsKey(long id) {
+        return indexOf(id) >= 0;
+    }
+
+    /** Adds or replaces; an id that is already here keeps its place. Returns the old task. */
+    Task put(long id, Task task) {
+        int i = indexOf(id);
+        if (i >= 0) {
+            int position = table[i] - 1;
+            Task old = tasks[position];
+            tasks[position] = task;
+            return old;
+        }
+        if (used == ids.length) {
+            makeRoom();
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        ids[used] = id;
+        tasks[used] = task;
+        insert(used);
+        used++;
+        size++;
+        return null;
+    }
+
+    /** Removes and returns the task with this id (null if there was none). */
+    Task remove(long id) {
+        int i = indexOf(id);
+        if (i < 0) {
+            return null;
+        }
+        int position = table[i] - 1;
+        Task old = tasks[position];
+        tasks[position] = null;
+        size--;
+
+        // Backward shift: move later entries of the same run into the hole
+        int mask = table.length - 1;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = slotOf(ids[table[j] - 1]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {   // the hole lies between home and j
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+        return old;
+    }
+
+    /** The tasks in the order they were added. */
+    List<Task> values() {
+        List<Task> result = new ArrayList<>(size);
+        for (int p = 0; p < used; p++) {
+            if (tasks[p] != null) {
+                result.add(tasks[p]);
+            }
+        }
+        return result;
+    }
+
+    // ───────────────────────────────────────────────
+    // Inside
+    // ───────────────────────────────────────────────
+
+    /** Fibonacci hashing: the top bits of id × 2^64/φ. */
+    private int slotOf(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /** Index in table[] of this id, or -1. */
+    private int indexOf(long id) {
+        int mask = table.length - 1;
+        for (int i = slotOf(id); ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (ids[entry - 1] == id) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(int position) {
+        int mask = table.length - 1;
+        int i = slotOf(ids[position]);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = position + 1;
+    }
+
+    /** Full arrays: squeeze out removed entries, or grow if there are few. */
+    private void makeRoom() {
+        if (size <= used / 2) {
+            int to = 0;
+            for (int from = 0; from < used; from++) {
+                if (tasks[from] != null) {
+                    ids[to] = ids[from];
+                    tasks[to] = tasks[from];
+                    to++;
+                }
+            }
+            for (int p = to; p < used; p++) {
+                tasks[p] = null;
+            }
+            used = to;
+            rehash(table.length);   // positions have moved
+        } else {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            tasks = Arrays.copyOf(tasks, tasks.length * 2);
+        }
+    }
+
+    private void rehash(int length) {
+        table = new int[length];
+        shift = 64 - Integer.numberOfTrailingZeros(length);
+        for (int p = 0; p < used; p++) {
+            if (tasks[p] != null) {
+                insert(p);
+            }
+        }
+    }
+}
@@ -1,11 +1,69 @@
 package tasktracker;
 
 import javax.swing.SwingUtilities;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 public class Main {
 
+    /**
+     * Optional argument: the path of a board file, e.g. "tasks.board".
+     * Its tasks are loaded in the background after the window appears,
+     * and saved back when the window is closed. Changes in between are
+     * written to "<board>.log" as they happen (see WriteBehindLog).
+     *
+     * Or "--boards <directory>": every "*.board" file in the directory is
+     * a board, and the window gets a board switcher (see BoardRegistry).
+     * Up to a quarter of the heap is used to keep recent boards loaded.
+     *
+     * Or "--batch [--board FILE] [SCRIPT]": no window at all. Commands are
+     * read from the script (or standard input) and the results printed as
+     * JSON lines (see BatchRunner). With --board the board file is opened
+     * first and saved at the end, so a script can change a real board.
+     *
+     * Or "--report FILE [OUTPUT]": no window either. Writes a report of
+     * the board (overdue by assignee, aging, completion trends; see
+     * ReportEngine) to OUTPUT — HTML if its name ends in ".html", CSV
+     * otherwise — or as CSV to standard output. Meant for cron jobs.
+     * The board's files are only read (see Board.read); if the board is
+     * open in a window and saves a new checkpoint meanwhile, the report
+     * reads it again.
+     */
     public static void main(String[] args) {
 
+        // Used to measure how long it takes until the window is on screen
+        final long startNanos = System.nanoTime();
+
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--report")) {
+            System.exit(runReport(args));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--boards")) {
+            if (args.length != 2) {
+                System.err.println("Usage: --boards DIRECTORY");
+                System.exit(2);
+                return;
+            }
+            openBoards(Paths.get(args[1]));
+            return;
+        }
+        final Path boardFile = args.length > 0 ? Paths.get(args[0]) : null;
+
         // Swing is NOT thread-safe. 
         // All GUI code must run on the "Event Dispatch Thread" (EDT) 
         // to avoid random crashes or UI glitches.
@@ -20,7 +78,149 @@ public class Main {
 
             // Create and show the main window.
             // The constructor of TaskTrackerGUI builds the entire interface.
-            new TaskTrackerGUI(manager);
+            TaskTrackerGUI gui = new TaskTrackerGUI(manager);
+
+            // "Time to first frame": shown in the status bar when the window has opened
+            gui.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    gui.showFirstFrameTime((System.nanoTime() - startNanos) / 1_000_000);
+                }
+            });
+
+            // The board is NOT loaded here — that would block the first frame.
+            // openBoard() streams the tasks in on a background thread.
+            if (boardFile != null) {
+                gui.openBoard(boardFile);
+            }
+        });
+    }
+
+    /** Starts with a board switcher over every board in the directory. */
+    private static void openBoards(Path directory) {
+        BoardRegistry registry;
+        List<String> names;
+        try {
+            registry = new BoardRegistry(directory, Runtime.getRuntime().maxMemory() / 4);
+            names = registry.getBoardNames();
+        } catch (IOException e) {
+            System.err.println("Could not open the boards in " + directory + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        String first = names.isEmpty() ? "My Tasks" : names.get(0);
+
+        SwingUtilities.invokeLater(() -> {
+            TaskTrackerGUI gui = new TaskTrackerGUI(registry);
+            gui.switchBoard(first);   // loads in the background
         });
     }
+
+    // ───────────────────────────────────────────────
+    // Headless batch mode
+    // ───────────────────────────────────────────────
+
+    /**
+     * Runs "--batch [--board FILE] [SCRIPT | -]" without touching Swing,
+     * so it works on servers with no display and starts quickly.
+     *
+     * @return the exit code: 0 = every command worked, 1 = some failed,
+     *         2 = the script or board could not be read or saved
+     */
+    private static int runBatch(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Path boardFile = null;
+        String script = "-";
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--board") && i + 1 < args.length) {
+                boardFile = Paths.get(args[++i]);
+            } else if (script.equals("-")) {
+                script = args[i];
+            } else {
+                System.err.println("Usage: --batch [--board FILE] [SCRIPT | -]");
+                return 2;
+            }
+        }
+
+        Board board = null;
+        try {
+            TaskManager manager;
+            if (boardFile != null) {
+                String name = boardFile.getFileName().toString().replaceFirst("\\.board$", "");
+                board = Board.open(name, boardFile, false);   // no undo: every batch would be a step
+                manager = board.getManager();
+            } else {
+                manager = new TaskManager();
+                manager.getUndoJournal().setEnabled(false);
+            }
+
+            long failed;
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+            try (BufferedReader in = script.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 64 * 1024)
+                    : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+                failed = new BatchRunner(manager, out).run(in);
+            }
+
+            if (board != null) {
+                board.close();   // saves the board
+            }
+            return failed == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            if (board != null) {
+                try {
+                    board.close();   // keep what was done so far
+                } catch (IOException again) {
+                    System.err.println("Could not save the board: " + again.getMessage());
+                }
+            }
+            return 2;
+        }
+    }
+
+    /**
+     * Runs "--report FILE [OUTPUT]".
+     *
+     * @return the exit code: 0 = written, 2 = the board could not be
+     *         read or the report not written
+     */
+    private static int runReport(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: --report FILE [OUTPUT.html | OUTPUT.csv]");
+            return 2;
+        }
+        Path boardFile = Paths.get(args[1]);
+        String output = args.length > 2 ? args[2] : null;
+
+        try {
+            // Only READ: no log, no archiving, no save — the board may be open elsewhere
+            TaskManager manager = Board.read(boardFile);
+            BoardReport report = new ReportEngine(manager).run(Today.get());
+
+            // Streamed straight to the file (or console), row by row
+            Writer out = output == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024)
+                    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+            try {
+                if (output != null && output.endsWith(".html")) {
+                    report.writeHtml(out);
+                } else {
+                    report.writeCsv(out);
+                }
+            } finally {
+                if (output == null) {
+                    out.flush();   // never close System.out
+                } else {
+                    out.close();
+                }
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Report failed: " + e.getMessage());
+            return 2;
+        }
+    }
 }
@@ -0,0 +1,280 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * NextUpQueue answers "which tasks should I do next?" — the K open tasks
+ * with the best score — without sorting the whole board each time.
+ *
+ * How tasks are ranked (see Scoring):
+ *   score = next due date (in days) − priority weight (in days)
+ * LOWER scores come first. With the default weights a HIGH task due in 14
+ * days ranks like a LOW task due today, and overdue tasks rise to the top.
+ * Tasks without a due date come after every dated task.
+ *
+ * Why the due DATE and not "days until due"?
+ *    days until due = due date − today
+ * "today" is the same for every task, so subtracting it never changes the
+ * order. Using the date itself means scores do not go stale at midnight,
+ * and the queue never has to be rebuilt as days pass.
+ *
+ * How it works:
+ *  - An INDEXED binary heap: an array where every task scores no worse
+ *    than its two children, plus a map (task id → slot in the array).
+ *    The map is what makes edits cheap: an edited task is found in O(1)
+ *    and moved up or down its branch in O(log n).
+ *  - Top K walks the heap from the root with a small priority queue of
+ *    "candidates": take the best candidate, then add its two children.
+ *    Only about 2K slots are ever looked at, so the cost is O(K log K)
+ *    whatever the size of the board.
+ *  - Only open tasks are in the queue: completing a task removes it,
+ *    reopening it puts it back.
+ *
+ * Kept up to date as a TaskListener, like TaskQueryIndex.
+ *
+ * Changes are NOT thread-safe; TaskManager calls them under its write lock.
+ * Reads (top, size, scoreOf) do not change anything, so any number of them
+ * may run at once under the read lock.
+ */
+public class NextUpQueue implements TaskListener {
+
+    /**
+     * Turns a task into a score: LOWER means "do it sooner".
+     *
+     * A score may only depend on the task itself (not on the clock or on
+     * other tasks), so it only has to be worked out again when the task
+     * changes.
+     */
+    @FunctionalInterface
+    public interface Scoring {
+        long score(Task task);
+
+        /**
+         * Due date minus a priority weight, both in days.
+         * Tasks without a due date come last (still ordered by priority).
+         */
+        static Scoring weighted(int highDays, int mediumDays, int lowDays) {
+            return task -> {
+                int weight;
+                switch (task.getPriority() == null ? Task.Priority.LOW : task.getPriority()) {
+                    case HIGH:   weight = highDays; break;
+                    case MEDIUM: weight = mediumDays; break;
+                    default:     weight = lowDays; break;
+                }
+                LocalDate due = task.getNextDueDate();
+                return due == null ? Long.MAX_VALUE / 2 - weight : due.toEpochDay() - weight;
+            };
+        }
+    }
+
+    /** HIGH counts as 14 days earlier, MEDIUM as 7 days earlier. */
+    public static final Scoring DEFAULT_SCORING = Scoring.weighted(14, 7, 0);
+
+    private Scoring scoring;
+
+    // ==== The heap: slot 0 is the best task; children of slot i are 2i+1 and 2i+2 ====
+    private Task[] heap = new Task[16];
+    private long[] score = new long[16];
+    private int size = 0;
+
+    /** Task id → slot in the heap (the "index" of the indexed heap). */
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    public NextUpQueue() {
+        this(DEFAULT_SCORING);
+    }
+
+    public NextUpQueue(Scoring scoring) {
+        this.scoring = scoring;
+    }
+
+    // ───────────────────────────────────────────────
+    // Questions
+    // ───────────────────────────────────────────────
+
+    /**
+     * The (at most) k open tasks to do next, best first.
+     * Tasks with the same score are in the order they were added (by id).
+     */
+    public List<Task> top(int k) {
+        List<Task> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        if (k <= 0 || size == 0) {
+            return result;
+        }
+        // Candidates: slots whose parent is already in the result
+        PriorityQueue<Integer> candidates = new PriorityQueue<>(this::compareSlots);
+        candidates.add(0);
+        while (result.size() < k && !candidates.isEmpty()) {
+            int slot = candidates.poll();
+            result.add(heap[slot]);
+            int child = 2 * slot + 1;
+            if (child < size) {
+                candidates.add(child);
+            }
+            if (child + 1 < size) {
+                candidates.add(child + 1);
+            }
+        }
+        return result;
+    }
+
+    /** The task to do next, or null if nothing is open. */
+    public Task peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /** Number of open tasks in the queue. */
+    public int size() {
+        return size;
+    }
+
+    /** The score this task is ranked by (lower = sooner). */
+    public long scoreOf(Task task) {
+        return scoring.score(task);
+    }
+
+    /**
+     * Ranks tasks a different way. Every task is scored again and the heap
+     * is rebuilt bottom-up in O(n).
+     */
+    public void setScoring(Scoring scoring) {
+        this.scoring = scoring;
+        for (int i = 0; i < size; i++) {
+            score[i] = scoring.score(heap[i]);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public Scoring getScoring() {
+        return scoring;
+    }
+
+    // ───────────────────────────────────────────────
+    // TaskListener
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void taskAdded(Task task) {
+        if (isOpen(task) && !slotById.containsKey(task.getId())) {
+            insert(task);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        Integer slot = slotById.get(task.getId());
+        if (slot != null) {
+            removeAt(slot);
+        }
+    }
+
+    /** Moves the task to its new place — or in or out of the queue. */
+    @Override
+    public void taskUpdated(Task task) {
+        Integer slot = slotById.get(task.getId());
+        if (!isOpen(task)) {
+            if (slot != null) {
+                removeAt(slot);
+            }
+        } else if (slot == null) {
+            insert(task);
+        } else {
+            heap[slot] = task;   // a repository may hand out a new object
+            long old = score[slot];
+            score[slot] = scoring.score(task);
+            if (score[slot] < old) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+        }
+    }
+
+    private static boolean isOpen(Task task) {
+        return !task.isCompleted();
+    }
+
+    // ───────────────────────────────────────────────
+    // Heap
+    // ───────────────────────────────────────────────
+
+    private void insert(Task task) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            score = Arrays.copyOf(score, size * 2);
+        }
+        heap[size] = task;
+        score[size] = scoring.score(task);
+        slotById.put(task.getId(), size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    /** Moves the last task into the hole and lets it find its place. */
+    private void removeAt(int slot) {
+        slotById.remove(heap[slot].getId());
+        size--;
+        if (slot != size) {
+            heap[slot] = heap[size];
+            score[slot] = score[size];
+            slotById.put(heap[slot].getId(), slot);
+            siftDown(slot);
+            siftUp(slot);   // the moved task may also be better than the parent
+        }
+        heap[size] = null;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (compareSlots(slot, parent) >= 0) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int best = slot;
+            int left = 2 * slot + 1;
+            if (left < size && compareSlots(left, best) < 0) {
+                best = left;
+            }
+            if (left + 1 < size && compareSlots(left + 1, best) < 0) {
+                best = left + 1;
+            }
+            if (best == slot) {
+                return;
+            }
+            swap(slot, best);
+            slot = best;
+        }
+    }
+
+    /** Lower score first; equal scores by id, so the order never depends on chance. */
+    private int compareSlots(int a, int b) {
+        int c = Long.compare(score[a], score[b]);
+        return c != 0 ? c : Long.compare(heap[a].getId(), heap[b].getId());
+    }
+
+    private void swap(int a, int b) {
+        Task t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+        long s = score[a];
+        score[a] = score[b];
+        score[b] = s;
+        slotById.put(heap[a].getId(), a);
+        slotById.put(heap[b].getId(), b);
+    }
+}
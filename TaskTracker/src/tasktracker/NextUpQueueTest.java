@@ -0,0 +1,100 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NextUpQueue (the "what's next" ranking).
+ */
+class NextUpQueueTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private static Task task(String title, int dueInDays, Task.Priority priority) {
+        return new Task(title, "Alice", TODAY.plusDays(dueInDays), "Work", priority);
+    }
+
+    @Test
+    void testPriorityWeighsAgainstDueDate() {
+        TaskManager manager = new TaskManager();
+        Task lowSoon = task("Low, due in 3 days", 3, Task.Priority.LOW);
+        Task highLater = task("High, due in 10 days", 10, Task.Priority.HIGH);   // 10 - 14 = -4
+        Task mediumOverdue = task("Medium, 5 days late", -5, Task.Priority.MEDIUM);   // -5 - 7 = -12
+        Task undated = new Task("No date", "Alice", null, "Work", Task.Priority.HIGH);
+        Task done = task("Done", -30, Task.Priority.HIGH);
+        done.setCompleted(true);
+        for (Task t : List.of(lowSoon, highLater, mediumOverdue, undated, done)) {
+            manager.addTask(t);
+        }
+
+        assertEquals(List.of(mediumOverdue, highLater, lowSoon, undated), manager.getNextUp(10));
+        assertEquals(List.of(mediumOverdue, highLater), manager.getNextUp(2));
+        assertEquals(List.of(), manager.getNextUp(0));
+
+        // Edits move tasks; completing one takes it out
+        manager.updateTask(lowSoon, task("Low, due in 3 days", -20, Task.Priority.LOW));
+        manager.markComplete(mediumOverdue);
+        assertEquals(List.of(lowSoon, highLater, undated), manager.getNextUp(10));
+
+        // Priority only: the due date no longer matters
+        manager.setNextUpScoring(t -> -t.getPriority().ordinal());
+        assertEquals(Task.Priority.HIGH, manager.getNextUp(1).get(0).getPriority());
+    }
+
+    /**
+     * Random adds, edits, completions and removals; after each step the
+     * top K must equal a full sort of the open tasks.
+     */
+    @Test
+    void testMatchesFullSortAfterRandomChanges() {
+        NextUpQueue queue = new NextUpQueue();
+        List<Task> board = new ArrayList<>();
+        Random random = new Random(8);
+        long nextId = 1;
+
+        for (int step = 0; step < 3_000; step++) {
+            int action = random.nextInt(5);
+            if (board.size() < 20 || action == 0) {
+                Task t = task("T" + nextId, random.nextInt(60) - 30,
+                        Task.Priority.values()[random.nextInt(3)]);
+                t.setId(nextId++);
+                board.add(t);
+                queue.taskAdded(t);
+                continue;
+            }
+            Task t = board.get(random.nextInt(board.size()));
+            if (action == 1) {
+                board.remove(t);
+                queue.taskRemoved(t);
+            } else if (action == 2) {
+                t.setCompleted(!t.isCompleted());
+                queue.taskUpdated(t);
+            } else {
+                t.setDueDate(TODAY.plusDays(random.nextInt(60) - 30));
+                t.setPriority(Task.Priority.values()[random.nextInt(3)]);
+                queue.taskUpdated(t);
+            }
+
+            int k = 1 + random.nextInt(15);
+            assertEquals(sortedOpen(board, queue, k), queue.top(k), "step " + step);
+        }
+    }
+
+    private static List<Task> sortedOpen(List<Task> board, NextUpQueue queue, int k) {
+        List<Task> open = new ArrayList<>();
+        for (Task t : board) {
+            if (!t.isCompleted()) {
+                open.add(t);
+            }
+        }
+        open.sort(Comparator.comparingLong(queue::scoreOf).thenComparingLong(Task::getId));
+        return open.subList(0, Math.min(k, open.size()));
+    }
+}
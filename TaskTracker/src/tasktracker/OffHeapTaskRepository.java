@@ -0,0 +1,370 @@
+package tasktracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A TaskRepository that keeps the tasks OUTSIDE the Java heap.
+ *
+ * Why?
+ *  - Every Task object (plus its Strings and LocalDates) lives on the
+ *    heap, and with millions of tasks the garbage collector has to walk
+ *    all of them, which makes GC pauses long.
+ *  - Memory allocated with ByteBuffer.allocateDirect(...) is NOT scanned
+ *    by the GC, so the number of stored tasks does not affect pause times.
+ *
+ * How the data is laid out:
+ *  - Every task is one fixed-size RECORD of 24 bytes, in slots 0, 1, 2, ...
+ *    in the order tasks were first saved:
+ *
+ *      offset  size  field
+ *      0       8     task id
+ *      8       8     where the task's bytes start in the arena
+ *      16      4     how many bytes (DELETED = the slot is empty)
+ *      20      4     padding (keeps the next id 8-byte aligned)
+ *
+ *  - The rest of the task (strings, dates, recurrence, blockers — all of
+ *    it) is stored in the "arena" as a SnapshotCodec task record, the same
+ *    bytes FileTaskRepository writes to its file.
+ *  - The only thing on the heap is a hash table of int slot numbers (the
+ *    same open-addressing table as LongTaskMap). The ids it is keyed by
+ *    are read from the records, so the table never holds an object.
+ *
+ * Saving a task again writes new bytes to the end of the arena and
+ * points its record there; deleting one empties its slot. The old bytes
+ * are garbage. Once garbage outweighs live data (and is at least 1 MB),
+ * the store is COMPACTED, like FileTaskRepository's file: the live
+ * records and their bytes are copied into fresh buffers, and the old
+ * ones are dropped. (For a moment both copies exist.)
+ *
+ * findById decodes the record, so every call returns a NEW Task object.
+ * A TaskManager on top of it still keeps its live tasks on the heap (see
+ * TaskRepository) — this store keeps a board off the heap for code that
+ * reads it by id, and TaskBenchmarks "offheap" compares its GC pauses
+ * with InMemoryTaskRepository.
+ *
+ * All methods are synchronized (a read must not see a compaction halfway).
+ */
+public class OffHeapTaskRepository implements TaskRepository {
+
+    // ==== Record layout ====
+    static final int RECORD_SIZE = 24;
+    private static final int ID_OFFSET = 0;
+    private static final int REF_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+
+    /** Stored as the length of an empty (deleted) slot. */
+    private static final int DELETED = -1;
+
+    // Records and arena are split into chunks so we can go past the 2 GB ByteBuffer limit
+    private static final int RECORDS_PER_CHUNK = 1 << 16;        // 1.5 MB per chunk
+    private static final int ARENA_CHUNK_SIZE = 4 * 1024 * 1024; // 4 MB per chunk
+
+    /** Don't compact with less garbage than this. */
+    private static final long MIN_COMPACT_BYTES = 1L << 20;
+
+    private List<ByteBuffer> recordChunks = new ArrayList<>();
+    private List<ByteBuffer> arenaChunks = new ArrayList<>();
+    private int arenaEnd = 0;     // where the next bytes go in the last arena chunk
+
+    private int used = 0;         // slots handed out, empty ones included
+    private int size = 0;         // live tasks
+
+    private int[] table = new int[32];     // slot + 1; 0 = empty
+    private int shift = 64 - 5;            // table.length == 1 << (64 - shift)
+
+    private long liveBytes = 0;
+    private long garbageBytes = 0;
+    private boolean closed = false;
+
+    // ───────────────────────────────────────────────
+    // TaskRepository
+    // ───────────────────────────────────────────────
+
+    @Override
+    public synchronized void save(Task task) {
+        ensureOpen();
+        byte[] bytes = encode(task);
+        long ref = writeBytes(arenaChunks, bytes);
+
+        int i = indexOf(task.getId());
+        if (i >= 0) {
+            // An id that is already here keeps its slot
+            int slot = table[i] - 1;
+            int old = lengthAt(slot);
+            liveBytes -= old;
+            garbageBytes += old;
+            setBytes(slot, ref, bytes.length);
+        } else {
+            if ((size + 1) * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            int slot = newSlot(task.getId());
+            setBytes(slot, ref, bytes.length);
+            insert(slot);
+            size++;
+            liveBytes += RECORD_SIZE;
+        }
+        liveBytes += bytes.length;
+        compactIfWorthIt();
+    }
+
+    @Override
+    public synchronized boolean delete(long id) {
+        ensureOpen();
+        int i = indexOf(id);
+        if (i < 0) {
+            return false;
+        }
+        int slot = table[i] - 1;
+        int freed = RECORD_SIZE + lengthAt(slot);
+        setBytes(slot, 0, DELETED);
+        removeAt(i);
+        size--;
+        liveBytes -= freed;
+        garbageBytes += freed;
+        compactIfWorthIt();
+        return true;
+    }
+
+    @Override
+    public synchronized Task findById(long id) {
+        ensureOpen();
+        int i = indexOf(id);
+        return i < 0 ? null : read(table[i] - 1);
+    }
+
+    @Override
+    public synchronized boolean contains(long id) {
+        ensureOpen();
+        return indexOf(id) >= 0;
+    }
+
+    @Override
+    public synchronized List<Task> findAll() {
+        ensureOpen();
+        List<Task> result = new ArrayList<>(size);
+        for (int slot = 0; slot < used; slot++) {
+            if (lengthAt(slot) != DELETED) {
+                result.add(read(slot));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Drops all references to the direct buffers so their memory can be
+     * freed. The repository cannot be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        recordChunks = new ArrayList<>();
+        arenaChunks = new ArrayList<>();
+        table = new int[32];
+        closed = true;
+    }
+
+    /** Total direct memory reserved by this repository (records + arena). */
+    public synchronized long getOffHeapBytes() {
+        long total = 0;
+        for (ByteBuffer b : recordChunks) total += b.capacity();
+        for (ByteBuffer b : arenaChunks) total += b.capacity();
+        return total;
+    }
+
+    // ───────────────────────────────────────────────
+    // Records
+    // ───────────────────────────────────────────────
+
+    /** A new slot at the end, with this id and no bytes yet. */
+    private int newSlot(long id) {
+        if (used / RECORDS_PER_CHUNK == recordChunks.size()) {
+            recordChunks.add(allocate(RECORDS_PER_CHUNK * RECORD_SIZE));
+        }
+        int slot = used++;
+        record(slot).putLong(offsetOf(slot) + ID_OFFSET, id);
+        return slot;
+    }
+
+    private void setBytes(int slot, long ref, int length) {
+        ByteBuffer chunk = record(slot);
+        int base = offsetOf(slot);
+        chunk.putLong(base + REF_OFFSET, ref);
+        chunk.putInt(base + LENGTH_OFFSET, length);
+    }
+
+    private long idAt(int slot) {
+        return record(slot).getLong(offsetOf(slot) + ID_OFFSET);
+    }
+
+    private int lengthAt(int slot) {
+        return record(slot).getInt(offsetOf(slot) + LENGTH_OFFSET);
+    }
+
+    private Task read(int slot) {
+        byte[] bytes = readBytes(arenaChunks, record(slot).getLong(offsetOf(slot) + REF_OFFSET), lengthAt(slot));
+        try {
+            return SnapshotCodec.readTaskRecord(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(Task task) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try {
+            SnapshotCodec.writeTaskRecord(out, task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // a ByteArrayOutputStream never throws
+        }
+        return out.toByteArray();
+    }
+
+    private ByteBuffer record(int slot) {
+        return recordChunks.get(slot / RECORDS_PER_CHUNK);
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot % RECORDS_PER_CHUNK) * RECORD_SIZE;
+    }
+
+    // ───────────────────────────────────────────────
+    // Arena
+    // ───────────────────────────────────────────────
+
+    /**
+     * Appends bytes to the arena. The reference packs the chunk number
+     * (high 32 bits) and the position inside the chunk (low 32 bits).
+     */
+    private long writeBytes(List<ByteBuffer> arena, byte[] bytes) {
+        if (arena.isEmpty() || arena.get(arena.size() - 1).capacity() - arenaEnd < bytes.length) {
+            // A very long record gets a chunk of its own
+            arena.add(allocate(Math.max(ARENA_CHUNK_SIZE, bytes.length)));
+            arenaEnd = 0;
+        }
+        int position = arenaEnd;
+        arena.get(arena.size() - 1).put(position, bytes);
+        arenaEnd += bytes.length;
+        return ((long) (arena.size() - 1) << 32) | position;
+    }
+
+    private static byte[] readBytes(List<ByteBuffer> arena, long ref, int length) {
+        byte[] bytes = new byte[length];
+        arena.get((int) (ref >>> 32)).get((int) ref, bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // ───────────────────────────────────────────────
+    // Compaction
+    // ───────────────────────────────────────────────
+
+    private void compactIfWorthIt() {
+        if (garbageBytes >= MIN_COMPACT_BYTES && garbageBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Copies the live records (in order) and their bytes into new buffers
+     * and drops the old ones, garbage and empty slots included.
+     */
+    public synchronized void compact() {
+        ensureOpen();
+        List<ByteBuffer> oldRecords = recordChunks;
+        List<ByteBuffer> oldArena = arenaChunks;
+        int oldUsed = used;
+        recordChunks = new ArrayList<>();
+        arenaChunks = new ArrayList<>();
+        arenaEnd = 0;
+        used = 0;
+
+        for (int slot = 0; slot < oldUsed; slot++) {
+            ByteBuffer chunk = oldRecords.get(slot / RECORDS_PER_CHUNK);
+            int base = offsetOf(slot);
+            int length = chunk.getInt(base + LENGTH_OFFSET);
+            if (length == DELETED) {
+                continue;
+            }
+            byte[] bytes = readBytes(oldArena, chunk.getLong(base + REF_OFFSET), length);
+            setBytes(newSlot(chunk.getLong(base + ID_OFFSET)), writeBytes(arenaChunks, bytes), length);
+        }
+        garbageBytes = 0;
+        rehash(table.length);   // slots have moved
+    }
+
+    // ───────────────────────────────────────────────
+    // id → slot (see LongTaskMap for how the table works)
+    // ───────────────────────────────────────────────
+
+    /** Fibonacci hashing: the top bits of id × 2^64/φ. */
+    private int hashOf(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /** Index in table[] of this id, or -1. */
+    private int indexOf(long id) {
+        int mask = table.length - 1;
+        for (int i = hashOf(id); ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (idAt(entry - 1) == id) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(int slot) {
+        int mask = table.length - 1;
+        int i = hashOf(idAt(slot));
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /** Backward shift: move later entries of the same run into the hole. */
+    private void removeAt(int i) {
+        int mask = table.length - 1;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = hashOf(idAt(table[j] - 1));
+            if (((j - home) & mask) >= ((j - i) & mask)) {   // the hole lies between home and j
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+    }
+
+    private void rehash(int length) {
+        table = new int[length];
+        shift = 64 - Integer.numberOfTrailingZeros(length);
+        for (int slot = 0; slot < used; slot++) {
+            if (lengthAt(slot) != DELETED) {
+                insert(slot);
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("repository is closed");
+        }
+    }
+}
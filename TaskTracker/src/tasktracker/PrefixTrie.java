@@ -0,0 +1,221 @@
+package tasktracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * PrefixTrie stores words (names, types, ...) together with HOW OFTEN
+ * they are used, and suggests the most used words for a typed prefix.
+ *
+ * Example: after adding "Alice" ×5, "Alan" ×2 and "Bob" ×1,
+ *   suggest("al", 10) → ["Alice", "Alan"]
+ *
+ * How it works:
+ *  - Each character of a word is one step down the tree, so all words
+ *    starting with "al" live below the same node.
+ *  - Every node remembers the HIGHEST count anywhere below it (maxCount).
+ *  - suggest() walks the tree "best first": it always expands the branch
+ *    with the highest maxCount, so it can stop after finding `limit` words
+ *    instead of visiting every word with that prefix.
+ *
+ * Matching ignores upper/lower case. A word is shown the way it was
+ * first added.
+ *
+ * Counts are updated incrementally with add/remove. This class is NOT
+ * thread-safe.
+ */
+public class PrefixTrie {
+
+    private final Node root = new Node();
+    private int distinctWords = 0;
+
+    /** Counts one more use of the word. Blank words are ignored. */
+    public void add(String word) {
+        if (word == null || word.isBlank()) return;
+
+        String key = normalize(word);
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childFor(key.charAt(i), true);
+            path[i + 1] = node;
+        }
+
+        if (node.count == 0) {
+            node.display = word;
+            distinctWords++;
+        }
+        node.count++;
+        updateMaxCounts(path, path.length - 1);
+    }
+
+    /** Counts one use less. The word disappears when its count reaches 0. */
+    public void remove(String word) {
+        if (word == null || word.isBlank()) return;
+
+        String key = normalize(word);
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childFor(key.charAt(i), false);
+            if (node == null) return;   // word was never added
+            path[i + 1] = node;
+        }
+        if (node.count == 0) return;
+
+        node.count--;
+        if (node.count == 0) {
+            node.display = null;
+            distinctWords--;
+        }
+
+        // Drop nodes that no longer lead to any word
+        int depth = path.length - 1;
+        while (depth > 0 && path[depth].count == 0 && path[depth].childCount == 0) {
+            path[depth - 1].removeChild(key.charAt(depth - 1));
+            depth--;
+        }
+        updateMaxCounts(path, depth);
+    }
+
+    /** How often the word was added (0 if unknown). */
+    public int count(String word) {
+        if (word == null) return 0;
+        Node node = find(normalize(word));
+        return node == null ? 0 : node.count;
+    }
+
+    /** Number of different words currently stored. */
+    public int size() {
+        return distinctWords;
+    }
+
+    /**
+     * Returns up to `limit` words starting with the prefix,
+     * most used first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node start = find(normalize(prefix == null ? "" : prefix));
+        if (start == null || limit <= 0 || start.maxCount == 0) {
+            return result;
+        }
+
+        // Entries are either a whole subtree (ranked by its maxCount)
+        // or a single word (ranked by its own count).
+        PriorityQueue<Entry> queue = new PriorityQueue<>();
+        queue.add(new Entry(start, false));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Entry e = queue.poll();
+            if (e.isWord) {
+                result.add(e.node.display);
+                continue;
+            }
+            if (e.node.count > 0) {
+                queue.add(new Entry(e.node, true));
+            }
+            for (int i = 0; i < e.node.childCount; i++) {
+                queue.add(new Entry(e.node.children[i], false));
+            }
+        }
+        return result;
+    }
+
+    // ───────────────────────────────────────────────
+    // Internal helpers
+    // ───────────────────────────────────────────────
+
+    private static String normalize(String word) {
+        return word.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.childFor(key.charAt(i), false);
+        }
+        return node;
+    }
+
+    /** Recomputes maxCount from the given depth back up to the root. */
+    private static void updateMaxCounts(Node[] path, int fromDepth) {
+        for (int d = fromDepth; d >= 0; d--) {
+            Node n = path[d];
+            int max = n.count;
+            for (int i = 0; i < n.childCount; i++) {
+                max = Math.max(max, n.children[i].maxCount);
+            }
+            if (n.maxCount == max && d < fromDepth) {
+                break;   // nothing changes further up
+            }
+            n.maxCount = max;
+        }
+    }
+
+    /** One character step in the tree. Children are kept sorted by character. */
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        int childCount = 0;
+
+        int count = 0;        // how often the word ending here was added
+        int maxCount = 0;     // highest count in this subtree
+        String display;       // the word as first added (null if count == 0)
+
+        Node childFor(char c, boolean create) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            if (i >= 0) return children[i];
+            if (!create) return null;
+
+            int insert = -i - 1;
+            if (childCount == keys.length) {
+                int newLength = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, newLength);
+                children = Arrays.copyOf(children, newLength);
+            }
+            System.arraycopy(keys, insert, keys, insert + 1, childCount - insert);
+            System.arraycopy(children, insert, children, insert + 1, childCount - insert);
+            Node child = new Node();
+            keys[insert] = c;
+            children[insert] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            if (i < 0) return;
+            System.arraycopy(keys, i + 1, keys, i, childCount - i - 1);
+            System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+            children[--childCount] = null;
+        }
+    }
+
+    /** Queue entry for suggest(): highest rank first, finished words before subtrees. */
+    private static final class Entry implements Comparable<Entry> {
+        final Node node;
+        final boolean isWord;
+
+        Entry(Node node, boolean isWord) {
+            this.node = node;
+            this.isWord = isWord;
+        }
+
+        int rank() {
+            return isWord ? node.count : node.maxCount;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byRank = Integer.compare(other.rank(), rank());
+            if (byRank != 0) return byRank;
+            // A finished word comes before longer words below the same rank
+            return Boolean.compare(other.isWord, isWord);
+        }
+    }
+}
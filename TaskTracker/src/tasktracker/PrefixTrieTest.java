@@ -0,0 +1,104 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PrefixTrie and TaskSuggestions.
+ */
+class PrefixTrieTest {
+
+    private static void addTimes(PrefixTrie trie, String word, int times) {
+        for (int i = 0; i < times; i++) {
+            trie.add(word);
+        }
+    }
+
+    @Test
+    void testSuggestRanksByFrequency() {
+        PrefixTrie trie = new PrefixTrie();
+        addTimes(trie, "Alice", 5);
+        addTimes(trie, "Alan", 2);
+        addTimes(trie, "Albert", 7);
+        addTimes(trie, "Bob", 9);
+
+        assertEquals(List.of("Albert", "Alice", "Alan"), trie.suggest("al", 10));
+        assertEquals(List.of("Albert", "Alice"), trie.suggest("Al", 2));
+        assertEquals(List.of("Bob", "Albert"), trie.suggest("", 2));
+        assertTrue(trie.suggest("x", 10).isEmpty());
+    }
+
+    @Test
+    void testCaseInsensitiveAndFirstSpellingKept() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("McDonald");
+        trie.add("mcdonald");
+
+        assertEquals(2, trie.count("MCDONALD"));
+        assertEquals(1, trie.size());
+        assertEquals(List.of("McDonald"), trie.suggest("mc", 5));
+    }
+
+    @Test
+    void testRemoveUpdatesRanking() {
+        PrefixTrie trie = new PrefixTrie();
+        addTimes(trie, "Anna", 3);
+        addTimes(trie, "Annabel", 2);
+
+        trie.remove("Anna");
+        trie.remove("Anna");
+
+        assertEquals(List.of("Annabel", "Anna"), trie.suggest("ann", 5));
+
+        trie.remove("Anna");
+
+        assertEquals(List.of("Annabel"), trie.suggest("ann", 5));
+        assertEquals(0, trie.count("Anna"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void testRemovingUnknownWordIsHarmless() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("Kim");
+
+        trie.remove("Kimberly");
+        trie.remove("Tom");
+        trie.remove(null);
+
+        assertEquals(1, trie.count("Kim"));
+    }
+
+    @Test
+    void testBlankWordsIgnored() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("");
+        trie.add("   ");
+
+        assertEquals(0, trie.size());
+    }
+
+    @Test
+    void testSuggestionsFollowTaskManager() {
+        TaskManager manager = new TaskManager();
+        Task a = new Task("A", "Priya", null, "Work", Task.Priority.LOW);
+        Task b = new Task("B", "Priya", null, "Work", Task.Priority.LOW);
+        Task c = new Task("C", "Pat", null, "Personal", Task.Priority.LOW);
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addTask(c);
+
+        TaskSuggestions suggestions = manager.getSuggestions();
+        assertEquals(List.of("Priya", "Pat"), suggestions.suggestAssignees("p", 5));
+
+        // Edit one task and delete another: the old names lose their counts
+        manager.updateTask(a, new Task("A", "Pat", null, "Work", Task.Priority.LOW));
+        manager.removeTask(b);
+
+        assertEquals(List.of("Pat"), suggestions.suggestAssignees("p", 5));
+        assertEquals(List.of("Personal"), suggestions.suggestTypes("pe", 5));
+    }
+}
@@ -0,0 +1,236 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * QueryCache remembers the answers to recent TaskQuery questions, so the
+ * same filter asked again (every refreshView(), every API call with the
+ * same parameters) is answered without touching the bitmaps at all.
+ *
+ * How an answer is checked:
+ *  - With every answer we store the version counters of the attributes
+ *    the query reads (TaskQuery.attributes(), counters from
+ *    TaskQueryIndex), and today's date if the query depends on it.
+ *  - On a lookup the answer is used only if none of THOSE counters moved.
+ *    Editing a title, or the assignee while filtering by priority, leaves
+ *    the answer in place; completing a task only affects queries that
+ *    read COMPLETED.
+ *  - Nothing is thrown away when a task changes: an out-of-date answer
+ *    is noticed (and dropped) the next time it is asked for.
+ *
+ * Memory: every answer is counted as BYTES_PER_ENTRY plus BYTES_PER_TASK
+ * per task in it. When the total goes over maxBytes, the least recently
+ * used answers are dropped (a LinkedHashMap in access order, like
+ * BoardRegistry). An answer bigger than a quarter of the budget is not
+ * kept at all.
+ *
+ * Answers are read-only lists holding the live Task objects, so a cached
+ * list always shows the tasks' current titles etc.
+ *
+ * TaskManager calls this while holding its read lock, so the index (and
+ * its counters) cannot change during a lookup. The cache itself is
+ * shared by all reader threads, so its methods are synchronized — but
+ * the query itself runs outside that lock.
+ */
+public final class QueryCache {
+
+    /** Default memory budget. */
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /** Rough size of one answer without its tasks (key, entry, arrays, list). */
+    static final long BYTES_PER_ENTRY = 200;
+
+    /** One reference in the answer list. */
+    static final long BYTES_PER_TASK = 8;
+
+    /** "limit" of an answer holding every match. */
+    private static final int NO_LIMIT = -1;
+
+    // Keyed by the query itself for full answers (no key object to build
+    // on a lookup), or by a Key when only the first "limit" were asked for
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private long bytes = 0;
+
+    // ==== Metrics ====
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0;   // found, but out of date
+    private long evictions = 0;       // dropped to stay within maxBytes
+
+    public QueryCache(long maxBytes) {
+        setMaxBytes(maxBytes);
+    }
+
+    // ───────────────────────────────────────────────
+    // Lookups
+    // ───────────────────────────────────────────────
+
+    /** Every task matching the query, from the cache if still valid. */
+    List<Task> find(TaskQuery query, LocalDate today, TaskQueryIndex index) {
+        return find(query, NO_LIMIT, today, index);
+    }
+
+    /** The first "limit" matching tasks, from the cache if still valid. */
+    List<Task> find(TaskQuery query, int limit, LocalDate today, TaskQueryIndex index) {
+        Object key = limit == NO_LIMIT ? query : new Key(query, limit);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isCurrent(index, today)) {
+                    hits++;
+                    return entry.tasks;
+                }
+                invalidations++;
+                remove(key, entry);
+            }
+            misses++;
+        }
+
+        // Not cached: ask the index (outside our lock, other readers go on)
+        List<Task> tasks = Collections.unmodifiableList(limit == NO_LIMIT
+                ? index.find(query, today)
+                : index.find(query, today, limit));
+        Entry entry = new Entry(query, tasks, today, index);
+
+        synchronized (this) {
+            if (entry.bytes <= maxBytes / 4) {
+                Entry old = entries.put(key, entry);   // another reader may have been first
+                if (old != null) {
+                    bytes -= old.bytes;
+                }
+                bytes += entry.bytes;
+                evictToBudget();
+            }
+        }
+        return tasks;
+    }
+
+    // ───────────────────────────────────────────────
+    // Size and metrics
+    // ───────────────────────────────────────────────
+
+    /** Changes the memory budget (0 turns the cache off). */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes cannot be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        evictToBudget();
+    }
+
+    public synchronized long getMaxBytes() { return maxBytes; }
+
+    /** Estimated memory used by the cached answers. */
+    public synchronized long getBytes() { return bytes; }
+
+    /** Number of cached answers. */
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getInvalidations() { return invalidations; }
+    public synchronized long getEvictions() { return evictions; }
+
+    /** Share of lookups answered from the cache (0 before the first lookup). */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : hits / (double) lookups;
+    }
+
+    /** Drops every answer (the metrics are kept). */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d cached queries (%,d KB of %,d KB), %.1f%% hits, "
+                        + "%,d hits / %,d misses / %,d out of date / %,d evicted",
+                entries.size(), bytes / 1024, maxBytes / 1024, getHitRate() * 100,
+                hits, misses, invalidations, evictions);
+    }
+
+    private void remove(Object key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.bytes;
+    }
+
+    /** Drops least recently used answers until the budget is met. */
+    private void evictToBudget() {
+        Iterator<Map.Entry<Object, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Entries
+    // ───────────────────────────────────────────────
+
+    /** The query and how many results were asked for. */
+    private static final class Key {
+        final TaskQuery query;
+        final int limit;
+
+        Key(TaskQuery query, int limit) {
+            this.query = Objects.requireNonNull(query);
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return limit == other.limit && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return query.hashCode() * 31 + limit;
+        }
+    }
+
+    /** One answer, with the counters it was computed at. */
+    private static final class Entry {
+        final List<Task> tasks;
+        final TaskQuery.Attribute[] reads;   // the attributes the query depends on
+        final long[] versions;               // their counters when answered
+        final LocalDate day;                 // null = the answer does not depend on the date
+        final long bytes;
+
+        Entry(TaskQuery query, List<Task> tasks, LocalDate today, TaskQueryIndex index) {
+            this.tasks = tasks;
+            Set<TaskQuery.Attribute> attributes = query.attributes();
+            this.reads = attributes.toArray(new TaskQuery.Attribute[0]);
+            this.versions = new long[reads.length];
+            for (int i = 0; i < reads.length; i++) {
+                versions[i] = index.getVersion(reads[i]);
+            }
+            this.day = query.dependsOnToday() ? today : null;
+            this.bytes = BYTES_PER_ENTRY + tasks.size() * BYTES_PER_TASK;
+        }
+
+        boolean isCurrent(TaskQueryIndex index, LocalDate today) {
+            if (day != null && !day.equals(today)) {
+                return false;
+            }
+            for (int i = 0; i < reads.length; i++) {
+                if (index.getVersion(reads[i]) != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QueryCache and the version counters behind it.
+ *
+ * These tests verify:
+ *  - an edit only invalidates answers that read the changed attribute
+ *  - adds, removes and a new day invalidate what they should
+ *  - the memory budget is kept (least recently used answers go first)
+ *  - after any mix of changes, a cached answer equals a fresh one
+ */
+class QueryCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private static TaskManager managerWith(int count) {
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            manager.addTask(TaskBenchmarks.sampleTask(i));
+        }
+        return manager;
+    }
+
+    @Test
+    void testOnlyEditsToReadAttributesInvalidate() {
+        TaskManager manager = managerWith(100);
+        QueryCache cache = manager.getQueryCache();
+        TaskQuery highPriority = TaskQuery.priorityIn(Task.Priority.HIGH);
+        TaskQuery pending = TaskQuery.pending();
+
+        List<Task> high = manager.findTasks(highPriority);
+        manager.findTasks(pending);
+        assertEquals(2, cache.getMisses());
+
+        // Renaming and reassigning touch neither query
+        Task task = manager.getTask(1);
+        long version = manager.getVersion();
+        Task changes = task.snapshot();
+        changes.setTitle("Renamed");
+        changes.setAssignee("Zoe");
+        manager.updateTask(task, changes);
+        assertTrue(manager.getVersion() > version);
+        assertSame(high, manager.findTasks(highPriority), "still the cached answer");
+        manager.findTasks(pending);
+        assertEquals(2, cache.getHits());
+
+        // Completing a task only touches the pending query
+        Task open = manager.findTasks(pending).get(0);
+        long priorityVersion = manager.getVersion(TaskQuery.Attribute.PRIORITY);
+        manager.markComplete(open);
+        assertEquals(priorityVersion, manager.getVersion(TaskQuery.Attribute.PRIORITY));
+        assertSame(high, manager.findTasks(highPriority));
+        assertFalse(manager.findTasks(pending).contains(open));
+        assertEquals(1, cache.getInvalidations());
+
+        // Adding a task touches every query
+        manager.addTask(new Task("New", "", null, "", Task.Priority.HIGH));
+        assertEquals(high.size() + 1, manager.findTasks(highPriority).size());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    void testAnswersAreReadOnly() {
+        TaskManager manager = managerWith(10);
+        List<Task> all = manager.findTasks(TaskQuery.all());
+        assertThrows(UnsupportedOperationException.class, () -> all.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> manager.findTasks(TaskQuery.all(), 3).clear());
+    }
+
+    @Test
+    void testOverdueAnswerExpiresWithTheDay() {
+        TaskQueryIndex index = new TaskQueryIndex();
+        Task task = new Task("Due today", "", TODAY, "", Task.Priority.LOW);
+        task.setId(1);
+        index.taskAdded(task);
+        QueryCache cache = new QueryCache(QueryCache.DEFAULT_MAX_BYTES);
+
+        assertTrue(cache.find(TaskQuery.overdue(), TODAY, index).isEmpty());
+        assertTrue(cache.find(TaskQuery.overdue(), TODAY, index).isEmpty());
+        assertEquals(List.of(task), cache.find(TaskQuery.overdue(), TODAY.plusDays(1), index));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getInvalidations());
+
+        // A fixed range does not care what day it is
+        TaskQuery june = TaskQuery.dueBetween(TODAY, TODAY.plusDays(30));
+        cache.find(june, TODAY, index);
+        cache.find(june, TODAY.plusDays(1), index);
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void testMemoryBudgetEvictsLeastRecentlyUsed() {
+        TaskManager manager = managerWith(1000);
+        QueryCache cache = manager.getQueryCache();
+        // Room for four answers of 200 tasks (one assignee each)
+        long perAnswer = QueryCache.BYTES_PER_ENTRY + 200 * QueryCache.BYTES_PER_TASK;
+        cache.setMaxBytes(4 * perAnswer + perAnswer / 2);
+
+        String[] assignees = {"Alice", "Bob", "Carol", "Dave", "Eve"};
+        for (String a : assignees) {
+            assertEquals(200, manager.findTasks(TaskQuery.assigneeIs(a)).size());
+        }
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+
+        manager.findTasks(TaskQuery.assigneeIs("Bob"));     // still cached: hit
+        manager.findTasks(TaskQuery.assigneeIs("Alice"));   // was evicted: miss
+        assertEquals(1, cache.getHits());
+        assertEquals(6, cache.getMisses());
+        assertEquals(2, cache.getEvictions());   // Carol made room for Alice
+        assertEquals(1 / 7.0, cache.getHitRate(), 1e-9);
+
+        // Answers over a quarter of the budget are not kept
+        manager.findTasks(TaskQuery.all());
+        assertEquals(4, cache.size());
+
+        cache.setMaxBytes(0);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    /**
+     * Random edits, completes, adds and removes, with random queries in
+     * between: every cached answer must equal what the index says now.
+     */
+    @Test
+    void testCachedAnswersMatchFreshOnesAfterRandomChanges() {
+        Random random = new Random(5);
+        TaskManager manager = managerWith(300);
+        List<TaskQuery> queries = List.of(
+                TaskQuery.all(),
+                TaskQuery.pending(),
+                TaskQuery.priorityIn(Task.Priority.HIGH).and(TaskQuery.typeIs("Work")),
+                TaskQuery.assigneeIs("Bob").or(TaskQuery.completed()),
+                TaskQuery.overdue().and(TaskQuery.pending()),
+                TaskQuery.dueBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)).not());
+
+        for (int step = 0; step < 3_000; step++) {
+            List<Task> tasks = manager.getTasks();
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            Task changes = task.snapshot();
+            switch (random.nextInt(7)) {
+                case 0:
+                    changes.setTitle("Edited " + step);
+                    manager.updateTask(task, changes);
+                    break;
+                case 1:
+                    changes.setPriority(Task.Priority.values()[random.nextInt(3)]);
+                    manager.updateTask(task, changes);
+                    break;
+                case 2:
+                    changes.setAssignee(random.nextBoolean() ? "Bob" : "Eve");
+                    changes.setType(random.nextBoolean() ? "Work" : "Home");
+                    manager.updateTask(task, changes);
+                    break;
+                case 3:
+                    changes.setDueDate(LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365)));
+                    manager.updateTask(task, changes);
+                    break;
+                case 4:
+                    manager.markComplete(task);
+                    break;
+                case 5:
+                    manager.removeTask(task);
+                    break;
+                default:
+                    manager.addTask(TaskBenchmarks.sampleTask(random.nextInt(1000)));
+                    break;
+            }
+
+            TaskQuery query = queries.get(random.nextInt(queries.size()));
+            List<Task> fresh = new ArrayList<>(manager.getQueryIndex().find(query, Today.get()));
+            assertEquals(fresh, manager.findTasks(query), "step " + step + ": " + query);
+        }
+        assertTrue(manager.getQueryCache().getHits() > 0);
+    }
+}
@@ -0,0 +1,162 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Recurrence describes how a task repeats, for example
+ * "every day", "every 2 weeks" or "monthly until 2026-12-31".
+ *
+ * A rule never stores its occurrences. They are CALCULATED from the
+ * task's due date (the "anchor", i.e. the first occurrence):
+ *
+ *   occurrence n = anchor + n × interval × (day | week | month)
+ *
+ * So a daily chore that runs for ten years costs the same memory as one
+ * that runs for a week — only the dates inside the window someone asks
+ * for (occurrencesBetween) are ever created.
+ *
+ * Monthly rules are counted from the anchor each time, so a task due on
+ * the 31st falls on the last day of shorter months and goes back to the
+ * 31st afterwards.
+ *
+ * Recurrence objects are immutable.
+ */
+public final class Recurrence {
+
+    /** The step between two occurrences. */
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS),
+        WEEKLY(ChronoUnit.WEEKS),
+        MONTHLY(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private final Frequency frequency;
+    private final int interval;       // 1 = every day/week/month, 2 = every other, ...
+    private final LocalDate until;    // last allowed date, or null = forever
+
+    public Recurrence(Frequency frequency, int interval, LocalDate until) {
+        if (frequency == null) {
+            throw new IllegalArgumentException("frequency is required");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be at least 1: " + interval);
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.until = until;
+    }
+
+    /** Repeats every day/week/month forever. */
+    public static Recurrence of(Frequency frequency) {
+        return new Recurrence(frequency, 1, null);
+    }
+
+    public Frequency getFrequency() { return frequency; }
+    public int getInterval() { return interval; }
+    public LocalDate getUntil() { return until; }
+
+    /**
+     * Returns occurrence number n (0 = the anchor itself),
+     * or null if it falls after the "until" date.
+     */
+    public LocalDate occurrence(LocalDate anchor, long n) {
+        LocalDate date = anchor.plus(n * interval, frequency.unit);
+        if (until != null && date.isAfter(until)) {
+            return null;
+        }
+        return date;
+    }
+
+    /**
+     * Returns the number of the first occurrence on or after the date.
+     *
+     * Calculated directly (no loop over earlier occurrences), so asking
+     * about a date years after the anchor is just as fast.
+     */
+    public long indexOnOrAfter(LocalDate anchor, LocalDate date) {
+        if (!date.isAfter(anchor)) {
+            return 0;
+        }
+        long n = frequency.unit.between(anchor, date) / interval;
+        // between() rounds down, and month lengths vary: step forward if needed
+        while (anchor.plus(n * interval, frequency.unit).isBefore(date)) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the first occurrence strictly after the date, or null if the
+     * rule has ended by then.
+     */
+    public LocalDate nextAfter(LocalDate anchor, LocalDate date) {
+        return occurrence(anchor, indexOnOrAfter(anchor, date.plusDays(1)));
+    }
+
+    /**
+     * True if the rule produces an occurrence on exactly this date.
+     */
+    public boolean isOccurrence(LocalDate anchor, LocalDate date) {
+        LocalDate candidate = occurrence(anchor, indexOnOrAfter(anchor, date));
+        return date.equals(candidate);
+    }
+
+    /**
+     * Returns all occurrences between from and to (both inclusive), in order.
+     * Only this window is expanded.
+     */
+    public List<LocalDate> occurrencesBetween(LocalDate anchor, LocalDate from, LocalDate to) {
+        List<LocalDate> result = new ArrayList<>();
+        for (long n = indexOnOrAfter(anchor, from); ; n++) {
+            LocalDate date = occurrence(anchor, n);
+            if (date == null || date.isAfter(to)) {
+                break;
+            }
+            result.add(date);
+        }
+        return result;
+    }
+
+    /**
+     * Short text for the task list, e.g. "weekly" or "every 3 days until 2026-05-01".
+     */
+    @Override
+    public String toString() {
+        String text;
+        if (interval == 1) {
+            text = frequency.name().toLowerCase(Locale.ROOT);
+        } else {
+            text = "every " + interval + " " + frequency.unit.name().toLowerCase(Locale.ROOT);
+        }
+        if (until != null) {
+            text += " until " + until;
+        }
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Recurrence)) return false;
+        Recurrence other = (Recurrence) o;
+        return frequency == other.frequency
+                && interval == other.interval
+                && Objects.equals(until, other.until);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, until);
+    }
+}
@@ -0,0 +1,151 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Recurrence and recurring tasks.
+ *
+ * These tests verify:
+ *  - occurrences are calculated correctly for each frequency
+ *  - only the requested window is expanded
+ *  - completing occurrences in order does not keep growing memory
+ *  - TaskManager completes one occurrence at a time
+ */
+class RecurrenceTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 31);
+
+    private static Task recurringTask(Recurrence rule) {
+        Task t = new Task("Chore", "Sam", START, "Home", Task.Priority.MEDIUM);
+        t.setRecurrence(rule);
+        return t;
+    }
+
+    @Test
+    void testOccurrencesPerFrequency() {
+        Recurrence daily = Recurrence.of(Recurrence.Frequency.DAILY);
+        Recurrence everyTwoWeeks = new Recurrence(Recurrence.Frequency.WEEKLY, 2, null);
+        Recurrence monthly = Recurrence.of(Recurrence.Frequency.MONTHLY);
+
+        assertEquals(List.of(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 2)),
+                daily.occurrencesBetween(START, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 2)));
+        assertEquals(List.of(LocalDate.of(2026, 2, 14), LocalDate.of(2026, 2, 28)),
+                everyTwoWeeks.occurrencesBetween(START, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 3, 1)));
+
+        // Counted from the anchor: short months use their last day, then back to the 31st
+        assertEquals(List.of(LocalDate.of(2026, 2, 28), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 4, 30)),
+                monthly.occurrencesBetween(START, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 4, 30)));
+
+        // Nothing before the first occurrence
+        assertTrue(daily.occurrencesBetween(START, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)).isEmpty());
+    }
+
+    @Test
+    void testFarWindowOnlyExpandsThatWindow() {
+        Recurrence daily = Recurrence.of(Recurrence.Frequency.DAILY);
+        LocalDate from = LocalDate.of(2126, 6, 1);
+
+        List<LocalDate> week = daily.occurrencesBetween(START, from, from.plusDays(6));
+
+        assertEquals(7, week.size());
+        assertEquals(from, week.get(0));
+        assertTrue(daily.isOccurrence(START, from));
+    }
+
+    @Test
+    void testUntilEndsTheRule() {
+        Recurrence rule = new Recurrence(Recurrence.Frequency.WEEKLY, 1, START.plusWeeks(2));
+
+        assertEquals(3, rule.occurrencesBetween(START, START, START.plusYears(1)).size());
+        assertNull(rule.nextAfter(START, START.plusWeeks(2)));
+    }
+
+    @Test
+    void testInvalidRuleRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Recurrence(Recurrence.Frequency.DAILY, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Recurrence(null, 1, null));
+    }
+
+    @Test
+    void testCompletingInOrderKeepsNoExceptions() {
+        Task t = recurringTask(Recurrence.of(Recurrence.Frequency.DAILY));
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(t.completeOccurrence(t.getNextDueDate()));
+        }
+
+        assertEquals(START.plusDays(999), t.getCompletedThrough());
+        assertTrue(t.getCompletedExceptions().isEmpty());
+        assertEquals(START.plusDays(1000), t.getNextDueDate());
+        assertFalse(t.isCompleted());
+    }
+
+    @Test
+    void testOutOfOrderCompletionIsMergedLater() {
+        Task t = recurringTask(Recurrence.of(Recurrence.Frequency.WEEKLY));
+
+        assertTrue(t.completeOccurrence(START.plusWeeks(1)));
+        assertFalse(t.completeOccurrence(START.plusWeeks(1)), "already done");
+        assertFalse(t.completeOccurrence(START.plusDays(3)), "not an occurrence");
+        assertEquals(1, t.getCompletedExceptions().size());
+        assertEquals(START, t.getNextDueDate());
+
+        // Completing the first one swallows the early one
+        assertTrue(t.completeOccurrence(START));
+        assertTrue(t.getCompletedExceptions().isEmpty());
+        assertEquals(START.plusWeeks(1), t.getCompletedThrough());
+        assertEquals(START.plusWeeks(2), t.getNextDueDate());
+    }
+
+    @Test
+    void testChangingRuleDropsStaleExceptions() {
+        Task t = recurringTask(Recurrence.of(Recurrence.Frequency.DAILY));
+        t.completeOccurrence(START.plusDays(3));
+
+        t.setRecurrence(Recurrence.of(Recurrence.Frequency.WEEKLY));
+
+        assertTrue(t.getCompletedExceptions().isEmpty());
+    }
+
+    @Test
+    void testManagerCompletesNextOccurrence() {
+        TaskManager manager = new TaskManager();
+        Task t = recurringTask(new Recurrence(Recurrence.Frequency.DAILY, 1, START.plusDays(1)));
+        manager.addTask(t);
+
+        manager.markComplete(t);
+        assertFalse(t.isCompleted());
+        assertEquals(START.plusDays(1), t.getNextDueDate());
+        assertEquals(1, manager.findTasks(TaskQuery.dueBetween(START.plusDays(1), START.plusDays(1))).size());
+
+        manager.markComplete(t);
+        assertTrue(t.isCompleted(), "Rule ended and every occurrence is done");
+        assertEquals(1, manager.countTasks(TaskQuery.completed()));
+    }
+
+    @Test
+    void testGetOccurrencesMixesOneOffAndRecurring() {
+        TaskManager manager = new TaskManager();
+        Task weekly = recurringTask(Recurrence.of(Recurrence.Frequency.WEEKLY));
+        Task oneOff = new Task("Dentist", "", START.plusDays(10), "", Task.Priority.HIGH);
+        manager.addTask(weekly);
+        manager.addTask(oneOff);
+        manager.completeOccurrence(weekly, START.plusWeeks(1));
+
+        List<TaskOccurrence> window = manager.getOccurrences(START.plusDays(1), START.plusDays(14));
+
+        assertEquals(3, window.size());
+        assertEquals(START.plusWeeks(1), window.get(0).getDate());
+        assertTrue(window.get(0).isCompleted());
+        assertSame(oneOff, window.get(1).getTask());
+        assertEquals(START.plusWeeks(2), window.get(2).getDate());
+        assertFalse(window.get(2).isCompleted());
+    }
+}
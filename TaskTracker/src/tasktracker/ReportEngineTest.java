@@ -0,0 +1,241 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReportEngine and BoardReport.
+ *
+ * These tests verify:
+ *  - the parallel report has the same numbers as a plain loop over
+ *    getTasks(), also with removed tasks and more threads than cores
+ *  - overdue, aging and trend rules on a small hand-made board
+ *  - CSV and HTML output, with names that need quoting / escaping
+ *  - archived tasks are counted, and --report only reads the board files
+ */
+class ReportEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    private static Task task(String assignee, LocalDate due, String type, Task.Priority priority) {
+        return new Task("Task", assignee, due, type, priority);
+    }
+
+    private static Task completed(String type, LocalDate completedOn) {
+        Task t = new Task("Done", "Ann", TODAY, type, Task.Priority.LOW);
+        t.setCompleted(true);
+        t.setCompletedOn(completedOn);
+        return t;
+    }
+
+    @Test
+    void testSmallBoard() {
+        TaskManager manager = new TaskManager();
+        manager.addTask(task("Ann", TODAY.minusDays(3), "Work", Task.Priority.HIGH));     // 1-7 days
+        manager.addTask(task("Ann", TODAY.minusDays(40), "Work", Task.Priority.HIGH));    // 31-90 days
+        manager.addTask(task("Bob", TODAY.minusDays(400), "Home", Task.Priority.LOW));    // over a year
+        manager.addTask(task("Bob", TODAY, "Home", Task.Priority.LOW));                   // due today: not overdue
+        manager.addTask(task("", null, "", Task.Priority.MEDIUM));                        // no due date
+        manager.addTask(completed("Work", TODAY));                   // this week
+        manager.addTask(completed("Work", TODAY.minusDays(6)));      // still this week
+        manager.addTask(completed("Work", TODAY.minusDays(7)));      // the week before
+        manager.addTask(completed("Home", TODAY.minusDays(7 * 12)));  // too long ago for the trend
+
+        BoardReport report = new ReportEngine(manager).run(TODAY);
+        assertEquals(9, report.getTotal());
+        assertEquals(4, report.getCompleted());
+        assertEquals(5, report.getOpen());
+        assertEquals(3, report.getOverdue());
+
+        assertEquals(List.of("Ann", "Bob"), report.getOverdueAssignees(), "most overdue first");
+        assertEquals(2, report.getOverdueCount("Ann"));
+        assertEquals(0, report.getOverdueCount(""));
+
+        assertArrayEquals(new long[] {0, 0, 1, 0, 1, 0, 0}, report.getAging(Task.Priority.HIGH));
+        assertArrayEquals(new long[] {0, 1, 0, 0, 0, 0, 1}, report.getAging(Task.Priority.LOW));
+        assertArrayEquals(new long[] {1, 0, 0, 0, 0, 0, 0}, report.getAging(Task.Priority.MEDIUM));
+
+        assertEquals(List.of("", "Home", "Work"), report.getTypes());
+        long[] work = report.getCompletedByWeek("Work");
+        assertEquals(12, work.length);
+        assertEquals(2, work[11]);
+        assertEquals(1, work[10]);
+        assertEquals(2, report.getOpen("Work"));
+        assertEquals(0, sum(report.getCompletedByWeek("Home")));
+        assertEquals(TODAY.minusDays(6), report.getWeekStart(11), "the last week ends today");
+    }
+
+    @Test
+    void testParallelMatchesPlainLoop() {
+        TaskManager manager = new TaskManager();
+        Random random = new Random(48);
+        for (int i = 0; i < 100_000; i++) {
+            Task t = TaskBenchmarks.sampleTask(i);
+            if (t.isCompleted()) {
+                t.setCompletedOn(TODAY.minusDays(random.nextInt(120)));
+            }
+            manager.addTask(t);
+        }
+        // Removed tasks leave empty slots behind
+        List<Task> all = manager.getTasks();
+        for (int i = 0; i < all.size(); i += 7) {
+            manager.removeTask(all.get(i));
+        }
+
+        // More threads than this machine may have cores: the parts must still add up
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool one = new ForkJoinPool(1);
+        try {
+            BoardReport parallel = new ReportEngine(manager, pool).run(TODAY, 8);
+            BoardReport single = new ReportEngine(manager, one).run(TODAY, 8);
+
+            // The same numbers, counted without the engine
+            BoardReport expected = new BoardReport(TODAY, 8);
+            for (Task t : manager.getTasks()) {
+                expected.add(t);
+            }
+            for (BoardReport report : new BoardReport[] {parallel, single}) {
+                assertEquals(csv(expected), csv(report));
+            }
+            assertEquals(manager.getTotalCount(), parallel.getTotal());
+            assertEquals(manager.getCompletedCount(), parallel.getCompleted());
+            TaskQuery overdue = TaskQuery.overdue().and(TaskQuery.pending());
+            assertEquals(manager.getTasks().stream().filter(t -> overdue.matches(t, TODAY)).count(),
+                    parallel.getOverdue(), "the same rule as the overdue filter");
+        } finally {
+            pool.shutdown();
+            one.shutdown();
+        }
+    }
+
+    @Test
+    void testArchivedTasksAreCounted() throws Exception {
+        TaskManager manager = new TaskManager();
+        manager.addTask(task("Ann", TODAY.minusDays(3), "Work", Task.Priority.HIGH));
+        manager.addTask(completed("Work", TODAY));                        // stays on the board
+        int old = 2 * TaskArchive.SEGMENT_SIZE + 10;                     // three segments
+        for (int i = 0; i < old; i++) {
+            manager.addTask(completed(i % 2 == 0 ? "Work" : "Home", TODAY.minusDays(14)));
+        }
+        assertEquals(old, manager.archiveCompleted(TODAY.minusDays(7)));
+        assertEquals(3, manager.getArchive().segmentCount());
+        assertEquals(2, manager.getTotalCount(), "only recent work is left on the board");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BoardReport report = new ReportEngine(manager, pool).run(TODAY);
+            assertEquals(2 + old, report.getTotal());
+            assertEquals(1 + old, report.getCompleted());
+            assertEquals(1, report.getOpen());
+            assertEquals(1, report.getOverdue(), "archived tasks are never overdue");
+
+            long[] work = report.getCompletedByWeek("Work");
+            assertEquals(1, work[11]);
+            assertEquals(old / 2, work[9], "completed two weeks ago, now in the archive");
+            assertEquals(old / 2, report.getCompletedByWeek("Home")[9]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testReadingTheBoardChangesNoFiles(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("team.board");
+        try (Board board = Board.open("team", file)) {
+            TaskManager manager = board.getManager();
+            manager.addTask(task("Ann", Today.get().minusDays(2), "Work", Task.Priority.HIGH));
+            manager.addTask(completed("Work", Today.get().minusDays(Board.ARCHIVE_AFTER_DAYS + 5)));
+        }
+        // The completed task went to the archive when the board was saved
+        Map<Path, byte[]> before = contents(dir);
+
+        TaskManager read = Board.read(file);
+        BoardReport report = new ReportEngine(read).run(Today.get());
+        assertEquals(2, report.getTotal(), "the archived task is counted");
+        assertEquals(1, report.getOverdue());
+        assertFalse(read.getUndoJournal().isEnabled());
+
+        Map<Path, byte[]> after = contents(dir);
+        assertEquals(before.keySet(), after.keySet(), "no log, no new files");
+        for (Path p : before.keySet()) {
+            assertArrayEquals(before.get(p), after.get(p), p + " was written");
+        }
+    }
+
+    /** Every file under the directory, with its bytes. */
+    private static Map<Path, byte[]> contents(Path dir) throws IOException {
+        Map<Path, byte[]> files = new TreeMap<>();
+        try (var paths = Files.walk(dir)) {
+            for (Path p : paths.filter(Files::isRegularFile).toList()) {
+                files.put(dir.relativize(p), Files.readAllBytes(p));
+            }
+        }
+        return files;
+    }
+
+    @Test
+    void testCsvOutput() {
+        TaskManager manager = new TaskManager();
+        manager.addTask(task("Smith, \"Jo\"", TODAY.minusDays(10), "Work", Task.Priority.HIGH));
+        String csv = csv(new ReportEngine(manager).run(TODAY, 2));
+
+        assertTrue(csv.startsWith("report,group,column,value\r\n"));
+        assertTrue(csv.contains("totals,,overdue,1\r\n"));
+        assertTrue(csv.contains("overdue,\"Smith, \"\"Jo\"\"\",days overdue,10\r\n"), "quoted, quotes doubled");
+        assertTrue(csv.contains("aging,HIGH,8-30 days,1\r\n"));
+        assertTrue(csv.contains("trend,Work,2025-06-09,0\r\ntrend,Work,open,1\r\n"));
+    }
+
+    @Test
+    void testHtmlOutput() throws Exception {
+        TaskManager manager = new TaskManager();
+        manager.addTask(task("<script>", TODAY.minusDays(1), "R&D", Task.Priority.LOW));
+        StringWriter out = new StringWriter();
+        new ReportEngine(manager).run(TODAY).writeHtml(out);
+        String html = out.toString();
+
+        assertTrue(html.contains("<td>&lt;script&gt;</td><td>1</td>"));
+        assertTrue(html.contains("<td>R&amp;D</td>"));
+        assertFalse(html.contains("<script>"), "names must not become markup");
+        assertTrue(html.endsWith("</body></html>\n"));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        ReportEngine engine = new ReportEngine(new TaskManager());
+        assertThrows(IllegalArgumentException.class, () -> engine.run(null));
+        assertThrows(IllegalArgumentException.class, () -> engine.run(TODAY, 0));
+        assertEquals(0, engine.run(TODAY).getTotal(), "an empty board is an empty report");
+    }
+
+    private static String csv(BoardReport report) {
+        StringWriter out = new StringWriter();
+        try {
+            report.writeCsv(out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toString();
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long n : counts) {
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,753 @@
+package tasktracker;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * SnapshotCodec saves a set of tasks to a compact binary format
+ * and reads it back.
+ *
+ * Why not just write every field as text?
+ *  - Big boards repeat the same assignee and type names thousands of times.
+ *  - Due dates are usually close to each other.
+ *  - Priority and "completed" only need a few bits.
+ *
+ * So the format uses:
+ *  - DICTIONARY encoding for assignee and type: a name is written once,
+ *    later tasks just refer to it by a small number.
+ *  - DELTA encoding for ids and due dates: only the difference to the
+ *    previous task is written, which is usually a tiny number.
+ *  - VARINTS: small numbers take 1 byte instead of 4 or 8.
+ *  - One FLAGS byte holding priority, completed, "has due date",
+ *    "repeats", "has blockers" and "has completion day".
+ *  - Recurring tasks store their rule and the COMPLETED occurrences only,
+ *    as day offsets from the due date.
+ *  - Optional BLOCK compression (Deflate) on top of everything.
+ *
+ * Layout:
+ *   header:  "TTSN" | version (1 byte) | options (1 byte) | [log sequence]
+ *            options: bit 0 = compressed, bit 1 = log sequence follows
+ *   body:    record* | END
+ *   record:  flags | id delta | title | assignee | type | [due delta] | [recurrence]
+ *            | [blockers] | [completed on]
+ *   recurrence: frequency | interval | until+1 | completedThrough+1
+ *               | exception count | exception day gaps
+ *               (dates as days after the due date, 0 = none)
+ *   blockers: count | first id - own id (signed) | gaps between the sorted ids
+ *   completed on: days after the due date (signed), or the epoch day
+ *                 when there is no due date
+ *
+ * Version 1 files (no recurrence), version 2 files (no blockers) and
+ * version 3 files (no completion days) can still be read.
+ *
+ * A snapshot used as a CHECKPOINT (see LogCompactor) also stores the
+ * sequence number of the last log operation it contains, so replaying the
+ * log afterwards can skip everything up to there.
+ *
+ * Reading and writing are STREAMED: Writer and Reader handle one task at a
+ * time, so a snapshot never has to fit in memory as a whole.
+ */
+public final class SnapshotCodec {
+
+    private static final byte[] MAGIC = {'T', 'T', 'S', 'N'};
+    private static final int VERSION = 4;
+    private static final int OPTION_COMPRESSED = 1;
+    private static final int OPTION_LOG_SEQUENCE = 2;
+
+    // ==== Flags byte ====
+    private static final int PRIORITY_MASK = 0b0011;
+    private static final int COMPLETED_BIT = 0b0100;
+    private static final int HAS_DUE_BIT = 0b1000;
+    private static final int RECURRING_BIT = 0b1_0000;
+    private static final int BLOCKED_BIT = 0b10_0000;
+    private static final int COMPLETED_ON_BIT = 0b100_0000;
+    private static final int END_OF_SNAPSHOT = 0xFF;
+
+    /** Uncompressed bytes collected before a block is compressed. */
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values();
+    private static final Recurrence.Frequency[] FREQUENCIES = Recurrence.Frequency.values();
+
+    private SnapshotCodec() {
+        // only static helpers and the nested Writer/Reader
+    }
+
+    // ───────────────────────────────────────────────
+    // Convenience methods
+    // ───────────────────────────────────────────────
+
+    /**
+     * Writes all tasks to the stream. The stream is NOT closed.
+     */
+    public static void write(Collection<Task> tasks, OutputStream out, boolean compress)
+            throws IOException {
+        Writer writer = new Writer(out, compress);
+        for (Task t : tasks) {
+            writer.write(t);
+        }
+        writer.finish();
+    }
+
+    /**
+     * Saves tasks to a file so that the file is never half-written:
+     *  1. write everything to "<file>.tmp"
+     *  2. force the bytes to disk
+     *  3. rename the temp file over the real one (atomic on the same disk)
+     * If the program crashes in between, the old file is still intact.
+     */
+    public static void writeFile(Collection<Task> tasks, Path file, boolean compress)
+            throws IOException {
+        writeFile(tasks, file, compress, 0);
+    }
+
+    /**
+     * Same as writeFile(tasks, file, compress), but also records the last
+     * log sequence number the tasks include (0 = none).
+     */
+    public static void writeFile(Collection<Task> tasks, Path file, boolean compress,
+                                 long logSequence) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            Writer writer = new Writer(out, compress, logSequence);
+            for (Task t : tasks) {
+                writer.write(t);
+            }
+            writer.finish();
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The rename itself must survive a crash too
+        WriteBehindLog.forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Reads every task from the stream into a list.
+     */
+    public static List<Task> readAll(InputStream in) throws IOException {
+        List<Task> result = new ArrayList<>();
+        Reader reader = new Reader(in);
+        Task t;
+        while ((t = reader.read()) != null) {
+            result.add(t);
+        }
+        return result;
+    }
+
+    // ───────────────────────────────────────────────
+    // WRITER
+    // ───────────────────────────────────────────────
+
+    /**
+     * Writes tasks one at a time.
+     * Call finish() (or close()) at the end to write the END marker.
+     *
+     * The codec writes single bytes, so file streams should be wrapped
+     * in a BufferedOutputStream (and a BufferedInputStream for reading).
+     */
+    public static final class Writer implements Closeable {
+
+        private final OutputStream target;
+        private final OutputStream out;
+        private final Map<String, Integer> assignees = new HashMap<>();
+        private final Map<String, Integer> types = new HashMap<>();
+
+        private long previousId = 0;
+        private long previousDueDay = 0;
+        private boolean finished = false;
+
+        public Writer(OutputStream out, boolean compress) throws IOException {
+            this(out, compress, 0);
+        }
+
+        /**
+         * @param logSequence last log operation included in this snapshot (0 = none)
+         */
+        public Writer(OutputStream out, boolean compress, long logSequence) throws IOException {
+            this.target = out;
+            out.write(MAGIC);
+            out.write(VERSION);
+            int options = compress ? OPTION_COMPRESSED : 0;
+            if (logSequence > 0) {
+                options |= OPTION_LOG_SEQUENCE;
+            }
+            out.write(options);
+            if (logSequence > 0) {
+                writeVarLong(out, logSequence);
+            }
+            this.out = compress ? new BlockCompressingStream(out) : out;
+
+            // The empty string is always entry 0 in both dictionaries
+            assignees.put("", 0);
+            types.put("", 0);
+        }
+
+        public void write(Task task) throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Snapshot already finished");
+            }
+
+            LocalDate due = task.getDueDate();
+            out.write(flagsOf(task));
+
+            writeSignedVarLong(out, task.getId() - previousId);
+            previousId = task.getId();
+
+            writeString(out, task.getTitle());
+            writeDictionaryValue(assignees, task.getAssignee());
+            writeDictionaryValue(types, task.getType());
+
+            if (due != null) {
+                long day = due.toEpochDay();
+                writeSignedVarLong(out, day - previousDueDay);
+                previousDueDay = day;
+            }
+
+            if (task.isRecurring()) {
+                writeRecurrence(out, task);
+            }
+            if (!task.getBlockedBy().isEmpty()) {
+                writeBlockers(out, task);
+            }
+            if (task.getCompletedOn() != null) {
+                writeCompletedOn(out, task);
+            }
+        }
+
+        /**
+         * Known values are written as their index.
+         * A new value is written as "index = dictionary size" followed by the text,
+         * and both sides add it to their dictionary.
+         */
+        private void writeDictionaryValue(Map<String, Integer> dictionary, String value)
+                throws IOException {
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarLong(out, index);
+            } else {
+                int newIndex = dictionary.size();
+                dictionary.put(value, newIndex);
+                writeVarLong(out, newIndex);
+                writeString(out, value);
+            }
+        }
+
+        /**
+         * Writes the END marker and flushes. The underlying stream stays open.
+         */
+        public void finish() throws IOException {
+            if (finished) return;
+            out.write(END_OF_SNAPSHOT);
+            if (out instanceof BlockCompressingStream) {
+                ((BlockCompressingStream) out).finish();
+            }
+            target.flush();
+            finished = true;
+        }
+
+        /** Finishes the snapshot and closes the underlying stream. */
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // READER
+    // ───────────────────────────────────────────────
+
+    /**
+     * Reads tasks one at a time. read() returns null after the last task.
+     */
+    public static final class Reader implements Closeable {
+
+        private final InputStream source;
+        private final InputStream in;
+        private final List<String> assignees = new ArrayList<>();
+        private final List<String> types = new ArrayList<>();
+
+        private long previousId = 0;
+        private long previousDueDay = 0;
+        private boolean done = false;
+        private final long logSequence;
+
+        public Reader(InputStream in) throws IOException {
+            this.source = in;
+
+            byte[] magic = new byte[MAGIC.length];
+            readFully(in, magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a task snapshot");
+                }
+            }
+            int version = readByte(in);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            int options = readByte(in);
+            if ((options & ~(OPTION_COMPRESSED | OPTION_LOG_SEQUENCE)) != 0) {
+                throw new IOException("Unsupported snapshot options: " + options);
+            }
+            this.logSequence = (options & OPTION_LOG_SEQUENCE) != 0 ? readVarLong(in) : 0;
+            this.in = (options & OPTION_COMPRESSED) != 0 ? new BlockDecompressingStream(in) : in;
+
+            assignees.add("");
+            types.add("");
+        }
+
+        /** Last log operation included in this snapshot (0 = not a checkpoint). */
+        public long getLogSequence() {
+            return logSequence;
+        }
+
+        public Task read() throws IOException {
+            if (done) return null;
+
+            int flags = readByte(in);
+            if (flags == END_OF_SNAPSHOT) {
+                done = true;
+                return null;
+            }
+
+            long id = previousId + readSignedVarLong(in);
+            previousId = id;
+
+            String title = readString(in);
+            String assignee = readDictionaryValue(assignees);
+            String type = readDictionaryValue(types);
+
+            LocalDate due = null;
+            if ((flags & HAS_DUE_BIT) != 0) {
+                previousDueDay += readSignedVarLong(in);
+                due = LocalDate.ofEpochDay(previousDueDay);
+            }
+
+            return buildTask(in, flags, id, title, assignee, type, due);
+        }
+
+        private String readDictionaryValue(List<String> dictionary) throws IOException {
+            long index = readVarLong(in);
+            if (index < dictionary.size()) {
+                return dictionary.get((int) index);
+            }
+            if (index != dictionary.size()) {
+                throw new IOException("Corrupt snapshot: bad dictionary index " + index);
+            }
+            String value = readString(in);
+            dictionary.add(value);
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Record parts shared by snapshots and the operation log
+    // ───────────────────────────────────────────────
+
+    /**
+     * Writes ONE task on its own: no dictionary and no deltas, so the
+     * record can be read without anything written before it.
+     * Used by TaskOperation for the write-behind log.
+     */
+    static void writeTaskRecord(OutputStream out, Task task) throws IOException {
+        out.write(flagsOf(task));
+        writeVarLong(out, task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getAssignee());
+        writeString(out, task.getType());
+        if (task.getDueDate() != null) {
+            writeSignedVarLong(out, task.getDueDate().toEpochDay());
+        }
+        if (task.isRecurring()) {
+            writeRecurrence(out, task);
+        }
+        if (!task.getBlockedBy().isEmpty()) {
+            writeBlockers(out, task);
+        }
+        if (task.getCompletedOn() != null) {
+            writeCompletedOn(out, task);
+        }
+    }
+
+    /** Reads a record written by writeTaskRecord. */
+    static Task readTaskRecord(InputStream in) throws IOException {
+        int flags = readByte(in);
+        long id = readVarLong(in);
+        String title = readString(in);
+        String assignee = readString(in);
+        String type = readString(in);
+        LocalDate due = null;
+        if ((flags & HAS_DUE_BIT) != 0) {
+            due = LocalDate.ofEpochDay(readSignedVarLong(in));
+        }
+        return buildTask(in, flags, id, title, assignee, type, due);
+    }
+
+    private static int flagsOf(Task task) {
+        int flags = task.getPriority().ordinal();
+        if (task.isCompleted()) flags |= COMPLETED_BIT;
+        if (task.getDueDate() != null) flags |= HAS_DUE_BIT;
+        if (task.isRecurring()) flags |= RECURRING_BIT;
+        if (!task.getBlockedBy().isEmpty()) flags |= BLOCKED_BIT;
+        if (task.getCompletedOn() != null) flags |= COMPLETED_ON_BIT;
+        return flags;
+    }
+
+    /** Creates the task from the decoded fields and reads its recurrence and blockers (if any). */
+    private static Task buildTask(InputStream in, int flags, long id, String title,
+                                  String assignee, String type, LocalDate due) throws IOException {
+        if ((flags & ~(PRIORITY_MASK | COMPLETED_BIT | HAS_DUE_BIT | RECURRING_BIT | BLOCKED_BIT
+                | COMPLETED_ON_BIT)) != 0
+                || (flags & PRIORITY_MASK) >= PRIORITIES.length) {
+            throw new IOException("Corrupt record: bad flags " + flags);
+        }
+        Task task = new Task(title, assignee, due, type, PRIORITIES[flags & PRIORITY_MASK]);
+        task.setCompleted((flags & COMPLETED_BIT) != 0);
+        task.setId(id);
+        if ((flags & RECURRING_BIT) != 0) {
+            if (due == null) {
+                throw new IOException("Corrupt record: recurring task without due date");
+            }
+            readRecurrence(in, task, due.toEpochDay());
+        }
+        if ((flags & BLOCKED_BIT) != 0) {
+            readBlockers(in, task);
+        }
+        if ((flags & COMPLETED_ON_BIT) != 0) {
+            long base = due == null ? 0 : due.toEpochDay();
+            task.setCompletedOn(LocalDate.ofEpochDay(base + readSignedVarLong(in)));
+        }
+        return task;
+    }
+
+    /** Usually close to the due date, so the difference is a tiny number. */
+    private static void writeCompletedOn(OutputStream out, Task task) throws IOException {
+        long base = task.getDueDate() == null ? 0 : task.getDueDate().toEpochDay();
+        writeSignedVarLong(out, task.getCompletedOn().toEpochDay() - base);
+    }
+
+    /** Blocker ids: sorted, so after the first one only small gaps are written. */
+    private static void writeBlockers(OutputStream out, Task task) throws IOException {
+        writeVarLong(out, task.getBlockedBy().size());
+        long previous = Long.MIN_VALUE;
+        for (long id : task.getBlockedBy()) {
+            if (previous == Long.MIN_VALUE) {
+                writeSignedVarLong(out, id - task.getId());
+            } else {
+                writeVarLong(out, id - previous);
+            }
+            previous = id;
+        }
+    }
+
+    private static void readBlockers(InputStream in, Task task) throws IOException {
+        long count = readVarLong(in);
+        if (count == 0) {
+            throw new IOException("Corrupt record: empty blocker list");
+        }
+        List<Long> ids = new ArrayList<>();
+        long id = task.getId() + readSignedVarLong(in);
+        ids.add(id);
+        for (long i = 1; i < count; i++) {
+            long gap = readVarLong(in);
+            if (gap == 0) {
+                throw new IOException("Corrupt record: duplicate blocker");
+            }
+            id += gap;
+            ids.add(id);
+        }
+        task.setBlockedBy(ids);
+    }
+
+    /** Rule + completed occurrences, as day offsets from the due date. */
+    private static void writeRecurrence(OutputStream out, Task task) throws IOException {
+        Recurrence rule = task.getRecurrence();
+        long anchor = task.getDueDate().toEpochDay();
+        out.write(rule.getFrequency().ordinal());
+        writeVarLong(out, rule.getInterval());
+        writeOptionalDay(out, anchor, rule.getUntil());
+        writeOptionalDay(out, anchor, task.getCompletedThrough());
+
+        writeVarLong(out, task.getCompletedExceptions().size());
+        long previous = anchor;
+        for (LocalDate d : task.getCompletedExceptions()) {
+            writeVarLong(out, d.toEpochDay() - previous);
+            previous = d.toEpochDay();
+        }
+    }
+
+    /** Writes 0 for "no date", otherwise 1 + days after the anchor. */
+    private static void writeOptionalDay(OutputStream out, long anchor, LocalDate date)
+            throws IOException {
+        writeVarLong(out, date == null ? 0 : date.toEpochDay() - anchor + 1);
+    }
+
+    private static void readRecurrence(InputStream in, Task task, long anchor) throws IOException {
+        int frequency = readByte(in);
+        if (frequency >= FREQUENCIES.length) {
+            throw new IOException("Corrupt record: bad recurrence " + frequency);
+        }
+        int interval = (int) readVarLong(in);
+        LocalDate until = readOptionalDay(in, anchor);
+        LocalDate completedThrough = readOptionalDay(in, anchor);
+
+        long count = readVarLong(in);
+        List<LocalDate> exceptions = new ArrayList<>();
+        long day = anchor;
+        for (long i = 0; i < count; i++) {
+            day += readVarLong(in);
+            exceptions.add(LocalDate.ofEpochDay(day));
+        }
+
+        try {
+            task.setRecurrence(new Recurrence(FREQUENCIES[frequency], interval, until));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt record: " + e.getMessage(), e);
+        }
+        task.restoreOccurrences(completedThrough, exceptions);
+    }
+
+    private static LocalDate readOptionalDay(InputStream in, long anchor) throws IOException {
+        long value = readVarLong(in);
+        return value == 0 ? null : LocalDate.ofEpochDay(anchor + value - 1);
+    }
+
+    // ───────────────────────────────────────────────
+    // Varint / string helpers (also used by other file formats)
+    // ───────────────────────────────────────────────
+
+    /**
+     * Writes a non-negative number using 7 bits per byte.
+     * The high bit of each byte means "more bytes follow".
+     */
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt varint");
+    }
+
+    /**
+     * "ZigZag" maps small negative AND positive numbers to small varints:
+     * 0 → 0, -1 → 1, 1 → 2, -2 → 3, ...
+     */
+    static void writeSignedVarLong(OutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(InputStream in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(InputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt string length: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        readFully(in, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of snapshot");
+        }
+        return b;
+    }
+
+    static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n = in.read(buffer, offset, buffer.length - offset);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of snapshot");
+            }
+            offset += n;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Block compression
+    // ───────────────────────────────────────────────
+
+    /**
+     * Collects up to BLOCK_SIZE bytes, then writes them as one Deflate block:
+     *   varint rawLength | varint compressedLength | compressed bytes
+     * A block with rawLength 0 marks the end of the stream.
+     */
+    private static final class BlockCompressingStream extends OutputStream {
+
+        private final OutputStream out;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE);
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final byte[] compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+
+        BlockCompressingStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            block.write(b);
+            if (block.size() >= BLOCK_SIZE) {
+                flushBlock();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, BLOCK_SIZE - block.size());
+                block.write(b, off, n);
+                off += n;
+                len -= n;
+                if (block.size() >= BLOCK_SIZE) {
+                    flushBlock();
+                }
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.size() == 0) return;
+
+            deflater.reset();
+            deflater.setInput(block.toByteArray());
+            deflater.finish();
+            int length = deflater.deflate(compressed);
+            if (!deflater.finished()) {
+                throw new IOException("Compressed block does not fit its buffer");
+            }
+
+            writeVarLong(out, block.size());
+            writeVarLong(out, length);
+            out.write(compressed, 0, length);
+            block.reset();
+        }
+
+        void finish() throws IOException {
+            flushBlock();
+            writeVarLong(out, 0);
+            deflater.end();
+        }
+    }
+
+    private static final class BlockDecompressingStream extends InputStream {
+
+        private final InputStream in;
+        private final Inflater inflater = new Inflater();
+        private byte[] block = new byte[0];
+        private int position = 0;
+        private int limit = 0;
+        private boolean ended = false;
+
+        BlockDecompressingStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !nextBlock()) {
+                return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (position == limit && !nextBlock()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(block, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (ended) return false;
+
+            long rawLength = readVarLong(in);
+            if (rawLength == 0) {
+                ended = true;
+                inflater.end();
+                return false;
+            }
+            long compressedLength = readVarLong(in);
+            if (rawLength > BLOCK_SIZE || compressedLength > 2L * BLOCK_SIZE) {
+                throw new IOException("Corrupt compressed block");
+            }
+
+            byte[] input = new byte[(int) compressedLength];
+            readFully(in, input);
+            if (block.length < rawLength) {
+                block = new byte[(int) rawLength];
+            }
+
+            try {
+                inflater.reset();
+                inflater.setInput(input);
+                limit = inflater.inflate(block, 0, (int) rawLength);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt compressed block", e);
+            }
+            if (limit != rawLength) {
+                throw new IOException("Corrupt compressed block: short data");
+            }
+            position = 0;
+            return true;
+        }
+    }
+}
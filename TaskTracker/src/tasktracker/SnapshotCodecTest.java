@@ -0,0 +1,184 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnapshotCodec.
+ *
+ * These tests verify:
+ *  - every field survives a write + read (with and without compression)
+ *  - recurrence rules and completed occurrences survive as well
+ *  - repeated names are stored only once (dictionary encoding)
+ *  - broken input is rejected
+ */
+class SnapshotCodecTest {
+
+    private static List<Task> sampleTasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Task t = TaskBenchmarks.sampleTask(i);
+            t.setId(i + 1);
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    private static byte[] encode(List<Task> tasks, boolean compress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotCodec.write(tasks, out, compress);
+        return out.toByteArray();
+    }
+
+    private static void assertSameTask(Task expected, Task actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getAssignee(), actual.getAssignee());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getPriority(), actual.getPriority());
+        assertEquals(expected.isCompleted(), actual.isCompleted());
+        assertEquals(expected.getCompletedOn(), actual.getCompletedOn());
+        assertEquals(expected.getRecurrence(), actual.getRecurrence());
+        assertEquals(expected.getCompletedThrough(), actual.getCompletedThrough());
+        assertEquals(expected.getCompletedExceptions(), actual.getCompletedExceptions());
+    }
+
+    @Test
+    void testRecurrenceRoundTrip() throws IOException {
+        LocalDate start = LocalDate.of(2026, 1, 5);
+        Task weekly = new Task("Report", "Sam", start, "Work", Task.Priority.HIGH);
+        weekly.setId(7);
+        weekly.setRecurrence(new Recurrence(Recurrence.Frequency.WEEKLY, 2, LocalDate.of(2026, 12, 31)));
+        weekly.completeOccurrence(start);
+        weekly.completeOccurrence(start.plusWeeks(6));   // done early → exception
+
+        Task plain = new Task("One-off", "", start, "", Task.Priority.LOW);
+        plain.setId(8);
+
+        List<Task> tasks = List.of(weekly, plain);
+        for (boolean compress : new boolean[] {false, true}) {
+            List<Task> read = SnapshotCodec.readAll(new ByteArrayInputStream(encode(tasks, compress)));
+            assertSameTask(weekly, read.get(0));
+            assertSameTask(plain, read.get(1));
+            assertEquals(start.plusWeeks(2), read.get(0).getNextDueDate());
+        }
+    }
+
+    @Test
+    void testCompletionDayRoundTrip() throws IOException {
+        Task late = new Task("Late", "", LocalDate.of(2026, 3, 1), "", Task.Priority.LOW);
+        late.setId(1);
+        late.setCompleted(true);
+        late.setCompletedOn(LocalDate.of(2026, 3, 9));    // stored relative to the due date
+        Task undated = new Task("No due date");
+        undated.setId(2);
+        undated.setCompleted(true);
+        undated.setCompletedOn(LocalDate.of(2025, 12, 24));
+        Task unknown = new Task("Done before days were kept");
+        unknown.setId(3);
+        unknown.setCompleted(true);
+
+        List<Task> tasks = List.of(late, undated, unknown);
+        for (boolean compress : new boolean[] {false, true}) {
+            List<Task> read = SnapshotCodec.readAll(new ByteArrayInputStream(encode(tasks, compress)));
+            for (int i = 0; i < tasks.size(); i++) {
+                assertSameTask(tasks.get(i), read.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testRoundTripUncompressed() throws IOException {
+        List<Task> tasks = sampleTasks(1000);
+
+        List<Task> read = SnapshotCodec.readAll(new ByteArrayInputStream(encode(tasks, false)));
+
+        assertEquals(tasks.size(), read.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertSameTask(tasks.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void testRoundTripCompressedAcrossManyBlocks() throws IOException {
+        // Enough tasks to fill several 64 KB blocks
+        List<Task> tasks = sampleTasks(50_000);
+
+        List<Task> read = SnapshotCodec.readAll(new ByteArrayInputStream(encode(tasks, true)));
+
+        assertEquals(tasks.size(), read.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertSameTask(tasks.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void testOptionalFieldsAndUnorderedValues() throws IOException {
+        Task noDate = new Task("No date");
+        noDate.setId(42);
+        Task past = new Task("Past", "Ana", LocalDate.of(1999, 12, 31), "Old", Task.Priority.LOW);
+        past.setId(7);   // ids going backwards must still work
+        Task unicode = new Task("Ünïcødé ✔", "Zoë", LocalDate.of(2030, 1, 1), "", Task.Priority.HIGH);
+        unicode.setId(43);
+
+        List<Task> tasks = List.of(noDate, past, unicode);
+        List<Task> read = SnapshotCodec.readAll(new ByteArrayInputStream(encode(tasks, false)));
+
+        for (int i = 0; i < tasks.size(); i++) {
+            assertSameTask(tasks.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void testEmptySnapshot() throws IOException {
+        assertTrue(SnapshotCodec.readAll(new ByteArrayInputStream(encode(List.of(), true))).isEmpty());
+    }
+
+    @Test
+    void testRepeatedNamesAreStoredOnce() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Task("t", "A very long assignee name", null, "A very long type", Task.Priority.LOW));
+        }
+
+        // Each extra task costs a few bytes, not the length of both names
+        assertTrue(encode(tasks, false).length < 100 * 10);
+    }
+
+    @Test
+    void testStreamingReaderReturnsNullAtEnd() throws IOException {
+        SnapshotCodec.Reader reader =
+                new SnapshotCodec.Reader(new ByteArrayInputStream(encode(sampleTasks(2), false)));
+
+        assertNotNull(reader.read());
+        assertNotNull(reader.read());
+        assertNull(reader.read());
+        assertNull(reader.read());
+    }
+
+    @Test
+    void testRejectsWrongMagic() {
+        byte[] garbage = {'N', 'O', 'P', 'E', 1, 0};
+
+        assertThrows(IOException.class,
+                () -> SnapshotCodec.readAll(new ByteArrayInputStream(garbage)));
+    }
+
+    @Test
+    void testRejectsTruncatedData() throws IOException {
+        byte[] full = encode(sampleTasks(10), false);
+        byte[] truncated = java.util.Arrays.copyOf(full, full.length / 2);
+
+        assertThrows(IOException.class,
+                () -> SnapshotCodec.readAll(new ByteArrayInputStream(truncated)));
+    }
+}
@@ -1,7 +1,13 @@
 package tasktracker;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * The Task class represents a single task in the system.
@@ -11,7 +17,30 @@ import java.time.format.DateTimeFormatter;
  *  - due date
  *  - type/category
  *  - priority (LOW, MEDIUM, HIGH)
- *  - completed or not
+ *  - completed or not (and on which day, to move old work to the archive)
+ *  - optionally a Recurrence rule (repeats daily / weekly / monthly)
+ *  - the ids of the tasks that block it (must be done first)
+ *  - a VERSION stamp that changes with every change
+ *
+ * Recurring tasks:
+ *  - The due date is the FIRST occurrence; the rule calculates the rest.
+ *  - Future occurrences are never stored. Only COMPLETED ones are
+ *    remembered, and even those are squashed into one date
+ *    ("everything up to here is done") when they are done in order.
+ *  - getNextDueDate() is the first occurrence that is not done yet.
+ *
+ * Concurrency (optimistic, no locks):
+ *  - Every change first CLAIMS the task by moving the version from an even
+ *    to an odd number with compare-and-set (a VarHandle), writes its
+ *    fields, and then publishes the next even number. Two threads can
+ *    never mix their fields, and nobody ever blocks on a lock.
+ *  - An editor remembers getVersion() when it starts. TaskManager then
+ *    changes a snapshot() and installs it with compareAndSet(version,
+ *    copy), which only succeeds if nobody changed the task in between
+ *    (otherwise TaskManager reports a CONFLICT instead of silently
+ *    overwriting the other person's work).
+ *  - The fields are volatile, so every getter sees a finished value.
+ *    snapshot() gives a copy where ALL fields come from the same version.
  *
  * This is the "data model" for one task.
  * It does NOT know anything about the GUI — just data.
@@ -27,12 +56,41 @@ public class Task {
     }
 
     // ==== Task fields (data) ====
-    private String title;           // Task title or name
-    private String assignee;        // Who the task is for
-    private LocalDate dueDate;      // When the task is due
-    private String type;            // Category (school, work, etc.)
-    private Priority priority;      // Priority of the task
-    private boolean completed;      // Has the task been completed?
+    private long id;                         // Unique id given by TaskManager (0 = not added yet)
+    private volatile String title;           // Task title or name
+    private volatile String assignee;        // Who the task is for
+    private volatile LocalDate dueDate;      // When the task is due
+    private volatile String type;            // Category (school, work, etc.)
+    private volatile Priority priority;      // Priority of the task
+    private volatile boolean completed;      // Has the task been completed?
+    private volatile LocalDate completedOn;  // The day it was completed (null = open, or not known)
+
+    // ==== Recurrence (null = one-off task) ====
+    private volatile Recurrence recurrence;
+    // Every occurrence up to and including this date is done (null = none yet)
+    private volatile LocalDate completedThrough;
+    // Occurrences AFTER completedThrough that were done out of order (null = none).
+    // Never changed in place: a change stores a new set (so copies can share it).
+    private volatile TreeSet<LocalDate> completedExceptions;
+
+    // ==== Dependencies: ids of the tasks that must be done first ====
+    // Changed only through TaskManager.addDependency / removeDependency,
+    // which check for cycles (see TaskDependencyGraph).
+    private volatile SortedSet<Long> blockedBy = Collections.emptySortedSet();
+
+    // ==== Version stamp (see "Concurrency" above) ====
+    // Even = stable, odd = a change is being written. +2 per change.
+    private volatile long version = 0;
+
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(Task.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Constructor when only a title is given.
@@ -63,6 +121,7 @@ public class Task {
 
     // ==== GETTERS ====
     // These return information about the task.
+    public long getId() { return id; }
     public String getTitle() { return title; }
     public String getAssignee() { return assignee; }
     public LocalDate getDueDate() { return dueDate; }
@@ -70,14 +129,378 @@ public class Task {
     public Priority getPriority() { return priority; }
     public boolean isCompleted() { return completed; }
 
+    /**
+     * The day the task was completed, or null if it is open. TaskManager
+     * fills it in; tasks completed before it was recorded count as
+     * completed on the day they were loaded.
+     */
+    public LocalDate getCompletedOn() { return completedOn; }
+    public Recurrence getRecurrence() { return recurrence; }
+    public boolean isRecurring() { return recurrence != null && dueDate != null; }
+
+    /** Ids of the tasks that block this one (read-only, sorted). */
+    public SortedSet<Long> getBlockedBy() { return blockedBy; }
+
+    /**
+     * The version of the task. It changes every time a field changes,
+     * so "same version" means "nobody changed anything in between".
+     */
+    public long getVersion() {
+        long v;
+        while (((v = version) & 1) != 0) {
+            Thread.onSpinWait();   // a change is being written right now
+        }
+        return v;
+    }
+
     // ==== SETTERS ====
-    // These update the task (used when editing).
-    public void setTitle(String title) { this.title = title; }
-    public void setAssignee(String assignee) { this.assignee = assignee; }
-    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
-    public void setType(String type) { this.type = type; }
-    public void setPriority(Priority priority) { this.priority = priority; }
-    public void setCompleted(boolean completed) { this.completed = completed; }
+    // These update the task (used when editing). Each one is a change of
+    // its own and moves the version on.
+    // The id is only set by TaskManager or when loading saved tasks.
+    void setId(long id) { this.id = id; }
+
+    public void setTitle(String title) {
+        long v = beginChange();
+        this.title = title;
+        endChange(v);
+    }
+
+    public void setAssignee(String assignee) {
+        long v = beginChange();
+        this.assignee = assignee;
+        endChange(v);
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        long v = beginChange();
+        try {
+            this.dueDate = dueDate;
+            pruneExceptions();
+        } finally {
+            endChange(v);
+        }
+    }
+
+    public void setType(String type) {
+        long v = beginChange();
+        this.type = type;
+        endChange(v);
+    }
+
+    public void setPriority(Priority priority) {
+        long v = beginChange();
+        this.priority = priority;
+        endChange(v);
+    }
+
+    /** Reopening a task also forgets when it was completed. */
+    public void setCompleted(boolean completed) {
+        long v = beginChange();
+        this.completed = completed;
+        if (!completed) {
+            this.completedOn = null;
+        }
+        endChange(v);
+    }
+
+    /** Sets the completion day (TaskManager and loading only). */
+    void setCompletedOn(LocalDate day) {
+        long v = beginChange();
+        this.completedOn = day;
+        endChange(v);
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        long v = beginChange();
+        try {
+            this.recurrence = recurrence;
+            pruneExceptions();
+        } finally {
+            endChange(v);
+        }
+    }
+
+    /** Replaces the blocker ids (TaskManager and loading only). */
+    void setBlockedBy(Collection<Long> ids) {
+        SortedSet<Long> blockers = ids == null || ids.isEmpty()
+                ? Collections.emptySortedSet()
+                : Collections.unmodifiableSortedSet(new TreeSet<>(ids));
+        long v = beginChange();
+        this.blockedBy = blockers;
+        endChange(v);
+    }
+
+    // ==== ATOMIC CHANGES (optimistic concurrency) ====
+
+    /**
+     * Sets "completed" only if it still has the expected value, as one
+     * atomic step: if two threads complete the same task, exactly one of
+     * them gets true.
+     *
+     * Only for a task that is not on a board: TaskManager's indexes would
+     * not hear about it. A task on a board is completed with
+     * TaskManager.markComplete.
+     */
+    boolean compareAndSetCompleted(boolean expected, boolean newValue) {
+        long v = beginChange();
+        if (completed != expected) {
+            cancelChange(v);
+            return false;
+        }
+        completed = newValue;
+        if (!newValue) {
+            completedOn = null;
+        }
+        endChange(v);
+        return true;
+    }
+
+    /**
+     * Completes an open task on the given day, as one atomic step (both
+     * fields change together). False if it was already completed.
+     */
+    boolean completeOn(LocalDate day) {
+        long v = beginChange();
+        if (completed) {
+            cancelChange(v);
+            return false;
+        }
+        completed = true;
+        completedOn = day;
+        endChange(v);
+        return true;
+    }
+
+    /**
+     * Copies everything a user can change — the editable fields and the
+     * completion state — from "state" as ONE change, but only if the task
+     * is still at expectedVersion.
+     *
+     * This is the last step of "read, copy, compare-and-set": take a
+     * snapshot(), change the copy with the normal methods (completeOn,
+     * completeOccurrence, applyEdit), then install the copy here. If
+     * someone else changed the task in between this returns false, and
+     * the caller starts again from a fresh snapshot (see TaskManager).
+     */
+    boolean compareAndSet(long expectedVersion, Task state) {
+        if ((expectedVersion & 1) != 0 || !VERSION.compareAndSet(this, expectedVersion, expectedVersion + 1)) {
+            return false;
+        }
+        try {
+            title = state.title;
+            assignee = state.assignee;
+            dueDate = state.dueDate;
+            type = state.type;
+            priority = state.priority;
+            recurrence = state.recurrence;
+            completed = state.completed;
+            completedOn = state.completedOn;
+            completedThrough = state.completedThrough;
+            completedExceptions = state.completedExceptions;   // never changed in place: safe to share
+        } finally {
+            endChange(expectedVersion);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the editable fields (title, assignee, due date, type, priority,
+     * recurrence) from "changes" as ONE change. TaskManager does this to a
+     * snapshot() and then installs it with compareAndSet.
+     */
+    void applyEdit(Task changes) {
+        long v = beginChange();
+        try {
+            copyEditableFields(changes);
+        } finally {
+            endChange(v);
+        }
+    }
+
+    private void copyEditableFields(Task changes) {
+        title = changes.getTitle();
+        assignee = changes.getAssignee();
+        dueDate = changes.getDueDate();
+        type = changes.getType();
+        priority = changes.getPriority();
+        recurrence = changes.getRecurrence();
+        pruneExceptions();
+    }
+
+    /**
+     * A copy of the task where all fields come from the same version,
+     * even while other threads are changing it. getVersion() of the copy
+     * says which version it shows.
+     */
+    public Task snapshot() {
+        while (true) {
+            long v = getVersion();
+            Task copy = new Task(title, assignee, dueDate, type, priority);
+            copy.id = id;
+            copy.completed = completed;
+            copy.completedOn = completedOn;
+            copy.recurrence = recurrence;
+            copy.completedThrough = completedThrough;
+            copy.completedExceptions = completedExceptions;   // never changed in place
+            copy.blockedBy = blockedBy;
+            if (version == v) {   // nobody changed anything while we copied
+                copy.version = v;
+                return copy;
+            }
+        }
+    }
+
+    /**
+     * Claims the task for a change (even → odd version), waiting while
+     * another change is being written. Returns the version before.
+     */
+    private long beginChange() {
+        while (true) {
+            long v = version;
+            if ((v & 1) == 0 && VERSION.compareAndSet(this, v, v + 1)) {
+                return v;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Publishes a change claimed at version "before". */
+    private void endChange(long before) {
+        version = before + 2;
+    }
+
+    /** Gives up a claim without changing anything. */
+    private void cancelChange(long before) {
+        version = before;
+    }
+
+    // ==== RECURRENCE HELPERS ====
+
+    /**
+     * The date the task is due next:
+     *  - one-off task: its due date
+     *  - recurring task: the first occurrence that is not completed yet
+     *    (or the last occurrence, once the rule has ended and all are done)
+     */
+    public LocalDate getNextDueDate() {
+        if (!isRecurring()) {
+            return dueDate;
+        }
+        LocalDate next = completedThrough == null
+                ? recurrence.occurrence(dueDate, 0)
+                : recurrence.nextAfter(dueDate, completedThrough);
+        return next != null ? next : completedThrough;
+    }
+
+    /**
+     * Has the occurrence on this date been completed?
+     * For a one-off task this is just isCompleted().
+     */
+    public boolean isOccurrenceCompleted(LocalDate date) {
+        if (!isRecurring()) {
+            return completed;
+        }
+        if (completedThrough != null && !date.isAfter(completedThrough)) {
+            return true;
+        }
+        return completedExceptions != null && completedExceptions.contains(date);
+    }
+
+    /**
+     * Marks one occurrence of a recurring task as done.
+     *
+     * Returns false if the date is not an occurrence of the rule
+     * (or it was already done). When the last occurrence of a rule with
+     * an "until" date is done, the whole task becomes completed.
+     *
+     * The checks run inside the try: if one of them throws, the finally
+     * still gives the version back (even again), so readers spinning in
+     * getVersion() are never left waiting for a change that never ends.
+     */
+    public boolean completeOccurrence(LocalDate date) {
+        if (date == null) {
+            return false;   // no date is never an occurrence (and nothing to claim)
+        }
+        long v = beginChange();
+        boolean changed = false;
+        try {
+            if (!isRecurring() || !recurrence.isOccurrence(dueDate, date)
+                    || isOccurrenceCompleted(date)) {
+                return false;
+            }
+            changed = true;   // from here on the fields change
+            TreeSet<LocalDate> exceptions =
+                    completedExceptions == null ? null : new TreeSet<>(completedExceptions);
+            if (date.equals(getNextDueDate())) {
+                // Done in order: move the "done up to here" date forward, and
+                // swallow any later occurrences that were already done early
+                completedThrough = date;
+                LocalDate next = recurrence.nextAfter(dueDate, date);
+                while (next != null && exceptions != null && exceptions.remove(next)) {
+                    completedThrough = next;
+                    next = recurrence.nextAfter(dueDate, next);
+                }
+                if (next == null) {
+                    completed = true;   // the rule has ended and everything is done
+                }
+            } else {
+                if (exceptions == null) {
+                    exceptions = new TreeSet<>();
+                }
+                exceptions.add(date);
+            }
+            completedExceptions = exceptions == null || exceptions.isEmpty() ? null : exceptions;
+            return true;
+        } finally {
+            if (changed) {
+                endChange(v);
+            } else {
+                cancelChange(v);   // nothing changed: the old version stays valid
+            }
+        }
+    }
+
+    /** Every occurrence up to this date is done (null = none yet). */
+    public LocalDate getCompletedThrough() { return completedThrough; }
+
+    /** Occurrences after getCompletedThrough() that were done early. */
+    public SortedSet<LocalDate> getCompletedExceptions() {
+        return completedExceptions == null
+                ? Collections.emptySortedSet()
+                : Collections.unmodifiableSortedSet(completedExceptions);
+    }
+
+    /**
+     * Restores the completion state of a recurring task (used when loading).
+     */
+    void restoreOccurrences(LocalDate completedThrough, Collection<LocalDate> exceptions) {
+        TreeSet<LocalDate> copy = exceptions == null || exceptions.isEmpty()
+                ? null
+                : new TreeSet<>(exceptions);
+        long v = beginChange();
+        this.completedThrough = completedThrough;
+        this.completedExceptions = copy;
+        endChange(v);
+    }
+
+    /**
+     * After the rule or the start date changes, forgets done dates that
+     * are no longer occurrences, so the exception set can't grow forever.
+     */
+    private void pruneExceptions() {
+        if (completedExceptions == null) {
+            return;
+        }
+        TreeSet<LocalDate> kept = new TreeSet<>();
+        if (isRecurring()) {
+            for (LocalDate d : completedExceptions) {
+                if (recurrence.isOccurrence(dueDate, d)) {
+                    kept.add(d);
+                }
+            }
+        }
+        completedExceptions = kept.isEmpty() ? null : kept;
+    }
 
     /**
      * Utility method:
@@ -107,6 +530,11 @@ public class Task {
             sb.append("Due: ").append(getDueDateAsString()).append("<br>");
         }
 
+        if (isRecurring()) {
+            sb.append("Repeats: ").append(recurrence).append("<br>");
+            sb.append("Next: ").append(getNextDueDate()).append("<br>");
+        }
+
         if (!type.isBlank()) {
             sb.append("Type: ").append(type).append("<br>");
         }
@@ -140,7 +568,11 @@ public class Task {
         sb.append(title);
 
         // Optional fields shown only if present
-        if (dueDate != null) {
+        if (isRecurring()) {
+            // Show the next open occurrence instead of the first one
+            sb.append(" (Due: ").append(getNextDueDate())
+              .append(", repeats ").append(recurrence).append(")");
+        } else if (dueDate != null) {
             sb.append(" (Due: ").append(getDueDateAsString()).append(")");
         }
 
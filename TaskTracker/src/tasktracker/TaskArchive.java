@@ -0,0 +1,393 @@
+package tasktracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * TaskArchive is the COLD tier of a board: completed tasks that have been
+ * done for a while, moved out of the TaskManager so the working set (the
+ * list, the indexes, every getTasks() copy) only holds live work.
+ *
+ * How it is stored:
+ *  - Tasks are packed into SEGMENTS of up to SEGMENT_SIZE tasks, sorted
+ *    by id. Each segment is a compressed SnapshotCodec snapshot — a few
+ *    dozen bytes per task instead of ~700 on the heap.
+ *  - Next to its bytes a segment keeps its sorted task ids, so "is this
+ *    task archived?" is answered without unpacking anything.
+ *  - New tasks top up the last segment while it has room (it is unpacked
+ *    and packed again), so the archive doesn't fill up with tiny segments.
+ *
+ * Searching: find(query) unpacks one segment at a time and checks each
+ * task with TaskQuery.matches. That is slower than the live board's bitmap
+ * index, but the archive is only searched on demand (the COMPLETED filter)
+ * and nothing unpacked is kept afterwards.
+ *
+ * Read-mostly: segments only change when tasks are archived or restored.
+ * An archive opened on a FILE writes the whole file (safely, like a
+ * snapshot) before a change counts as done — TaskManager only takes tasks
+ * off the board once they are in the archive on disk.
+ *
+ * File layout (numbers are varints, see SnapshotCodec):
+ *   "TTAR" | version (1 byte) | segment count | segment*
+ *   segment: task count | first id | id gaps | CRC-32 | byte count | snapshot bytes
+ *
+ * All public methods are synchronized.
+ */
+public final class TaskArchive {
+
+    /** Most tasks packed into one segment. */
+    static final int SEGMENT_SIZE = 4096;
+
+    private static final byte[] MAGIC = {'T', 'T', 'A', 'R'};
+    private static final int VERSION = 1;
+
+    private final Path file;   // null = kept in memory only
+    private List<Segment> segments = new ArrayList<>();
+    private int size = 0;
+
+    /** An archive that lives in memory only. */
+    public TaskArchive() {
+        this(null);
+    }
+
+    private TaskArchive(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the archive stored in this file (a missing file is an empty
+     * archive). Later changes are written back to the same file.
+     */
+    public static TaskArchive open(Path file) throws IOException {
+        return load(file, file);
+    }
+
+    /**
+     * Reads the archive stored in this file WITHOUT connecting to it:
+     * later changes stay in memory and the file is never written (for
+     * tools that only look, like the --report mode).
+     */
+    public static TaskArchive read(Path file) throws IOException {
+        return load(file, null);
+    }
+
+    private static TaskArchive load(Path file, Path writeTo) throws IOException {
+        TaskArchive archive = new TaskArchive(writeTo);
+        if (Files.exists(file)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                archive.segments = readSegments(in);
+            }
+            for (Segment s : archive.segments) {
+                archive.size += s.ids.length;
+            }
+        }
+        return archive;
+    }
+
+    // ───────────────────────────────────────────────
+    // Questions
+    // ───────────────────────────────────────────────
+
+    /** Number of archived tasks. */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /** Memory used by the packed tasks and their ids. */
+    public synchronized long encodedBytes() {
+        long total = 0;
+        for (Segment s : segments) {
+            total += s.data.length + s.ids.length * 8L;
+        }
+        return total;
+    }
+
+    public synchronized boolean contains(long id) {
+        return segmentOf(id) >= 0;
+    }
+
+    /** A copy of the archived task, or null if it is not archived. */
+    public synchronized Task get(long id) {
+        int index = segmentOf(id);
+        if (index < 0) {
+            return null;
+        }
+        for (Task t : segments.get(index).unpack()) {
+            if (t.getId() == id) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /** Copies of the archived tasks that match, by id within each segment. */
+    public synchronized List<Task> find(TaskQuery query, LocalDate today) {
+        List<Task> result = new ArrayList<>();
+        for (Segment s : segments) {
+            for (Task t : s.unpack()) {
+                if (query.matches(t, today)) {
+                    result.add(t);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * New Task objects for the tasks in one segment (0 .. segmentCount()-1),
+     * by id. Lets a caller that keeps the archive from changing (see
+     * ReportEngine) unpack the segments one at a time, on several threads.
+     */
+    List<Task> segmentTasks(int index) {
+        Segment segment;
+        synchronized (this) {
+            segment = segments.get(index);
+        }
+        return segment.unpack();   // outside the lock: several threads can unpack at once
+    }
+
+    public synchronized int count(TaskQuery query, LocalDate today) {
+        if (query.equals(TaskQuery.all()) || query.equals(TaskQuery.completed())) {
+            return size;   // everything in here is completed
+        }
+        return find(query, today).size();
+    }
+
+    // ───────────────────────────────────────────────
+    // Changes
+    // ───────────────────────────────────────────────
+
+    /**
+     * Archives copies of these tasks. When this returns they are safely
+     * stored (on disk for a file-backed archive); if it throws, nothing
+     * has changed.
+     */
+    public synchronized void add(Collection<Task> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<Task> pending = new ArrayList<>(tasks.size());
+        for (Task t : tasks) {
+            if (t.getId() == 0 || contains(t.getId())) {
+                throw new IllegalArgumentException("Cannot archive task #" + t.getId());
+            }
+            pending.add(t.snapshot());
+        }
+        pending.sort(Comparator.comparingLong(Task::getId));
+
+        List<Segment> after = new ArrayList<>(segments);
+        if (!after.isEmpty()) {
+            // Top up the last segment if it has room
+            Segment last = after.get(after.size() - 1);
+            if (last.ids.length < SEGMENT_SIZE) {
+                after.remove(after.size() - 1);
+                List<Task> merged = last.unpack();
+                merged.addAll(pending);
+                merged.sort(Comparator.comparingLong(Task::getId));
+                pending = merged;
+            }
+        }
+        for (int i = 0; i < pending.size(); i += SEGMENT_SIZE) {
+            after.add(Segment.pack(pending.subList(i, Math.min(pending.size(), i + SEGMENT_SIZE))));
+        }
+        commit(after);
+    }
+
+    /**
+     * Removes a task from the archive and returns it (null if it is not
+     * archived). Only its segment is unpacked and packed again.
+     */
+    public synchronized Task take(long id) throws IOException {
+        int index = segmentOf(id);
+        if (index < 0) {
+            return null;
+        }
+        List<Task> tasks = segments.get(index).unpack();
+        Task taken = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).getId() == id) {
+                taken = tasks.remove(i);
+                break;
+            }
+        }
+        List<Segment> after = new ArrayList<>(segments);
+        if (tasks.isEmpty()) {
+            after.remove(index);
+        } else {
+            after.set(index, Segment.pack(tasks));
+        }
+        commit(after);
+        return taken;
+    }
+
+    /** Saves the new segments (if file-backed), and only then uses them. */
+    private void commit(List<Segment> after) throws IOException {
+        if (file != null) {
+            writeFile(after, file);
+        }
+        segments = after;
+        size = 0;
+        for (Segment s : segments) {
+            size += s.ids.length;
+        }
+    }
+
+    private int segmentOf(long id) {
+        for (int i = 0; i < segments.size(); i++) {
+            if (Arrays.binarySearch(segments.get(i).ids, id) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%,d archived tasks in %d segments (%,d KB)",
+                size, segments.size(), encodedBytes() / 1024);
+    }
+
+    // ───────────────────────────────────────────────
+    // Segments
+    // ───────────────────────────────────────────────
+
+    /** Up to SEGMENT_SIZE tasks, packed. Never changed: a change makes a new one. */
+    private static final class Segment {
+        final long[] ids;    // sorted
+        final byte[] data;   // compressed SnapshotCodec snapshot of the tasks, by id
+        final long crc;
+
+        Segment(long[] ids, byte[] data, long crc) {
+            this.ids = ids;
+            this.data = data;
+            this.crc = crc;
+        }
+
+        /** Tasks must be sorted by id. */
+        static Segment pack(List<Task> tasks) {
+            long[] ids = new long[tasks.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = tasks.get(i).getId();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                SnapshotCodec.write(tasks, out, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);   // ByteArrayOutputStream never throws
+            }
+            byte[] data = out.toByteArray();
+            return new Segment(ids, data, crcOf(data));
+        }
+
+        /** New Task objects, by id. */
+        List<Task> unpack() {
+            try {
+                return SnapshotCodec.readAll(new ByteArrayInputStream(data));
+            } catch (IOException e) {
+                // The bytes passed their CRC check when the file was read
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static long crcOf(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    // ───────────────────────────────────────────────
+    // File
+    // ───────────────────────────────────────────────
+
+    /** Writes to a temporary file first, so a crash never leaves half an archive. */
+    private static void writeFile(List<Segment> segments, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            out.write(MAGIC);
+            out.write(VERSION);
+            SnapshotCodec.writeVarLong(out, segments.size());
+            for (Segment s : segments) {
+                SnapshotCodec.writeVarLong(out, s.ids.length);
+                SnapshotCodec.writeVarLong(out, s.ids[0]);
+                for (int i = 1; i < s.ids.length; i++) {
+                    SnapshotCodec.writeVarLong(out, s.ids[i] - s.ids[i - 1]);
+                }
+                SnapshotCodec.writeVarLong(out, s.crc);
+                SnapshotCodec.writeVarLong(out, s.data.length);
+                out.write(s.data);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        WriteBehindLog.forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /** Reads the segments and checks their CRCs (the tasks stay packed). */
+    private static List<Segment> readSegments(InputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        SnapshotCodec.readFully(in, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a task archive");
+        }
+        int version = SnapshotCodec.readByte(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported archive version: " + version);
+        }
+        long count = SnapshotCodec.readVarLong(in);
+        List<Segment> segments = new ArrayList<>();
+        for (long n = 0; n < count; n++) {
+            long tasks = SnapshotCodec.readVarLong(in);
+            if (tasks < 1 || tasks > SEGMENT_SIZE) {
+                throw new IOException("Corrupt archive: segment of " + tasks + " tasks");
+            }
+            long[] ids = new long[(int) tasks];
+            ids[0] = SnapshotCodec.readVarLong(in);
+            for (int i = 1; i < ids.length; i++) {
+                long gap = SnapshotCodec.readVarLong(in);
+                if (gap <= 0) {
+                    throw new IOException("Corrupt archive: ids out of order");
+                }
+                ids[i] = ids[i - 1] + gap;
+            }
+            long crc = SnapshotCodec.readVarLong(in);
+            long length = SnapshotCodec.readVarLong(in);
+            if (length <= 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt archive: segment of " + length + " bytes");
+            }
+            byte[] data = new byte[(int) length];
+            SnapshotCodec.readFully(in, data);
+            if (crcOf(data) != crc) {
+                throw new IOException("Corrupt archive: checksum mismatch in segment " + n);
+            }
+            segments.add(new Segment(ids, data, crc));
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,172 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TaskArchive and the archive side of TaskManager.
+ *
+ * These tests verify:
+ *  - archived tasks can be found, counted and taken back out
+ *  - the archive file survives a reopen, and a damaged one is rejected
+ *  - only old, completed, one-off tasks leave the board
+ *  - a restored task comes back exactly as it was archived
+ */
+class TaskArchiveTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    @TempDir
+    Path dir;
+
+    /** A completed task with an id, done on the given day. */
+    private static Task done(long id, String assignee, LocalDate completedOn) {
+        Task t = new Task("Task " + id, assignee, TODAY.minusDays(id % 50), "Work", Task.Priority.HIGH);
+        t.setId(id);
+        t.setCompleted(true);
+        t.setCompletedOn(completedOn);
+        return t;
+    }
+
+    private static List<Task> doneTasks(int from, int to) {
+        List<Task> tasks = new ArrayList<>();
+        for (int id = from; id <= to; id++) {
+            tasks.add(done(id, id % 2 == 0 ? "Ann" : "Bob", TODAY.minusDays(60)));
+        }
+        return tasks;
+    }
+
+    @Test
+    void testAddFindAndTake() throws IOException {
+        TaskArchive archive = new TaskArchive();
+        archive.add(doneTasks(1, 5000));
+        archive.add(doneTasks(5001, 5100));   // tops up the last segment
+
+        assertEquals(5100, archive.size());
+        assertEquals(2, archive.segmentCount());
+        assertTrue(archive.contains(4097));
+        assertFalse(archive.contains(5101));
+        assertEquals(2550, archive.find(TaskQuery.assigneeIs("Ann"), TODAY).size());
+        assertEquals(5100, archive.count(TaskQuery.completed(), TODAY));
+        assertEquals(0, archive.count(TaskQuery.pending(), TODAY));
+
+        Task copy = archive.get(42);
+        assertEquals("Task 42", copy.getTitle());
+        assertEquals(TODAY.minusDays(60), copy.getCompletedOn());
+
+        Task taken = archive.take(42);
+        assertEquals("Task 42", taken.getTitle());
+        assertFalse(archive.contains(42));
+        assertNull(archive.take(42));
+        assertEquals(5099, archive.size());
+
+        // An id that is already archived is refused, and nothing changes
+        List<Task> again = List.of(done(9000, "Ann", TODAY), done(7, "Ann", TODAY));
+        assertThrows(IllegalArgumentException.class, () -> archive.add(again));
+        assertFalse(archive.contains(9000));
+        assertEquals(5099, archive.size());
+    }
+
+    @Test
+    void testFileSurvivesReopenAndCorruptionIsDetected() throws IOException {
+        Path file = dir.resolve("tasks.board.archive");
+        TaskArchive archive = TaskArchive.open(file);
+        assertEquals(0, archive.size());
+        archive.add(doneTasks(1, 300));
+        archive.take(150);
+
+        TaskArchive reopened = TaskArchive.open(file);
+        assertEquals(299, reopened.size());
+        assertFalse(reopened.contains(150));
+        assertEquals("Task 300", reopened.get(300).getTitle());
+        assertFalse(Files.exists(dir.resolve("tasks.board.archive.tmp")));
+
+        // Flip one byte near the end (inside the packed tasks)
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 10] ^= 0x55;
+        Files.write(file, bytes);
+        IOException e = assertThrows(IOException.class, () -> TaskArchive.open(file));
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+    }
+
+    @Test
+    void testOnlyOldCompletedOneOffTasksAreArchived() throws IOException {
+        TaskManager manager = new TaskManager();
+        Task old = done(0, "Ann", TODAY.minusDays(40));
+        Task recent = done(0, "Ann", TODAY.minusDays(5));
+        Task recurring = done(0, "Ann", TODAY.minusDays(40));
+        recurring.setRecurrence(Recurrence.of(Recurrence.Frequency.WEEKLY));
+        Task open = new Task("Still open");
+        for (Task t : List.of(old, recent, recurring, open)) {
+            t.setId(0);
+            manager.addTask(t);
+        }
+
+        assertEquals(1, manager.archiveCompleted(TODAY.minusDays(30)));
+        assertEquals(3, manager.getTotalCount());
+        assertNull(manager.getTask(old.getId()));
+        assertTrue(manager.isArchived(old));
+        assertEquals(1, manager.findArchived(TaskQuery.completed()).size());
+        assertEquals(0, manager.archiveCompleted(TODAY.minusDays(30)), "nothing left to move");
+
+        // Restoring puts it back, still completed on the same day
+        Task restored = manager.restore(old.getId());
+        assertSame(restored, manager.getTask(old.getId()));
+        assertTrue(restored.isCompleted());
+        assertEquals(TODAY.minusDays(40), restored.getCompletedOn());
+        assertFalse(manager.isArchived(restored));
+        assertEquals(0, manager.getArchive().size());
+    }
+
+    @Test
+    void testTaskOnTheBoardWinsOverItsArchivedCopy() throws IOException {
+        TaskManager manager = new TaskManager();
+        Task task = done(0, "Ann", TODAY.minusDays(40));
+        manager.addTask(task);
+
+        TaskArchive archive = new TaskArchive();
+        archive.add(List.of(task));   // as if a crash hit in the middle of archiving
+        manager.setArchive(archive);
+
+        assertEquals(0, archive.size());
+        assertEquals(1, manager.getTotalCount());
+    }
+
+    @Test
+    void testCompletionDayIsStampedAndReopened() throws IOException {
+        Path file = dir.resolve("work.board");
+        long id;
+        try (Board board = Board.open("work", file)) {
+            TaskManager manager = board.getManager();
+            Task fresh = new Task("Finish today");
+            manager.addTask(fresh);
+            manager.markComplete(fresh);
+            assertEquals(Today.get(), fresh.getCompletedOn());
+            Task reopened = fresh.snapshot();
+            reopened.setCompleted(false);
+            assertNull(reopened.getCompletedOn(), "an open task has no completion day");
+
+            Task old = done(0, "Ann", Today.get().minusDays(Board.ARCHIVE_AFTER_DAYS + 1));
+            manager.addTask(old);
+            id = old.getId();
+        }
+
+        // Closing archived the old task; it stays archived after a reopen
+        try (Board board = Board.open("work", file)) {
+            assertNull(board.getManager().getTask(id));
+            assertEquals(1, board.getManager().getTotalCount());
+            assertEquals(1, board.getManager().getArchive().size());
+            assertEquals(Today.get().minusDays(Board.ARCHIVE_AFTER_DAYS + 1),
+                    board.getManager().getArchive().get(id).getCompletedOn());
+        }
+    }
+}
@@ -0,0 +1,1358 @@
+package tasktracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Small command-line benchmarks for the storage code.
+ *
+ * These are NOT unit tests — they print numbers to the console so we can
+ * compare different implementations on a real machine.
+ *
+ * Usage (from the "bin" folder):
+ *   java -Xmx4g tasktracker.TaskBenchmarks offheap [taskCount]
+ *   java tasktracker.TaskBenchmarks snapshot [taskCount]
+ *   java -Xmx4g tasktracker.TaskBenchmarks query [taskCount]
+ *   java tasktracker.TaskBenchmarks suggest [distinctNames]
+ *   java tasktracker.TaskBenchmarks writebehind [operationCount]
+ *   java tasktracker.TaskBenchmarks compact [operationCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks dependencies [taskCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks history [taskCount]
+ *   java -Xmx512m tasktracker.TaskBenchmarks repository [taskCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks nextup [taskCount]
+ *   java -Xmx1g tasktracker.TaskBenchmarks boards [taskCount]
+ *   java tasktracker.TaskBenchmarks feed [changeCount]
+ *   java -Xmx1g tasktracker.TaskBenchmarks batch [commandCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks archive [taskCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks querycache [taskCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks calendar [taskCount]
+ *   java -Xmx2g tasktracker.TaskBenchmarks undo [taskCount]
+ *   java -Xmx4g tasktracker.TaskBenchmarks report [taskCount]
+ */
+public class TaskBenchmarks {
+
+    private static final String[] ASSIGNEES = {"Alice", "Bob", "Carol", "Dave", "Eve"};
+    private static final String[] TYPES = {"General", "School", "Work", "Personal", "Other"};
+
+    public static void main(String[] args) throws IOException {
+        String scenario = args.length > 0 ? args[0] : "offheap";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        switch (scenario) {
+            case "offheap":
+                compareGcPauses(count);
+                break;
+            case "snapshot":
+                compareSnapshotFormats(count);
+                break;
+            case "query":
+                measureQueries(count);
+                break;
+            case "suggest":
+                measureSuggestions(count);
+                break;
+            case "writebehind":
+                compareDurabilityPolicies(count);
+                break;
+            case "compact":
+                measureCompaction(count);
+                break;
+            case "dependencies":
+                measureDependencies(count);
+                break;
+            case "history":
+                measureHistory(count);
+                break;
+            case "repository":
+                measureRepository(count);
+                break;
+            case "nextup":
+                measureNextUp(count);
+                break;
+            case "boards":
+                measureBoards(count);
+                break;
+            case "feed":
+                measureFeed(count);
+                break;
+            case "batch":
+                measureBatch(count);
+                break;
+            case "archive":
+                measureArchive(count);
+                break;
+            case "querycache":
+                measureQueryCache(count);
+                break;
+            case "calendar":
+                measureCalendar(count);
+                break;
+            case "undo":
+                measureUndo(count);
+                break;
+            case "report":
+                measureReport(count);
+                break;
+            default:
+                System.err.println("Unknown scenario: " + scenario);
+                System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a predictable test task. The same index always gives the same task.
+     */
+    static Task sampleTask(int i) {
+        Task task = new Task("Task #" + i,
+                ASSIGNEES[i % ASSIGNEES.length],
+                LocalDate.of(2025, 1, 1).plusDays(i % 365),
+                TYPES[i % TYPES.length],
+                Task.Priority.values()[i % 3]);
+        task.setCompleted(i % 4 == 0);
+        return task;
+    }
+
+    // ───────────────────────────────────────────────
+    // OFF-HEAP vs HEAP — GC pauses
+    // ───────────────────────────────────────────────
+
+    /**
+     * Keeps the same tasks in an InMemoryTaskRepository and in an
+     * OffHeapTaskRepository, then creates lots of short-lived garbage (like
+     * a busy GUI would) and reports how much time the GC spent while each
+     * repository was alive.
+     *
+     * This compares the repositories alone: a TaskManager on top keeps its
+     * live tasks on the heap either way (see TaskRepository).
+     */
+    private static void compareGcPauses(int count) throws IOException {
+        System.out.println("Tasks: " + count);
+
+        InMemoryTaskRepository heap = new InMemoryTaskRepository();
+        for (int i = 0; i < count; i++) {
+            Task t = sampleTask(i);
+            t.setId(i + 1);
+            heap.save(t);
+        }
+        report("heap (InMemoryTaskRepository)", measureChurn());
+        System.out.println("  stored = " + heap.size());
+        heap = null;
+        System.gc();
+
+        try (OffHeapTaskRepository offHeap = new OffHeapTaskRepository()) {
+            for (int i = 0; i < count; i++) {
+                Task t = sampleTask(i);
+                t.setId(i + 1);
+                offHeap.save(t);
+            }
+            report("off-heap (OffHeapTaskRepository)", measureChurn());
+            System.out.println("  stored = " + offHeap.size()
+                    + ", direct memory = " + (offHeap.getOffHeapBytes() >> 20) + " MB");
+        }
+    }
+
+    /**
+     * Allocates garbage (some of it survives for a while, so it reaches the
+     * old generation) and returns {collections, gc time in ms, wall time in ms}.
+     */
+    private static long[] measureChurn() {
+        System.gc();
+        long[] before = gcTotals();
+        long start = System.nanoTime();
+
+        Object[] survivors = new Object[50_000];
+        for (int i = 0; i < 20_000_000; i++) {
+            survivors[i % survivors.length] = new byte[64 + (i % 128)];
+        }
+
+        long wall = (System.nanoTime() - start) / 1_000_000;
+        long[] after = gcTotals();
+        return new long[] {after[0] - before[0], after[1] - before[1], wall};
+    }
+
+    // ───────────────────────────────────────────────
+    // SNAPSHOT FORMATS — size and speed
+    // ───────────────────────────────────────────────
+
+    /**
+     * Compares the compact SnapshotCodec (with and without compression)
+     * against a "naive" format that writes every field in full.
+     */
+    private static void compareSnapshotFormats(int count) throws IOException {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task t = sampleTask(i);
+            t.setId(i + 1);
+            tasks.add(t);
+        }
+        System.out.println("Tasks: " + count);
+
+        for (int round = 0; round < 3; round++) {   // first rounds warm up the JIT
+            boolean print = round == 2;
+
+            long start = System.nanoTime();
+            byte[] naive = writeNaive(tasks);
+            long naiveWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            int naiveRead = readNaive(new ByteArrayInputStream(naive));
+            long naiveReadTime = System.nanoTime() - start;
+
+            for (int mode = 0; mode < 2; mode++) {
+                boolean compress = mode == 1;
+                start = System.nanoTime();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                SnapshotCodec.write(tasks, out, compress);
+                long write = System.nanoTime() - start;
+                start = System.nanoTime();
+                int read = SnapshotCodec.readAll(new ByteArrayInputStream(out.toByteArray())).size();
+                long readTime = System.nanoTime() - start;
+
+                if (print) {
+                    printFormat(compress ? "compact + deflate" : "compact", out.size(), count, write, readTime);
+                }
+                check(read == count, "snapshot lost tasks");
+            }
+            if (print) {
+                printFormat("naive", naive.length, count, naiveWrite, naiveReadTime);
+            }
+            check(naiveRead == count, "naive format lost tasks");
+        }
+    }
+
+    /** Every field written in full with DataOutputStream. */
+    private static byte[] writeNaive(List<Task> tasks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(tasks.size());
+        for (Task t : tasks) {
+            out.writeLong(t.getId());
+            out.writeUTF(t.getTitle());
+            out.writeUTF(t.getAssignee());
+            out.writeUTF(t.getType());
+            out.writeLong(t.getDueDate() == null ? Long.MIN_VALUE : t.getDueDate().toEpochDay());
+            out.writeByte(t.getPriority().ordinal());
+            out.writeBoolean(t.isCompleted());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static int readNaive(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            String title = in.readUTF();
+            String assignee = in.readUTF();
+            String type = in.readUTF();
+            long day = in.readLong();
+            Task t = new Task(title, assignee, day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day),
+                    type, Task.Priority.values()[in.readByte()]);
+            t.setCompleted(in.readBoolean());
+            t.setId(id);
+        }
+        return count;
+    }
+
+    private static void printFormat(String label, long bytes, int count, long writeNanos, long readNanos) {
+        System.out.printf("%-18s size=%,d bytes (%.1f B/task)  encode=%,.0f tasks/s  decode=%,.0f tasks/s%n",
+                label, bytes, (double) bytes / count,
+                count / (writeNanos / 1e9), count / (readNanos / 1e9));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // FILTER QUERIES — bitmap index vs scanning every task
+    // ───────────────────────────────────────────────
+
+    private static void measureQueries(int count) {
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            manager.addTask(sampleTask(i));
+        }
+        LocalDate today = LocalDate.of(2025, 6, 1);
+        TaskQuery query = TaskQuery.priorityIn(Task.Priority.HIGH, Task.Priority.MEDIUM)
+                .and(TaskQuery.typeIs("Work"))
+                .and(TaskQuery.overdue())
+                .and(TaskQuery.completed().not());
+        TaskQueryIndex index = manager.getQueryIndex();
+        List<Task> all = manager.getTasks();
+
+        System.out.println("Tasks: " + count + "   query: " + query);
+        for (int round = 0; round < 20; round++) {
+            long start = System.nanoTime();
+            int indexed = index.count(query, today);
+            long indexNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int scanned = 0;
+            for (Task t : all) {
+                if (query.matches(t, today)) scanned++;
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            check(indexed == scanned, "index and scan disagree");
+            System.out.printf("  matches=%d  bitmap index=%,d µs  full scan=%,d µs%n",
+                    indexed, indexNanos / 1000, scanNanos / 1000);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // AUTOCOMPLETE — prefix trie lookups
+    // ───────────────────────────────────────────────
+
+    private static void measureSuggestions(int distinctNames) {
+        Random random = new Random(1);
+        PrefixTrie trie = new PrefixTrie();
+        String[] names = new String[distinctNames];
+        for (int i = 0; i < distinctNames; i++) {
+            names[i] = randomName(random);
+            int uses = 1 + random.nextInt(20);
+            for (int u = 0; u < uses; u++) {
+                trie.add(names[i]);
+            }
+        }
+        System.out.println("Distinct names: " + trie.size());
+
+        for (int round = 0; round < 5; round++) {
+            long worst = 0;
+            long total = 0;
+            int lookups = 0;
+            for (int i = 0; i < 10_000; i++) {
+                String name = names[random.nextInt(distinctNames)];
+                for (int len = 1; len <= Math.min(4, name.length()); len++) {
+                    long start = System.nanoTime();
+                    trie.suggest(name.substring(0, len), 8);
+                    long took = System.nanoTime() - start;
+                    worst = Math.max(worst, took);
+                    total += took;
+                    lookups++;
+                }
+            }
+            System.out.printf("  lookups=%d  avg=%.1f µs  worst=%.1f µs%n",
+                    lookups, total / 1000.0 / lookups, worst / 1000.0);
+        }
+    }
+
+    private static String randomName(Random random) {
+        String letters = "abcdefghijklmnopqrstuvwxyz";
+        StringBuilder sb = new StringBuilder();
+        sb.append(Character.toUpperCase(letters.charAt(random.nextInt(26))));
+        int length = 3 + random.nextInt(8);
+        for (int i = 1; i < length; i++) {
+            sb.append(letters.charAt(random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    // ───────────────────────────────────────────────
+    // WRITE-BEHIND LOG — throughput per durability policy
+    // ───────────────────────────────────────────────
+
+    private static void compareDurabilityPolicies(int operations) throws IOException {
+        Path dir = Files.createTempDirectory("tt-log-bench");
+
+        // Baseline: the caller waits for its own fsync after every change
+        measureLog(dir, "sync per change (caller waits)",
+                WriteBehindLog.DurabilityPolicy.EVERY_OPERATION, 0, operations, true);
+
+        measureLog(dir, "write-behind EVERY_OPERATION",
+                WriteBehindLog.DurabilityPolicy.EVERY_OPERATION, 0, operations, false);
+        measureLog(dir, "write-behind INTERVAL 10 ms",
+                WriteBehindLog.DurabilityPolicy.INTERVAL, 10, operations, false);
+        measureLog(dir, "write-behind ON_IDLE",
+                WriteBehindLog.DurabilityPolicy.ON_IDLE, 0, operations, false);
+    }
+
+    private static void measureLog(Path dir, String name, WriteBehindLog.DurabilityPolicy policy,
+                                   long intervalMillis, int operations, boolean waitEachTime)
+            throws IOException {
+        Path file = dir.resolve(policy + (waitEachTime ? "-sync" : "") + ".log");
+
+        TaskManager manager = new TaskManager();
+        WriteBehindLog log = new WriteBehindLog(file, policy, intervalMillis);
+        manager.addListener(log);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            // Mix of adds and edits, like a bulk import followed by fixes
+            if (i % 3 == 2) {
+                Task t = manager.getTask(1 + (i % (i / 3 + 1)));
+                manager.updateTask(t, sampleTask(i));
+            } else {
+                manager.addTask(sampleTask(i));
+            }
+            if (waitEachTime) {
+                log.flush();
+            }
+        }
+        long queued = System.nanoTime() - start;
+        log.flush();
+        long durable = System.nanoTime() - start;
+        log.close();
+
+        System.out.printf("%-32s  caller %8.0f ops/s   durable %8.0f ops/s   fsyncs %6d%n",
+                name,
+                operations / (queued / 1e9),
+                operations / (durable / 1e9),
+                log.getSyncCount());
+        WriteBehindLog.deleteSegments(file);
+        Files.deleteIfExists(file);
+    }
+
+    // ───────────────────────────────────────────────
+    // LOG COMPACTION — disk usage and restart replay time
+    // ───────────────────────────────────────────────
+
+    private static void measureCompaction(int operations) throws IOException {
+        Path dir = Files.createTempDirectory("tt-compact-bench");
+        Path board = dir.resolve("tasks.board");
+        Path logDir = dir.resolve("tasks.board.log");
+        int boardSize = 10_000;
+
+        TaskManager manager = new TaskManager();
+        WriteBehindLog log = new WriteBehindLog(logDir, WriteBehindLog.DurabilityPolicy.ON_IDLE, 0);
+        manager.addListener(log);
+        Random random = new Random(1);
+        for (int i = 0; i < boardSize; i++) {
+            manager.addTask(sampleTask(i));
+        }
+        // Constant churn on a board of constant size: mostly edits,
+        // some completes, and deletes that are replaced by new tasks
+        List<Task> live = manager.getTasks();
+        for (int i = 0; i < operations; i++) {
+            int k = random.nextInt(live.size());
+            Task t = live.get(k);
+            if (i % 10 == 0) {
+                manager.removeTask(t);
+                Task replacement = sampleTask(i);
+                manager.addTask(replacement);
+                live.set(k, replacement);
+            } else if (i % 10 == 1) {
+                manager.markComplete(t);
+            } else {
+                manager.updateTask(t, sampleTask(i));
+            }
+        }
+        log.flush();
+
+        long logBefore = directoryBytes(logDir);
+        timeRecovery(board, logDir);   // warm-up
+        long replayBefore = timeRecovery(board, logDir);
+
+        LogCompactor compactor = new LogCompactor(board, log, 0);
+        long start = System.nanoTime();
+        long folded = compactor.compact();
+        long compactMillis = (System.nanoTime() - start) / 1_000_000;
+        log.close();
+
+        long logAfter = directoryBytes(logDir);
+        long replayAfter = timeRecovery(board, logDir);
+
+        System.out.printf("Live tasks: %d, logged changes: %d, folded: %d in %d ms%n",
+                manager.getTotalCount(), log.getLastSequence(), folded, compactMillis);
+        System.out.printf("Before: log %,d bytes, restart %d ms%n", logBefore, replayBefore);
+        System.out.printf("After:  checkpoint %,d bytes + log %,d bytes, restart %d ms%n",
+                Files.size(board), logAfter, replayAfter);
+    }
+
+    // ───────────────────────────────────────────────
+    // DEPENDENCIES — incremental cycle checks and finish dates
+    // ───────────────────────────────────────────────
+
+    /**
+     * Builds a dependency graph with 5 edges per task, one edge at a time,
+     * like users adding "blocked by" links. Tasks are added in random order
+     * relative to the final dependency order, so the topological order has
+     * to be repaired along the way. Then tries edges that would close a
+     * cycle and moves due dates around, timing every single call.
+     */
+    private static void measureDependencies(int count) {
+        Random random = new Random(3);
+        TaskManager manager = new TaskManager();
+        Task[] byRank = new Task[count];   // the "true" project order
+        int[] rankOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            rankOf[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = rankOf[i];
+            rankOf[i] = rankOf[j];
+            rankOf[j] = tmp;
+        }
+        for (int i = 0; i < count; i++) {
+            Task t = sampleTask(i);
+            t.setCompleted(false);
+            manager.addTask(t);
+            byRank[rankOf[i]] = t;
+        }
+
+        // Blockers come from the 2000 tasks before it in project order
+        int window = Math.min(2_000, count - 1);
+        LatencyHistogram add = new LatencyHistogram();
+        long edgesWanted = 5L * count;
+        long start = System.nanoTime();
+        while (manager.getDependencyGraph().edgeCount() < edgesWanted) {
+            int rank = 1 + random.nextInt(count - 1);
+            int blockerRank = Math.max(0, rank - 1 - random.nextInt(window));
+            long t0 = System.nanoTime();
+            manager.addDependency(byRank[rank], byRank[blockerRank]);
+            add.record(System.nanoTime() - t0);
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        LatencyHistogram cycle = new LatencyHistogram();
+        int rejected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int rank = random.nextInt(count - window);
+            Task early = byRank[rank];
+            Task late = byRank[rank + 1 + random.nextInt(window)];
+            long t0 = System.nanoTime();
+            try {
+                manager.addDependency(early, late);
+                manager.removeDependency(early, late);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+            cycle.record(System.nanoTime() - t0);
+        }
+
+        LatencyHistogram due = new LatencyHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            Task t = byRank[random.nextInt(count)];
+            Task changes = sampleTask(random.nextInt(count));
+            long t0 = System.nanoTime();
+            manager.updateTask(t, changes);
+            due.record(System.nanoTime() - t0);
+        }
+
+        // For comparison: one full search over the graph, which is what a
+        // non-incremental cycle check would cost for every new edge
+        manager.getDependencyGraph().countReachable(byRank[0]);   // warm-up
+        long t0 = System.nanoTime();
+        int reached = manager.getDependencyGraph().countReachable(byRank[0]);
+        long fullMicros = (System.nanoTime() - t0) / 1_000;
+
+        System.out.printf("Tasks: %,d, edges: %,d, built in %,d ms%n",
+                count, manager.getDependencyGraph().edgeCount(), buildMillis);
+        printLatencies("add edge", add);
+        printLatencies("cycle try", cycle);
+        printLatencies("due change", due);
+        System.out.printf("  (%,d of 10,000 tries closed a cycle)%n", rejected);
+        System.out.printf("One full search from the first task: %,d µs (%,d tasks reached)%n",
+                fullMicros, reached);
+        System.out.printf("  → %,d edges × one full search each ≈ %,d s%n",
+                edgesWanted, edgesWanted * fullMicros / 1_000_000);
+    }
+
+    /**
+     * Records 20 edits per task (one or two fields each, a few seconds
+     * apart), then rebuilds the board as of random moments, once from the
+     * nearest keyframe and once by replaying the whole log.
+     */
+    private static void measureHistory(int count) {
+        Random random = new Random(5);
+        Instant[] now = {Instant.parse("2025-01-01T08:00:00Z")};
+        Clock clock = new Clock() {
+            @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+            @Override public Clock withZone(ZoneId zone) { return this; }
+            @Override public Instant instant() { return now[0]; }
+        };
+        TaskHistory history = new TaskHistory(clock);
+        TaskManager manager = new TaskManager();
+        manager.addListener(history);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Task t = sampleTask(i);
+            tasks.add(t);
+            manager.addTask(t);
+        }
+
+        long edits = 20L * count;
+        long start = System.nanoTime();
+        for (long i = 0; i < edits; i++) {
+            now[0] = now[0].plusMillis(random.nextInt(5_000));
+            Task t = tasks.get(random.nextInt(count));
+            Task changes = sampleTask(random.nextInt(count));
+            changes.setTitle(t.getTitle());   // keep the title, change the rest
+            manager.updateTask(t, changes);
+        }
+        long recordNanos = System.nanoTime() - start;
+        Instant end = now[0];
+
+        System.out.printf("Tasks: %,d, events: %,d, keyframes: %,d, recorded in %,d ms (%s per edit)%n",
+                count, history.eventCount(), history.keyframeCount(), recordNanos / 1_000_000,
+                LoadGenerator.formatNanos(recordNanos / edits));
+        System.out.printf("Size: %,d KB = %.1f bytes per event (events + keyframes, no values)%n",
+                history.encodedBytes() >> 10, (double) history.encodedBytes() / history.eventCount());
+
+        LatencyHistogram fromKeyframe = new LatencyHistogram();
+        LatencyHistogram fullReplay = new LatencyHistogram();
+        long span = end.toEpochMilli() - Instant.parse("2025-01-01T08:00:00Z").toEpochMilli();
+        for (int i = 0; i < 20; i++) {
+            Instant when = end.minusMillis((long) (random.nextDouble() * span));
+            long t0 = System.nanoTime();
+            int size = history.boardAsOf(when).size();
+            fromKeyframe.record(System.nanoTime() - t0);
+            t0 = System.nanoTime();
+            check(history.boardAsOfWithoutKeyframes(when).size() == size, "same board");
+            fullReplay.record(System.nanoTime() - t0);
+        }
+        printLatencies("keyframe", fromKeyframe);
+        printLatencies("full log", fullReplay);
+    }
+
+    /**
+     * Fills a FileTaskRepository, puts a cache of 2% of the board in front
+     * and reads tasks the way a GUI would: 90% of the reads go to 1% of the
+     * tasks (the ones on screen), the rest anywhere. Every 20th access is
+     * an edit (write-through).
+     */
+    private static void measureRepository(int count) throws IOException {
+        Path file = Files.createTempFile("tasks", ".repo");
+        try (FileTaskRepository store = new FileTaskRepository(file)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Task t = sampleTask(i);
+                t.setId(i + 1);
+                store.save(t);
+            }
+            System.out.printf("Tasks: %,d, file: %,d MB, written in %,d ms%n", count,
+                    store.fileSize() >> 20, (System.nanoTime() - start) / 1_000_000);
+
+            CachingTaskRepository cache = new CachingTaskRepository(store, Math.max(1, count / 50));
+            Random random = new Random(9);
+            int hot = Math.max(1, count / 100);
+            LatencyHistogram reads = new LatencyHistogram();
+            LatencyHistogram writes = new LatencyHistogram();
+            for (int i = 0; i < 2_000_000; i++) {
+                long id = 1 + (random.nextInt(10) < 9 ? random.nextInt(hot) : random.nextInt(count));
+                long t0 = System.nanoTime();
+                Task t = cache.findById(id);
+                if (i % 20 == 0) {
+                    t.setPriority(Task.Priority.HIGH);
+                    cache.save(t);
+                    writes.record(System.nanoTime() - t0);
+                } else {
+                    reads.record(System.nanoTime() - t0);
+                }
+            }
+            System.out.println(cache);
+            printLatencies("read", reads);
+            printLatencies("read+write", writes);
+
+            System.gc();
+            long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            System.out.printf("Heap in use: %,d MB (the tasks themselves stay in the file)%n", heap >> 20);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // NEXT UP — top K from the heap vs sorting every time
+    // ───────────────────────────────────────────────
+
+    /**
+     * Asks for the 10 tasks to do next, once from NextUpQueue and once by
+     * sorting every open task (what the app did before), with edits in
+     * between so the ranking keeps changing.
+     */
+    private static void measureNextUp(int count) {
+        Random random = new Random(11);
+        TaskManager manager = new TaskManager();
+        List<Task> tasks = new ArrayList<>(count);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Task t = sampleTask(i);
+            manager.addTask(t);
+            tasks.add(t);
+        }
+        System.out.printf("Tasks: %,d, added in %,d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+
+        NextUpQueue.Scoring scoring = NextUpQueue.DEFAULT_SCORING;
+        LatencyHistogram edit = new LatencyHistogram();
+        LatencyHistogram top = new LatencyHistogram();
+        LatencyHistogram sorted = new LatencyHistogram();
+        for (int i = 0; i < 200; i++) {
+            for (int e = 0; e < 50; e++) {
+                Task t = tasks.get(random.nextInt(count));
+                long t0 = System.nanoTime();
+                manager.updateTask(t, sampleTask(random.nextInt(count)));
+                edit.record(System.nanoTime() - t0);
+            }
+
+            long t0 = System.nanoTime();
+            List<Task> fromHeap = manager.getNextUp(10);
+            top.record(System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            List<Task> open = manager.findTasks(TaskQuery.pending());
+            open.sort((a, b) -> {
+                int c = Long.compare(scoring.score(a), scoring.score(b));
+                return c != 0 ? c : Long.compare(a.getId(), b.getId());
+            });
+            List<Task> fromSort = open.subList(0, Math.min(10, open.size()));
+            sorted.record(System.nanoTime() - t0);
+            check(fromHeap.equals(fromSort), "heap and sort disagree");
+        }
+        printLatencies("edit", edit);
+        printLatencies("top 10", top);
+        printLatencies("full sort", sorted);
+    }
+
+    // ───────────────────────────────────────────────
+    // MANY BOARDS — heap per task, and switching with LRU eviction
+    // ───────────────────────────────────────────────
+
+    /**
+     * First measures how much heap a task takes inside a TaskManager (the
+     * number behind Board.BYTES_PER_TASK). Then spreads the tasks over 200
+     * boards with room for 20 of them, and switches boards the way people
+     * do: 90% of the time to one of the 10 boards used last.
+     */
+    private static void measureBoards(int count) throws IOException {
+        // 1. Heap per task
+        System.gc();
+        long before = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        TaskManager sample = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            sample.addTask(sampleTask(i));
+        }
+        System.gc();
+        long after = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("Heap per task: %,d bytes (estimate used: %,d)%n",
+                (after - before) / count, Board.BYTES_PER_TASK);
+        check(sample.getTotalCount() == count, "all tasks added");
+        sample = null;
+
+        // 2. Switching boards
+        int boards = 200;
+        int perBoard = Math.max(1, count / boards);
+        Path dir = Files.createTempDirectory("boards");
+        long budget = 20 * (Board.BYTES_PER_BOARD + perBoard * Board.BYTES_PER_TASK);
+        try (BoardRegistry registry = new BoardRegistry(dir, budget)) {
+            long start = System.nanoTime();
+            for (int b = 0; b < boards; b++) {
+                TaskManager manager = registry.open("board " + b).getManager();
+                for (int i = 0; i < perBoard; i++) {
+                    manager.addTask(sampleTask(i));
+                }
+            }
+            System.out.printf("Boards: %d × %,d tasks, created in %,d ms%n",
+                    boards, perBoard, (System.nanoTime() - start) / 1_000_000);
+
+            Random random = new Random(13);
+            List<String> recent = new ArrayList<>();
+            LatencyHistogram resident = new LatencyHistogram();
+            LatencyHistogram loaded = new LatencyHistogram();
+            for (int i = 0; i < 2_000; i++) {
+                String name = random.nextInt(10) < 9 && recent.size() >= 10
+                        ? recent.get(random.nextInt(10))
+                        : "board " + random.nextInt(boards);
+                boolean wasLoaded = registry.isLoaded(name);
+                long t0 = System.nanoTime();
+                registry.open(name).getManager().getNextUp(5);
+                (wasLoaded ? resident : loaded).record(System.nanoTime() - t0);
+                recent.remove(name);
+                recent.add(0, name);
+            }
+            System.out.println(registry);
+            printLatencies("recent", resident);
+            printLatencies("from disk", loaded);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // CHANGE FEED — writer cost with many subscribers
+    // ───────────────────────────────────────────────
+
+    /**
+     * Times addTask with 0, 1,000 and 5,000 feed subscribers following
+     * the board, and checks how many changes reached them.
+     */
+    private static void measureFeed(int count) {
+        for (int subscribers : new int[] {0, 1_000, 5_000}) {
+            TaskManager manager = new TaskManager();
+            TaskChangeFeed feed = manager.getChangeFeed();
+            LongAdder received = new LongAdder();
+            for (int n = 0; n < subscribers; n++) {
+                feed.subscribe(new Flow.Subscriber<TaskChangeFeed.Change>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription s) {
+                        s.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(TaskChangeFeed.Change change) {
+                        received.increment();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                    }
+                });
+            }
+
+            LatencyHistogram add = new LatencyHistogram();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Task t = sampleTask(i);
+                long t0 = System.nanoTime();
+                manager.addTask(t);
+                add.record(System.nanoTime() - t0);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            feed.close();
+            System.out.printf("%,d subscribers: %,d changes in %,d ms, delivered %,d (dropped %,d)%n",
+                    subscribers, count, millis, received.sum(), feed.getDroppedCount());
+            printLatencies("add", add);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // BATCH MODE — commands per second
+    // ───────────────────────────────────────────────
+
+    /**
+     * Runs a script of adds, edits, completes and deletes through
+     * BatchRunner, once one command per batch and once with the default
+     * batch size. Then times queries and reports on the resulting board
+     * separately: they look at the whole board, so they cost far more than
+     * a change and would hide the per-command numbers in a mixed script.
+     */
+    private static void measureBatch(int count) throws IOException {
+        Random random = new Random(17);
+        StringBuilder script = new StringBuilder(count * 64);
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            int roll = random.nextInt(100);
+            if (added < 100 || roll < 55) {
+                added++;
+                script.append("add title=\"Task #").append(i).append("\" assignee=")
+                      .append(ASSIGNEES[i % ASSIGNEES.length]).append(" due=")
+                      .append(LocalDate.of(2025, 1, 1).plusDays(i % 365))
+                      .append(" type=").append(TYPES[i % TYPES.length])
+                      .append(" priority=").append(Task.Priority.values()[i % 3]).append('\n');
+            } else if (roll < 80) {
+                script.append("edit id=").append(1 + random.nextInt(added))
+                      .append(" priority=").append(Task.Priority.values()[random.nextInt(3)]).append('\n');
+            } else if (roll < 95) {
+                script.append("complete id=").append(1 + random.nextInt(added)).append('\n');
+            } else {
+                script.append("delete id=").append(1 + random.nextInt(added)).append('\n');
+            }
+        }
+        String text = script.toString();
+        System.out.printf("Script: %,d changes, %,d KB%n", count, text.length() / 1024);
+
+        TaskManager board = null;
+        for (int batchSize : new int[] {1, BatchRunner.BATCH_SIZE}) {
+            for (int round = 0; round < 2; round++) {   // the first round warms up the JIT
+                board = new TaskManager();
+                CountingWriter out = new CountingWriter();
+                BatchRunner runner = new BatchRunner(board, out, batchSize);
+                long start = System.nanoTime();
+                long failed = runner.run(new BufferedReader(new StringReader(text)));
+                long nanos = System.nanoTime() - start;
+                if (round == 1) {
+                    System.out.printf("batch size %,5d: %,d ms, %,.0f commands/s, %,d KB out, %,d failed (deleted ids)%n",
+                            batchSize, nanos / 1_000_000, count * 1e9 / nanos, out.chars / 1024, failed);
+                }
+            }
+        }
+
+        // Reads on the final board (about half the commands were adds)
+        BatchRunner runner = new BatchRunner(board, new CountingWriter());
+        LatencyHistogram query = new LatencyHistogram();
+        LatencyHistogram report = new LatencyHistogram();
+        StringBuilder ignored = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            String line = "query status=pending priority=HIGH assignee="
+                    + ASSIGNEES[random.nextInt(ASSIGNEES.length)] + " limit=10";
+            long t0 = System.nanoTime();
+            runner.execute(line, i, ignored);
+            query.record(System.nanoTime() - t0);
+            t0 = System.nanoTime();
+            runner.execute("report", i, ignored);
+            report.record(System.nanoTime() - t0);
+            ignored.setLength(0);
+        }
+        System.out.printf("Reads on %,d tasks:%n", board.getTotalCount());
+        printLatencies("query", query);
+        printLatencies("report", report);
+    }
+
+    /** Throws the output away, but counts it. */
+    private static final class CountingWriter extends Writer {
+        long chars = 0;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public Writer append(CharSequence text) {
+            chars += text.length();
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // ARCHIVE — working set with and without old completed tasks
+    // ───────────────────────────────────────────────
+
+    /**
+     * A board where 3 of 4 tasks were completed long ago. Times what the
+     * GUI does on every refresh (getTasks copy, pending and completed
+     * lists) before and after the old tasks are archived, and reports the
+     * heap and archive size.
+     */
+    private static void measureArchive(int count) throws IOException {
+        LocalDate longAgo = Today.get().minusDays(90);
+        System.gc();
+        long before = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            Task t = sampleTask(i);
+            if (t.isCompleted()) {
+                t.setCompletedOn(longAgo);
+            }
+            manager.addTask(t);
+        }
+        for (int i = 0; i < count; i++) {
+            if (i % 4 != 0 && i % 3 != 0) {
+                manager.markComplete(manager.getTask(i + 1));   // done today: stays
+            }
+        }
+        // ... and more old work, so about 3 in 4 tasks leave the board
+        List<Task> open = manager.findTasks(TaskQuery.pending());
+        for (int i = 0; i < open.size() / 2; i++) {
+            Task t = open.get(i);
+            Task done = t.snapshot();
+            manager.removeTask(t);
+            done.setCompleted(true);
+            done.setCompletedOn(longAgo);
+            manager.addTask(done);
+        }
+        System.gc();
+        long allOnBoard = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() - before;
+        System.out.printf("Board: %,d tasks, %,d MB heap%n", manager.getTotalCount(), allOnBoard >> 20);
+        LatencyHistogram[] hot = timeRefresh(manager);
+
+        long start = System.nanoTime();
+        int moved = manager.archiveCompleted(Today.get().minusDays(Board.ARCHIVE_AFTER_DAYS));
+        long archiveMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long afterArchive = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() - before;
+        TaskArchive archive = manager.getArchive();
+        System.out.printf("Archived %,d tasks in %,d ms: %s, %.1f bytes/task%n",
+                moved, archiveMillis, archive, archive.encodedBytes() / (double) moved);
+        System.out.printf("Board: %,d tasks, %,d MB heap (archive included)%n",
+                manager.getTotalCount(), afterArchive >> 20);
+        LatencyHistogram[] cold = timeRefresh(manager);
+
+        String[] labels = {"getTasks", "pending", "completed"};
+        for (int i = 0; i < labels.length; i++) {
+            printLatencies(labels[i] + " all", hot[i]);
+            printLatencies(labels[i] + " hot", cold[i]);
+        }
+
+        // Searching the archive itself is on demand, and slower
+        LatencyHistogram search = new LatencyHistogram();
+        for (int i = 0; i < 5; i++) {
+            long t0 = System.nanoTime();
+            manager.findArchived(TaskQuery.assigneeIs(ASSIGNEES[i]));
+            search.record(System.nanoTime() - t0);
+        }
+        printLatencies("archive search", search);
+    }
+
+    /** getTasks(), the pending list and the completed list, 50 times each. */
+    private static LatencyHistogram[] timeRefresh(TaskManager manager) {
+        LatencyHistogram[] h = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        for (int round = 0; round < 50; round++) {
+            long t0 = System.nanoTime();
+            manager.getTasks();
+            long t1 = System.nanoTime();
+            manager.findTasks(TaskQuery.pending());
+            long t2 = System.nanoTime();
+            manager.findTasks(TaskQuery.completed());
+            long t3 = System.nanoTime();
+            h[0].record(t1 - t0);
+            h[1].record(t2 - t1);
+            h[2].record(t3 - t2);
+        }
+        return h;
+    }
+
+    // ───────────────────────────────────────────────
+    // QUERY CACHE — repeated filters between edits
+    // ───────────────────────────────────────────────
+
+    /**
+     * Like a GUI user clicking between a handful of filters while editing:
+     * after every edit (mostly titles, some priorities and completes) one
+     * of 8 filters is asked for. Runs once without and once with the
+     * cache.
+     */
+    private static void measureQueryCache(int count) {
+        List<TaskQuery> filters = new ArrayList<>();
+        for (TaskQuery status : List.of(TaskQuery.all(), TaskQuery.pending())) {
+            filters.add(status);
+            filters.add(status.and(TaskQuery.priorityIn(Task.Priority.HIGH)));
+            filters.add(status.and(TaskQuery.typeIs("Work")));
+            filters.add(status.and(TaskQuery.assigneeIs("Bob")).and(TaskQuery.overdue()));
+        }
+        for (long budget : new long[] {0, QueryCache.DEFAULT_MAX_BYTES * 8}) {
+            TaskManager manager = new TaskManager();
+            for (int i = 0; i < count; i++) {
+                manager.addTask(sampleTask(i));
+            }
+            manager.getQueryCache().setMaxBytes(budget);
+            Random random = new Random(23);
+            LatencyHistogram find = new LatencyHistogram();
+            for (int round = 0; round < 20_000; round++) {
+                Task task = manager.getTask(1 + random.nextInt(count));
+                Task changes = task.snapshot();
+                int roll = random.nextInt(10);
+                if (roll < 8) {
+                    changes.setTitle("Edited " + round);
+                    manager.updateTask(task, changes);
+                } else if (roll < 9) {
+                    changes.setPriority(Task.Priority.values()[random.nextInt(3)]);
+                    manager.updateTask(task, changes);
+                } else {
+                    manager.markComplete(task);
+                }
+                TaskQuery filter = filters.get(random.nextInt(filters.size()));
+                long t0 = System.nanoTime();
+                manager.findTasks(filter);
+                find.record(System.nanoTime() - t0);
+            }
+            printLatencies(budget == 0 ? "no cache" : "cache", find);
+            if (budget > 0) {
+                System.out.println(manager.getQueryCache());
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // CALENDAR — workload counts from the Fenwick trees vs a scan
+    // ───────────────────────────────────────────────
+
+    /**
+     * Everything the heat map asks for on one redraw (70 days, 12 weeks,
+     * 6 months, open and all, plus two sums), from DueDateCounter and
+     * by looping over every task's due date. Also times an edit that
+     * moves a due date, which now also updates the trees.
+     */
+    private static void measureCalendar(int count) {
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            manager.addTask(sampleTask(i));
+        }
+        LocalDate start = LocalDate.of(2025, 3, 3);
+        check(heatMapCounts(manager, start) == heatMapScan(manager, start), "trees and scan agree");
+        LatencyHistogram trees = new LatencyHistogram();
+        LatencyHistogram scan = new LatencyHistogram();
+        for (int round = 0; round < 200; round++) {
+            long t0 = System.nanoTime();
+            heatMapCounts(manager, start);
+            trees.record(System.nanoTime() - t0);
+            if (round % 10 == 0) {
+                t0 = System.nanoTime();
+                heatMapScan(manager, start);
+                scan.record(System.nanoTime() - t0);
+            }
+        }
+        printLatencies("trees", trees);
+        printLatencies("scan", scan);
+
+        Random random = new Random(29);
+        LatencyHistogram edit = new LatencyHistogram();
+        for (int i = 0; i < 20_000; i++) {
+            Task task = manager.getTask(1 + random.nextInt(count));
+            Task changes = task.snapshot();
+            changes.setDueDate(start.plusDays(random.nextInt(365)));
+            long t0 = System.nanoTime();
+            manager.updateTask(task, changes);
+            edit.record(System.nanoTime() - t0);
+        }
+        printLatencies("move due", edit);
+    }
+
+    // ───────────────────────────────────────────────
+    // UNDO — edits and a bulk delete, taken back
+    // ───────────────────────────────────────────────
+
+    /**
+     * Times edits with the undo journal recording, then a bulk delete of
+     * (up to) 50k tasks as one batch and its undo / redo, with the
+     * journal's memory estimate (compare with a class histogram:
+     * jcmd <pid> GC.class_histogram).
+     */
+    private static void measureUndo(int count) {
+        TaskManager manager = new TaskManager();
+        UndoJournal journal = manager.getUndoJournal();
+        journal.setEnabled(false);   // loading is nothing to undo
+        for (int i = 0; i < count; i++) {
+            manager.addTask(sampleTask(i));
+        }
+        journal.setEnabled(true);
+
+        Random random = new Random(31);
+        LatencyHistogram edit = new LatencyHistogram();
+        for (int i = 0; i < 20_000; i++) {
+            Task task = manager.getTask(1 + random.nextInt(count));
+            Task changes = task.snapshot();
+            changes.setTitle("Renamed " + i);
+            long t0 = System.nanoTime();
+            manager.updateTask(task, changes);
+            edit.record(System.nanoTime() - t0);
+        }
+        printLatencies("edit", edit);
+        System.out.printf("20,000 edits: %s, %.0f bytes/edit%n", journal, journal.getBytes() / 20_000.0);
+        journal.clear();
+
+        List<Task> doomed = manager.getTasks().subList(0, Math.min(count, 50_000));
+        int deleted = doomed.size();
+        long t0 = System.nanoTime();
+        manager.batch("Delete " + doomed.size() + " tasks", () -> {
+            for (Task t : doomed) {
+                manager.removeTask(t);
+            }
+        });
+        long deleteMicros = (System.nanoTime() - t0) / 1_000;
+        System.out.printf("Deleted %,d tasks in one batch: %,d µs; %s, %.0f bytes/task%n",
+                deleted, deleteMicros, journal, journal.getBytes() / (double) deleted);
+
+        int total = manager.getTotalCount();
+        t0 = System.nanoTime();
+        manager.undo();
+        long undoMicros = (System.nanoTime() - t0) / 1_000;
+        check(manager.getTotalCount() == total + deleted, "undo brings every task back");
+        t0 = System.nanoTime();
+        manager.redo();
+        long redoMicros = (System.nanoTime() - t0) / 1_000;
+        check(manager.getTotalCount() == total, "redo deletes them again");
+        System.out.printf("Undo: %,d µs, redo: %,d µs (%.2f µs per task)%n",
+                undoMicros, redoMicros, undoMicros / (double) deleted);
+    }
+
+    // ───────────────────────────────────────────────
+    // REPORTS — one fork-join pass, all cores vs one
+    // ───────────────────────────────────────────────
+
+    /**
+     * Times ReportEngine on the common pool (all cores) and on a pool of
+     * one thread, the same report from a loop over getTasks() (which
+     * copies the list first), and writing it out as CSV and HTML.
+     */
+    private static void measureReport(int count) throws IOException {
+        TaskManager manager = new TaskManager();
+        manager.getUndoJournal().setEnabled(false);
+        LocalDate today = LocalDate.of(2025, 6, 15);
+        for (int i = 0; i < count; i++) {
+            Task task = sampleTask(i);
+            if (task.isCompleted()) {
+                task.setCompletedOn(today.minusDays(i % 120));
+            }
+            manager.addTask(task);
+        }
+        System.out.printf("Tasks: %,d, cores: %d%n", count, Runtime.getRuntime().availableProcessors());
+
+        ForkJoinPool one = new ForkJoinPool(1);
+        LatencyHistogram parallel = new LatencyHistogram();
+        LatencyHistogram single = new LatencyHistogram();
+        LatencyHistogram copy = new LatencyHistogram();
+        BoardReport report = null;
+        for (int round = 0; round < 10; round++) {
+            long t0 = System.nanoTime();
+            report = new ReportEngine(manager).run(today);
+            parallel.record(System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            new ReportEngine(manager, one).run(today);
+            single.record(System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            BoardReport looped = new BoardReport(today, BoardReport.DEFAULT_WEEKS);
+            for (Task t : manager.getTasks()) {
+                looped.add(t);
+            }
+            copy.record(System.nanoTime() - t0);
+            check(looped.getOverdue() == report.getOverdue(), "engine and loop agree");
+        }
+        one.shutdown();
+        printLatencies("all cores (" + ForkJoinPool.commonPool().getParallelism() + " workers)", parallel);
+        printLatencies("one thread", single);
+        printLatencies("getTasks() loop", copy);
+
+        long t0 = System.nanoTime();
+        report.writeCsv(Writer.nullWriter());
+        long csvMicros = (System.nanoTime() - t0) / 1_000;
+        t0 = System.nanoTime();
+        report.writeHtml(Writer.nullWriter());
+        long htmlMicros = (System.nanoTime() - t0) / 1_000;
+        System.out.printf("%,d overdue; writing CSV: %,d µs, HTML: %,d µs%n",
+                report.getOverdue(), csvMicros, htmlMicros);
+    }
+
+    /** The heat map's questions, answered by TaskManager. Returns a total to compare. */
+    private static long heatMapCounts(TaskManager manager, LocalDate start) {
+        long total = 0;
+        for (boolean openOnly : new boolean[] {true, false}) {
+            for (int n : manager.countDueByDay(start, 70, openOnly)) {
+                total += n;
+            }
+            for (int w = 0; w < 12; w++) {
+                total += manager.countDue(start.plusWeeks(w), start.plusWeeks(w).plusDays(6), openOnly);
+            }
+            for (int m = 0; m < 6; m++) {
+                total += manager.countDue(start.plusMonths(m), start.plusMonths(m + 1).minusDays(1), openOnly);
+            }
+        }
+        total += manager.countDue(null, start.minusDays(1), true);
+        total += manager.countDue(start, start.plusDays(29), true);
+        return total;
+    }
+
+    /** The same questions, answered with one loop over all tasks. */
+    private static long heatMapScan(TaskManager manager, LocalDate start) {
+        long[] open = new long[400];
+        long[] all = new long[400];
+        long overdue = 0;
+        for (Task t : manager.getTasks()) {
+            LocalDate due = t.getNextDueDate();
+            if (due == null) {
+                continue;
+            }
+            long day = due.toEpochDay() - start.toEpochDay();
+            if (day < 0 && !t.isCompleted()) {
+                overdue++;
+            } else if (day >= 0 && day < open.length) {
+                all[(int) day]++;
+                if (!t.isCompleted()) {
+                    open[(int) day]++;
+                }
+            }
+        }
+        long total = overdue;
+        for (long[] counts : new long[][] {open, all}) {
+            total += sum(counts, 0, 70);
+            for (int w = 0; w < 12; w++) {
+                total += sum(counts, w * 7, w * 7 + 7);
+            }
+            for (int m = 0; m < 6; m++) {
+                LocalDate from = start.plusMonths(m);
+                total += sum(counts, (int) (from.toEpochDay() - start.toEpochDay()),
+                        (int) (from.plusMonths(1).toEpochDay() - start.toEpochDay()));
+            }
+        }
+        return total + sum(open, 0, 30);
+    }
+
+    private static long sum(long[] counts, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    private static void printLatencies(String label, LatencyHistogram h) {
+        System.out.printf("%-14s p50=%s  p99=%s  p99.9=%s  max=%s%n", label,
+                LoadGenerator.formatNanos(h.percentile(50)), LoadGenerator.formatNanos(h.percentile(99)),
+                LoadGenerator.formatNanos(h.percentile(99.9)), LoadGenerator.formatNanos(h.percentile(100)));
+    }
+
+    /** Loads checkpoint + log the way the app does and returns the time in ms. */
+    private static long timeRecovery(Path board, Path logDir) throws IOException {
+        long start = System.nanoTime();
+        Map<Long, Task> checkpoint = new LinkedHashMap<>();
+        long covered = LogCompactor.readCheckpoint(board, checkpoint);
+        TaskManager manager = new TaskManager();
+        for (Task t : checkpoint.values()) {
+            manager.addTask(t);
+        }
+        for (WriteBehindLog.Entry e : WriteBehindLog.readEntries(logDir, covered)) {
+            manager.apply(e.getOperation());
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long directoryBytes(Path dir) throws IOException {
+        long total = 0;
+        for (Path segment : WriteBehindLog.listSegments(dir)) {
+            total += Files.size(segment);
+        }
+        return total;
+    }
+
+    /** Sums collection counts and times over all collectors. */
+    static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] {count, time};
+    }
+
+    private static void report(String label, long[] result) {
+        double avgPause = result[0] == 0 ? 0.0 : (double) result[1] / result[0];
+        System.out.printf("%-28s collections=%d  gc time=%d ms  avg pause=%.2f ms  wall=%d ms%n",
+                label, result[0], result[1], avgPause, result[2]);
+    }
+}
@@ -0,0 +1,122 @@
+package tasktracker;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+/**
+ * TaskCellRenderer draws one task in the main list: its text, a tooltip,
+ * and a colour for its state.
+ *
+ *   ✔ completed → green
+ *   overdue    → dark red
+ *   pending    → bright red
+ *
+ * Why its own class (it used to be an anonymous class in TaskTrackerGUI)?
+ * Swing calls the renderer for EVERY visible cell on EVERY repaint —
+ * scrolling, hovering, resizing. The old one made a new Color, asked for
+ * LocalDate.now() and built two strings (task.toString() and the HTML
+ * tooltip) per cell, every time. Now:
+ *  - the colours are constants
+ *  - today's date comes from Today.get() (no garbage until midnight)
+ *  - the text and tooltip are built once per task and version, and
+ *    reused until the task changes (or is archived / restored)
+ *  - the "text changed" event Swing fires for every new label text is
+ *    skipped (see firePropertyChange)
+ *
+ * After warm-up, painting a cell that has not changed allocates nothing;
+ * AllocationBudgetTest checks that it stays that way.
+ */
+class TaskCellRenderer extends DefaultListCellRenderer {
+
+    static final Color COMPLETED = new Color(0, 128, 0);
+    static final Color OVERDUE = new Color(150, 0, 0);
+    static final Color PENDING = Color.RED;
+
+    /** The text shown for a task, and what it was built from. */
+    private static final class Texts {
+        final long version;
+        final boolean archived;
+        final String text;
+        final String tooltip;
+
+        Texts(Task task, long version, boolean archived) {
+            this.version = version;
+            this.archived = archived;
+            this.text = archived ? task + "  (archived)" : task.toString();
+            this.tooltip = task.getTooltipText();
+        }
+    }
+
+    /** True for tasks in the archive (they get an "(archived)" marker). */
+    private final Predicate<Task> isArchived;
+
+    // Weak keys: a task that is gone from every list is dropped from here too
+    private final Map<Task, Texts> texts = new WeakHashMap<>();
+
+    TaskCellRenderer(Predicate<Task> isArchived) {
+        this.isArchived = isArchived;
+    }
+
+    @Override
+    public Component getListCellRendererComponent(
+            JList<?> list, Object value, int index,
+            boolean isSelected, boolean cellHasFocus) {
+
+        if (!(value instanceof Task)) {
+            return super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+        }
+        Task task = (Task) value;
+        Texts t = textsOf(task);
+
+        // The cached text goes in as the value: the default renderer would
+        // otherwise call task.toString() and build the text again
+        Component c = super.getListCellRendererComponent(
+                list, t.text, index, isSelected, cellHasFocus);
+
+        // Hover popup text
+        setToolTipText(t.tooltip);
+
+        if (!isSelected) { // Keep highlight color if selected
+            LocalDate due = task.getNextDueDate();
+            if (task.isCompleted()) {
+                setForeground(COMPLETED);
+            } else if (due != null && due.isBefore(Today.get())) {
+                setForeground(OVERDUE);
+            } else {
+                setForeground(PENDING);
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * DefaultListCellRenderer already skips most property change events
+     * (nobody listens to a rubber stamp), but it still sends "text" so the
+     * label's UI can switch HTML rendering on or off — a new event object
+     * for every cell whose text differs from the row before. Task texts
+     * start with ✔ or ✘ and are never HTML, so there is nothing to switch.
+     */
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+        if (!"text".equals(propertyName)) {
+            super.firePropertyChange(propertyName, oldValue, newValue);
+        }
+    }
+
+    /** The cached texts, built again only if the task has changed since. */
+    private Texts textsOf(Task task) {
+        long version = task.getVersion();
+        boolean archived = isArchived.test(task);
+        Texts t = texts.get(task);
+        if (t == null || t.version != version || t.archived != archived) {
+            t = new Texts(task, version, archived);
+            texts.put(task, t);
+        }
+        return t;
+    }
+}
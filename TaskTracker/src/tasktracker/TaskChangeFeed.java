@@ -0,0 +1,539 @@
+package tasktracker;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TaskChangeFeed lets dashboards and integrations FOLLOW a board live.
+ * It is a java.util.concurrent.Flow.Publisher of Changes: every add, edit
+ * and removal, numbered with an OFFSET (0, 1, 2, ...).
+ *
+ * How it works:
+ *  - Writers (TaskManager, through TaskListener) queue each change, and
+ *    flush() appends them to ONE shared ring of the last "retention"
+ *    changes. That costs the same whether 0 or 10,000 subscribers are
+ *    listening. TaskManager flushes after every change, once it has
+ *    released its lock.
+ *  - Every subscriber has a CURSOR into the ring: the offset it gets next.
+ *    Its changes are delivered on an Executor (the common ForkJoinPool by
+ *    default, like SubmissionPublisher), only as many as it has request()-ed.
+ *    So a thousand subscribers cost a thousand cursors — not a thousand
+ *    copies of every change.
+ *  - A subscriber that has caught up waits in an "idle" queue; one
+ *    dispatcher thread wakes the idle ones when something new arrives, so
+ *    the writer never has to.
+ *
+ * Bounded buffers and overflow — each subscriber may fall at most
+ * "bufferSize" changes behind. What happens when it does (Overflow):
+ *  - DROP_OLDEST: the oldest waiting changes are skipped
+ *  - CONFLATE:    the waiting changes are collapsed to the NEWEST change per
+ *                 task id (fine for anyone who only needs the latest state)
+ *  - BLOCK:       the WRITER waits until the subscriber catches up. Nothing
+ *                 is lost, but the board is as slow as this subscriber.
+ *                 The writer waits in flush(), OUTSIDE TaskManager's lock,
+ *                 so onNext may read the board; it must not change it
+ *                 (that change would wait for the subscriber itself).
+ * Skipped changes are counted (getDroppedCount), and can be noticed from a
+ * jump in the offsets.
+ *
+ * Resumable offsets: subscribe(subscriber, fromOffset, ...) starts at any
+ * offset that is still in the ring, e.g. the last offset seen plus one after
+ * a reconnect. Offsets belong to this feed object (they start at 0 when it
+ * is created); older changes than the ring holds are counted as dropped.
+ *
+ * Why not SubmissionPublisher itself? It keeps a separate buffer per
+ * subscriber, fed by the writer (O(subscribers) per change), and when a
+ * buffer is full it can only drop the NEWEST item or block. The shared
+ * ring gives drop-oldest and conflation, and keeps the writer's cost flat.
+ *
+ * See TaskFeedServer for followers in another process.
+ */
+public final class TaskChangeFeed implements TaskListener, Flow.Publisher<TaskChangeFeed.Change>, Closeable {
+
+    /** What to do when a subscriber falls more than its buffer size behind. */
+    public enum Overflow { DROP_OLDEST, CONFLATE, BLOCK }
+
+    /**
+     * One change to the board, with its place in the feed.
+     */
+    public static final class Change {
+        private final long offset;
+        private final TaskOperation operation;
+
+        Change(long offset, TaskOperation operation) {
+            this.offset = offset;
+            this.operation = operation;
+        }
+
+        public long getOffset() { return offset; }
+        public TaskOperation getOperation() { return operation; }
+        public TaskOperation.Kind getKind() { return operation.getKind(); }
+        public long getTaskId() { return operation.getTaskId(); }
+
+        /** A NEW Task with the state after the change (null for a removal). */
+        public Task toTask() { return operation.toTask(); }
+
+        @Override
+        public String toString() {
+            return "#" + offset + " " + operation;
+        }
+    }
+
+    /** Changes kept for late or resuming subscribers. */
+    public static final int DEFAULT_RETENTION = 65_536;
+
+    /** Most changes sent to one subscriber before others get a turn. */
+    private static final int BATCH = 256;
+
+    private final Change[] ring;
+    private final int mask;
+    private volatile long head = 0;      // offset of the next change
+    private final Executor executor;
+
+    private final List<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<FeedSubscription> blocking = new CopyOnWriteArrayList<>();
+    private volatile boolean writerWaiting = false;   // a BLOCK subscriber is holding up the writer
+
+    // Changes handed over by the writer, not in the ring yet (guarded by "this")
+    private final ArrayDeque<TaskOperation> queued = new ArrayDeque<>();
+
+    // Caught-up subscribers, woken by the dispatcher thread when a change arrives
+    private final ConcurrentLinkedQueue<FeedSubscription> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile Thread dispatcher;  // started with the first subscriber
+    private volatile boolean closed = false;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** A feed keeping the last DEFAULT_RETENTION changes, delivering on the common pool. */
+    public TaskChangeFeed() {
+        this(DEFAULT_RETENTION, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param retention changes kept in the ring (rounded up to a power of two);
+     *                  also the largest allowed buffer size
+     * @param executor  runs the deliveries to subscribers
+     */
+    public TaskChangeFeed(int retention, Executor executor) {
+        if (retention < 1 || retention > (1 << 30)) {
+            throw new IllegalArgumentException("retention must be between 1 and 2^30: " + retention);
+        }
+        int size = Integer.highestOneBit(retention);
+        if (size < retention) {
+            size <<= 1;
+        }
+        this.ring = new Change[size];
+        this.mask = size - 1;
+        this.executor = executor;
+    }
+
+    // ───────────────────────────────────────────────
+    // Subscribing
+    // ───────────────────────────────────────────────
+
+    /**
+     * Follows the board from the next change on, with a buffer of
+     * Flow.defaultBufferSize() changes and DROP_OLDEST.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Change> subscriber) {
+        subscribe(subscriber, head, Overflow.DROP_OLDEST, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Follows the board starting at fromOffset (clamped to what the ring
+     * still holds), falling at most bufferSize changes behind.
+     */
+    public void subscribe(Flow.Subscriber<? super Change> subscriber, long fromOffset,
+                          Overflow overflow, int bufferSize) {
+        if (subscriber == null || overflow == null) {
+            throw new NullPointerException();
+        }
+        if (bufferSize < 1 || bufferSize > ring.length) {
+            throw new IllegalArgumentException("bufferSize must be between 1 and " + ring.length
+                    + ": " + bufferSize);
+        }
+        FeedSubscription s;
+        synchronized (this) {   // no change can slip in between choosing the cursor and registering
+            long start = Math.max(Math.min(fromOffset, head), oldestOffset());
+            if (start > fromOffset) {
+                dropped.addAndGet(start - fromOffset);
+            }
+            s = new FeedSubscription(subscriber, start, overflow, bufferSize);
+            if (closed) {
+                s.done = true;
+            } else {
+                subscriptions.add(s);
+                if (overflow == Overflow.BLOCK) {
+                    blocking.add(s);
+                }
+                startDispatcher();
+            }
+        }
+        s.schedule();   // onSubscribe is called on the executor, like every other signal
+    }
+
+    /** The offset the next change will get. */
+    public long getNextOffset() {
+        return head;
+    }
+
+    /** The oldest offset a new subscriber can still start from. */
+    public synchronized long getOldestOffset() {
+        return oldestOffset();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /** Changes skipped so far (over all subscribers) because of DROP_OLDEST or CONFLATE. */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops the feed: every subscriber gets the changes it was still due,
+     * then onComplete. Later changes are ignored.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queued.clear();
+            notifyAll();   // a writer waiting for a BLOCK subscriber
+        }
+        for (FeedSubscription s : subscriptions) {
+            s.done = true;
+            s.schedule();
+        }
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // TaskListener — the writer side
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void taskAdded(Task task) {
+        queue(TaskOperation.added(task));
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        queue(TaskOperation.removed(task));
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        queue(TaskOperation.updated(task));
+    }
+
+    /** Queues one change for flush(). Never waits: it runs under TaskManager's lock. */
+    private synchronized void queue(TaskOperation operation) {
+        if (!closed) {
+            queued.add(operation);
+        }
+    }
+
+    /**
+     * Appends the queued changes to the ring, in order. Costs O(1) per
+     * change, unless a BLOCK subscriber is behind: then it waits for it.
+     *
+     * TaskManager calls this after every change, once it has RELEASED its
+     * lock, so a BLOCK subscriber can still read the board while the
+     * writer waits. If the waiting thread is interrupted, the changes stay
+     * queued — nothing is skipped or overwritten — and go out with the
+     * next flush.
+     */
+    void flush() {
+        synchronized (this) {   // one writer at a time; wait() lets others queue meanwhile
+            TaskOperation operation;
+            while (!closed && (operation = queued.peek()) != null) {
+                long offset = head;
+                if (!blocking.isEmpty()) {
+                    if (!waitForBlockingSubscribers(offset)) {
+                        break;      // interrupted: still queued
+                    }
+                    if (head != offset || closed) {
+                        continue;   // another writer flushed while we waited: look again
+                    }
+                }
+                ring[(int) (offset & mask)] = new Change(offset, operation);
+                queued.poll();
+                head = offset + 1;   // volatile write: the slot above is visible to whoever sees this
+                if (idleCount.get() > 0) {
+                    LockSupport.unpark(dispatcher);   // now: a BLOCK subscriber must catch up before the next one
+                }
+            }
+        }
+    }
+
+    /**
+     * BLOCK: waits until every blocking subscriber has room for one more
+     * change. False if the thread was interrupted while waiting.
+     */
+    private boolean waitForBlockingSubscribers(long offset) {
+        for (FeedSubscription s : blocking) {
+            while (!closed && !s.cancelled && offset - s.cursor >= s.bufferSize) {
+                writerWaiting = true;
+                try {
+                    wait(10);   // woken by the subscriber as it catches up
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } finally {
+                    writerWaiting = false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private long oldestOffset() {
+        return Math.max(0, head - ring.length);
+    }
+
+    /** The change at this offset, or null if the ring has moved past it. */
+    private Change read(long offset) {
+        Change c = ring[(int) (offset & mask)];
+        return c != null && c.offset == offset ? c : null;
+    }
+
+    // ───────────────────────────────────────────────
+    // Dispatcher — wakes caught-up subscribers
+    // ───────────────────────────────────────────────
+
+    private void startDispatcher() {
+        if (dispatcher != null) {
+            return;
+        }
+        dispatcher = new Thread(this::runDispatcher, "task-change-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    private void runDispatcher() {
+        while (!closed) {
+            LockSupport.park(this);
+            FeedSubscription s;
+            while ((s = idle.poll()) != null) {
+                idleCount.decrementAndGet();
+                s.parked.set(false);
+                s.schedule();
+            }
+        }
+    }
+
+    private void remove(FeedSubscription s) {
+        subscriptions.remove(s);
+        if (blocking.remove(s) && writerWaiting) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // One subscriber
+    // ───────────────────────────────────────────────
+
+    /**
+     * Delivery to one subscriber. run() is the only place that calls the
+     * subscriber, and the "wip" counter makes sure only one run() is active
+     * at a time — so signals are never sent concurrently (Flow rule 1.3).
+     */
+    private final class FeedSubscription implements Flow.Subscription, Runnable {
+        final Flow.Subscriber<? super Change> subscriber;
+        final Overflow overflow;
+        final int bufferSize;
+        volatile long cursor;                    // next offset to deliver
+        final AtomicLong demand = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicBoolean parked = new AtomicBoolean();   // waiting in the idle queue
+        volatile boolean cancelled = false;
+        volatile boolean done = false;           // feed closed: complete once caught up
+        volatile Throwable error;                // a broken request(n)
+        private boolean subscribed = false;      // only used in run()
+        private final ArrayDeque<Change> conflated = new ArrayDeque<>();   // only used in run()
+
+        FeedSubscription(Flow.Subscriber<? super Change> subscriber, long cursor,
+                         Overflow overflow, int bufferSize) {
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+            this.overflow = overflow;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("request must be positive: " + n);   // rule 3.9
+            } else {
+                demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+
+        void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = wip.get();
+            while (true) {
+                if (!drain()) {
+                    executor.execute(this);   // more to send: let other subscribers have a turn
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /** Sends what it can. Returns false if it stopped only to be fair to others. */
+        private boolean drain() {
+            try {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                int sent = 0;
+                while (!cancelled) {
+                    if (error != null) {
+                        cancel();
+                        subscriber.onError(error);
+                        return true;
+                    }
+                    Change next = demand.get() == 0 ? null : next();
+                    if (next == null) {
+                        if (done && caughtUp()) {
+                            cancel();
+                            subscriber.onComplete();
+                            return true;
+                        }
+                        if (demand.get() == 0) {
+                            return true;   // request() schedules us again
+                        }
+                        parkIdle();
+                        if (caughtUp()) {
+                            return true;   // the next change wakes us
+                        }
+                        continue;          // a change slipped in while parking
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(next);
+                    if (++sent >= BATCH) {
+                        return false;
+                    }
+                }
+            } catch (Throwable t) {
+                // A subscriber must not throw (rule 2.13): treat it as cancelled
+                cancel();
+                try {
+                    subscriber.onError(t);
+                } catch (Throwable ignored) {
+                    // nothing more we can do
+                }
+            }
+            return true;
+        }
+
+        private boolean caughtUp() {
+            return conflated.isEmpty() && cursor >= head;
+        }
+
+        /** The next change for this subscriber (applying the overflow policy), or null. */
+        private Change next() {
+            if (!conflated.isEmpty()) {
+                return conflated.poll();
+            }
+            while (true) {
+                long h = head;
+                if (cursor >= h) {
+                    return null;
+                }
+                if (h - cursor > bufferSize && overflow != Overflow.BLOCK) {
+                    if (overflow == Overflow.DROP_OLDEST) {
+                        dropped.addAndGet(h - bufferSize - cursor);
+                        cursor = h - bufferSize;
+                    } else {
+                        conflate(h);
+                        if (!conflated.isEmpty()) {
+                            return conflated.poll();
+                        }
+                        continue;
+                    }
+                }
+                Change c = read(cursor);
+                if (c == null) {
+                    // The ring has moved past our cursor: those changes are gone
+                    long oldest = Math.max(cursor + 1, head - ring.length);
+                    dropped.addAndGet(oldest - cursor);
+                    cursor = oldest;
+                    continue;
+                }
+                cursor = c.offset + 1;
+                if (overflow == Overflow.BLOCK && writerWaiting) {
+                    synchronized (TaskChangeFeed.this) {
+                        TaskChangeFeed.this.notifyAll();
+                    }
+                }
+                return c;
+            }
+        }
+
+        /** CONFLATE: keeps only the newest waiting change of every task, in offset order. */
+        private void conflate(long h) {
+            Map<Long, Change> newest = new LinkedHashMap<>();
+            for (long o = cursor; o < h; o++) {
+                Change c = read(o);   // null = already gone from the ring
+                if (c != null) {
+                    newest.remove(c.getTaskId());   // re-insert: order by the newest offset
+                    newest.put(c.getTaskId(), c);
+                }
+            }
+            dropped.addAndGet((h - cursor) - newest.size());
+            conflated.addAll(newest.values());
+            cursor = h;
+        }
+
+        private void parkIdle() {
+            if (parked.compareAndSet(false, true)) {
+                idle.add(this);
+                idleCount.incrementAndGet();   // then re-check head (see drain): no lost wake-up
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TaskChangeFeed and TaskFeedServer.
+ */
+class TaskChangeFeedTest {
+
+    /** Collects changes; requests "initial" at the start, more via request(n). */
+    private static final class Collector implements Flow.Subscriber<TaskChangeFeed.Change> {
+        final List<TaskChangeFeed.Change> changes = new ArrayList<>();
+        final long initial;
+        volatile Flow.Subscription subscription;
+        volatile boolean completed = false;
+
+        Collector(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            if (initial > 0) {
+                s.request(initial);
+            }
+        }
+
+        @Override
+        public synchronized void onNext(TaskChangeFeed.Change change) {
+            changes.add(change);
+            notifyAll();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            fail(error);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            completed = true;
+            notifyAll();
+        }
+
+        synchronized List<TaskChangeFeed.Change> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (changes.size() < count && System.currentTimeMillis() < deadline) {
+                wait(10);
+            }
+            assertEquals(count, changes.size(), "changes received: " + changes);
+            return new ArrayList<>(changes);
+        }
+
+        synchronized List<Long> offsets() {
+            List<Long> result = new ArrayList<>();
+            for (TaskChangeFeed.Change c : changes) {
+                result.add(c.getOffset());
+            }
+            return result;
+        }
+    }
+
+    private static void awaitSubscribed(Collector c) throws InterruptedException {
+        for (int i = 0; i < 500 && c.subscription == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull(c.subscription);
+    }
+
+    @Test
+    void testFollowsAndResumesFromOffset() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        Collector live = new Collector(Long.MAX_VALUE);
+        feed.subscribe(live);
+        awaitSubscribed(live);
+
+        Task task = new Task("Write report");
+        manager.addTask(task);
+        manager.markComplete(task);
+        manager.removeTask(task);
+
+        List<TaskChangeFeed.Change> got = live.await(3);
+        assertEquals(List.of(TaskOperation.Kind.ADD, TaskOperation.Kind.UPDATE, TaskOperation.Kind.REMOVE),
+                List.of(got.get(0).getKind(), got.get(1).getKind(), got.get(2).getKind()));
+        assertEquals(List.of(0L, 1L, 2L), live.offsets());
+        assertTrue(got.get(1).toTask().isCompleted());
+
+        // A follower that reconnects after offset 0 gets the rest, then new changes
+        Collector resumed = new Collector(Long.MAX_VALUE);
+        feed.subscribe(resumed, 1, TaskChangeFeed.Overflow.DROP_OLDEST, 16);
+        manager.addTask("Next");
+        resumed.await(3);
+        assertEquals(List.of(1L, 2L, 3L), resumed.offsets());
+
+        feed.close();
+        resumed.await(3);
+        for (int i = 0; i < 500 && !resumed.completed; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(resumed.completed);
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    void testDropOldestAndConflate() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        Collector dropping = new Collector(0);   // asks for nothing yet: falls behind
+        Collector conflating = new Collector(0);
+        feed.subscribe(dropping, 0, TaskChangeFeed.Overflow.DROP_OLDEST, 4);
+        feed.subscribe(conflating, 0, TaskChangeFeed.Overflow.CONFLATE, 4);
+        awaitSubscribed(dropping);
+        awaitSubscribed(conflating);
+
+        Task a = new Task("A");
+        Task b = new Task("B");
+        manager.addTask(a);                          // offset 0
+        manager.addTask(b);                          // offset 1
+        for (int i = 0; i < 9; i++) {                // offsets 2..19
+            manager.updateTask(a, new Task("A" + i));
+            manager.updateTask(b, new Task("B" + i));
+        }
+
+        dropping.subscription.request(100);
+        dropping.await(4);
+        assertEquals(List.of(16L, 17L, 18L, 19L), dropping.offsets(), "only the newest 4");
+
+        conflating.subscription.request(100);
+        List<TaskChangeFeed.Change> latest = conflating.await(2);
+        assertEquals(List.of(18L, 19L), conflating.offsets(), "one change per task");
+        assertEquals("A8", latest.get(0).toTask().getTitle());
+        assertEquals("B8", latest.get(1).toTask().getTitle());
+        assertEquals(16 + 18, feed.getDroppedCount());
+    }
+
+    @Test
+    void testBlockHoldsTheWriterBack() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        Collector slow = new Collector(0);
+        feed.subscribe(slow, 0, TaskChangeFeed.Overflow.BLOCK, 2);
+        awaitSubscribed(slow);
+
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                manager.addTask("Task " + i);
+            }
+            finished.countDown();
+        });
+        writer.start();
+        assertFalse(finished.await(200, TimeUnit.MILLISECONDS), "the writer must wait");
+        assertEquals(2, feed.getNextOffset());
+
+        slow.subscription.request(Long.MAX_VALUE);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        slow.await(5);
+        assertEquals(0, feed.getDroppedCount());
+        writer.join();
+    }
+
+    /** The writer waits outside the board lock, so a BLOCK subscriber may read the board. */
+    @Test
+    void testBlockSubscriberMayReadTheBoard() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        List<Integer> boardSizes = new ArrayList<>();
+        CountDownLatch allSeen = new CountDownLatch(20);
+        feed.subscribe(new Flow.Subscriber<TaskChangeFeed.Change>() {
+            Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(TaskChangeFeed.Change change) {
+                boardSizes.add(manager.getTotalCount());   // takes the read lock
+                allSeen.countDown();
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }, 0, TaskChangeFeed.Overflow.BLOCK, 1);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20; i++) {
+                manager.addTask("Task " + i);
+            }
+        });
+        writer.start();
+        assertTrue(allSeen.await(5, TimeUnit.SECONDS), "the writer and the subscriber must not deadlock");
+        writer.join();
+        assertEquals(20, boardSizes.size());
+    }
+
+    /** An interrupted BLOCK writer keeps its changes queued instead of overwriting unread ones. */
+    @Test
+    void testInterruptedWriterLosesNothing() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        Collector slow = new Collector(0);
+        feed.subscribe(slow, 0, TaskChangeFeed.Overflow.BLOCK, 2);
+        awaitSubscribed(slow);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                manager.addTask("Task " + i);
+            }
+        });
+        writer.start();
+        for (int i = 0; i < 500 && writer.getState() != Thread.State.TIMED_WAITING; i++) {
+            Thread.sleep(10);
+        }
+        writer.interrupt();
+        writer.join(5_000);
+        assertFalse(writer.isAlive(), "an interrupted writer stops waiting");
+        assertEquals(5, manager.getTotalCount(), "the board itself is not held up");
+        assertEquals(2, feed.getNextOffset(), "the rest is still queued, not written over unread changes");
+
+        slow.subscription.request(Long.MAX_VALUE);
+        manager.addTask("Task 5");   // the next flush sends everything, in order
+        List<TaskChangeFeed.Change> got = slow.await(6);
+        for (int i = 0; i < 6; i++) {
+            assertEquals("Task " + i, got.get(i).toTask().getTitle());
+        }
+        assertEquals(0, feed.getDroppedCount());
+    }
+
+    /** A thousand followers all see every change of a busy writer. */
+    @Test
+    void testManySubscribers() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch allDone = new CountDownLatch(1_000);
+        int changes = 2_000;
+        for (int n = 0; n < 1_000; n++) {
+            feed.subscribe(new Flow.Subscriber<TaskChangeFeed.Change>() {
+                int seen = 0;
+
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(TaskChangeFeed.Change change) {
+                    received.incrementAndGet();
+                    if (++seen == changes) {
+                        allDone.countDown();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            }, 0, TaskChangeFeed.Overflow.DROP_OLDEST, changes);
+        }
+        for (int i = 0; i < changes; i++) {
+            manager.addTask(TaskBenchmarks.sampleTask(i));
+        }
+        assertTrue(allDone.await(30, TimeUnit.SECONDS), "received " + received.get());
+        assertEquals(1_000L * changes, received.get());
+        assertEquals(0, feed.getDroppedCount());
+    }
+
+    @Test
+    void testRemoteFollowerOverLoopback() throws IOException {
+        TaskManager manager = new TaskManager();
+        TaskChangeFeed feed = manager.getChangeFeed();
+        manager.addTask("Before");   // offset 0
+
+        try (TaskFeedServer server = new TaskFeedServer(feed, 0, TaskChangeFeed.Overflow.BLOCK, 8);
+             TaskFeedServer.Client client = new TaskFeedServer.Client(server.getPort(), 0)) {
+            for (int i = 0; i < 50; i++) {
+                manager.addTask("Task " + i);
+            }
+            for (long offset = 0; offset <= 50; offset++) {
+                TaskChangeFeed.Change change = client.read();
+                assertEquals(offset, change.getOffset());
+                assertEquals(offset == 0 ? "Before" : "Task " + (offset - 1), change.toTask().getTitle());
+            }
+
+            feed.close();
+            assertNull(client.read(), "the feed has ended");
+        }
+    }
+}
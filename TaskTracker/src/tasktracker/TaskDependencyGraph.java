@@ -0,0 +1,629 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * TaskDependencyGraph keeps track of which tasks block which, and answers
+ * "when can this task be finished?" without walking the whole graph.
+ *
+ * An edge "blocker → task" means the blocker must be done first.
+ * The blocker ids are stored on the tasks themselves (Task.getBlockedBy),
+ * so they are saved and logged like any other field; this class is the
+ * INDEX built from them — kept up to date as a TaskListener, like
+ * TaskQueryIndex.
+ *
+ * 1. Cycle detection without a full search
+ *    Every task has a POSITION in a topological order: blockers always come
+ *    before the tasks they block. For a new edge blocker → task:
+ *     - blocker already before task: the order is still fine, nothing to do
+ *       (by far the most common case)
+ *     - otherwise only the tasks positioned BETWEEN the two are searched
+ *       (forward from task, backward from blocker). Finding the blocker
+ *       from the task means a cycle; if not, just those tasks are moved.
+ *    This is the Pearce–Kelly dynamic topological sort: the cost depends on
+ *    the part of the order that changes, not on the size of the board.
+ *
+ * 2. Earliest finish
+ *    A task can't be done before its due date, nor before its open blockers
+ *    are done:
+ *        finish(task) = max(next due date, finish of every open blocker)
+ *    Completed tasks don't hold anyone up. When a due date, a completion or
+ *    an edge changes, only the tasks AFTER it are recalculated, in
+ *    topological order, and the update stops where the value doesn't change.
+ *    The blocker that decides a task's date is remembered, so the chain of
+ *    them (the critical path) can be followed back at any time.
+ *
+ *    There are no durations in the model, so "finish" is a date that the
+ *    whole chain has to meet. A task whose finish is later than its own due
+ *    date is at risk: something it waits for is due after it.
+ *
+ * Internally tasks are numbered nodes (0, 1, 2, ...) with growable int
+ * arrays for the edges, so 100k tasks with 500k edges take a few MB.
+ *
+ * This class is NOT thread-safe; TaskManager calls it under its write lock.
+ */
+public class TaskDependencyGraph implements TaskListener {
+
+    /** "No date" for the day fields. */
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    /** Don't compact the order for fewer unused positions than this. */
+    private static final int MIN_POSITIONS_TO_RECLAIM = 1024;
+
+    private static final int[] NO_EDGES = new int[0];
+
+    // ==== Nodes ====
+    private final Map<Long, Integer> nodeById = new HashMap<>();
+    private Task[] taskOf = new Task[16];          // null = free node number
+    private int nodeCount = 0;                     // node numbers handed out so far
+    private int[] freeNodes = new int[16];
+    private int freeCount = 0;
+
+    // ==== Edges (both directions) ====
+    private int[][] blockersOf = new int[16][];    // incoming
+    private int[] blockerCount = new int[16];
+    private int[][] dependentsOf = new int[16][];  // outgoing
+    private int[] dependentCount = new int[16];
+    private long edgeCount = 0;
+
+    // ==== Topological order ====
+    private int[] position = new int[16];          // node → position
+    private int[] nodeAt = new int[16];            // position → node (-1 = unused)
+    private int positionCount = 0;
+    private int unusedPositions = 0;
+
+    // ==== Earliest finish ====
+    private long[] ownDay = new long[16];          // next due date (epoch day) or NO_DAY
+    private long[] finishDay = new long[16];       // NO_DAY for completed / undated tasks
+    private int[] criticalBlocker = new int[16];   // blocker that decides finishDay, -1 = none
+
+    // ==== Search scratch space (marks use a counter, so they never need clearing) ====
+    private int[] mark = new int[16];
+    private int currentMark = 0;
+
+    /**
+     * Edges whose blocker isn't on the board yet: blocker id → blocked ids.
+     * Happens while loading (a task can be saved before its blocker).
+     */
+    private final Map<Long, Set<Long>> waitingForBlocker = new HashMap<>();
+
+    // ───────────────────────────────────────────────
+    // Questions
+    // ───────────────────────────────────────────────
+
+    /**
+     * True if blocker → task can be added without creating a cycle
+     * (and it isn't there already).
+     */
+    public boolean canAdd(Task blocker, Task task) {
+        Integer b = nodeById.get(blocker.getId());
+        Integer t = nodeById.get(task.getId());
+        if (b == null || t == null || b.equals(t) || hasEdge(b, t)) {
+            return false;
+        }
+        return position[b] < position[t] || !reaches(t, b);
+    }
+
+    /** The tasks on the board that block this one. */
+    public List<Task> getBlockers(Task task) {
+        Integer n = nodeById.get(task.getId());
+        return n == null ? Collections.emptyList() : tasksOf(blockersOf[n], blockerCount[n]);
+    }
+
+    /** The tasks this one blocks. */
+    public List<Task> getDependents(Task task) {
+        Integer n = nodeById.get(task.getId());
+        return n == null ? Collections.emptyList() : tasksOf(dependentsOf[n], dependentCount[n]);
+    }
+
+    /** True if at least one blocker is not completed yet. */
+    public boolean isBlocked(Task task) {
+        Integer n = nodeById.get(task.getId());
+        if (n == null) {
+            return false;
+        }
+        for (int i = 0; i < blockerCount[n]; i++) {
+            if (!taskOf[blockersOf[n][i]].isCompleted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The earliest date this task can be finished (see the class comment),
+     * or null if it is completed or nothing gives it a date.
+     */
+    public LocalDate getEarliestFinish(Task task) {
+        Integer n = nodeById.get(task.getId());
+        return n == null || finishDay[n] == NO_DAY ? null : LocalDate.ofEpochDay(finishDay[n]);
+    }
+
+    /**
+     * The chain of blockers that decides the earliest finish, starting
+     * with the first one and ending with the task itself.
+     */
+    public List<Task> getCriticalPath(Task task) {
+        Integer n = nodeById.get(task.getId());
+        if (n == null) {
+            return Collections.emptyList();
+        }
+        List<Task> path = new ArrayList<>();
+        for (int node = n; node >= 0; node = criticalBlocker[node]) {
+            path.add(taskOf[node]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /** Number of edges. */
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Number of tasks that wait for this one, directly or indirectly — a
+     * full search, the cost a non-incremental cycle check pays for EVERY
+     * new edge (used by TaskBenchmarks for comparison).
+     */
+    int countReachable(Task task) {
+        Integer n = nodeById.get(task.getId());
+        return n == null ? 0 : search(n, Integer.MAX_VALUE, true, nextMark()).length - 1;
+    }
+
+    /** True if position(a) < position(b) for every edge (used by the tests). */
+    boolean isTopologicallyOrdered() {
+        for (int n = 0; n < nodeCount; n++) {
+            for (int i = 0; i < dependentCount[n]; i++) {
+                if (position[n] >= position[dependentsOf[n][i]]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // ───────────────────────────────────────────────
+    // Changing edges
+    // ───────────────────────────────────────────────
+
+    /**
+     * Adds blocker → task. Returns false (and changes nothing) if the edge
+     * would close a cycle, or either task is unknown.
+     * Called by TaskManager BEFORE it stores the id on the task.
+     */
+    boolean addEdge(Task blocker, Task task) {
+        Integer b = nodeById.get(blocker.getId());
+        Integer t = nodeById.get(task.getId());
+        if (b == null || t == null) {
+            return false;
+        }
+        if (hasEdge(b, t)) {
+            return true;
+        }
+        if (!insertEdge(b, t)) {
+            return false;
+        }
+        propagateFrom(t);
+        return true;
+    }
+
+    private boolean hasEdge(int blocker, int task) {
+        // Search the shorter list
+        if (dependentCount[blocker] <= blockerCount[task]) {
+            return indexOf(dependentsOf[blocker], dependentCount[blocker], task) >= 0;
+        }
+        return indexOf(blockersOf[task], blockerCount[task], blocker) >= 0;
+    }
+
+    /**
+     * The Pearce–Kelly step: fixes the order if needed, then stores the edge.
+     * Returns false on a cycle.
+     */
+    private boolean insertEdge(int blocker, int task) {
+        if (blocker == task) {
+            return false;
+        }
+        int lower = position[task];
+        int upper = position[blocker];
+        if (upper > lower) {
+            // The task is positioned before its new blocker: search between them
+            int forwardStamp = nextMark();
+            int[] forward = search(task, upper, true, forwardStamp);
+            if (forward == null) {
+                return false;   // reached the blocker: cycle
+            }
+            int backwardStamp = nextMark();
+            int[] backward = search(blocker, lower, false, backwardStamp);
+            reorder(backward, forward, lower, upper, forwardStamp, backwardStamp);
+        }
+        add(blockersOf, blockerCount, task, blocker);
+        add(dependentsOf, dependentCount, blocker, task);
+        edgeCount++;
+        return true;
+    }
+
+    private void removeEdge(int blocker, int task) {
+        removeValue(blockersOf[task], blockerCount, task, blocker);
+        removeValue(dependentsOf[blocker], dependentCount, blocker, task);
+        edgeCount--;
+    }
+
+    /**
+     * Collects the nodes reachable from start that lie inside the window:
+     *  - forward (along dependents): positions below "limit";
+     *    returns null if it reaches the node AT "limit" (a cycle)
+     *  - backward (along blockers): positions above "limit"
+     * Iterative, so long chains don't overflow the stack.
+     */
+    private int[] search(int start, int limit, boolean forward, int stamp) {
+        int[] found = new int[8];
+        int foundCount = 0;
+        int[] stack = new int[8];
+        int top = 0;
+        stack[top++] = start;
+        mark[start] = stamp;
+
+        while (top > 0) {
+            int node = stack[--top];
+            if (foundCount == found.length) {
+                found = Arrays.copyOf(found, foundCount * 2);
+            }
+            found[foundCount++] = node;
+
+            int[] next = forward ? dependentsOf[node] : blockersOf[node];
+            int count = forward ? dependentCount[node] : blockerCount[node];
+            for (int i = 0; i < count; i++) {
+                int w = next[i];
+                int p = position[w];
+                if (forward && p == limit) {
+                    return null;
+                }
+                boolean inside = forward ? p < limit : p > limit;
+                if (inside && mark[w] != stamp) {
+                    mark[w] = stamp;
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = w;
+                }
+            }
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    /**
+     * Gives the backward nodes (the blocker and what must come before it)
+     * and then the forward nodes (the task and what comes after it) the same
+     * set of positions they had, in that order. Everything else stays put.
+     *
+     * Both groups are needed in their current order. For a few nodes they
+     * are sorted; when they fill a good part of the window lower..upper it is
+     * cheaper to walk the window once and pick them up in order.
+     */
+    private void reorder(int[] backward, int[] forward, int lower, int upper,
+                         int forwardStamp, int backwardStamp) {
+        int moved = backward.length + forward.length;
+        int log2 = 32 - Integer.numberOfLeadingZeros(moved);
+        if ((long) moved * log2 > upper - lower + 1L) {
+            // All of them lie inside the window (they were only searched there)
+            int b = 0;
+            int f = 0;
+            for (int p = lower; p <= upper; p++) {
+                int node = nodeAt[p];
+                if (node >= 0 && mark[node] == backwardStamp) {
+                    backward[b++] = node;
+                } else if (node >= 0 && mark[node] == forwardStamp) {
+                    forward[f++] = node;
+                }
+            }
+        } else {
+            sortByPosition(backward);
+            sortByPosition(forward);
+        }
+
+        int[] positions = new int[backward.length + forward.length];
+        int k = 0;
+        for (int node : backward) positions[k++] = position[node];
+        for (int node : forward) positions[k++] = position[node];
+        Arrays.sort(positions);
+
+        k = 0;
+        for (int node : backward) place(node, positions[k++]);
+        for (int node : forward) place(node, positions[k++]);
+    }
+
+    private void sortByPosition(int[] nodes) {
+        // Sort (position, node) pairs packed into longs — no boxing
+        long[] keys = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            keys[i] = ((long) position[nodes[i]] << 32) | nodes[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = (int) keys[i];
+        }
+    }
+
+    private void place(int node, int pos) {
+        position[node] = pos;
+        nodeAt[pos] = node;
+    }
+
+    /** True if "to" can be reached from "from" along dependents. */
+    private boolean reaches(int from, int to) {
+        return search(from, position[to], true, nextMark()) == null;
+    }
+
+    // ───────────────────────────────────────────────
+    // Earliest finish
+    // ───────────────────────────────────────────────
+
+    /**
+     * Recalculates the node and everything after it whose value changes,
+     * in topological order (so every node is recalculated at most once).
+     */
+    private void propagateFrom(int start) {
+        PriorityQueue<Long> queue = new PriorityQueue<>();   // (position, node) packed
+        int stamp = nextMark();
+        queue.add(((long) position[start] << 32) | start);
+        mark[start] = stamp;
+
+        while (!queue.isEmpty()) {
+            int node = (int) (long) queue.poll();
+            if (!recalculate(node)) {
+                continue;   // same date: nothing after it changes
+            }
+            for (int i = 0; i < dependentCount[node]; i++) {
+                int w = dependentsOf[node][i];
+                if (mark[w] != stamp) {
+                    mark[w] = stamp;
+                    queue.add(((long) position[w] << 32) | w);
+                }
+            }
+        }
+    }
+
+    /** Returns true if the node's finish date changed. */
+    private boolean recalculate(int node) {
+        long finish = NO_DAY;
+        int critical = -1;
+        if (!taskOf[node].isCompleted()) {
+            finish = ownDay[node];
+            for (int i = 0; i < blockerCount[node]; i++) {
+                int b = blockersOf[node][i];
+                if (finishDay[b] > finish) {
+                    finish = finishDay[b];
+                    critical = b;
+                }
+            }
+        }
+        criticalBlocker[node] = critical;
+        if (finish == finishDay[node]) {
+            return false;
+        }
+        finishDay[node] = finish;
+        return true;
+    }
+
+    private static long dayOf(Task task) {
+        LocalDate due = task.getNextDueDate();
+        return due == null ? NO_DAY : due.toEpochDay();
+    }
+
+    // ───────────────────────────────────────────────
+    // Keeping the graph up to date (TaskListener)
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void taskAdded(Task task) {
+        if (nodeById.containsKey(task.getId())) {
+            return;
+        }
+        int node = newNode(task);
+
+        for (long blockerId : task.getBlockedBy()) {
+            Integer b = nodeById.get(blockerId);
+            if (b != null) {
+                insertEdge(b, node);   // a cycle can only come from a damaged file: skipped
+            } else {
+                waitingForBlocker.computeIfAbsent(blockerId, k -> new HashSet<>()).add(task.getId());
+            }
+        }
+        // Tasks loaded earlier that were waiting for this one
+        Set<Long> waiting = waitingForBlocker.remove(task.getId());
+        if (waiting != null) {
+            for (long dependentId : waiting) {
+                Integer d = nodeById.get(dependentId);
+                if (d != null && taskOf[d].getBlockedBy().contains(task.getId()) && insertEdge(node, d)) {
+                    propagateFrom(d);
+                }
+            }
+        }
+        propagateFrom(node);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        Integer n = nodeById.remove(task.getId());
+        if (n == null) {
+            return;
+        }
+        int node = n;
+        for (long blockerId : task.getBlockedBy()) {
+            Set<Long> waiting = waitingForBlocker.get(blockerId);
+            if (waiting != null && waiting.remove(task.getId()) && waiting.isEmpty()) {
+                waitingForBlocker.remove(blockerId);
+            }
+        }
+        while (blockerCount[node] > 0) {
+            removeEdge(blockersOf[node][blockerCount[node] - 1], node);
+        }
+        int[] dependents = Arrays.copyOf(dependentsOf[node], dependentCount[node]);
+        for (int d : dependents) {
+            removeEdge(node, d);
+        }
+        freeNode(node);
+        for (int d : dependents) {
+            propagateFrom(d);
+        }
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        Integer n = nodeById.get(task.getId());
+        if (n == null) {
+            return;
+        }
+        int node = n;
+        taskOf[node] = task;   // a repository may hand out a new copy
+        Set<Long> wanted = task.getBlockedBy();
+
+        // Edges that are no longer on the task
+        for (int i = blockerCount[node] - 1; i >= 0; i--) {
+            int b = blockersOf[node][i];
+            if (!wanted.contains(taskOf[b].getId())) {
+                removeEdge(b, node);
+            }
+        }
+        // New edges
+        for (long blockerId : wanted) {
+            Integer b = nodeById.get(blockerId);
+            if (b == null) {
+                waitingForBlocker.computeIfAbsent(blockerId, k -> new HashSet<>()).add(task.getId());
+            } else if (!hasEdge(b, node)) {
+                insertEdge(b, node);
+            }
+        }
+
+        ownDay[node] = dayOf(task);
+        propagateFrom(node);
+    }
+
+    // ───────────────────────────────────────────────
+    // Node bookkeeping
+    // ───────────────────────────────────────────────
+
+    private int newNode(Task task) {
+        int node = freeCount > 0 ? freeNodes[--freeCount] : nodeCount++;
+        ensureNodeCapacity(nodeCount);
+        if (positionCount == nodeAt.length) {
+            nodeAt = Arrays.copyOf(nodeAt, positionCount * 2);
+        }
+
+        nodeById.put(task.getId(), node);
+        taskOf[node] = task;
+        blockersOf[node] = NO_EDGES;
+        blockerCount[node] = 0;
+        dependentsOf[node] = NO_EDGES;
+        dependentCount[node] = 0;
+        ownDay[node] = dayOf(task);
+        finishDay[node] = NO_DAY;
+        criticalBlocker[node] = -1;
+        place(node, positionCount++);   // new tasks go last: nothing depends on them yet
+        return node;
+    }
+
+    private void freeNode(int node) {
+        taskOf[node] = null;
+        blockersOf[node] = NO_EDGES;
+        dependentsOf[node] = NO_EDGES;
+        nodeAt[position[node]] = -1;
+        unusedPositions++;
+        if (freeCount == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+        }
+        freeNodes[freeCount++] = node;
+
+        if (unusedPositions >= MIN_POSITIONS_TO_RECLAIM && unusedPositions > nodeById.size()) {
+            compactPositions();
+        }
+    }
+
+    /**
+     * Closes the gaps left by removed tasks (same order, positions 0, 1, 2, ...),
+     * so a board with lots of adds and deletes doesn't grow nodeAt forever.
+     */
+    private void compactPositions() {
+        int next = 0;
+        for (int p = 0; p < positionCount; p++) {
+            int node = nodeAt[p];
+            if (node >= 0) {
+                place(node, next++);
+            }
+        }
+        Arrays.fill(nodeAt, next, positionCount, -1);
+        positionCount = next;
+        unusedPositions = 0;
+    }
+
+    private void ensureNodeCapacity(int needed) {
+        if (needed <= taskOf.length) {
+            return;
+        }
+        int length = Math.max(needed, taskOf.length * 2);
+        taskOf = Arrays.copyOf(taskOf, length);
+        blockersOf = Arrays.copyOf(blockersOf, length);
+        blockerCount = Arrays.copyOf(blockerCount, length);
+        dependentsOf = Arrays.copyOf(dependentsOf, length);
+        dependentCount = Arrays.copyOf(dependentCount, length);
+        position = Arrays.copyOf(position, length);
+        ownDay = Arrays.copyOf(ownDay, length);
+        finishDay = Arrays.copyOf(finishDay, length);
+        criticalBlocker = Arrays.copyOf(criticalBlocker, length);
+        mark = Arrays.copyOf(mark, length);
+    }
+
+    private int nextMark() {
+        if (++currentMark == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            currentMark = 1;
+        }
+        return currentMark;
+    }
+
+    private List<Task> tasksOf(int[] nodes, int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(taskOf[nodes[i]]);
+        }
+        return tasks;
+    }
+
+    // ==== Growable int lists (one array + count per node) ====
+
+    private static void add(int[][] lists, int[] counts, int node, int value) {
+        int[] list = lists[node];
+        if (counts[node] == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, list.length * 2));
+            lists[node] = list;
+        }
+        list[counts[node]++] = value;
+    }
+
+    /** Removes one value by moving the last one into its place (order doesn't matter). */
+    private static void removeValue(int[] list, int[] counts, int node, int value) {
+        int i = indexOf(list, counts[node], value);
+        if (i >= 0) {
+            list[i] = list[--counts[node]];
+        }
+    }
+
+    private static int indexOf(int[] list, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
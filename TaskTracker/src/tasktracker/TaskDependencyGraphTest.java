@@ -0,0 +1,247 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for task dependencies (TaskManager + TaskDependencyGraph).
+ *
+ * The incremental answers (cycle checks, earliest finish) are compared
+ * against slow, obviously-correct searches over the whole board.
+ */
+class TaskDependencyGraphTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 3, 1);
+
+    private static Task task(String title, int dueInDays) {
+        return new Task(title, "", START.plusDays(dueInDays), "", Task.Priority.MEDIUM);
+    }
+
+    @Test
+    void testCyclesAreRejected() {
+        TaskManager manager = new TaskManager();
+        Task design = task("Design", 1);
+        Task build = task("Build", 5);
+        Task ship = task("Ship", 9);
+        manager.addTask(design);
+        manager.addTask(build);
+        manager.addTask(ship);
+
+        assertTrue(manager.addDependency(build, design));
+        assertTrue(manager.addDependency(ship, build));
+        assertFalse(manager.addDependency(ship, build), "already there");
+
+        assertFalse(manager.canAddDependency(design, ship));
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(design, ship));
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(design, design));
+        assertTrue(design.getBlockedBy().isEmpty(), "a rejected edge leaves no trace");
+
+        assertEquals(List.of(design), manager.getBlockers(build));
+        assertEquals(List.of(ship), manager.getDependents(build));
+        assertTrue(manager.isBlocked(ship));
+    }
+
+    /**
+     * Tasks are added in random order and random edges are tried.
+     * Every answer must match a full search, and the order must stay valid.
+     */
+    @Test
+    void testRandomEdgesMatchFullSearch() {
+        Random random = new Random(7);
+        TaskManager manager = new TaskManager();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Task t = task("T" + i, random.nextInt(60));
+            tasks.add(t);
+            manager.addTask(t);
+        }
+
+        for (int attempt = 0; attempt < 3000; attempt++) {
+            Task a = tasks.get(random.nextInt(tasks.size()));
+            Task b = tasks.get(random.nextInt(tasks.size()));
+            boolean expected = a != b && !a.getBlockedBy().contains(b.getId())
+                    && !reachable(manager, a, b);
+            assertEquals(expected, manager.canAddDependency(a, b));
+            if (expected) {
+                assertTrue(manager.addDependency(a, b));
+            }
+            if (attempt % 10 == 0) {
+                // Keep due dates and completions moving too
+                Task c = tasks.get(random.nextInt(tasks.size()));
+                Task changes = task(c.getTitle(), random.nextInt(60));
+                manager.updateTask(c, changes);
+                if (random.nextInt(4) == 0) {
+                    manager.markComplete(tasks.get(random.nextInt(tasks.size())));
+                }
+            }
+        }
+
+        assertTrue(manager.getDependencyGraph().isTopologicallyOrdered());
+        assertTrue(manager.getDependencyGraph().edgeCount() > 1000);
+        Map<Task, LocalDate> memo = new HashMap<>();
+        for (Task t : tasks) {
+            assertEquals(slowFinish(manager, t, memo), manager.getEarliestFinish(t), t.getTitle());
+        }
+    }
+
+    /** Is "to" blocked by "from", directly or indirectly (full search)? */
+    private static boolean reachable(TaskManager manager, Task from, Task to) {
+        List<Task> stack = new ArrayList<>(List.of(from));
+        List<Task> seen = new ArrayList<>();
+        while (!stack.isEmpty()) {
+            Task t = stack.remove(stack.size() - 1);
+            if (t == to) {
+                return true;
+            }
+            if (!seen.contains(t)) {
+                seen.add(t);
+                stack.addAll(manager.getDependents(t));
+            }
+        }
+        return false;
+    }
+
+    private static LocalDate slowFinish(TaskManager manager, Task t, Map<Task, LocalDate> memo) {
+        if (t.isCompleted()) {
+            return null;
+        }
+        if (memo.containsKey(t)) {
+            return memo.get(t);
+        }
+        LocalDate finish = t.getNextDueDate();
+        for (Task b : manager.getBlockers(t)) {
+            LocalDate f = slowFinish(manager, b, memo);
+            if (f != null && (finish == null || f.isAfter(finish))) {
+                finish = f;
+            }
+        }
+        memo.put(t, finish);
+        return finish;
+    }
+
+    @Test
+    void testEarliestFinishAndCriticalPath() {
+        TaskManager manager = new TaskManager();
+        Task permit = task("Permit", 20);
+        Task design = task("Design", 3);
+        Task build = task("Build", 10);
+        Task ship = task("Ship", 12);
+        for (Task t : List.of(permit, design, build, ship)) {
+            manager.addTask(t);
+        }
+        manager.addDependency(build, design);
+        manager.addDependency(build, permit);
+        manager.addDependency(ship, build);
+
+        assertEquals(START.plusDays(20), manager.getEarliestFinish(ship), "the permit decides");
+        assertEquals(List.of(permit, build, ship), manager.getCriticalPath(ship));
+
+        manager.markComplete(permit);
+        assertEquals(START.plusDays(12), manager.getEarliestFinish(ship));
+        assertEquals(List.of(ship), manager.getCriticalPath(ship), "its own date decides now");
+
+        manager.updateTask(design, task("Design", 30));
+        assertEquals(START.plusDays(30), manager.getEarliestFinish(ship));
+        assertEquals(List.of(design, build, ship), manager.getCriticalPath(ship));
+    }
+
+    @Test
+    void testRemovingBlockerFreesDependents() {
+        TaskManager manager = new TaskManager();
+        Task a = task("A", 9);
+        Task b = task("B", 1);
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addDependency(b, a);
+        assertEquals(START.plusDays(9), manager.getEarliestFinish(b));
+
+        manager.removeTask(a);
+
+        assertTrue(b.getBlockedBy().isEmpty());
+        assertFalse(manager.isBlocked(b));
+        assertEquals(START.plusDays(1), manager.getEarliestFinish(b));
+        assertFalse(manager.removeDependency(b, a));
+    }
+
+    /**
+     * Dependencies survive a snapshot, even when a task is stored before
+     * its blocker (the edge waits until the blocker is loaded).
+     */
+    @Test
+    void testSnapshotRoundTripWithForwardReferences() throws Exception {
+        TaskManager manager = new TaskManager();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Task t = task("T" + i, i);
+            tasks.add(t);
+            manager.addTask(t);
+        }
+        manager.addDependency(tasks.get(0), tasks.get(5));
+        manager.addDependency(tasks.get(0), tasks.get(3));
+        manager.addDependency(tasks.get(5), tasks.get(1));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.write(manager.getTasks(), bytes, false);
+        List<Task> loaded = SnapshotCodec.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(tasks.get(0).getBlockedBy(), loaded.get(0).getBlockedBy());
+
+        TaskManager reopened = new TaskManager();
+        for (Task t : loaded) {
+            reopened.addTask(t);
+        }
+        assertEquals(List.of(loaded.get(5), loaded.get(0)), reopened.getCriticalPath(loaded.get(0)));
+        assertTrue(reopened.isBlocked(loaded.get(5)), "T5 waits for T1");
+        assertEquals(START.plusDays(5), reopened.getEarliestFinish(loaded.get(0)));
+
+        // The same again, loaded in reverse order
+        TaskManager reversed = new TaskManager();
+        List<Task> backwards = SnapshotCodec.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+        Collections.reverse(backwards);
+        for (Task t : backwards) {
+            reversed.addTask(t);
+        }
+        assertEquals(3, reversed.getDependencyGraph().edgeCount());
+        assertTrue(reversed.getDependencyGraph().isTopologicallyOrdered());
+    }
+
+    /** Replaying logged operations rebuilds the same edges. */
+    @Test
+    void testOperationReplay() {
+        TaskManager manager = new TaskManager();
+        List<TaskOperation> log = new ArrayList<>();
+        manager.addListener(new TaskListener() {
+            @Override public void taskAdded(Task t) { log.add(TaskOperation.added(t)); }
+            @Override public void taskRemoved(Task t) { log.add(TaskOperation.removed(t)); }
+            @Override public void taskUpdated(Task t) { log.add(TaskOperation.updated(t)); }
+        });
+        Task a = task("A", 1);
+        Task b = task("B", 2);
+        Task c = task("C", 3);
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addTask(c);
+        manager.addDependency(c, b);
+        manager.addDependency(b, a);
+        manager.addDependency(c, a);
+        manager.removeTask(b);
+
+        TaskManager replayed = new TaskManager();
+        for (TaskOperation op : log) {
+            replayed.apply(op);
+        }
+        Task c2 = replayed.getTask(c.getId());
+        assertEquals(List.of(a.getId()), new ArrayList<>(c2.getBlockedBy()));
+        assertEquals(1, replayed.getDependencyGraph().edgeCount());
+    }
+}
@@ -1,10 +1,12 @@
 package tasktracker;
 
 import javax.swing.*;
+import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.util.Locale;
 
 /**
  * TaskDialog is the popup window used for:
@@ -17,9 +19,10 @@ import java.time.LocalDate;
  *  - Due date (Day / Month / Year or "No due date")
  *  - Type
  *  - Priority
+ *  - Repeat (never / daily / weekly / monthly)
  *
  * When the user clicks "Create" or "Save", this dialog returns
- * the new or updated Task object to the main GUI.
+ * a Task with the entered values to the main GUI.
  */
 public class TaskDialog extends JDialog {
 
@@ -38,15 +41,34 @@ public class TaskDialog extends JDialog {
     private JComboBox<Task.Priority> priorityCombo;
     private JComboBox<String> typeCombo;
 
+    // "Never" or one of the Recurrence frequencies
+    private JComboBox<String> repeatCombo;
+    private static final String REPEAT_NEVER = "Never";
+
     // --- Return values ---
     private Task createdTask;         // Used when creating a new task
     private Task editingTask;         // Non-null when editing existing task
 
+    // Known assignees/types for autocomplete (null = no suggestions)
+    private final TaskSuggestions suggestions;
+
+    /** How many suggestions the autocomplete popup shows. */
+    private static final int SUGGESTION_LIMIT = 8;
+
     /**
      * Constructor for creating a *new* task.
      */
     public TaskDialog(JFrame parent) {
+        this(parent, (TaskSuggestions) null);
+    }
+
+    /**
+     * Constructor for creating a *new* task, with autocomplete
+     * for the assignee and type fields.
+     */
+    public TaskDialog(JFrame parent, TaskSuggestions suggestions) {
         super(parent, "New Task", true);  // true = modal dialog (blocks other windows)
+        this.suggestions = suggestions;
         initComponents();
         pack();                          // Layout components
         setLocationRelativeTo(parent);   // Center on parent window
@@ -57,8 +79,16 @@ public class TaskDialog extends JDialog {
      * This loads the current task data into the form.
      */
     public TaskDialog(JFrame parent, Task taskToEdit) {
+        this(parent, taskToEdit, null);
+    }
+
+    /**
+     * Constructor for editing an *existing* task, with autocomplete.
+     */
+    public TaskDialog(JFrame parent, Task taskToEdit, TaskSuggestions suggestions) {
         super(parent, "Edit Task", true);
         this.editingTask = taskToEdit;
+        this.suggestions = suggestions;
         initComponents();
         loadFromTask(taskToEdit);        // Pre-fill the form
         pack();
@@ -102,7 +132,7 @@ public class TaskDialog extends JDialog {
         }
 
         // Years: from last year to 5 years ahead
-        int currentYear = LocalDate.now().getYear();
+        int currentYear = Today.get().getYear();
         for (int y = currentYear - 1; y <= currentYear + 5; y++) {
             yearCombo.addItem(y);
         }
@@ -116,10 +146,34 @@ public class TaskDialog extends JDialog {
         });
         typeCombo.setEditable(true);  // User can type custom category
 
+        // ----- Autocomplete from the names/types already on the board -----
+        if (suggestions != null) {
+            AutoCompleteSupport.install(assigneeField,
+                    prefix -> suggestions.suggestAssignees(prefix, SUGGESTION_LIMIT));
+            AutoCompleteSupport.install((JTextComponent) typeCombo.getEditor().getEditorComponent(),
+                    prefix -> suggestions.suggestTypes(prefix, SUGGESTION_LIMIT));
+
+            // Also offer the most used custom types in the dropdown itself
+            for (String type : suggestions.suggestTypes("", SUGGESTION_LIMIT)) {
+                if (((DefaultComboBoxModel<String>) typeCombo.getModel()).getIndexOf(type) < 0) {
+                    typeCombo.addItem(type);
+                }
+            }
+        }
+
         // ----- Priority dropdown -----
         priorityCombo = new JComboBox<>(Task.Priority.values());
         priorityCombo.setSelectedItem(Task.Priority.MEDIUM);
 
+        // ----- Repeat dropdown -----
+        // Item 0 = "Never", then one item per Recurrence.Frequency (same order)
+        repeatCombo = new JComboBox<>();
+        repeatCombo.addItem(REPEAT_NEVER);
+        for (Recurrence.Frequency f : Recurrence.Frequency.values()) {
+            String name = f.name().toLowerCase(Locale.ROOT);
+            repeatCombo.addItem(Character.toUpperCase(name.charAt(0)) + name.substring(1));
+        }
+
         // ----- Add components to form -----
         formPanel.add(new JLabel("Title:"));
         formPanel.add(titleField);
@@ -145,6 +199,9 @@ public class TaskDialog extends JDialog {
         formPanel.add(new JLabel("Priority:"));
         formPanel.add(priorityCombo);
 
+        formPanel.add(new JLabel("Repeat:"));
+        formPanel.add(repeatCombo);
+
         // Add form panel to window
         add(formPanel, BorderLayout.CENTER);
 
@@ -190,6 +247,9 @@ public class TaskDialog extends JDialog {
         assigneeField.setText(t.getAssignee());
         typeCombo.setSelectedItem(t.getType());
         priorityCombo.setSelectedItem(t.getPriority());
+        if (t.getRecurrence() != null) {
+            repeatCombo.setSelectedIndex(t.getRecurrence().getFrequency().ordinal() + 1);
+        }
 
         // Handle due date:
         if (t.getDueDate() == null) {
@@ -257,27 +317,39 @@ public class TaskDialog extends JDialog {
             }
         }
 
-        // ---- Create or update the Task ----
-        if (editingTask == null) {
-            // Creating new task
-            createdTask = new Task(title, assignee, dueDate, type, priority);
-        } else {
-            // Editing existing task
-            editingTask.setTitle(title);
-            editingTask.setAssignee(assignee);
-            editingTask.setDueDate(dueDate);
-            editingTask.setType(type);
-            editingTask.setPriority(priority);
-
-            createdTask = editingTask;
+        // ---- Repeat rule (the due date is the first occurrence) ----
+        Recurrence recurrence = null;
+        int repeatIndex = repeatCombo.getSelectedIndex();
+        if (repeatIndex > 0) {
+            if (dueDate == null) {
+                JOptionPane.showMessageDialog(this,
+                        "A repeating task needs a due date for its first occurrence.",
+                        "Missing Due Date",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            Recurrence.Frequency frequency = Recurrence.Frequency.values()[repeatIndex - 1];
+            Recurrence old = editingTask == null ? null : editingTask.getRecurrence();
+            // Keep the interval / end date of an existing rule with the same frequency
+            recurrence = old != null && old.getFrequency() == frequency
+                    ? old
+                    : Recurrence.of(frequency);
         }
 
+        // ---- Create the Task ----
+        // When editing, the existing task is NOT changed here: the new values
+        // are returned and the GUI hands them to TaskManager.updateTask(...),
+        // which keeps the filter index up to date.
+        createdTask = new Task(title, assignee, dueDate, type, priority);
+        createdTask.setRecurrence(recurrence);
+
         // Close the dialog and return control to the main GUI
         dispose();
     }
 
     /**
-     * Called by the main window to retrieve the created or edited task.
+     * Called by the main window to retrieve the created task.
+     * When editing, this is a new Task holding the edited values.
      * Returns null if the user pressed "Cancel".
      */
     public Task getCreatedTask() {
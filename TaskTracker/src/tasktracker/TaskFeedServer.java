@@ -0,0 +1,252 @@
+package tasktracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+/**
+ * TaskFeedServer is a small stand-in for REMOTE followers of a
+ * TaskChangeFeed: it serves the feed over a socket on the loopback
+ * address (this machine only), so another process can follow the board.
+ *
+ * Protocol (all numbers big-endian, as DataOutputStream writes them):
+ *   client → server: the offset to start from (8 bytes; -1 = from now)
+ *   server → client: "TTFD" | version (1 byte), then for every change:
+ *                    offset (8 bytes) | length (4 bytes) | TaskOperation bytes
+ *
+ * Backpressure: every connection has its own writer thread. It request()s
+ * one more change from the feed for every change it has written to the
+ * socket, so a slow reader simply falls behind in the feed — where the
+ * server's Overflow policy decides what happens (with BLOCK, the board
+ * waits for the slowest reader). The network never buffers more than the
+ * socket buffers.
+ *
+ * A client that reconnects can pass the last offset it saw plus one, and
+ * continues where it stopped (if the feed still holds that offset).
+ *
+ * See Client for the other end.
+ */
+public final class TaskFeedServer implements Closeable {
+
+    private static final byte[] MAGIC = {'T', 'T', 'F', 'D'};
+    private static final int VERSION = 1;
+
+    /** Pass as the start offset to follow only new changes. */
+    public static final long FROM_NOW = -1;
+
+    private final TaskChangeFeed feed;
+    private final TaskChangeFeed.Overflow overflow;
+    private final int bufferSize;
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts listening on 127.0.0.1.
+     *
+     * @param port       0 = any free port (see getPort)
+     * @param overflow   what happens to a reader that falls behind
+     * @param bufferSize how far a reader may fall behind
+     */
+    public TaskFeedServer(TaskChangeFeed feed, int port, TaskChangeFeed.Overflow overflow,
+                          int bufferSize) throws IOException {
+        this.feed = feed;
+        this.overflow = overflow;
+        this.bufferSize = bufferSize;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        acceptThread = new Thread(this::acceptLoop, "task-feed-server");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /** Stops accepting and disconnects every client. */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection c : connections) {
+            c.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Connection c = new Connection(socket);
+                connections.add(c);
+                c.start();
+            } catch (IOException e) {
+                return;   // closed
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // One client
+    // ───────────────────────────────────────────────
+
+    /** Subscribes to the feed for one socket, and writes what arrives. */
+    private final class Connection implements Flow.Subscriber<TaskChangeFeed.Change> {
+        private final Socket socket;
+        // Never fuller than requested, plus one place for END
+        private final BlockingQueue<TaskChangeFeed.Change> queue;
+        private volatile Flow.Subscription subscription;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            this.queue = new ArrayBlockingQueue<>(bufferSize + 1);
+        }
+
+        void start() {
+            Thread writer = new Thread(this::run, "task-feed-connection");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        private void run() {
+            try (Socket s = socket) {
+                DataInputStream in = new DataInputStream(s.getInputStream());
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(s.getOutputStream(), 64 * 1024));
+                long from = in.readLong();
+                out.write(MAGIC);
+                out.writeByte(VERSION);
+                out.flush();
+
+                feed.subscribe(this, from == FROM_NOW ? feed.getNextOffset() : from, overflow, bufferSize);
+                while (true) {
+                    TaskChangeFeed.Change change = queue.poll();
+                    if (change == null) {
+                        out.flush();   // nothing waiting: send what we have
+                        change = queue.take();
+                    }
+                    if (change == END) {
+                        break;
+                    }
+                    byte[] bytes = change.getOperation().toBytes();
+                    out.writeLong(change.getOffset());
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    subscription.request(1);   // room for one more
+                }
+                out.flush();
+            } catch (IOException e) {
+                // The client went away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                Flow.Subscription sub = subscription;
+                if (sub != null) {
+                    sub.cancel();
+                }
+                connections.remove(this);
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();   // a blocked write fails, and the thread cleans up
+            } catch (IOException ignored) {
+                // already closed
+            }
+            queue.offer(END);     // a thread waiting for changes stops too
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(bufferSize);
+        }
+
+        @Override
+        public void onNext(TaskChangeFeed.Change change) {
+            queue.offer(change);   // always fits: at most bufferSize are requested
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            queue.offer(END);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.offer(END);   // the writer thread sends what is left, then stops
+        }
+    }
+
+    /** Marks the end of the feed in a connection's queue. */
+    private static final TaskChangeFeed.Change END = new TaskChangeFeed.Change(-1, null);
+
+    // ───────────────────────────────────────────────
+    // Client
+    // ───────────────────────────────────────────────
+
+    /**
+     * The remote end: connects to a TaskFeedServer and reads changes one
+     * at a time. Reading slowly is fine — that is the backpressure.
+     */
+    public static final class Client implements Closeable {
+        private final Socket socket;
+        private final DataInputStream in;
+
+        /** Connects to a server on this machine and starts at fromOffset (or FROM_NOW). */
+        public Client(int port, long fromOffset) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            try {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeLong(fromOffset);
+                out.flush();
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+                    throw new IOException("Not a task feed server on port " + port);
+                }
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        /** The next change, waiting for it if needed. Null once the server has closed the feed. */
+        public TaskChangeFeed.Change read() throws IOException {
+            long offset;
+            try {
+                offset = in.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new TaskChangeFeed.Change(offset, TaskOperation.fromBytes(bytes));
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,873 @@
+package tasktracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * TaskHistory is the AUDIT TRAIL of a board: it remembers every change to
+ * every task (who, when, which field, old and new value) and can show what
+ * the whole board looked like at any moment in the past.
+ *
+ * Why not just keep old copies of the tasks?
+ *  - An edit usually changes one or two fields, so copying the whole task
+ *    every time would mostly store things that did not change.
+ *  - Titles, names, dates and rules repeat a lot.
+ *
+ * So the history is an EVENT LOG ("event sourcing"): every change is one
+ * small record in a byte array, and past boards are rebuilt from it.
+ *  - Every distinct value (title, name, date, priority, rule, blocker set)
+ *    is INTERNED: stored once in a table, events refer to it by number.
+ *  - Only the fields that changed are written (a bit mask says which).
+ *  - Timestamps and task ids are DELTA encoded as varints: the time since
+ *    the previous change usually fits in one to three bytes.
+ *  - The author is only written when it differs from the previous event.
+ *
+ * Event layout:
+ *   time delta (ms) | task id delta (signed) | kind + "new author" bit
+ *   | [author] | [field mask | value number per changed field]
+ *
+ * KEYFRAMES
+ *  Replaying the whole log to answer "what did the board look like in
+ *  March?" would get slower every day. So every now and then the complete
+ *  board (just the value numbers) is saved as a KEYFRAME, like in video
+ *  compression. boardAsOf(t) starts from the last keyframe before t and
+ *  only replays the changes after it.
+ *
+ *  A keyframe is taken after max(1024, 4 × board size) events, so
+ *   - rebuilding a past board costs at most one keyframe plus
+ *     4 × board size events, however long the history is
+ *   - keyframes add roughly a third to the size of the log.
+ *
+ * Changes made while the history was not listening (for example the ones
+ * replayed from the operation log after a crash) are picked up by
+ * syncWith(...) and recorded at that moment.
+ *
+ * TaskManager calls the listener methods while holding its write lock;
+ * all public methods are synchronized, so reading the history from another
+ * thread is safe.
+ */
+public class TaskHistory implements TaskListener {
+
+    /** The fields that are tracked, in the order they are stored. */
+    public enum Field {
+        TITLE, ASSIGNEE, TYPE, DUE_DATE, PRIORITY, COMPLETED, RECURRENCE,
+        COMPLETED_THROUGH, BLOCKED_BY;
+
+        /** "DUE_DATE" → "due date" */
+        String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', ' ');
+        }
+    }
+
+    /** What happened to a task. */
+    public enum Kind {
+        CREATED, EDITED, DELETED
+    }
+
+    /**
+     * One entry of a task's history, as shown in the History window.
+     * An EDITED event that changed three fields gives three Changes.
+     */
+    public static final class Change {
+        private static final DateTimeFormatter TIME_FORMAT =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        private final Instant time;
+        private final String author;
+        private final Kind kind;
+        private final Field field;        // null for CREATED and DELETED
+        private final Object oldValue;
+        private final Object newValue;
+
+        Change(Instant time, String author, Kind kind, Field field, Object oldValue, Object newValue) {
+            this.time = time;
+            this.author = author;
+            this.kind = kind;
+            this.field = field;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public Instant getTime() { return time; }
+        public String getAuthor() { return author; }
+        public Kind getKind() { return kind; }
+        public Field getField() { return field; }
+        public Object getOldValue() { return oldValue; }
+        public Object getNewValue() { return newValue; }
+
+        /**
+         * Example:
+         *   2025-03-14 09:30  alice changed priority: MEDIUM → HIGH
+         */
+        @Override
+        public String toString() {
+            String when = TIME_FORMAT.format(time.atZone(ZoneId.systemDefault()));
+            switch (kind) {
+                case CREATED:
+                    return when + "  " + author + " created " + format(newValue);
+                case DELETED:
+                    return when + "  " + author + " deleted " + format(oldValue);
+                default:
+                    return when + "  " + author + " changed " + field.label() + ": "
+                            + format(oldValue) + " → " + format(newValue);
+            }
+        }
+
+        private static String format(Object value) {
+            if (value == null) {
+                return "(none)";
+            }
+            if (value instanceof String) {
+                return "\"" + value + "\"";
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value ? "yes" : "no";
+            }
+            if (value instanceof SortedSet) {
+                StringJoiner ids = new StringJoiner(", ");
+                for (Object id : (SortedSet<?>) value) {
+                    ids.add("#" + id);
+                }
+                return ids.toString();
+            }
+            return value.toString();
+        }
+    }
+
+    /**
+     * The complete board at one point of the log.
+     * "time", "taskId" and "author" are the delta bases for the next event.
+     */
+    private static final class Keyframe {
+        final long time;
+        final int offset;       // where the next event starts in the log
+        final int eventIndex;   // number of events before it
+        final long taskId;
+        final int author;
+        final byte[] board;     // see encodeBoard
+
+        Keyframe(long time, int offset, int eventIndex, long taskId, int author, byte[] board) {
+            this.time = time;
+            this.offset = offset;
+            this.eventIndex = eventIndex;
+            this.taskId = taskId;
+            this.author = author;
+            this.board = board;
+        }
+    }
+
+    /** A byte array that grows as events are appended and can be read in place. */
+    private static final class EventLog extends ByteArrayOutputStream {
+        EventLog() {
+            super(64 * 1024);
+        }
+
+        ByteArrayInputStream readFrom(int offset) {
+            return new ByteArrayInputStream(buf, offset, count - offset);
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final Kind[] KINDS = Kind.values();
+    private static final int NEW_AUTHOR_BIT = 0b100;
+
+    /** Fewest events between two keyframes (small boards). */
+    static final int MIN_KEYFRAME_EVENTS = 1024;
+    /** Events between two keyframes per task on the board. */
+    static final int KEYFRAME_EVENTS_PER_TASK = 4;
+
+    // File format: "TTHS" | version | values | log | event count | keyframes
+    private static final byte[] MAGIC = {'T', 'T', 'H', 'S'};
+    private static final int VERSION = 1;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_DATE = 2;
+    private static final int TAG_PRIORITY = 3;
+    private static final int TAG_BOOLEAN = 4;
+    private static final int TAG_RECURRENCE = 5;
+    private static final int TAG_IDS = 6;
+
+    private static final Task.Priority[] PRIORITIES = Task.Priority.values();
+    private static final Recurrence.Frequency[] FREQUENCIES = Recurrence.Frequency.values();
+
+    private final Clock clock;
+    private String author;
+
+    // Interned values: number → value and value → number (0 = null / none)
+    private final List<Object> values = new ArrayList<>();
+    private final Map<Object, Integer> numbers = new HashMap<>();
+
+    private final EventLog log = new EventLog();
+    private int eventCount = 0;
+
+    // Delta bases: the last event written
+    private long lastTime = 0;
+    private long lastTaskId = 0;
+    private int lastAuthor = 0;
+
+    // Value numbers of every task on the board right now, in board order
+    private final Map<Long, int[]> current = new LinkedHashMap<>();
+
+    // keyframes.get(0) is the empty board before the first event
+    private final List<Keyframe> keyframes = new ArrayList<>();
+    private int eventsSinceKeyframe = 0;
+
+    /**
+     * Creates an empty history using the system clock. Changes are
+     * credited to the user the program runs as (see setAuthor).
+     */
+    public TaskHistory() {
+        this(Clock.systemUTC());
+    }
+
+    /** Lets tests control time. */
+    TaskHistory(Clock clock) {
+        this.clock = clock;
+        this.author = System.getProperty("user.name", "unknown");
+        values.add(null);
+        keyframes.add(new Keyframe(0, 0, 0, 0, 0, new byte[] {0}));
+    }
+
+    /** Who the next changes are credited to. */
+    public synchronized void setAuthor(String author) {
+        this.author = author == null || author.isBlank() ? "unknown" : author;
+    }
+
+    public synchronized String getAuthor() {
+        return author;
+    }
+
+    // ───────────────────────────────────────────────
+    // RECORDING (TaskListener)
+    // ───────────────────────────────────────────────
+
+    @Override
+    public synchronized void taskAdded(Task task) {
+        record(task);
+    }
+
+    @Override
+    public synchronized void taskUpdated(Task task) {
+        record(task);
+    }
+
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        if (current.containsKey(task.getId())) {
+            writeEvent(Kind.DELETED, task.getId(), 0, null);
+        }
+    }
+
+    /**
+     * Records whatever differs between these tasks and what the history
+     * knows: new tasks, changed fields, and tasks that are gone.
+     *
+     * Used after loading a board, so changes the history did not see
+     * (replayed from the operation log, or made by an older version) are
+     * still part of the trail — stamped with the time of the sync.
+     */
+    public synchronized void syncWith(Collection<Task> tasks) {
+        Set<Long> seen = new HashSet<>();
+        for (Task t : tasks) {
+            seen.add(t.getId());
+            record(t);
+        }
+        for (Long id : new ArrayList<>(current.keySet())) {
+            if (!seen.contains(id)) {
+                writeEvent(Kind.DELETED, id, 0, null);
+            }
+        }
+    }
+
+    /** Records a CREATED or EDITED event with the fields that changed. */
+    private void record(Task task) {
+        int[] now = numbersOf(task);
+        int[] known = current.get(task.getId());
+        int mask = 0;
+        for (int f = 0; f < now.length; f++) {
+            if (now[f] != (known == null ? 0 : known[f])) {
+                mask |= 1 << f;
+            }
+        }
+        if (known != null && mask == 0) {
+            return;   // nothing we track has changed
+        }
+        writeEvent(known == null ? Kind.CREATED : Kind.EDITED, task.getId(), mask, now);
+    }
+
+    /** The value numbers of a task's fields, in Field order. */
+    private int[] numbersOf(Task task) {
+        int[] result = new int[FIELDS.length];
+        result[Field.TITLE.ordinal()] = intern(task.getTitle());
+        result[Field.ASSIGNEE.ordinal()] = intern(task.getAssignee());
+        result[Field.TYPE.ordinal()] = intern(task.getType());
+        result[Field.DUE_DATE.ordinal()] = intern(task.getDueDate());
+        result[Field.PRIORITY.ordinal()] = intern(task.getPriority());
+        result[Field.COMPLETED.ordinal()] = intern(task.isCompleted());
+        result[Field.RECURRENCE.ordinal()] = intern(task.getRecurrence());
+        result[Field.COMPLETED_THROUGH.ordinal()] = intern(task.getCompletedThrough());
+        result[Field.BLOCKED_BY.ordinal()] =
+                task.getBlockedBy().isEmpty() ? 0 : intern(task.getBlockedBy());
+        return result;
+    }
+
+    /** Returns the number of a value, adding it to the table the first time. */
+    private int intern(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer number = numbers.get(value);
+        if (number == null) {
+            number = values.size();
+            values.add(value);
+            numbers.put(value, number);
+        }
+        return number;
+    }
+
+    private void writeEvent(Kind kind, long taskId, int mask, int[] fieldNumbers) {
+        // Never go backwards, even if the system clock does
+        long time = Math.max(lastTime, clock.millis());
+        int authorNumber = intern(author);
+        boolean newAuthor = authorNumber != lastAuthor;
+        try {
+            SnapshotCodec.writeVarLong(log, time - lastTime);
+            SnapshotCodec.writeSignedVarLong(log, taskId - lastTaskId);
+            SnapshotCodec.writeVarLong(log, kind.ordinal() | (newAuthor ? NEW_AUTHOR_BIT : 0));
+            if (newAuthor) {
+                SnapshotCodec.writeVarLong(log, authorNumber);
+            }
+            if (kind != Kind.DELETED) {
+                SnapshotCodec.writeVarLong(log, mask);
+                for (int f = 0; f < FIELDS.length; f++) {
+                    if ((mask & (1 << f)) != 0) {
+                        SnapshotCodec.writeVarLong(log, fieldNumbers[f]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // cannot happen: the log is in memory
+        }
+        lastTime = time;
+        lastTaskId = taskId;
+        lastAuthor = authorNumber;
+        apply(current, kind, taskId, mask, fieldNumbers);
+        eventCount++;
+
+        eventsSinceKeyframe++;
+        if (eventsSinceKeyframe >= Math.max(MIN_KEYFRAME_EVENTS,
+                (long) KEYFRAME_EVENTS_PER_TASK * current.size())) {
+            keyframes.add(new Keyframe(lastTime, log.size(), eventCount,
+                    lastTaskId, lastAuthor, encodeBoard(current)));
+            eventsSinceKeyframe = 0;
+        }
+    }
+
+    /** Applies one event to a board of value numbers. */
+    private static void apply(Map<Long, int[]> board, Kind kind, long taskId,
+                              int mask, int[] fieldNumbers) {
+        if (kind == Kind.DELETED) {
+            board.remove(taskId);
+            return;
+        }
+        int[] state = board.get(taskId);
+        if (state == null) {
+            state = new int[FIELDS.length];
+            board.put(taskId, state);
+        }
+        for (int f = 0; f < FIELDS.length; f++) {
+            if ((mask & (1 << f)) != 0) {
+                state[f] = fieldNumbers[f];
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // QUERIES
+    // ───────────────────────────────────────────────
+
+    /**
+     * Rebuilds the board as it was at the given moment, in board order.
+     * The tasks are new objects: changing them does not change anything.
+     *
+     * Cost: one keyframe plus the events after it, never the whole log.
+     */
+    public synchronized List<Task> boardAsOf(Instant when) {
+        long millis = toMillis(when);
+        int k = lastKeyframeAtOrBefore(millis);
+        return k < 0 ? new ArrayList<>() : toTasks(replay(keyframes.get(k), millis));
+    }
+
+    /** The same answer as boardAsOf, replaying from the first event (for tests and benchmarks). */
+    synchronized List<Task> boardAsOfWithoutKeyframes(Instant when) {
+        long millis = toMillis(when);
+        return millis < 0 ? new ArrayList<>() : toTasks(replay(keyframes.get(0), millis));
+    }
+
+    /**
+     * Every change made to one task, oldest first.
+     *
+     * This reads the whole log (a few milliseconds per million events);
+     * it is only used when someone opens the History window.
+     */
+    public synchronized List<Change> historyOf(long taskId) {
+        List<Change> changes = new ArrayList<>();
+        int[] known = null;
+        EventReader reader = new EventReader(keyframes.get(0));
+        while (reader.next()) {
+            if (reader.taskId != taskId) {
+                continue;
+            }
+            Instant time = Instant.ofEpochMilli(reader.time);
+            String who = (String) values.get(reader.author);
+            int title = Field.TITLE.ordinal();
+            if (reader.kind == Kind.DELETED) {
+                changes.add(new Change(time, who, Kind.DELETED, null,
+                        known == null ? null : values.get(known[title]), null));
+                known = null;
+            } else if (reader.kind == Kind.CREATED || known == null) {
+                known = reader.fieldNumbers.clone();
+                changes.add(new Change(time, who, Kind.CREATED, null,
+                        null, values.get(known[title])));
+            } else {
+                for (int f = 0; f < FIELDS.length; f++) {
+                    if ((reader.mask & (1 << f)) != 0) {
+                        changes.add(new Change(time, who, Kind.EDITED, FIELDS[f],
+                                values.get(known[f]), values.get(reader.fieldNumbers[f])));
+                        known[f] = reader.fieldNumbers[f];
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    /** Number of events recorded. */
+    public synchronized int eventCount() {
+        return eventCount;
+    }
+
+    /** Number of keyframes, including the empty one at the start. */
+    public synchronized int keyframeCount() {
+        return keyframes.size();
+    }
+
+    /** Bytes used by the events and keyframes (not the value table). */
+    public synchronized long encodedBytes() {
+        long total = log.size();
+        for (Keyframe k : keyframes) {
+            total += k.board.length;
+        }
+        return total;
+    }
+
+    /** Number of distinct values in the intern table. */
+    synchronized int valueCount() {
+        return values.size() - 1;
+    }
+
+    private static long toMillis(Instant when) {
+        try {
+            return when.toEpochMilli();
+        } catch (ArithmeticException e) {
+            return when.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /** Binary search: the last keyframe taken at or before the time (-1 = none). */
+    private int lastKeyframeAtOrBefore(long millis) {
+        int low = 0;
+        int high = keyframes.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keyframes.get(mid).time <= millis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /** The board of a keyframe plus every event after it up to the given time. */
+    private Map<Long, int[]> replay(Keyframe from, long millis) {
+        Map<Long, int[]> board = decodeBoard(from.board);
+        EventReader reader = new EventReader(from);
+        while (reader.next() && reader.time <= millis) {
+            apply(board, reader.kind, reader.taskId, reader.mask, reader.fieldNumbers);
+        }
+        return board;
+    }
+
+    private List<Task> toTasks(Map<Long, int[]> board) {
+        List<Task> tasks = new ArrayList<>(board.size());
+        for (Map.Entry<Long, int[]> e : board.entrySet()) {
+            int[] s = e.getValue();
+            Task t = new Task((String) value(s, Field.TITLE), (String) value(s, Field.ASSIGNEE),
+                    (LocalDate) value(s, Field.DUE_DATE), (String) value(s, Field.TYPE),
+                    (Task.Priority) value(s, Field.PRIORITY));
+            t.setId(e.getKey());
+            t.setCompleted(Boolean.TRUE.equals(value(s, Field.COMPLETED)));
+            t.setRecurrence((Recurrence) value(s, Field.RECURRENCE));
+            t.restoreOccurrences((LocalDate) value(s, Field.COMPLETED_THROUGH), null);
+            t.setBlockedBy(blockersOf(value(s, Field.BLOCKED_BY)));
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    private Object value(int[] state, Field field) {
+        return values.get(state[field.ordinal()]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Long> blockersOf(Object value) {
+        return (Collection<Long>) value;
+    }
+
+    // ───────────────────────────────────────────────
+    // READING EVENTS AND KEYFRAMES
+    // ───────────────────────────────────────────────
+
+    /**
+     * Walks the log from a keyframe, one event at a time.
+     * After next() the fields describe the event that was read.
+     */
+    private final class EventReader {
+        private final ByteArrayInputStream in;
+        long time;
+        long taskId;
+        int author;
+        Kind kind;
+        int mask;
+        final int[] fieldNumbers = new int[FIELDS.length];
+
+        EventReader(Keyframe from) {
+            in = log.readFrom(from.offset);
+            time = from.time;
+            taskId = from.taskId;
+            author = from.author;
+        }
+
+        /** Reads the next event; false at the end of the log. */
+        boolean next() {
+            if (in.available() == 0) {
+                return false;
+            }
+            try {
+                time += SnapshotCodec.readVarLong(in);
+                taskId += SnapshotCodec.readSignedVarLong(in);
+                int header = (int) SnapshotCodec.readVarLong(in);
+                if ((header & 0b11) >= KINDS.length) {
+                    throw new IOException("Bad event kind: " + header);
+                }
+                kind = KINDS[header & 0b11];
+                if ((header & NEW_AUTHOR_BIT) != 0) {
+                    author = checkedNumber(SnapshotCodec.readVarLong(in));
+                }
+                mask = 0;
+                if (kind != Kind.DELETED) {
+                    mask = (int) SnapshotCodec.readVarLong(in);
+                    for (int f = 0; f < FIELDS.length; f++) {
+                        fieldNumbers[f] = (mask & (1 << f)) != 0
+                                ? checkedNumber(SnapshotCodec.readVarLong(in)) : 0;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new IllegalStateException("Corrupt task history: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private int checkedNumber(long number) throws IOException {
+        if (number < 0 || number >= values.size()) {
+            throw new IOException("Unknown value number " + number);
+        }
+        return (int) number;
+    }
+
+    /** Keyframe layout: task count | per task: id delta (signed) | one value number per field */
+    private static byte[] encodeBoard(Map<Long, int[]> board) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(board.size() * 16 + 8);
+        try {
+            SnapshotCodec.writeVarLong(out, board.size());
+            long previousId = 0;
+            for (Map.Entry<Long, int[]> e : board.entrySet()) {
+                SnapshotCodec.writeSignedVarLong(out, e.getKey() - previousId);
+                previousId = e.getKey();
+                for (int number : e.getValue()) {
+                    SnapshotCodec.writeVarLong(out, number);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // cannot happen: in memory
+        }
+        return out.toByteArray();
+    }
+
+    private Map<Long, int[]> decodeBoard(byte[] bytes) {
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        try {
+            long count = SnapshotCodec.readVarLong(in);
+            Map<Long, int[]> board = new LinkedHashMap<>();
+            long id = 0;
+            for (long i = 0; i < count; i++) {
+                id += SnapshotCodec.readSignedVarLong(in);
+                int[] state = new int[FIELDS.length];
+                for (int f = 0; f < state.length; f++) {
+                    state[f] = checkedNumber(SnapshotCodec.readVarLong(in));
+                }
+                board.put(id, state);
+            }
+            return board;
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt task history: " + e.getMessage(), e);
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // SAVING AND LOADING
+    // ───────────────────────────────────────────────
+
+    /** Writes the whole history. The stream is NOT closed. */
+    public synchronized void write(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        SnapshotCodec.writeVarLong(out, values.size() - 1);
+        for (int i = 1; i < values.size(); i++) {
+            writeValue(out, values.get(i));
+        }
+        SnapshotCodec.writeVarLong(out, log.size());
+        log.writeTo(out);
+        SnapshotCodec.writeVarLong(out, eventCount);
+        // The first (empty) keyframe is always there, so it is not written
+        SnapshotCodec.writeVarLong(out, keyframes.size() - 1);
+        for (Keyframe k : keyframes.subList(1, keyframes.size())) {
+            SnapshotCodec.writeVarLong(out, k.time);
+            SnapshotCodec.writeVarLong(out, k.offset);
+            SnapshotCodec.writeVarLong(out, k.eventIndex);
+            SnapshotCodec.writeSignedVarLong(out, k.taskId);
+            SnapshotCodec.writeVarLong(out, k.author);
+            SnapshotCodec.writeVarLong(out, k.board.length);
+            out.write(k.board);
+        }
+    }
+
+    /**
+     * Saves the history so the file is never half-written
+     * (temp file, force, atomic rename — like SnapshotCodec.writeFile).
+     */
+    public void writeFile(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            write(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        WriteBehindLog.forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    public static TaskHistory read(InputStream in) throws IOException {
+        return read(in, Clock.systemUTC());
+    }
+
+    public static TaskHistory readFile(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a history written by write(...). Recording continues where it
+     * stopped: the current board is rebuilt from the last keyframe.
+     */
+    static TaskHistory read(InputStream in, Clock clock) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        SnapshotCodec.readFully(in, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a task history file");
+        }
+        int version = SnapshotCodec.readByte(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported task history version: " + version);
+        }
+
+        TaskHistory history = new TaskHistory(clock);
+        long valueCount = SnapshotCodec.readVarLong(in);
+        for (long i = 0; i < valueCount; i++) {
+            Object value = readValue(in);
+            history.numbers.putIfAbsent(value, history.values.size());
+            history.values.add(value);
+        }
+
+        byte[] events = new byte[readSize(in)];
+        SnapshotCodec.readFully(in, events);
+        history.log.write(events);
+        history.eventCount = readSize(in);
+
+        int keyframeCount = readSize(in);
+        for (int i = 0; i < keyframeCount; i++) {
+            long time = SnapshotCodec.readVarLong(in);
+            int offset = readSize(in);
+            int eventIndex = readSize(in);
+            long taskId = SnapshotCodec.readSignedVarLong(in);
+            int author = history.checkedNumber(SnapshotCodec.readVarLong(in));
+            byte[] board = new byte[readSize(in)];
+            SnapshotCodec.readFully(in, board);
+            Keyframe previous = history.keyframes.get(history.keyframes.size() - 1);
+            if (offset < previous.offset || offset > events.length
+                    || time < previous.time || eventIndex < previous.eventIndex) {
+                throw new IOException("Corrupt task history: keyframes out of order");
+            }
+            history.keyframes.add(new Keyframe(time, offset, eventIndex, taskId, author, board));
+        }
+
+        // Continue from the last keyframe: the current board and the delta bases
+        try {
+            Keyframe last = history.keyframes.get(history.keyframes.size() - 1);
+            history.current.putAll(history.decodeBoard(last.board));
+            EventReader reader = history.new EventReader(last);
+            history.lastTime = last.time;
+            history.lastTaskId = last.taskId;
+            history.lastAuthor = last.author;
+            while (reader.next()) {
+                apply(history.current, reader.kind, reader.taskId, reader.mask, reader.fieldNumbers);
+                history.eventsSinceKeyframe++;
+                history.lastTime = reader.time;
+                history.lastTaskId = reader.taskId;
+                history.lastAuthor = reader.author;
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return history;
+    }
+
+    private static int readSize(InputStream in) throws IOException {
+        long size = SnapshotCodec.readVarLong(in);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt task history: size " + size);
+        }
+        return (int) size;
+    }
+
+    private static void writeValue(OutputStream out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.write(TAG_STRING);
+            SnapshotCodec.writeString(out, (String) value);
+        } else if (value instanceof LocalDate) {
+            out.write(TAG_DATE);
+            SnapshotCodec.writeSignedVarLong(out, ((LocalDate) value).toEpochDay());
+        } else if (value instanceof Task.Priority) {
+            out.write(TAG_PRIORITY);
+            out.write(((Task.Priority) value).ordinal());
+        } else if (value instanceof Boolean) {
+            out.write(TAG_BOOLEAN);
+            out.write((Boolean) value ? 1 : 0);
+        } else if (value instanceof Recurrence) {
+            Recurrence rule = (Recurrence) value;
+            out.write(TAG_RECURRENCE);
+            out.write(rule.getFrequency().ordinal());
+            SnapshotCodec.writeVarLong(out, rule.getInterval());
+            out.write(rule.getUntil() == null ? 0 : 1);
+            if (rule.getUntil() != null) {
+                SnapshotCodec.writeSignedVarLong(out, rule.getUntil().toEpochDay());
+            }
+        } else if (value instanceof SortedSet) {
+            // Blocker ids: count | gaps between the sorted ids
+            SortedSet<?> ids = (SortedSet<?>) value;
+            out.write(TAG_IDS);
+            SnapshotCodec.writeVarLong(out, ids.size());
+            long previous = 0;
+            for (Object id : ids) {
+                SnapshotCodec.writeVarLong(out, (Long) id - previous);
+                previous = (Long) id;
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot store " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(InputStream in) throws IOException {
+        int tag = SnapshotCodec.readByte(in);
+        switch (tag) {
+            case TAG_STRING:
+                return SnapshotCodec.readString(in);
+            case TAG_DATE:
+                return LocalDate.ofEpochDay(SnapshotCodec.readSignedVarLong(in));
+            case TAG_PRIORITY:
+                return PRIORITIES[checkedOrdinal(SnapshotCodec.readByte(in), PRIORITIES.length)];
+            case TAG_BOOLEAN:
+                return SnapshotCodec.readByte(in) != 0;
+            case TAG_RECURRENCE: {
+                Recurrence.Frequency frequency =
+                        FREQUENCIES[checkedOrdinal(SnapshotCodec.readByte(in), FREQUENCIES.length)];
+                long interval = SnapshotCodec.readVarLong(in);
+                LocalDate until = SnapshotCodec.readByte(in) == 0
+                        ? null : LocalDate.ofEpochDay(SnapshotCodec.readSignedVarLong(in));
+                if (interval < 1 || interval > Integer.MAX_VALUE) {
+                    throw new IOException("Corrupt recurrence interval: " + interval);
+                }
+                return new Recurrence(frequency, (int) interval, until);
+            }
+            case TAG_IDS: {
+                long count = SnapshotCodec.readVarLong(in);
+                TreeSet<Long> ids = new TreeSet<>();
+                long id = 0;
+                for (long i = 0; i < count; i++) {
+                    id += SnapshotCodec.readVarLong(in);
+                    ids.add(id);
+                }
+                if (ids.size() != count) {
+                    throw new IOException("Corrupt blocker list");
+                }
+                return Collections.unmodifiableSortedSet(ids);
+            }
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    private static int checkedOrdinal(int ordinal, int count) throws IOException {
+        if (ordinal >= count) {
+            throw new IOException("Corrupt task history: ordinal " + ordinal);
+        }
+        return ordinal;
+    }
+}
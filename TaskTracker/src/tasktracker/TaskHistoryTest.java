@@ -0,0 +1,243 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TaskHistory: the per-task audit trail, rebuilding past
+ * boards (with and without keyframes) and saving the history.
+ */
+class TaskHistoryTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 3, 1);
+
+    /** A clock the test moves forward by hand. */
+    private static final class TestClock extends Clock {
+        long millis = 1_700_000_000_000L;
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis); }
+    }
+
+    private static Task task(String title, int dueInDays, Task.Priority priority) {
+        return new Task(title, "Alice", START.plusDays(dueInDays), "Work", priority);
+    }
+
+    @Test
+    void testHistoryOfTaskShowsEveryFieldChange() {
+        TestClock clock = new TestClock();
+        TaskHistory history = new TaskHistory(clock);
+        history.setAuthor("alice");
+        TaskManager manager = new TaskManager();
+        manager.addListener(history);
+
+        Task report = task("Report", 3, Task.Priority.MEDIUM);
+        Task other = task("Other", 1, Task.Priority.LOW);
+        manager.addTask(report);
+        manager.addTask(other);
+
+        clock.millis += 60_000;
+        history.setAuthor("bob");
+        manager.updateTask(report, task("Final report", 3, Task.Priority.HIGH));
+        manager.updateTask(report, task("Final report", 3, Task.Priority.HIGH));   // no change
+        manager.addDependency(report, other);
+
+        clock.millis += 5_000;
+        manager.markComplete(report);
+        manager.removeTask(report);
+
+        List<TaskHistory.Change> changes = history.historyOf(report.getId());
+        assertEquals(6, changes.size(), changes::toString);
+
+        assertEquals(TaskHistory.Kind.CREATED, changes.get(0).getKind());
+        assertEquals("alice", changes.get(0).getAuthor());
+        assertEquals("Report", changes.get(0).getNewValue());
+
+        TaskHistory.Change rename = changes.get(1);
+        assertEquals(TaskHistory.Field.TITLE, rename.getField());
+        assertEquals("Report", rename.getOldValue());
+        assertEquals("Final report", rename.getNewValue());
+        assertEquals("bob", rename.getAuthor());
+        assertEquals(Instant.ofEpochMilli(clock.millis - 5_000), rename.getTime());
+
+        assertEquals(TaskHistory.Field.PRIORITY, changes.get(2).getField());
+        assertEquals(Task.Priority.HIGH, changes.get(2).getNewValue());
+        assertEquals(TaskHistory.Field.BLOCKED_BY, changes.get(3).getField());
+        assertTrue(changes.get(3).toString().endsWith("blocked by: (none) → #" + other.getId()),
+                changes.get(3).toString());
+        assertEquals(TaskHistory.Field.COMPLETED, changes.get(4).getField());
+        assertEquals(TaskHistory.Kind.DELETED, changes.get(5).getKind());
+        assertEquals("Final report", changes.get(5).getOldValue());
+
+        assertEquals(1, history.historyOf(other.getId()).size());
+    }
+
+    /**
+     * Random changes on a small board: every past board rebuilt from a
+     * keyframe must match a full replay and what the board really was.
+     */
+    @Test
+    void testBoardAsOfMatchesFullReplay() {
+        TestClock clock = new TestClock();
+        TaskHistory history = new TaskHistory(clock);
+        TaskManager manager = new TaskManager();
+        manager.addListener(history);
+        Random random = new Random(11);
+
+        Map<Long, List<String>> expected = new TreeMap<>();   // time → board at that time
+        List<Task> live = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            clock.millis += random.nextInt(3) == 0 ? 0 : random.nextInt(100_000);
+            int action = random.nextInt(10);
+            if (live.size() < 20 || action == 0) {
+                Task t = task("T" + step, random.nextInt(30), Task.Priority.LOW);
+                if (random.nextInt(5) == 0) {
+                    t.setRecurrence(Recurrence.of(Recurrence.Frequency.WEEKLY));
+                }
+                manager.addTask(t);
+                live.add(t);
+            } else if (action == 1) {
+                manager.removeTask(live.remove(random.nextInt(live.size())));
+            } else if (action == 2) {
+                manager.markComplete(live.get(random.nextInt(live.size())));
+            } else if (action == 3) {
+                Task a = live.get(random.nextInt(live.size()));
+                Task b = live.get(random.nextInt(live.size()));
+                if (manager.canAddDependency(a, b)) {
+                    manager.addDependency(a, b);
+                }
+            } else {
+                Task t = live.get(random.nextInt(live.size()));
+                Task.Priority priority = Task.Priority.values()[random.nextInt(3)];
+                manager.updateTask(t, task(t.getTitle() + (action == 4 ? "!" : ""),
+                        random.nextInt(30), priority));
+            }
+            if (step % 97 == 0) {
+                expected.put(clock.millis, describe(manager.getTasks()));
+                clock.millis++;   // later changes must not share the checkpoint's millisecond
+            }
+        }
+
+        assertTrue(history.keyframeCount() > 10, "keyframes: " + history.keyframeCount());
+        for (Map.Entry<Long, List<String>> e : expected.entrySet()) {
+            Instant when = Instant.ofEpochMilli(e.getKey());
+            assertEquals(e.getValue(), describe(history.boardAsOf(when)), "as of " + when);
+            assertEquals(e.getValue(), describe(history.boardAsOfWithoutKeyframes(when)));
+        }
+        assertTrue(history.boardAsOf(Instant.ofEpochMilli(1_000)).isEmpty(), "before the first change");
+        assertEquals(describe(manager.getTasks()), describe(history.boardAsOf(Instant.MAX)));
+    }
+
+    /** Every tracked field of every task, so boards can be compared with equals. */
+    private static List<String> describe(List<Task> tasks) {
+        List<String> result = new ArrayList<>();
+        for (Task t : tasks) {
+            result.add(t.getId() + "|" + t.getTitle() + "|" + t.getAssignee() + "|" + t.getType()
+                    + "|" + t.getDueDate() + "|" + t.getPriority() + "|" + t.isCompleted()
+                    + "|" + t.getRecurrence() + "|" + t.getCompletedThrough() + "|" + t.getBlockedBy());
+        }
+        return result;
+    }
+
+    @Test
+    void testWriteAndReadBack() throws IOException {
+        TestClock clock = new TestClock();
+        TaskHistory history = new TaskHistory(clock);
+        TaskManager manager = new TaskManager();
+        manager.addListener(history);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            clock.millis += 1_000;
+            Task t = task("Task " + (i % 700), i % 40, Task.Priority.values()[i % 3]);
+            tasks.add(t);
+            manager.addTask(t);
+            if (i % 3 == 0) {
+                manager.markComplete(tasks.get(i / 2));
+            }
+        }
+        Instant middle = Instant.ofEpochMilli(clock.millis - 1_500_000);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.write(bytes);
+        TaskHistory loaded = TaskHistory.read(new ByteArrayInputStream(bytes.toByteArray()), clock);
+
+        assertEquals(history.eventCount(), loaded.eventCount());
+        assertEquals(history.keyframeCount(), loaded.keyframeCount());
+        // 700 titles, assignee, type, 40 dates, 3 priorities, done/not done, author
+        assertEquals(700 + 2 + 40 + 3 + 2 + 1, loaded.valueCount(), "every value is stored once");
+        assertEquals(describe(history.boardAsOf(middle)), describe(loaded.boardAsOf(middle)));
+        assertEquals(history.historyOf(tasks.get(10).getId()).toString(),
+                loaded.historyOf(tasks.get(10).getId()).toString());
+
+        // Recording goes on where it stopped
+        clock.millis += 1_000;
+        loaded.taskUpdated(tasks.get(0));   // unchanged: nothing recorded
+        tasks.get(0).setTitle("Renamed");
+        loaded.taskUpdated(tasks.get(0));
+        loaded.taskRemoved(tasks.get(1));
+        assertEquals(history.eventCount() + 2, loaded.eventCount());
+        List<Task> expected = new ArrayList<>(manager.getTasks());
+        expected.remove(tasks.get(1));
+        assertEquals(describe(expected), describe(loaded.boardAsOf(Instant.MAX)));
+        assertEquals("Renamed", loaded.boardAsOf(Instant.MAX).get(0).getTitle());
+
+        byte[] broken = bytes.toByteArray();
+        broken[0] = 'X';
+        assertThrows(IOException.class, () -> TaskHistory.read(new ByteArrayInputStream(broken)));
+    }
+
+    /** Changes the history did not see are recorded by syncWith. */
+    @Test
+    void testSyncWithRecordsMissedChanges() {
+        TestClock clock = new TestClock();
+        TaskHistory history = new TaskHistory(clock);
+        TaskManager manager = new TaskManager();
+        manager.addListener(history);
+        Task kept = task("Kept", 1, Task.Priority.LOW);
+        Task dropped = task("Dropped", 2, Task.Priority.LOW);
+        manager.addTask(kept);
+        manager.addTask(dropped);
+
+        // Made while nobody was listening (e.g. replayed from the log)
+        manager.removeListener(history);
+        manager.updateTask(kept, task("Kept", 1, Task.Priority.HIGH));
+        manager.removeTask(dropped);
+        Task added = task("Added", 3, Task.Priority.LOW);
+        manager.addTask(added);
+        int before = history.eventCount();
+
+        clock.millis += 10_000;
+        history.syncWith(manager.getTasks());
+
+        assertEquals(before + 3, history.eventCount());
+        assertEquals(describe(manager.getTasks()), describe(history.boardAsOf(Instant.MAX)));
+        assertEquals(List.of("Kept", "Dropped"), titles(history.boardAsOf(Instant.ofEpochMilli(clock.millis - 1))));
+
+        history.syncWith(manager.getTasks());
+        assertEquals(before + 3, history.eventCount(), "nothing left to record");
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> result = new ArrayList<>();
+        for (Task t : tasks) {
+            result.add(t.getTitle());
+        }
+        return result;
+    }
+}
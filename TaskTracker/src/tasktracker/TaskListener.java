@@ -0,0 +1,31 @@
+package tasktracker;
+
+/**
+ * A TaskListener is told about every change TaskManager makes.
+ *
+ * Indexes, caches and other "helper" structures implement this so they
+ * can stay in sync with the task list without scanning it again.
+ *
+ * All methods have empty default implementations, so a listener only
+ * needs to override the events it cares about.
+ *
+ * Listeners are called right after the change has been made, on the
+ * thread that made it. They should be quick.
+ */
+public interface TaskListener {
+
+    /** A new task was added. */
+    default void taskAdded(Task task) {
+    }
+
+    /** A task was removed. */
+    default void taskRemoved(Task task) {
+    }
+
+    /**
+     * One or more fields of a task were changed
+     * (edited, marked complete, ...). Read the new values from the task.
+     */
+    default void taskUpdated(Task task) {
+    }
+}
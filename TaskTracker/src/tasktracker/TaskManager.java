@@ -1,7 +1,13 @@
 package tasktracker;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * TaskManager is responsible for storing and managing ALL tasks in the app.
@@ -13,17 +19,177 @@ import java.util.List;
  *   - Mark tasks complete
  *   - Retrieve the current list of tasks
  *   - Get stats (completed %, counts, etc.)
+ *   - Track which tasks block which (dependencies)
  *
  * This class contains NO GUI code — only task data logic.
+ *
+ * Storage:
+ *  - The board is the live Task objects, in memory: the indexes below
+ *    hold them, and every read (getTask, getTasks, findTasks, ...) hands
+ *    out the same objects — never a copy. So two editors of one task
+ *    always share one object and one version counter.
+ *  - Every change is also saved to a TaskRepository right away
+ *    (write-through) before the listeners hear about it. Whatever the
+ *    repository holds at the start (e.g. a FileTaskRepository from last
+ *    time) is the board. After that it is only written, never read, so
+ *    a file-backed repository does NOT make the board smaller than the
+ *    heap (see TaskRepository).
+ *  - Tasks completed long ago can be moved to a TaskArchive (the "cold
+ *    tier", see archiveCompleted): off the board, but still searchable
+ *    with findArchived and brought back with restore.
+ *
+ * Thread safety:
+ *  - Every method may be called from any thread. Changes take the WRITE
+ *    lock, so the indexes and listeners hear about them one at a time.
+ *    Reads (lists, queries, counts) take the READ lock, so many threads
+ *    can query at the same time.
+ *  - The Task objects themselves are not locked: each one guards its own
+ *    fields with a version stamp and compare-and-set (see Task). Edits
+ *    and completions change the task with that compare-and-set BEFORE
+ *    taking the write lock, and hold the lock only to update the indexes
+ *    (see change()) — so threads working on different tasks only queue
+ *    for the bookkeeping. Reading a single field is always safe;
+ *    task.snapshot() gives a copy where all fields belong together.
+ *    Change tasks only through TaskManager, so the indexes hear about it.
+ *  - Edits can be OPTIMISTIC: remember task.getVersion() when the user
+ *    starts editing and pass it to updateTask(task, changes, version).
+ *    If someone else changed the task meanwhile, the edit is refused with
+ *    a CONFLICT (see UpdateResult) instead of overwriting their change.
+ *  - getChangeFeed() lets other threads FOLLOW the changes (see TaskChangeFeed).
+ *  - undo() and redo() take back the last changes, one user action (or
+ *    one batch) at a time (see UndoJournal).
+ *  - getVersion() and getVersion(attribute) count changes, overall and
+ *    per queried attribute; findTasks answers are cached against them
+ *    (see QueryCache).
+ *  - getQueryIndex(), getSuggestions() and getDependencyGraph() hand out
+ *    the raw listeners, which are only safe on the thread that makes the
+ *    changes (the EDT).
+ *
+ * LoadGenerator drives this class from many threads to check all of the above.
  */
 public class TaskManager {
 
     /**
-     * The internal list that holds all Task objects.
+     * Where every change is saved (see TaskRepository).
      * It is private so only TaskManager can modify it directly.
      */
-    private final List<Task> tasks = new ArrayList<>();
+    private final TaskRepository repository;
+
+    /**
+     * The live Task objects on the board, by id. Reads come from here, not
+     * from the repository: a repository that returns copies would hand out
+     * a second object for a task the indexes already hold, and an edit of
+     * that copy would be lost (with a version counter of its own).
+     */
+    private final LongTaskMap board = new LongTaskMap();
+
+    /**
+     * The id that will be given to the next new task.
+     * Ids start at 1, so 0 always means "no id yet".
+     */
+    private long nextId = 1;
+
+    /**
+     * Index used to answer filter queries quickly (see TaskQueryIndex).
+     * It is kept up to date like any other listener.
+     */
+    private final TaskQueryIndex queryIndex = new TaskQueryIndex();
+
+    /**
+     * Recent findTasks answers, checked against the index's version
+     * counters before they are reused (see QueryCache).
+     */
+    private final QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_MAX_BYTES);
+
+    /**
+     * Known assignees and types, used for autocomplete in TaskDialog.
+     */
+    private final TaskSuggestions suggestions = new TaskSuggestions();
+
+    /**
+     * Which tasks block which, with cycle checks and earliest finish dates
+     * (see TaskDependencyGraph).
+     */
+    private final TaskDependencyGraph dependencies = new TaskDependencyGraph();
+
+    /**
+     * Open tasks ranked by priority and due date, for "what's next?"
+     * (see NextUpQueue).
+     */
+    private final NextUpQueue nextUp = new NextUpQueue();
+
+    /**
+     * How many (open) tasks are due on each day, as range counts for the
+     * calendar (see DueDateCounter).
+     */
+    private final DueDateCounter dueCounts = new DueDateCounter();
+
+    /**
+     * Everyone who wants to hear about changes (indexes, caches, ...).
+     */
+    private final List<TaskListener> listeners = new ArrayList<>();
+
+    /** Completed tasks moved off the board (see archiveCompleted). */
+    private TaskArchive archive = new TaskArchive();
+
+    /** Created on first use (see getChangeFeed). */
+    private volatile TaskChangeFeed changeFeed;   // flushed outside the lock (see unlockWrite)
+
+    /** The last changes, as field-level deltas, for undo/redo (see UndoJournal). */
+    private final UndoJournal journal = new UndoJournal();
+
+    /** Guards every field above (see "Thread safety"). */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Creates a manager that keeps its tasks in memory. */
+    public TaskManager() {
+        this(new InMemoryTaskRepository());
+    }
+
+    /**
+     * Creates a manager on top of a repository. Tasks already in the
+     * repository (for example a file from last time) are on the board
+     * straight away.
+     */
+    public TaskManager(TaskRepository repository) {
+        this.repository = repository;
+        listeners.add(queryIndex);
+        listeners.add(suggestions);
+        listeners.add(dependencies);
+        listeners.add(nextUp);
+        listeners.add(dueCounts);
+
+        for (Task t : repository.findAll()) {
+            assignId(t);
+            board.put(t.getId(), t);
+            for (TaskListener l : listeners) {
+                l.taskAdded(t);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener that is told about every add, remove and edit.
+     */
+    public void addListener(TaskListener listener) {
+        if (listener != null) {
+            lock.writeLock().lock();
+            try {
+                listeners.add(listener);
+            } finally {
+                unlockWrite();
+            }
+        }
+    }
 
+    public void removeListener(TaskListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            unlockWrite();
+        }
+    }
 
     /**
      * Adds a full Task object to the list.
@@ -33,8 +199,25 @@ public class TaskManager {
      *  - The GUI passes the completed Task object here
      */
     public void addTask(Task task) {
-        if (task != null) {
-            tasks.add(task);
+        if (task == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        journal.begin(describe("Add", task));
+        try {
+            assignId(task);
+            if (task.isCompleted() && task.getCompletedOn() == null) {
+                // Completed before completion days were recorded: count from today
+                task.setCompletedOn(Today.get());
+            }
+            store(task);
+            journal.added(task);
+            for (TaskListener l : listeners) {
+                l.taskAdded(task);
+            }
+        } finally {
+            journal.end();
+            unlockWrite();
         }
     }
 
@@ -48,16 +231,121 @@ public class TaskManager {
         if (title == null || title.trim().isEmpty()) {
             return; // ignore empty task names
         }
-        tasks.add(new Task(title.trim()));
+        addTask(new Task(title.trim()));
+    }
+
+    /** Puts a task on the board and saves it (write-through). */
+    private void store(Task task) {
+        board.put(task.getId(), task);
+        repository.save(task);
+    }
+
+    /** Takes a task off the board and out of the repository. False if it was not on the board. */
+    private boolean unstore(long id) {
+        if (board.remove(id) == null) {
+            return false;
+        }
+        repository.delete(id);
+        return true;
+    }
+
+    /**
+     * Gives a new task the next free id.
+     * Tasks that already have an id (for example loaded from a snapshot)
+     * keep it, and later ids are moved past it so they never clash.
+     */
+    private void assignId(Task task) {
+        if (task.getId() == 0) {
+            task.setId(nextId++);
+        } else if (task.getId() >= nextId) {
+            nextId = task.getId() + 1;
+        }
     }
 
     /**
      * Removes a task from the list.
      *
      * Called when the user presses "Delete Task".
+     * Tasks it was blocking lose that dependency (and are reported as updated).
      */
     public void removeTask(Task task) {
-        tasks.remove(task);
+        lock.writeLock().lock();
+        journal.begin(describe("Delete", task));
+        try {
+            if (!isManaged(task)) {
+                return;
+            }
+            for (Task dependent : dependencies.getDependents(task)) {
+                removeBlocker(dependent, task.getId());
+            }
+            if (unstore(task.getId())) {
+                journal.removed(task);
+                for (TaskListener l : listeners) {
+                    l.taskRemoved(task);
+                }
+            }
+        } finally {
+            journal.end();
+            unlockWrite();
+        }
+    }
+
+    /**
+     * True if this task is on the board. Changes to a task that another
+     * thread has just removed are ignored — otherwise the operation log would
+     * record an edit of a deleted task, and replaying it would bring it back.
+     * It must be the board's own object: a copy (e.g. task.snapshot()) with
+     * the same id is not on the board. Call with the write lock held.
+     */
+    private boolean isManaged(Task task) {
+        return task != null && task.getId() != 0 && board.get(task.getId()) == task;
+    }
+
+    /**
+     * Copies the editable fields (title, assignee, due date, type, priority,
+     * recurrence) from "changes" onto an existing task.
+     *
+     * Called when the user presses "Save" in TaskDialog.
+     * Edits should always go through here (not the Task setters directly),
+     * so that indexes stay up to date.
+     * Tasks that are not (or no longer) on the board are left alone.
+     */
+    public void updateTask(Task task, Task changes) {
+        if (changes == null) {
+            return;
+        }
+        change("Edit", task, ANY_VERSION, false, copy -> {
+            copy.applyEdit(changes);
+            return true;
+        });
+    }
+
+    /**
+     * Same as updateTask(task, changes), but only if the task is still at
+     * expectedVersion (the task.getVersion() read when editing started).
+     *
+     * Returns:
+     *  - APPLIED if the edit was saved
+     *  - CONFLICT if the task was changed in between (nothing is changed;
+     *    the result holds the task as it is now, and its version can be
+     *    passed back to overwrite on purpose)
+     *  - NOT_FOUND if the task is not on the board
+     */
+    public UpdateResult updateTask(Task task, Task changes, long expectedVersion) {
+        if (changes == null) {
+            throw new IllegalArgumentException("changes must not be null");
+        }
+        switch (change("Edit", task, expectedVersion, false, copy -> {
+            copy.applyEdit(changes);
+            return true;
+        })) {
+            case CHANGED:
+                return UpdateResult.applied(task);
+            case CONFLICT:
+                return UpdateResult.conflict(task);
+            default:
+                return UpdateResult.notFound();
+        }
     }
 
     /**
@@ -65,22 +353,826 @@ public class TaskManager {
      *
      * The task isn't removed — only its state changes.
      * GUI uses this to update color + progress bar.
+     *
+     * For a recurring task only the NEXT open occurrence is completed;
+     * the task moves on to the following date.
+     *
+     * Returns true if THIS call completed the task (false if it was
+     * already done, or is not on the board). When several users press
+     * "Complete" at the same time, exactly one of them gets true.
+     */
+    public boolean markComplete(Task task) {
+        LocalDate today = Today.get();
+        // A one-off task is reported even when it was already done: the
+        // operation log records every request (see WriteBehindLog)
+        boolean reportUnchanged = task != null && !task.isRecurring();
+        return change("Complete", task, ANY_VERSION, reportUnchanged, copy -> {
+            if (copy.isRecurring()) {
+                LocalDate next = copy.getNextDueDate();
+                return next != null && copy.completeOccurrence(next);
+            }
+            return copy.completeOn(today);
+        }) == Outcome.CHANGED;
+    }
+
+    /**
+     * Marks one dated occurrence of a recurring task as done
+     * (for example a chore that was done ahead of time).
+     */
+    public void completeOccurrence(Task task, LocalDate date) {
+        if (date != null) {
+            change("Complete", task, ANY_VERSION, false, copy -> copy.completeOccurrence(date));
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Changing one task without the board lock
+    // ───────────────────────────────────────────────
+
+    /** expectedVersion for change(): take whatever version the task is at. */
+    private static final long ANY_VERSION = -1;
+
+    /** What change() did. */
+    private enum Outcome { CHANGED, UNCHANGED, CONFLICT, NOT_FOUND }
+
+    /**
+     * Changes one task in two steps, so the write lock is only held for
+     * the bookkeeping and not for the change itself:
+     *
+     *  1. WITHOUT the board lock ("read, copy, compare-and-set"): take a
+     *     task.snapshot(), let "edit" change the copy (it returns false if
+     *     there is nothing to do, e.g. already completed), and install the
+     *     copy with task.compareAndSet. If another thread changed the task
+     *     in between, start again from a fresh snapshot — or, with an
+     *     expectedVersion, give up with CONFLICT. Two threads editing
+     *     DIFFERENT tasks never wait for each other here, and two threads
+     *     editing the SAME task are put in order by the task's version.
+     *  2. Under the WRITE lock: record the undo step from the two copies
+     *     (before and after, so a change another thread made in between
+     *     is not mixed in), save, and tell the listeners.
+     *
+     * Between the two steps the task already shows the change while the
+     * indexes do not yet. That is short, and it never sticks: every change
+     * reaches step 2, and the listeners look at the task as it is THEN
+     * (not at what changed), so the last one to get there leaves them
+     * matching the task.
+     *
+     * If the task is removed between the two steps, the change stays on
+     * the removed object and NOT_FOUND is returned.
+     */
+    private Outcome change(String action, Task task, long expectedVersion, boolean reportUnchanged,
+                           Predicate<Task> edit) {
+        lock.readLock().lock();
+        try {
+            if (!isManaged(task)) {
+                return Outcome.NOT_FOUND;   // never touch a copy or a task from another board
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Task before;
+        Task after;
+        boolean changed;
+        while (true) {
+            before = task.snapshot();
+            if (expectedVersion != ANY_VERSION && before.getVersion() != expectedVersion) {
+                return Outcome.CONFLICT;
+            }
+            after = before.snapshot();
+            changed = edit.test(after);
+            if (!changed || task.compareAndSet(before.getVersion(), after)) {
+                break;
+            }
+            // Someone else changed the task since the snapshot: try again on their version
+        }
+        if (!changed && !reportUnchanged) {
+            return Outcome.UNCHANGED;
+        }
+
+        lock.writeLock().lock();
+        journal.begin(describe(action, before));   // named as the user saw it
+        try {
+            if (!isManaged(task)) {
+                return Outcome.NOT_FOUND;
+            }
+            if (changed) {
+                journal.changed(task, before, after);
+            }
+            fireUpdated(task);
+            return changed ? Outcome.CHANGED : Outcome.UNCHANGED;
+        } finally {
+            journal.end();
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Runs many changes as ONE step: the write lock is taken once for the
+     * whole batch instead of once per change.
+     *
+     * Why?
+     *  - Other threads (the GUI, a change feed reader) see either none or
+     *    all of the batch, never half of it
+     *  - Locking is reentrant, so the addTask/updateTask calls inside only
+     *    bump a counter instead of competing for the lock each time
+     *
+     * Keep batches short (BatchRunner uses a few thousand commands):
+     * everyone else waits until the batch is done.
+     *
+     * The whole batch is also ONE undo step: undo() takes all of it back.
+     */
+    public void batch(Runnable changes) {
+        batch("Batch", changes);
+    }
+
+    /** Same as batch(changes), with the name undo/redo show for it (e.g. "Delete 120 tasks"). */
+    public void batch(String label, Runnable changes) {
+        lock.writeLock().lock();
+        journal.begin(label);
+        try {
+            changes.run();
+        } finally {
+            journal.end();
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Applies one operation read back from the operation log
+     * (see WriteBehindLog). Used when a board is opened after a crash.
+     *
+     * Operations hold the FULL task state, so applying one that is
+     * already part of the loaded snapshot changes nothing:
+     *  - ADD / UPDATE of a known id overwrite that task
+     *  - REMOVE of an unknown id is ignored
+     *
+     * Replayed changes are not undoable: the undo journal is cleared.
      */
-    public void markComplete(Task task) {
-        if (task != null) {
-            task.setCompleted(true);
+    public void apply(TaskOperation operation) {
+        lock.writeLock().lock();   // reentrant: addTask/removeTask lock again
+        try {
+            Task existing = board.get(operation.getTaskId());
+            if (operation.getKind() == TaskOperation.Kind.REMOVE) {
+                if (existing != null) {
+                    removeTask(existing);
+                }
+                return;
+            }
+
+            Task state = operation.toTask();
+            if (existing == null) {
+                addTask(state);
+                return;
+            }
+            existing.setTitle(state.getTitle());
+            existing.setAssignee(state.getAssignee());
+            existing.setDueDate(state.getDueDate());
+            existing.setType(state.getType());
+            existing.setPriority(state.getPriority());
+            existing.setRecurrence(state.getRecurrence());
+            existing.setCompleted(state.isCompleted());
+            existing.setCompletedOn(state.getCompletedOn());
+            existing.restoreOccurrences(state.getCompletedThrough(), state.getCompletedExceptions());
+            existing.setBlockedBy(state.getBlockedBy());
+            fireUpdated(existing);
+        } finally {
+            journal.clear();   // also what addTask/removeTask recorded above
+            unlockWrite();
         }
     }
 
+    // ───────────────────────────────────────────────
+    // Dependencies
+    // ───────────────────────────────────────────────
+
     /**
-     * Returns a COPY of the task list.
+     * Makes "task" wait for "blocker". Returns false if that dependency
+     * already exists (or one of the tasks is not on the board).
+     *
+     * Throws IllegalArgumentException if it would create a cycle
+     * (the blocker already waits for the task, directly or indirectly).
+     */
+    public boolean addDependency(Task task, Task blocker) {
+        lock.writeLock().lock();
+        journal.begin(describe("Add dependency to", task));
+        try {
+            if (!isManaged(task) || !isManaged(blocker)
+                    || task.getBlockedBy().contains(blocker.getId())) {
+                return false;
+            }
+            if (!dependencies.addEdge(blocker, task)) {
+                throw new IllegalArgumentException("\"" + blocker.getTitle()
+                        + "\" already waits for \"" + task.getTitle() + "\"");
+            }
+            List<Long> ids = new ArrayList<>(task.getBlockedBy());
+            ids.add(blocker.getId());
+            journal.before(task);
+            task.setBlockedBy(ids);
+            fireUpdated(task);
+            return true;
+        } finally {
+            journal.end();
+            unlockWrite();
+        }
+    }
+
+    /** Removes a dependency. Returns false if there was none. */
+    public boolean removeDependency(Task task, Task blocker) {
+        lock.writeLock().lock();
+        journal.begin(describe("Remove dependency from", task));
+        try {
+            return isManaged(task) && blocker != null && removeBlocker(task, blocker.getId());
+        } finally {
+            journal.end();
+            unlockWrite();
+        }
+    }
+
+    private boolean removeBlocker(Task task, long blockerId) {
+        if (!task.getBlockedBy().contains(blockerId)) {
+            return false;
+        }
+        List<Long> ids = new ArrayList<>(task.getBlockedBy());
+        ids.remove(blockerId);
+        journal.before(task);
+        task.setBlockedBy(ids);
+        fireUpdated(task);
+        return true;
+    }
+
+    /** True if addDependency(task, blocker) would succeed. */
+    public boolean canAddDependency(Task task, Task blocker) {
+        lock.readLock().lock();
+        try {
+            return isManaged(task) && isManaged(blocker) && dependencies.canAdd(blocker, task);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The tasks that must be done before this one. */
+    public List<Task> getBlockers(Task task) {
+        lock.readLock().lock();
+        try {
+            return dependencies.getBlockers(task);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The tasks that wait for this one. */
+    public List<Task> getDependents(Task task) {
+        lock.readLock().lock();
+        try {
+            return dependencies.getDependents(task);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** True if the task still waits for an open blocker. */
+    public boolean isBlocked(Task task) {
+        lock.readLock().lock();
+        try {
+            return dependencies.isBlocked(task);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The earliest date the task can be finished: its due date, or later
+     * if an open blocker is due after it (null = done or no dates).
+     */
+    public LocalDate getEarliestFinish(Task task) {
+        lock.readLock().lock();
+        try {
+            return dependencies.getEarliestFinish(task);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The chain of blockers that decides getEarliestFinish(task),
+     * from the first one to the task itself.
+     */
+    public List<Task> getCriticalPath(Task task) {
+        lock.readLock().lock();
+        try {
+            return dependencies.getCriticalPath(task);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // ARCHIVE (completed tasks off the board)
+    // ───────────────────────────────────────────────
+
+    /**
+     * Uses this archive from now on (e.g. one opened from the board's
+     * archive file). A task that is both on the board and in the archive
+     * (a crash in the middle of archiving or restoring) stays on the board
+     * and is dropped from the archive.
+     */
+    public void setArchive(TaskArchive archive) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Task t : board.values()) {
+                archive.take(t.getId());   // usually not there: nothing to do
+            }
+            this.archive = archive;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    public TaskArchive getArchive() {
+        lock.readLock().lock();
+        try {
+            return archive;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves every task completed BEFORE the cutoff day into the archive,
+     * and returns how many were moved. Recurring tasks stay (they are
+     * never done for good).
+     *
+     * The tasks are safely in the archive before they leave the board;
+     * listeners see them as removed. Tasks they were blocking keep the
+     * blocker's id, and a completed blocker blocks nothing, so nothing
+     * changes for them.
+     *
+     * Moving tasks to the archive cannot be undone: if any were moved, the
+     * undo journal is cleared (an older step might bring one of them back
+     * onto the board while it is also in the archive).
+     */
+    public int archiveCompleted(LocalDate cutoff) throws IOException {
+        lock.writeLock().lock();
+        try {
+            List<Task> old = new ArrayList<>();
+            for (Task t : queryIndex.find(TaskQuery.completed(), Today.get())) {
+                LocalDate on = t.getCompletedOn();
+                if (!t.isRecurring() && on != null && on.isBefore(cutoff)) {
+                    old.add(t);
+                }
+            }
+            archive.add(old);   // throws before anything left the board
+            if (!old.isEmpty()) {
+                journal.clear();
+            }
+            for (Task t : old) {
+                if (unstore(t.getId())) {
+                    for (TaskListener l : listeners) {
+                        l.taskRemoved(t);
+                    }
+                }
+            }
+            return old.size();
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Archived tasks matching a query, as read-only copies (the archive
+     * is searched task by task, so this is slower than findTasks).
+     */
+    public List<Task> findArchived(TaskQuery query) {
+        lock.readLock().lock();
+        try {
+            return archive.find(query, Today.get());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** True if this task is in the archive (not on the board). */
+    public boolean isArchived(Task task) {
+        lock.readLock().lock();
+        try {
+            return task != null && archive.contains(task.getId());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brings an archived task back onto the board (as it was archived,
+     * still completed) and returns the task on the board. Null if the id
+     * is neither archived nor on the board.
+     *
+     * Like archiving, this cannot be undone: the undo journal is cleared.
+     */
+    public Task restore(long id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Task onBoard = board.get(id);
+            if (onBoard != null) {
+                return onBoard;
+            }
+            Task archived = archive.get(id);
+            if (archived == null) {
+                return null;
+            }
+            addTask(archived);        // on the board (and in the log) first,
+            archive.take(id);         // so a crash in between loses nothing
+            journal.clear();
+            return archived;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // UNDO / REDO
+    // ───────────────────────────────────────────────
+
+    /**
+     * Takes back the last change (one user action, or one whole batch) and
+     * returns its name, e.g. "Delete \"Buy milk\"" — null if there is
+     * nothing to undo. A removed task comes back as the SAME object, with
+     * its id; listeners (indexes, the operation log, the history) see the
+     * undo as ordinary adds, removes and updates.
+     *
+     * Cost: O(k) for a step of k changes, whatever the size of the board.
+     */
+    public String undo() {
+        lock.writeLock().lock();
+        try {
+            UndoJournal.Step step = takeStep(true);
+            if (step == null) {
+                return null;
+            }
+            replay(step, true);
+            journal.undone(step);
+            return step.label;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /** Does the last undone change again; returns its name, or null. */
+    public String redo() {
+        lock.writeLock().lock();
+        try {
+            UndoJournal.Step step = takeStep(false);
+            if (step == null) {
+                return null;
+            }
+            replay(step, false);
+            journal.redone(step);
+            return step.label;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * What can be undone or redone, and its memory budget. Read it on the
+     * thread that makes the changes (the EDT).
+     */
+    public UndoJournal getUndoJournal() {
+        return journal;
+    }
+
+    private UndoJournal.Step takeStep(boolean undo) {
+        if (journal.isRecording()) {
+            throw new IllegalStateException("cannot undo or redo inside a batch");
+        }
+        return undo ? journal.takeUndo() : journal.takeRedo();
+    }
+
+    /**
+     * Plays a step backwards (undo: "before" values, adds become removes)
+     * or forwards (redo). The changes one edit made to one task are
+     * written back together, in UndoJournal.Field order, and reported as
+     * one update.
+     */
+    private void replay(UndoJournal.Step step, boolean undo) {
+        int n = step.size();
+        int direction = undo ? -1 : 1;
+        for (int i = undo ? n - 1 : 0; i >= 0 && i < n; i += direction) {
+            Task task = step.task(i);
+            byte kind = step.kind(i);
+            if (kind == UndoJournal.ADDED || kind == UndoJournal.REMOVED) {
+                if ((kind == UndoJournal.ADDED) != undo) {
+                    store(task);   // same object, same id
+                    for (TaskListener l : listeners) {
+                        l.taskAdded(task);
+                    }
+                } else if (unstore(task.getId())) {
+                    for (TaskListener l : listeners) {
+                        l.taskRemoved(task);
+                    }
+                }
+                continue;
+            }
+
+            // The field changes of one edit: same task, fields in increasing order
+            int first = i;
+            int last = i;
+            if (undo) {
+                while (first > 0 && step.task(first - 1) == task
+                        && step.kind(first - 1) >= 0 && step.kind(first - 1) < step.kind(first)) {
+                    first--;
+                }
+            } else {
+                while (last + 1 < n && step.task(last + 1) == task && step.kind(last + 1) > step.kind(last)) {
+                    last++;
+                }
+            }
+            writeFields(step, first, last, task, undo);
+            fireUpdated(task);
+            i = undo ? first : last;
+        }
+    }
+
+    private static void writeFields(UndoJournal.Step step, int first, int last, Task task, boolean undo) {
+        // Setting the due date or rule tidies up the done occurrences on the
+        // way; if the edit did not change those, they must come out the same
+        Object exceptions = UndoJournal.Field.COMPLETED_EXCEPTIONS.read(task);
+        boolean keepExceptions = true;
+        for (int j = first; j <= last; j++) {
+            UndoJournal.Field field = UndoJournal.Field.of(step.kind(j));
+            field.write(task, undo ? step.before(j) : step.after(j));
+            if (field == UndoJournal.Field.COMPLETED_EXCEPTIONS) {
+                keepExceptions = false;
+            }
+        }
+        if (keepExceptions && !exceptions.equals(UndoJournal.Field.COMPLETED_EXCEPTIONS.read(task))) {
+            UndoJournal.Field.COMPLETED_EXCEPTIONS.write(task, exceptions);
+        }
+    }
+
+    /** A name for an undo step: "Delete \"Buy milk\"". */
+    private static String describe(String action, Task task) {
+        return task == null ? action : action + " \"" + task.getTitle() + "\"";
+    }
+
+    // ───────────────────────────────────────────────
+    // CHANGE FEED
+    // ───────────────────────────────────────────────
+
+    /**
+     * A live feed of every change from now on, to subscribe to from any
+     * thread (see TaskChangeFeed). Created on the first call; the same feed
+     * is returned after that, so offsets stay valid.
+     */
+    public TaskChangeFeed getChangeFeed() {
+        lock.writeLock().lock();
+        try {
+            if (changeFeed == null) {
+                changeFeed = new TaskChangeFeed();
+                listeners.add(changeFeed);
+            }
+            return changeFeed;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // WHAT'S NEXT
+    // ───────────────────────────────────────────────
+
+    /**
+     * How many tasks are due between from and to (both included; null =
+     * no limit on that side). openOnly leaves out completed tasks, so
+     * countDue(null, yesterday, true) is the number of overdue tasks.
+     * O(log days), see DueDateCounter.
+     */
+    public int countDue(LocalDate from, LocalDate to, boolean openOnly) {
+        lock.readLock().lock();
+        try {
+            return dueCounts.count(from, to, openOnly);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** One countDue per day, for "days" days starting at "from" (for calendars). */
+    public int[] countDueByDay(LocalDate from, int days, boolean openOnly) {
+        lock.readLock().lock();
+        try {
+            return dueCounts.countByDay(from, days, openOnly);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The (at most) k open tasks to do next, best first: ranked by due
+     * date and priority (see NextUpQueue). Costs O(k log k), not a sort
+     * of the whole board.
+     */
+    public List<Task> getNextUp(int k) {
+        lock.readLock().lock();
+        try {
+            return nextUp.top(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Changes how getNextUp ranks tasks (see NextUpQueue.Scoring). */
+    public void setNextUpScoring(NextUpQueue.Scoring scoring) {
+        if (scoring == null) {
+            throw new IllegalArgumentException("scoring must not be null");
+        }
+        lock.writeLock().lock();
+        try {
+            nextUp.setScoring(scoring);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * Releases the write lock. Once this thread holds it no more, the
+     * change feed publishes what it queued meanwhile — outside the lock on
+     * purpose: a BLOCK subscriber may hold this thread up, and it must be
+     * able to read the board while it catches up (see TaskChangeFeed).
+     */
+    private void unlockWrite() {
+        lock.writeLock().unlock();
+        TaskChangeFeed feed = changeFeed;
+        if (feed != null && !lock.isWriteLockedByCurrentThread()) {
+            feed.flush();
+        }
+    }
+
+    /** Saves a changed task (write-through) and tells the listeners. */
+    private void fireUpdated(Task task) {
+        journal.updated(task);   // the fields changed since journal.before(task)
+        repository.save(task);
+        for (TaskListener l : listeners) {
+            l.taskUpdated(task);
+        }
+    }
+
+    /**
+     * Returns a COPY of the task list (not cached: callers may change it).
      *
      * Why a copy?
      *  - Prevents the GUI from directly modifying the internal list
      *  - Safer — enforces proper encapsulation
      */
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks);
+        lock.readLock().lock();
+        try {
+            return board.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the task with this id, or null. */
+    public Task getTask(long id) {
+        lock.readLock().lock();
+        try {
+            return board.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks matching a filter query, in the order they were added.
+     * Uses the bitmap index, so it does not loop over every task.
+     *
+     * The list is READ-ONLY: the same answer is handed out again (from the
+     * QueryCache) until a change touches what the query looks at.
+     */
+    public List<Task> findTasks(TaskQuery query) {
+        lock.readLock().lock();
+        try {
+            return queryCache.find(query, Today.get(), queryIndex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like findTasks(query), but returns at most "limit" tasks (the first
+     * ones added). Use countTasks for the total. Also read-only and cached.
+     */
+    public List<Task> findTasks(TaskQuery query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative: " + limit);
+        }
+        lock.readLock().lock();
+        try {
+            return queryCache.find(query, limit, Today.get(), queryIndex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns how many tasks match a filter query.
+     */
+    public int countTasks(TaskQuery query) {
+        lock.readLock().lock();
+        try {
+            return queryIndex.count(query, Today.get());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every occurrence due between from and to (both inclusive),
+     * sorted by date.
+     *
+     * Recurring tasks are expanded ONLY for this window, so asking for
+     * next week never creates next year's copies.
+     */
+    public List<TaskOccurrence> getOccurrences(LocalDate from, LocalDate to) {
+        List<TaskOccurrence> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Task t : board.values()) {
+                if (t.isRecurring()) {
+                    for (LocalDate date : t.getRecurrence().occurrencesBetween(t.getDueDate(), from, to)) {
+                        result.add(new TaskOccurrence(t, date, t.isOccurrenceCompleted(date)));
+                    }
+                } else if (t.getDueDate() != null
+                        && !t.getDueDate().isBefore(from) && !t.getDueDate().isAfter(to)) {
+                    result.add(new TaskOccurrence(t, t.getDueDate(), t.isCompleted()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparing(TaskOccurrence::getDate));
+        return result;
+    }
+
+    public TaskQueryIndex getQueryIndex() {
+        return queryIndex;
+    }
+
+    /**
+     * Runs "reader" with the query index under the read lock, for code
+     * that walks every task by slot (TaskQueryIndex.taskAt) instead of
+     * copying the list with getTasks() — see ReportEngine. The reader
+     * may hand the index to other threads until it returns: nothing can
+     * change it while the lock is held.
+     */
+    <T> T readIndex(Function<TaskQueryIndex, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(queryIndex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The findTasks cache, for its hit rate and memory budget. */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * A counter that goes up with every change to the board. If it has
+     * not moved, nothing changed — e.g. an API client can use it as an
+     * ETag ("has anything changed since version 1234?").
+     */
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return queryIndex.getVersion();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A counter that only goes up when a change could move a task in or
+     * out of a query that reads this attribute. E.g. renaming a task
+     * moves getVersion() but not getVersion(PRIORITY).
+     */
+    public long getVersion(TaskQuery.Attribute attribute) {
+        lock.readLock().lock();
+        try {
+            return queryIndex.getVersion(attribute);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public TaskDependencyGraph getDependencyGraph() {
+        return dependencies;
+    }
+
+    public TaskSuggestions getSuggestions() {
+        return suggestions;
     }
 
     /**
@@ -89,7 +1181,12 @@ public class TaskManager {
      * Used by the GUI for displaying stats.
      */
     public int getTotalCount() {
-        return tasks.size();
+        lock.readLock().lock();
+        try {
+            return board.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -98,13 +1195,13 @@ public class TaskManager {
      * Used to calculate percentage + dashboard text.
      */
     public int getCompletedCount() {
-        int count = 0;
-        for (Task t : tasks) {
-            if (t.isCompleted()) {
-                count++;
-            }
+        lock.readLock().lock();
+        try {
+            // The index knows without reading any task
+            return queryIndex.count(TaskQuery.completed(), Today.get());
+        } finally {
+            lock.readLock().unlock();
         }
-        return count;
     }
 
     /**
@@ -113,11 +1210,18 @@ public class TaskManager {
      * Used by the GUI to update the progress bar.
      */
     public double getCompletionPercent() {
-        int total = getTotalCount();
+        // One read lock for both counts, so another thread can't change
+        // the board between them (reentrant: the getters lock again)
+        lock.readLock().lock();
+        try {
+            int total = getTotalCount();
 
-        if (total == 0)
-            return 0.0;  // avoid division by zero
+            if (total == 0)
+                return 0.0;  // avoid division by zero
 
-        return (getCompletedCount() * 100.0) / total;
+            return (getCompletedCount() * 100.0) / total;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 }
@@ -167,4 +167,218 @@ class TaskManagerTest {
         TaskManager manager = new TaskManager();
         assertEquals(0.0, manager.getCompletionPercent());
     }
+
+    /**
+     * Tests that added tasks get unique ids, and that tasks which
+     * already have an id (loaded from a file) keep it.
+     */
+    @Test
+    void testAddTaskAssignsIds() {
+        TaskManager manager = new TaskManager();
+        Task loaded = new Task("Loaded");
+        loaded.setId(10);
+        Task fresh = new Task("Fresh");
+
+        manager.addTask("First");
+        manager.addTask(loaded);
+        manager.addTask(fresh);
+
+        assertEquals(1, manager.getTasks().get(0).getId());
+        assertEquals(10, loaded.getId());
+        assertEquals(11, fresh.getId(), "New ids continue after the highest loaded id");
+    }
+
+    /**
+     * Tests that updateTask copies the edited fields and tells listeners.
+     */
+    @Test
+    void testUpdateTaskNotifiesListeners() {
+        TaskManager manager = new TaskManager();
+        Task t = new Task("Old");
+        manager.addTask(t);
+        List<Task> updated = new java.util.ArrayList<>();
+        manager.addListener(new TaskListener() {
+            @Override
+            public void taskUpdated(Task task) {
+                updated.add(task);
+            }
+        });
+
+        LocalDate date = LocalDate.of(2026, 2, 2);
+        manager.updateTask(t, new Task("New", "Sam", date, "Work", Task.Priority.HIGH));
+
+        assertEquals("New", t.getTitle());
+        assertEquals("Sam", t.getAssignee());
+        assertEquals(date, t.getDueDate());
+        assertEquals(Task.Priority.HIGH, t.getPriority());
+        assertEquals(List.of(t), updated);
+    }
+
+    /**
+     * An edit or completion of a task that was already removed (for example
+     * by another thread) must not reach the listeners — the operation log
+     * would otherwise bring the task back when it is replayed.
+     */
+    @Test
+    void testChangesToRemovedTaskAreIgnored() {
+        TaskManager manager = new TaskManager();
+        Task t = new Task("Gone");
+        manager.addTask(t);
+        manager.removeTask(t);
+        List<Task> updated = new java.util.ArrayList<>();
+        manager.addListener(new TaskListener() {
+            @Override
+            public void taskUpdated(Task task) {
+                updated.add(task);
+            }
+        });
+
+        manager.updateTask(t, new Task("Back again"));
+        manager.markComplete(t);
+
+        assertEquals("Gone", t.getTitle());
+        assertFalse(t.isCompleted());
+        assertTrue(updated.isEmpty());
+    }
+
+    /**
+     * Tasks added from several threads at once all get different ids,
+     * and the query index agrees with the task list.
+     */
+    @Test
+    void testConcurrentAddsGetUniqueIds() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        Thread[] threads = new Thread[4];
+        for (int n = 0; n < threads.length; n++) {
+            threads[n] = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    manager.addTask(TaskBenchmarks.sampleTask(i));
+                    manager.countTasks(TaskQuery.pending());
+                }
+            });
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8_000, manager.getTotalCount());
+        assertEquals(8_000, manager.getTasks().stream().mapToLong(Task::getId).distinct().count());
+        assertEquals(manager.getTasks(), manager.findTasks(TaskQuery.all()));
+    }
+
+    /**
+     * An edit based on an old version is refused with a CONFLICT that shows
+     * the task as it is now; retrying with that version overwrites it.
+     */
+    @Test
+    void testUpdateWithStaleVersionConflicts() {
+        TaskManager manager = new TaskManager();
+        Task task = new Task("Original", "Alice", LocalDate.of(2025, 6, 1), "Work", Task.Priority.LOW);
+        manager.addTask(task);
+        long seenByBob = task.getVersion();
+
+        // Alice edits first
+        Task alice = new Task("Alice's title", "Alice", task.getDueDate(), "Work", Task.Priority.HIGH);
+        assertTrue(manager.updateTask(task, alice, task.getVersion()).isApplied());
+
+        // Bob's edit is based on the version before Alice's
+        Task bob = new Task("Bob's title", "Bob", task.getDueDate(), "Home", Task.Priority.MEDIUM);
+        UpdateResult result = manager.updateTask(task, bob, seenByBob);
+        assertEquals(UpdateResult.Status.CONFLICT, result.getStatus());
+        assertEquals("Alice's title", result.getCurrent().getTitle());
+        assertEquals("Alice's title", task.getTitle(), "nothing was changed");
+
+        // Bob overwrites on purpose
+        assertTrue(manager.updateTask(task, bob, result.getVersion()).isApplied());
+        assertEquals("Bob's title", task.getTitle());
+        assertEquals(List.of(task), manager.findTasks(TaskQuery.assigneeIs("Bob")));
+
+        manager.removeTask(task);
+        assertEquals(UpdateResult.Status.NOT_FOUND,
+                manager.updateTask(task, alice, task.getVersion()).getStatus());
+    }
+
+    /**
+     * Many threads add 1 to a counter in the title, each retrying on
+     * CONFLICT. No increment may be lost.
+     */
+    @Test
+    void testOptimisticUpdatesLoseNothing() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        Task counter = new Task("0", "Alice", LocalDate.of(2025, 6, 1), "Work", Task.Priority.LOW);
+        manager.addTask(counter);
+
+        Thread[] threads = new Thread[4];
+        for (int n = 0; n < threads.length; n++) {
+            threads[n] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    UpdateResult result;
+                    do {
+                        Task current = counter.snapshot();
+                        Task changes = current.snapshot();
+                        changes.setTitle(String.valueOf(Integer.parseInt(current.getTitle()) + 1));
+                        result = manager.updateTask(counter, changes, current.getVersion());
+                    } while (!result.isApplied());
+                }
+            });
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("4000", counter.getTitle());
+    }
+
+    /**
+     * Edits and completions change the task before they take the write
+     * lock. However the threads interleave, the indexes must end up
+     * matching the tasks, and undo must take every step back exactly.
+     */
+    @Test
+    void testChangesOutsideTheLockKeepIndexesAndUndoExact() throws InterruptedException {
+        TaskManager manager = new TaskManager();
+        manager.getUndoJournal().setMaxBytes(Long.MAX_VALUE);
+        for (int i = 0; i < 20; i++) {
+            manager.addTask(new Task("T" + i, "", null, "Work", Task.Priority.LOW));
+        }
+        List<Task> tasks = manager.getTasks();
+        manager.getUndoJournal().clear();
+
+        Thread[] threads = new Thread[4];
+        for (int n = 0; n < threads.length; n++) {
+            int seed = n;
+            threads[n] = new Thread(() -> {
+                java.util.Random random = new java.util.Random(seed);
+                for (int i = 0; i < 2_000; i++) {
+                    Task task = tasks.get(random.nextInt(tasks.size()));
+                    if (random.nextInt(10) == 0) {
+                        manager.markComplete(task);
+                    } else {
+                        Task changes = task.snapshot();
+                        changes.setPriority(Task.Priority.values()[random.nextInt(3)]);
+                        manager.updateTask(task, changes);
+                    }
+                }
+            });
+            threads[n].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Task.Priority p : Task.Priority.values()) {
+            long expected = tasks.stream().filter(t -> t.getPriority() == p).count();
+            assertEquals(expected, manager.findTasks(TaskQuery.priorityIn(p)).size(), p.name());
+        }
+        assertEquals(manager.getCompletedCount(), manager.findTasks(TaskQuery.completed()).size());
+
+        while (manager.undo() != null) {
+            // take back every edit and completion
+        }
+        for (Task t : tasks) {
+            assertEquals(Task.Priority.LOW, t.getPriority());
+            assertFalse(t.isCompleted());
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package tasktracker;
+
+import java.time.LocalDate;
+
+/**
+ * TaskOccurrence is ONE dated occurrence of a task, for example
+ * "Weekly report — 2026-03-09".
+ *
+ * One-off tasks have exactly one occurrence (their due date).
+ * Recurring tasks have one per date their Recurrence rule produces.
+ *
+ * Occurrences are small throw-away views created by
+ * TaskManager.getOccurrences(from, to) for the window being looked at.
+ * They are never stored: the real data stays in the Task.
+ */
+public final class TaskOccurrence {
+
+    private final Task task;
+    private final LocalDate date;
+    private final boolean completed;
+
+    public TaskOccurrence(Task task, LocalDate date, boolean completed) {
+        this.task = task;
+        this.date = date;
+        this.completed = completed;
+    }
+
+    public Task getTask() { return task; }
+    public LocalDate getDate() { return date; }
+    public boolean isCompleted() { return completed; }
+
+    @Override
+    public String toString() {
+        return (completed ? "✔ " : "✘ ") + date + " " + task.getTitle();
+    }
+}
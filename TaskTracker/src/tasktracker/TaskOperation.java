@@ -0,0 +1,143 @@
+package tasktracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * TaskOperation is ONE change to the board, as it is written to the
+ * operation log (see WriteBehindLog):
+ *  - ADD     a new task, with all its fields
+ *  - UPDATE  the new state of an existing task, with all its fields
+ *  - REMOVE  only the task id
+ *
+ * Why store the WHOLE task on an update instead of just the changed field?
+ *  - Replaying the same operation twice gives the same result.
+ *    After a crash we may not know exactly which operations are already
+ *    in the last snapshot — with full states that doesn't matter.
+ *  - An older update of a task can be thrown away as soon as a newer one
+ *    exists (useful for compacting the log).
+ *
+ * The task is encoded into bytes when the operation is CREATED, on the
+ * thread that changed the task. Later changes to the Task object can't
+ * leak into an operation that is still waiting to be written.
+ */
+public final class TaskOperation {
+
+    public enum Kind { ADD, UPDATE, REMOVE }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final Kind kind;
+    private final long taskId;
+    private final byte[] state;   // SnapshotCodec task record, null for REMOVE
+
+    private TaskOperation(Kind kind, long taskId, byte[] state) {
+        this.kind = kind;
+        this.taskId = taskId;
+        this.state = state;
+    }
+
+    public static TaskOperation added(Task task) {
+        return new TaskOperation(Kind.ADD, task.getId(), encode(task));
+    }
+
+    public static TaskOperation updated(Task task) {
+        // A snapshot: another thread may be changing the task right now (see TaskManager)
+        return new TaskOperation(Kind.UPDATE, task.getId(), encode(task.snapshot()));
+    }
+
+    public static TaskOperation removed(Task task) {
+        return new TaskOperation(Kind.REMOVE, task.getId(), null);
+    }
+
+    public Kind getKind() { return kind; }
+    public long getTaskId() { return taskId; }
+
+    /**
+     * Returns a NEW Task holding the state stored in this operation
+     * (null for REMOVE).
+     */
+    public Task toTask() {
+        if (state == null) {
+            return null;
+        }
+        try {
+            return SnapshotCodec.readTaskRecord(new ByteArrayInputStream(state));
+        } catch (IOException e) {
+            // The bytes were checked when the operation was read
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Size of the encoded operation in bytes (without log framing). */
+    int encodedSize() {
+        return 1 + varLongSize(taskId) + (state == null ? 0 : state.length);
+    }
+
+    // ───────────────────────────────────────────────
+    // Encoding:  kind | task id | [task record]
+    // ───────────────────────────────────────────────
+
+    byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encodedSize());
+        try {
+            out.write(kind.ordinal());
+            SnapshotCodec.writeVarLong(out, taskId);
+            if (state != null) {
+                out.write(state);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // ByteArrayOutputStream never throws
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an operation and checks that the task record inside is valid.
+     */
+    static TaskOperation fromBytes(byte[] bytes) throws IOException {
+        InputStream in = new ByteArrayInputStream(bytes);
+        int kind = SnapshotCodec.readByte(in);
+        if (kind >= KINDS.length) {
+            throw new IOException("Corrupt operation: bad kind " + kind);
+        }
+        long taskId = SnapshotCodec.readVarLong(in);
+
+        byte[] state = null;
+        if (KINDS[kind] != Kind.REMOVE) {
+            state = in.readAllBytes();
+            Task task = SnapshotCodec.readTaskRecord(new ByteArrayInputStream(state));
+            if (task.getId() != taskId) {
+                throw new IOException("Corrupt operation: id mismatch");
+            }
+        }
+        return new TaskOperation(KINDS[kind], taskId, state);
+    }
+
+    private static byte[] encode(Task task) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try {
+            SnapshotCodec.writeTaskRecord(out, task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " #" + taskId;
+    }
+}
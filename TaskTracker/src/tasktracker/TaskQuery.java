@@ -0,0 +1,451 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A TaskQuery describes WHICH tasks to show, for example:
+ *
+ *   TaskQuery.priorityIn(HIGH, MEDIUM)
+ *            .and(TaskQuery.typeIs("Work"))
+ *            .and(TaskQuery.overdue())
+ *            .and(TaskQuery.completed().not())
+ *
+ * A query is only a description — it does not look at any tasks by itself.
+ * TaskQueryIndex "compiles" it into fast bitmap operations, and
+ * matches(...) can check a single task directly.
+ *
+ * Queries are immutable and have equals/hashCode, so they can be used
+ * as map keys. attributes() says which task fields the answer depends
+ * on, so a cached answer can be kept while only other fields change
+ * (see QueryCache).
+ */
+public abstract class TaskQuery {
+
+    private TaskQuery() {
+        // only the nested classes below extend TaskQuery
+    }
+
+    // ───────────────────────────────────────────────
+    // Building queries
+    // ───────────────────────────────────────────────
+
+    /** Matches every task. */
+    public static TaskQuery all() {
+        return All.INSTANCE;
+    }
+
+    /** Matches completed tasks. */
+    public static TaskQuery completed() {
+        return Completed.INSTANCE;
+    }
+
+    /** Matches tasks that are not completed yet. */
+    public static TaskQuery pending() {
+        return completed().not();
+    }
+
+    /** Matches tasks with any of the given priorities. */
+    public static TaskQuery priorityIn(Task.Priority... priorities) {
+        return new PriorityIn(priorities.length == 0
+                ? EnumSet.noneOf(Task.Priority.class)
+                : EnumSet.copyOf(Arrays.asList(priorities)));
+    }
+
+    /** Matches tasks whose type is exactly the given text. */
+    public static TaskQuery typeIs(String type) {
+        return new FieldIs(Field.TYPE, type == null ? "" : type);
+    }
+
+    /** Matches tasks whose assignee is exactly the given text. */
+    public static TaskQuery assigneeIs(String assignee) {
+        return new FieldIs(Field.ASSIGNEE, assignee == null ? "" : assignee);
+    }
+
+    /**
+     * Matches tasks due before today (tasks without a due date never match).
+     * Recurring tasks count with their next open occurrence.
+     */
+    public static TaskQuery overdue() {
+        return new DueBetween(null, null, true);
+    }
+
+    /** Matches tasks due between the two dates (both included), like overdue(). */
+    public static TaskQuery dueBetween(LocalDate from, LocalDate to) {
+        return new DueBetween(Objects.requireNonNull(from), Objects.requireNonNull(to), false);
+    }
+
+    public TaskQuery and(TaskQuery other) {
+        return new Combined(true, this, other);
+    }
+
+    public TaskQuery or(TaskQuery other) {
+        return new Combined(false, this, other);
+    }
+
+    public TaskQuery not() {
+        return new Not(this);
+    }
+
+    // ───────────────────────────────────────────────
+    // Using queries
+    // ───────────────────────────────────────────────
+
+    /**
+     * Checks one task directly (no index needed).
+     * "today" is used by date-relative queries such as overdue().
+     */
+    public abstract boolean matches(Task task, LocalDate today);
+
+    /**
+     * Turns the query into a bitmap of matching slots.
+     * Called by TaskQueryIndex — the returned bitmap must not be modified.
+     */
+    abstract CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today);
+
+    /** True if the answer depends on today's date. */
+    boolean dependsOnToday() {
+        return false;
+    }
+
+    /**
+     * The attributes the answer depends on. Always includes TASKS (adding
+     * or removing a task can change any answer).
+     */
+    public Set<Attribute> attributes() {
+        Set<Attribute> into = EnumSet.of(Attribute.TASKS);
+        addAttributes(into);
+        return into;
+    }
+
+    /** Adds the attributes this query reads. */
+    void addAttributes(Set<Attribute> into) {
+        // all() reads nothing but the set of tasks
+    }
+
+    // ───────────────────────────────────────────────
+    // The different kinds of queries
+    // ───────────────────────────────────────────────
+
+    /** The task fields a FieldIs query can test. */
+    enum Field { ASSIGNEE, TYPE }
+
+    /**
+     * What a query answer can depend on. TaskManager keeps a version
+     * counter for each (see TaskManager.getVersion).
+     */
+    public enum Attribute {
+        /** Which tasks are on the board (adds and removes). */
+        TASKS,
+        COMPLETED,
+        PRIORITY,
+        TYPE,
+        ASSIGNEE,
+        /** The due date (for recurring tasks: the next open occurrence). */
+        DUE_DATE
+    }
+
+    private static final class All extends TaskQuery {
+        static final All INSTANCE = new All();
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            return true;
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            return index.allSlots();
+        }
+
+        @Override
+        public String toString() {
+            return "all";
+        }
+    }
+
+    private static final class Completed extends TaskQuery {
+        static final Completed INSTANCE = new Completed();
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            return task.isCompleted();
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            return index.completedSlots();
+        }
+
+        @Override
+        void addAttributes(Set<Attribute> into) {
+            into.add(Attribute.COMPLETED);
+        }
+
+        @Override
+        public String toString() {
+            return "completed";
+        }
+    }
+
+    private static final class PriorityIn extends TaskQuery {
+        // A private EnumSet nobody changes. Not wrapped in unmodifiableSet:
+        // EnumSet compares and hashes as a bit mask, the wrapper would use
+        // an iterator (garbage on every cache lookup)
+        private final EnumSet<Task.Priority> priorities;
+
+        PriorityIn(EnumSet<Task.Priority> priorities) {
+            this.priorities = priorities;
+        }
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            return priorities.contains(task.getPriority());
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            List<CompressedBitmap> parts = new ArrayList<>();
+            for (Task.Priority p : priorities) {
+                parts.add(index.prioritySlots(p));
+            }
+            return parts.size() == 1 ? parts.get(0) : CompressedBitmap.orAll(parts);
+        }
+
+        @Override
+        void addAttributes(Set<Attribute> into) {
+            into.add(Attribute.PRIORITY);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PriorityIn && ((PriorityIn) o).priorities.equals(priorities);
+        }
+
+        @Override
+        public int hashCode() {
+            return priorities.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "priority in " + priorities;
+        }
+    }
+
+    private static final class FieldIs extends TaskQuery {
+        private final Field field;
+        private final String value;
+
+        FieldIs(Field field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            String actual = field == Field.TYPE ? task.getType() : task.getAssignee();
+            return value.equals(actual);
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            return index.fieldSlots(field, value);
+        }
+
+        @Override
+        void addAttributes(Set<Attribute> into) {
+            into.add(field == Field.TYPE ? Attribute.TYPE : Attribute.ASSIGNEE);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FieldIs)) return false;
+            FieldIs other = (FieldIs) o;
+            return field == other.field && value.equals(other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return field.hashCode() * 31 + value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return field.name().toLowerCase() + " = " + value;
+        }
+    }
+
+    /**
+     * Due date range. When "beforeToday" is set, the range is
+     * "everything before today" and from/to are ignored.
+     */
+    private static final class DueBetween extends TaskQuery {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final boolean beforeToday;
+        private final int hash;
+
+        DueBetween(LocalDate from, LocalDate to, boolean beforeToday) {
+            this.from = from;
+            this.to = to;
+            this.beforeToday = beforeToday;
+            this.hash = Objects.hash(from, to, beforeToday);
+        }
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            LocalDate due = task.getNextDueDate();
+            if (due == null) return false;
+            if (beforeToday) return due.isBefore(today);
+            return !due.isBefore(from) && !due.isAfter(to);
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            if (beforeToday) {
+                return index.dueSlots(Long.MIN_VALUE, today.toEpochDay() - 1);
+            }
+            return index.dueSlots(from.toEpochDay(), to.toEpochDay());
+        }
+
+        @Override
+        boolean dependsOnToday() {
+            return beforeToday;
+        }
+
+        @Override
+        void addAttributes(Set<Attribute> into) {
+            into.add(Attribute.DUE_DATE);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DueBetween)) return false;
+            DueBetween other = (DueBetween) o;
+            return beforeToday == other.beforeToday
+                    && Objects.equals(from, other.from) && Objects.equals(to, other.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return beforeToday ? "overdue" : "due " + from + ".." + to;
+        }
+    }
+
+    private static final class Combined extends TaskQuery {
+        private final boolean isAnd;   // true = AND, false = OR
+        private final TaskQuery left;
+        private final TaskQuery right;
+        private final int hash;   // worked out once: queries are map keys (QueryCache)
+
+        Combined(boolean isAnd, TaskQuery left, TaskQuery right) {
+            this.isAnd = isAnd;
+            this.left = Objects.requireNonNull(left);
+            this.right = Objects.requireNonNull(right);
+            this.hash = Objects.hash(isAnd, left, right);
+        }
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            return isAnd
+                    ? left.matches(task, today) && right.matches(task, today)
+                    : left.matches(task, today) || right.matches(task, today);
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            // "x AND NOT y" is done in one step instead of building NOT y first
+            if (isAnd && right instanceof Not) {
+                return left.evaluate(index, today).andNot(((Not) right).inner.evaluate(index, today));
+            }
+            if (isAnd && left instanceof Not) {
+                return right.evaluate(index, today).andNot(((Not) left).inner.evaluate(index, today));
+            }
+            CompressedBitmap a = left.evaluate(index, today);
+            CompressedBitmap b = right.evaluate(index, today);
+            return isAnd ? a.and(b) : a.or(b);
+        }
+
+        @Override
+        boolean dependsOnToday() {
+            return left.dependsOnToday() || right.dependsOnToday();
+        }
+
+        @Override
+        void addAttributes(Set<Attribute> into) {
+            left.addAttributes(into);
+            right.addAttributes(into);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Combined)) return false;
+            Combined other = (Combined) o;
+            return isAnd == other.isAnd && left.equals(other.left) && right.equals(other.right);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + (isAnd ? " AND " : " OR ") + right + ")";
+        }
+    }
+
+    private static final class Not extends TaskQuery {
+        private final TaskQuery inner;
+
+        Not(TaskQuery inner) {
+            this.inner = Objects.requireNonNull(inner);
+        }
+
+        @Override
+        public boolean matches(Task task, LocalDate today) {
+            return !inner.matches(task, today);
+        }
+
+        @Override
+        CompressedBitmap evaluate(TaskQueryIndex index, LocalDate today) {
+            return index.allSlots().andNot(inner.evaluate(index, today));
+        }
+
+        @Override
+        boolean dependsOnToday() {
+            return inner.dependsOnToday();
+        }
+
+        @Override
+        void addAttributes(Set<Attribute> into) {
+            inner.addAttributes(into);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Not && ((Not) o).inner.equals(inner);
+        }
+
+        @Override
+        public int hashCode() {
+            return ~inner.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + inner;
+        }
+    }
+}
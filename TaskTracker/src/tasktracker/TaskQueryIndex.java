@@ -0,0 +1,424 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * TaskQueryIndex answers TaskQuery questions without looking at every task.
+ *
+ * Every task gets a SLOT number when it is added (0, 1, 2, ... in the
+ * order tasks were added). For every attribute VALUE we keep a
+ * CompressedBitmap of the slots that have it, e.g.
+ *
+ *   priority HIGH   → {0, 4, 7, ...}
+ *   type "Work"     → {1, 4, 9, ...}
+ *   completed       → {2, 3, 4, ...}
+ *   due 2025-03-01  → {7, 12, ...}
+ *
+ * A query like "HIGH and Work and not completed" then becomes
+ * (HIGH ∧ Work) ∖ completed — a few bitmap operations instead of a
+ * loop over millions of tasks.
+ *
+ * Slots are never reused, so results come back in the order the tasks
+ * were added (the same order as TaskManager.getTasks()). Once more than
+ * half of all slots belong to removed tasks, the live tasks are renumbered
+ * 0, 1, 2, ... (same order) — otherwise a board with lots of adds and
+ * deletes would grow the slot arrays forever. So slot numbers from
+ * evaluate(...) are only valid until the next change.
+ *
+ * TaskManager registers the index as a TaskListener, so it is updated on
+ * every add, remove and edit. This class is NOT thread-safe.
+ *
+ * Version counters: while updating the bitmaps the index sees exactly
+ * which attribute of a task changed (it still holds the old values). So
+ * it counts changes per TaskQuery.Attribute, plus one counter for every
+ * change at all. A cached query answer stays valid as long as the
+ * counters of the attributes it reads have not moved (see QueryCache).
+ */
+public class TaskQueryIndex implements TaskListener {
+
+    private static final long NO_DUE_DATE = Long.MIN_VALUE;
+
+    /** Due dates are also grouped into blocks of this many days (see dueSlots). */
+    private static final int DAYS_PER_BLOCK = 32;
+
+    /** Never renumber for fewer removed slots than this (not worth it). */
+    private static final int MIN_SLOTS_TO_RECLAIM = 1024;
+
+    // ==== Slot bookkeeping ====
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final List<Task> taskBySlot = new ArrayList<>();   // null = removed
+    private int removedSlots = 0;
+
+    // The values each slot was indexed with, so they can be un-indexed later
+    // (the Task itself may already hold the NEW values when we are told about an edit).
+    private Task.Priority[] slotPriority = new Task.Priority[16];
+    private String[] slotType = new String[16];
+    private String[] slotAssignee = new String[16];
+    private long[] slotDue = new long[16];
+
+    // ==== Version counters ====
+    private long version = 0;                                   // any change
+    private final long[] versions = new long[TaskQuery.Attribute.values().length];
+
+    // ==== Bitmaps ====
+    private final CompressedBitmap all = new CompressedBitmap();
+    private final CompressedBitmap completed = new CompressedBitmap();
+    private final CompressedBitmap[] byPriority = new CompressedBitmap[Task.Priority.values().length];
+    private final Map<String, CompressedBitmap> byType = new HashMap<>();
+    private final Map<String, CompressedBitmap> byAssignee = new HashMap<>();
+    private final NavigableMap<Long, CompressedBitmap> byDueDay = new TreeMap<>();
+    private final NavigableMap<Long, CompressedBitmap> byDueBlock = new TreeMap<>();
+
+    public TaskQueryIndex() {
+        for (int i = 0; i < byPriority.length; i++) {
+            byPriority[i] = new CompressedBitmap();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Running queries
+    // ───────────────────────────────────────────────
+
+    /**
+     * Returns the matching tasks, in the order they were added.
+     */
+    public List<Task> find(TaskQuery query, LocalDate today) {
+        CompressedBitmap result = query.evaluate(this, today);
+        List<Task> tasks = new ArrayList<>(result.cardinality());
+        result.forEach(slot -> tasks.add(taskBySlot.get(slot)));
+        return tasks;
+    }
+
+    /**
+     * Returns only the first "limit" matching tasks, for callers that show
+     * one page of a big result (no list of every match is built).
+     */
+    public List<Task> find(TaskQuery query, LocalDate today, int limit) {
+        CompressedBitmap result = query.evaluate(this, today);
+        List<Task> tasks = new ArrayList<>(Math.min(limit, result.cardinality()));
+        result.forEach(slot -> {
+            if (tasks.size() < limit) {
+                tasks.add(taskBySlot.get(slot));
+            }
+        });
+        return tasks;
+    }
+
+    /**
+     * Returns how many tasks match.
+     */
+    public int count(TaskQuery query, LocalDate today) {
+        return query.evaluate(this, today).cardinality();
+    }
+
+    /**
+     * Returns the matching slots. The bitmap may be shared with the index,
+     * so callers must NOT change it.
+     */
+    public CompressedBitmap evaluate(TaskQuery query, LocalDate today) {
+        return query.evaluate(this, today);
+    }
+
+    /** The task stored in a slot, or null if it was removed. */
+    public Task taskAt(int slot) {
+        return taskBySlot.get(slot);
+    }
+
+    /** Number of slots in use, including removed ones not reclaimed yet. */
+    int slotCount() {
+        return taskBySlot.size();
+    }
+
+    /** Goes up by one (at least) with every change the index is told about. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Goes up whenever a change could move a task in or out of a query reading this attribute. */
+    public long getVersion(TaskQuery.Attribute attribute) {
+        return versions[attribute.ordinal()];
+    }
+
+    private void changed(TaskQuery.Attribute attribute) {
+        versions[attribute.ordinal()]++;
+    }
+
+    /** All distinct types currently in use (for filter dropdowns). */
+    public Set<String> getTypes() {
+        return Collections.unmodifiableSet(byType.keySet());
+    }
+
+    /** All distinct assignees currently in use. */
+    public Set<String> getAssignees() {
+        return Collections.unmodifiableSet(byAssignee.keySet());
+    }
+
+    // ==== Building blocks used by TaskQuery ====
+
+    CompressedBitmap allSlots() {
+        return all;
+    }
+
+    CompressedBitmap completedSlots() {
+        return completed;
+    }
+
+    CompressedBitmap prioritySlots(Task.Priority priority) {
+        return byPriority[priority.ordinal()];
+    }
+
+    CompressedBitmap fieldSlots(TaskQuery.Field field, String value) {
+        Map<String, CompressedBitmap> map = field == TaskQuery.Field.TYPE ? byType : byAssignee;
+        CompressedBitmap slots = map.get(value);
+        return slots != null ? slots : new CompressedBitmap();
+    }
+
+    /**
+     * Slots of tasks due between the two epoch days (both included).
+     *
+     * A long range (like "overdue" = everything before today) would need
+     * hundreds of per-day bitmaps. So whole 32-day blocks use one block
+     * bitmap each, and only the partial blocks at both ends use day bitmaps.
+     */
+    CompressedBitmap dueSlots(long fromDay, long toDay) {
+        Long first = byDueDay.ceilingKey(fromDay);
+        Long last = byDueDay.floorKey(toDay);
+        if (first == null || last == null || first > last) {
+            return new CompressedBitmap();
+        }
+
+        // First and last block that are covered COMPLETELY by the range
+        long firstFullBlock = Math.floorDiv(first + DAYS_PER_BLOCK - 1, DAYS_PER_BLOCK);
+        long lastFullBlock = Math.floorDiv(last + 1, DAYS_PER_BLOCK) - 1;
+
+        List<CompressedBitmap> parts = new ArrayList<>();
+        if (firstFullBlock > lastFullBlock) {
+            parts.addAll(byDueDay.subMap(first, true, last, true).values());
+        } else {
+            parts.addAll(byDueDay.subMap(first, true, firstFullBlock * DAYS_PER_BLOCK, false).values());
+            parts.addAll(byDueBlock.subMap(firstFullBlock, true, lastFullBlock, true).values());
+            parts.addAll(byDueDay.subMap((lastFullBlock + 1) * DAYS_PER_BLOCK, true, last, true).values());
+        }
+        return parts.size() == 1 ? parts.get(0) : CompressedBitmap.orAll(parts);
+    }
+
+    // ───────────────────────────────────────────────
+    // Keeping the index up to date (TaskListener)
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void taskAdded(Task task) {
+        if (slotById.containsKey(task.getId())) {
+            return;
+        }
+        addSlot(task);
+        version++;
+        changed(TaskQuery.Attribute.TASKS);
+    }
+
+    private void addSlot(Task task) {
+        int slot = taskBySlot.size();
+        taskBySlot.add(task);
+        slotById.put(task.getId(), slot);
+        ensureCapacity(slot + 1);
+        index(slot, task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        Integer slot = slotById.remove(task.getId());
+        if (slot == null) {
+            return;
+        }
+        unindex(slot);
+        taskBySlot.set(slot, null);
+        removedSlots++;
+        version++;
+        changed(TaskQuery.Attribute.TASKS);
+        if (removedSlots >= MIN_SLOTS_TO_RECLAIM && removedSlots > slotById.size()) {
+            renumber();
+        }
+    }
+
+    /**
+     * Gives the live tasks new slots 0, 1, 2, ... in their current order and
+     * rebuilds every bitmap. Costs O(live tasks), but only happens after at
+     * least as many removes, so each remove pays O(1) on average.
+     */
+    private void renumber() {
+        List<Task> live = new ArrayList<>(slotById.size());
+        for (Task task : taskBySlot) {
+            if (task != null) {
+                live.add(task);
+            }
+        }
+
+        slotById.clear();
+        taskBySlot.clear();
+        removedSlots = 0;
+        int length = Math.max(16, live.size());
+        slotPriority = new Task.Priority[length];
+        slotType = new String[length];
+        slotAssignee = new String[length];
+        slotDue = new long[length];
+        all.clear();
+        completed.clear();
+        for (CompressedBitmap slots : byPriority) {
+            slots.clear();
+        }
+        byType.clear();
+        byAssignee.clear();
+        byDueDay.clear();
+        byDueBlock.clear();
+
+        // Every edit was reported to us, so the tasks hold the indexed values
+        for (Task task : live) {
+            addSlot(task);   // same tasks, same order: no version change
+        }
+    }
+
+    /**
+     * Moves the slot only in the bitmaps whose value changed. Most edits
+     * touch one or two fields (complete, reprioritise, move the due date),
+     * and re-indexing all of them would remove and re-add the slot
+     * everywhere for nothing.
+     */
+    @Override
+    public void taskUpdated(Task task) {
+        Integer found = slotById.get(task.getId());
+        if (found == null) {
+            return;
+        }
+        int slot = found;
+        version++;
+        if (taskBySlot.get(slot) != task) {
+            // A repository may hand out a new copy: cached answers still
+            // hold the old object, so they count as changed
+            taskBySlot.set(slot, task);
+            changed(TaskQuery.Attribute.TASKS);
+        }
+
+        if (task.isCompleted() != completed.contains(slot)) {
+            changed(TaskQuery.Attribute.COMPLETED);
+            if (task.isCompleted()) {
+                completed.add(slot);
+            } else {
+                completed.remove(slot);
+            }
+        }
+
+        Task.Priority priority = task.getPriority();
+        if (priority != slotPriority[slot]) {
+            changed(TaskQuery.Attribute.PRIORITY);
+            byPriority[slotPriority[slot].ordinal()].remove(slot);
+            byPriority[priority.ordinal()].add(slot);
+            slotPriority[slot] = priority;
+        }
+
+        if (!Objects.equals(task.getType(), slotType[slot])) {
+            changed(TaskQuery.Attribute.TYPE);
+            removeFrom(byType, slotType[slot], slot);
+            slotType[slot] = task.getType();
+            byType.computeIfAbsent(task.getType(), k -> new CompressedBitmap()).add(slot);
+        }
+
+        if (!Objects.equals(task.getAssignee(), slotAssignee[slot])) {
+            changed(TaskQuery.Attribute.ASSIGNEE);
+            removeFrom(byAssignee, slotAssignee[slot], slot);
+            slotAssignee[slot] = task.getAssignee();
+            byAssignee.computeIfAbsent(task.getAssignee(), k -> new CompressedBitmap()).add(slot);
+        }
+
+        long due = dueDayOf(task);
+        if (due != slotDue[slot]) {
+            changed(TaskQuery.Attribute.DUE_DATE);
+            unindexDue(slot);
+            indexDue(slot, due);
+        }
+    }
+
+    private void index(int slot, Task task) {
+        all.add(slot);
+        if (task.isCompleted()) {
+            completed.add(slot);
+        }
+
+        slotPriority[slot] = task.getPriority();
+        byPriority[task.getPriority().ordinal()].add(slot);
+
+        slotType[slot] = task.getType();
+        byType.computeIfAbsent(task.getType(), k -> new CompressedBitmap()).add(slot);
+
+        slotAssignee[slot] = task.getAssignee();
+        byAssignee.computeIfAbsent(task.getAssignee(), k -> new CompressedBitmap()).add(slot);
+
+        indexDue(slot, dueDayOf(task));
+    }
+
+    /** Recurring tasks are indexed by their next open occurrence. */
+    private static long dueDayOf(Task task) {
+        LocalDate due = task.getNextDueDate();
+        return due == null ? NO_DUE_DATE : due.toEpochDay();
+    }
+
+    private void indexDue(int slot, long day) {
+        slotDue[slot] = day;
+        if (day != NO_DUE_DATE) {
+            byDueDay.computeIfAbsent(day, k -> new CompressedBitmap()).add(slot);
+            byDueBlock.computeIfAbsent(Math.floorDiv(day, DAYS_PER_BLOCK),
+                    k -> new CompressedBitmap()).add(slot);
+        }
+    }
+
+    private void unindexDue(int slot) {
+        if (slotDue[slot] != NO_DUE_DATE) {
+            removeFrom(byDueDay, slotDue[slot], slot);
+            removeFrom(byDueBlock, Math.floorDiv(slotDue[slot], DAYS_PER_BLOCK), slot);
+        }
+        slotDue[slot] = NO_DUE_DATE;
+    }
+
+    private void unindex(int slot) {
+        all.remove(slot);
+        completed.remove(slot);
+        byPriority[slotPriority[slot].ordinal()].remove(slot);
+        removeFrom(byType, slotType[slot], slot);
+        removeFrom(byAssignee, slotAssignee[slot], slot);
+        unindexDue(slot);
+
+        slotPriority[slot] = null;
+        slotType[slot] = null;
+        slotAssignee[slot] = null;
+    }
+
+    /** Removes a slot from a value's bitmap, dropping the value when nothing is left. */
+    private static <K> void removeFrom(Map<K, CompressedBitmap> map, K key, int slot) {
+        CompressedBitmap slots = map.get(key);
+        if (slots != null) {
+            slots.remove(slot);
+            if (slots.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > slotDue.length) {
+            int newLength = Math.max(needed, slotDue.length * 2);
+            slotPriority = Arrays.copyOf(slotPriority, newLength);
+            slotType = Arrays.copyOf(slotType, newLength);
+            slotAssignee = Arrays.copyOf(slotAssignee, newLength);
+            slotDue = Arrays.copyOf(slotDue, newLength);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TaskQuery and TaskQueryIndex.
+ *
+ * Every indexed answer is checked against TaskQuery.matches(...),
+ * which tests each task directly.
+ */
+class TaskQueryIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private static TaskManager sampleManager(int count) {
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < count; i++) {
+            manager.addTask(TaskBenchmarks.sampleTask(i));
+        }
+        return manager;
+    }
+
+    /** The slow, obviously-correct answer. */
+    private static List<Task> scan(TaskManager manager, TaskQuery query) {
+        List<Task> result = new ArrayList<>();
+        for (Task t : manager.getTasks()) {
+            if (query.matches(t, TODAY)) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    private static void assertIndexMatchesScan(TaskManager manager, TaskQuery query) {
+        List<Task> expected = scan(manager, query);
+        assertEquals(expected, manager.getQueryIndex().find(query, TODAY), query.toString());
+        assertEquals(expected.size(), manager.getQueryIndex().count(query, TODAY));
+    }
+
+    @Test
+    void testCombinedQueries() {
+        TaskManager manager = sampleManager(5000);
+
+        assertIndexMatchesScan(manager, TaskQuery.all());
+        assertIndexMatchesScan(manager, TaskQuery.completed());
+        assertIndexMatchesScan(manager, TaskQuery.pending());
+        assertIndexMatchesScan(manager, TaskQuery.typeIs("Work"));
+        assertIndexMatchesScan(manager, TaskQuery.assigneeIs("Alice"));
+        assertIndexMatchesScan(manager, TaskQuery.overdue());
+        assertIndexMatchesScan(manager,
+                TaskQuery.dueBetween(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)));
+        assertIndexMatchesScan(manager,
+                TaskQuery.priorityIn(Task.Priority.HIGH, Task.Priority.MEDIUM)
+                        .and(TaskQuery.typeIs("Work"))
+                        .and(TaskQuery.overdue())
+                        .and(TaskQuery.completed().not()));
+        assertIndexMatchesScan(manager,
+                TaskQuery.typeIs("School").or(TaskQuery.assigneeIs("Bob")).not());
+        assertIndexMatchesScan(manager,
+                TaskQuery.dueBetween(LocalDate.of(2024, 12, 30), LocalDate.of(2025, 11, 3)));
+        assertIndexMatchesScan(manager,
+                TaskQuery.dueBetween(LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 3)));
+        assertIndexMatchesScan(manager, TaskQuery.priorityIn());
+        assertIndexMatchesScan(manager, TaskQuery.typeIs("No such type"));
+    }
+
+    @Test
+    void testIndexFollowsEditsAndRemovals() {
+        TaskManager manager = sampleManager(200);
+        List<Task> tasks = manager.getTasks();
+
+        Task edited = tasks.get(3);
+        manager.updateTask(edited,
+                new Task("Edited", "Zed", LocalDate.of(2020, 1, 1), "Brand New", Task.Priority.HIGH));
+        manager.markComplete(tasks.get(5));
+        manager.removeTask(tasks.get(7));
+
+        assertIndexMatchesScan(manager, TaskQuery.typeIs("Brand New"));
+        assertIndexMatchesScan(manager, TaskQuery.assigneeIs("Zed").and(TaskQuery.overdue()));
+        assertIndexMatchesScan(manager, TaskQuery.completed());
+        assertIndexMatchesScan(manager, TaskQuery.all());
+        assertEquals(199, manager.countTasks(TaskQuery.all()));
+        assertTrue(manager.getQueryIndex().getTypes().contains("Brand New"));
+    }
+
+    /**
+     * Random edits that change one field at a time (the common case, which
+     * only moves the slot in that field's bitmaps) — and sometimes all.
+     */
+    @Test
+    void testSingleFieldEditsKeepIndexExact() {
+        TaskManager manager = sampleManager(300);
+        List<Task> tasks = manager.getTasks();
+        Random random = new Random(5);
+        String[] names = {"Alice", "Bob", "Zed", ""};
+
+        for (int step = 0; step < 2_000; step++) {
+            Task t = tasks.get(random.nextInt(tasks.size()));
+            Task changes = t.snapshot();
+            switch (random.nextInt(6)) {
+                case 0:
+                    t.setCompleted(!t.isCompleted());   // toggled directly, then reported
+                    manager.updateTask(t, changes);
+                    continue;
+                case 1:
+                    changes.setPriority(Task.Priority.values()[random.nextInt(3)]);
+                    break;
+                case 2:
+                    changes.setType(names[random.nextInt(names.length)]);
+                    break;
+                case 3:
+                    changes.setAssignee(names[random.nextInt(names.length)]);
+                    break;
+                case 4:
+                    changes.setDueDate(random.nextInt(5) == 0 ? null : TODAY.plusDays(random.nextInt(100) - 50));
+                    break;
+                default:
+                    changes = TaskBenchmarks.sampleTask(random.nextInt(1000));
+                    break;
+            }
+            manager.updateTask(t, changes);
+        }
+
+        assertIndexMatchesScan(manager, TaskQuery.completed());
+        assertIndexMatchesScan(manager, TaskQuery.priorityIn(Task.Priority.HIGH).and(TaskQuery.pending()));
+        assertIndexMatchesScan(manager, TaskQuery.typeIs("Zed").or(TaskQuery.assigneeIs("Bob")));
+        assertIndexMatchesScan(manager, TaskQuery.overdue());
+        assertIndexMatchesScan(manager, TaskQuery.dueBetween(TODAY.minusDays(40), TODAY.plusDays(10)));
+        assertFalse(manager.getQueryIndex().getTypes().contains("Personal")
+                && scan(manager, TaskQuery.typeIs("Personal")).isEmpty(), "empty values are dropped");
+    }
+
+    @Test
+    void testUnusedValuesDisappear() {
+        TaskManager manager = new TaskManager();
+        Task t = new Task("Only one", "Kim", null, "Rare", Task.Priority.LOW);
+        manager.addTask(t);
+
+        manager.removeTask(t);
+
+        assertFalse(manager.getQueryIndex().getTypes().contains("Rare"));
+        assertFalse(manager.getQueryIndex().getAssignees().contains("Kim"));
+    }
+
+    /**
+     * Lots of adds and deletes: removed slots are reclaimed (renumbered)
+     * and answers still come back in the order the tasks were added.
+     */
+    @Test
+    void testRemovedSlotsAreReclaimed() {
+        TaskManager manager = sampleManager(100);
+        for (int i = 100; i < 5000; i++) {
+            manager.removeTask(manager.getTasks().get(i % 7));
+            manager.addTask(TaskBenchmarks.sampleTask(i));
+        }
+
+        assertEquals(100, manager.getTotalCount());
+        assertIndexMatchesScan(manager, TaskQuery.all());
+        assertIndexMatchesScan(manager, TaskQuery.typeIs("Work").and(TaskQuery.pending()));
+        assertIndexMatchesScan(manager, TaskQuery.overdue());
+        assertTrue(manager.getQueryIndex().slotCount() <= 100 + 1024,
+                "4900 deletes must not leave 4900 dead slots behind");
+    }
+
+    @Test
+    void testQueryEquality() {
+        TaskQuery a = TaskQuery.priorityIn(Task.Priority.HIGH).and(TaskQuery.typeIs("Work")).not();
+        TaskQuery b = TaskQuery.priorityIn(Task.Priority.HIGH).and(TaskQuery.typeIs("Work")).not();
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, TaskQuery.priorityIn(Task.Priority.LOW).and(TaskQuery.typeIs("Work")).not());
+    }
+}
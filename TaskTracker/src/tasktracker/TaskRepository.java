@@ -0,0 +1,62 @@
+package tasktracker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A TaskRepository is where TaskManager keeps its tasks.
+ *
+ * Why an interface?
+ *  - TaskManager should not care whether tasks live in a list, in a file
+ *    or on a server somewhere.
+ *  - Implementations can be swapped (or stacked, like a cache in front of
+ *    a slower store) without touching TaskManager or the GUI.
+ *
+ * Implementations in this project:
+ *  - InMemoryTaskRepository: everything on the heap (the default)
+ *  - FileTaskRepository: tasks in a file, only their positions in memory
+ *  - OffHeapTaskRepository: tasks in direct memory, out of the GC's way
+ *  - CachingTaskRepository: a bounded LRU cache in front of another one
+ *
+ * Tasks are identified by their id. A repository that stores copies
+ * (like FileTaskRepository) may return a DIFFERENT object each time
+ * findById is called; changes only count once they are saved again.
+ *
+ * How TaskManager uses it: it reads the repository ONCE, when it is
+ * created (findAll is the board), and from then on only writes to it
+ * (save / delete on every change). The live tasks stay in memory,
+ * because TaskManager's indexes hold them. So a FileTaskRepository keeps
+ * the board on disk, but does not let a board grow past the heap — that
+ * would need indexes that keep ids instead of tasks.
+ *
+ * TaskManager calls save/delete with its write lock held (one at a time),
+ * but several threads may read at once, so reads must be thread-safe.
+ *
+ * Storage errors are thrown as UncheckedIOException.
+ */
+public interface TaskRepository extends Closeable {
+
+    /** Stores a new task, or replaces the stored task with the same id. */
+    void save(Task task);
+
+    /** Removes the task with this id. Returns false if there was none. */
+    boolean delete(long id);
+
+    /** Returns the task with this id, or null. */
+    Task findById(long id);
+
+    /** True if a task with this id is stored (never reads the task itself). */
+    boolean contains(long id);
+
+    /** Every task, in the order they were first saved. */
+    List<Task> findAll();
+
+    /** Number of stored tasks. */
+    int size();
+
+    /** Releases files or connections. The default does nothing. */
+    @Override
+    default void close() throws IOException {
+    }
+}
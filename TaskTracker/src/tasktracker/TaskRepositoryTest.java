@@ -0,0 +1,385 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TaskRepository implementations and for TaskManager
+ * running on top of a file with a small cache in front.
+ */
+class TaskRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    private static Task task(long id, String title) {
+        Task t = new Task(title, "Alice", LocalDate.of(2025, 5, 1).plusDays(id % 30), "Work",
+                Task.Priority.values()[(int) (id % 3)]);
+        t.setId(id);
+        return t;
+    }
+
+    /** The rules every repository must follow. */
+    private static void checkContract(TaskRepository repository) {
+        repository.save(task(1, "One"));
+        repository.save(task(2, "Two"));
+        repository.save(task(3, "Three"));
+        repository.save(task(2, "Two again"));   // keeps its place
+
+        assertEquals(3, repository.size());
+        assertTrue(repository.contains(2));
+        assertEquals("Two again", repository.findById(2).getTitle());
+        assertEquals(List.of("One", "Two again", "Three"), titles(repository.findAll()));
+
+        assertTrue(repository.delete(1));
+        assertFalse(repository.delete(1));
+        assertNull(repository.findById(1));
+        assertFalse(repository.contains(1));
+        assertEquals(List.of("Two again", "Three"), titles(repository.findAll()));
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> result = new ArrayList<>();
+        for (Task t : tasks) {
+            result.add(t.getTitle());
+        }
+        return result;
+    }
+
+    @Test
+    void testInMemoryRepository() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        checkContract(repository);
+        Task t = task(9, "Same object");
+        repository.save(t);
+        assertSame(t, repository.findById(9));
+    }
+
+    @Test
+    void testInMemoryRepositoryMatchesLinkedHashMap() {
+        // Random saves and deletes (enough to grow, rehash and compact the
+        // LongTaskMap inside) must give exactly what a LinkedHashMap gives
+        Random random = new Random(3);
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        Map<Long, Task> expected = new LinkedHashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(2_000) - 100;   // a few negative ids too
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, repository.delete(id));
+            } else {
+                Task t = task(Math.abs(id), "Task " + step);
+                t.setId(id);
+                expected.put(id, t);   // an id already there keeps its place
+                repository.save(t);
+            }
+            assertSame(expected.get(id), repository.findById(id));
+            assertEquals(expected.containsKey(id), repository.contains(id));
+        }
+        assertEquals(expected.size(), repository.size());
+        assertEquals(new ArrayList<>(expected.values()), repository.findAll());
+    }
+
+    @Test
+    void testFileRepositoryReopensAndDropsTornRecord() throws IOException {
+        Path file = dir.resolve("tasks.repo");
+        try (FileTaskRepository repository = new FileTaskRepository(file)) {
+            checkContract(repository);
+            Task recurring = task(4, "Chore");
+            recurring.setRecurrence(Recurrence.of(Recurrence.Frequency.DAILY));
+            recurring.completeOccurrence(recurring.getDueDate());
+            recurring.setBlockedBy(List.of(2L, 3L));
+            repository.save(recurring);
+            assertNotSame(repository.findById(4), repository.findById(4), "copies from disk");
+        }
+
+        // A crash in the middle of writing a record
+        long goodSize = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 0, 0, 0, 40, 7, 7}));
+        }
+
+        try (FileTaskRepository reopened = new FileTaskRepository(file)) {
+            assertEquals(List.of("Two again", "Three", "Chore"), titles(reopened.findAll()));
+            Task chore = reopened.findById(4);
+            assertEquals(chore.getDueDate(), chore.getCompletedThrough());
+            assertEquals(List.of(2L, 3L), new ArrayList<>(chore.getBlockedBy()));
+            assertEquals(goodSize, reopened.fileSize(), "the torn record is cut off");
+
+            reopened.save(task(5, "After the crash"));
+            assertEquals("After the crash", reopened.findById(5).getTitle());
+        }
+
+        Files.write(dir.resolve("other.repo"), new byte[] {'N', 'O', 'P', 'E', 1});
+        assertThrows(IOException.class, () -> new FileTaskRepository(dir.resolve("other.repo")));
+    }
+
+    @Test
+    void testFileRepositoryCompactsGarbage() throws IOException {
+        Path file = dir.resolve("busy.repo");
+        try (FileTaskRepository repository = new FileTaskRepository(file)) {
+            for (long id = 1; id <= 100; id++) {
+                repository.save(task(id, "Task " + id));
+            }
+            // Thousands of edits of the same tasks: mostly garbage
+            for (int round = 0; round < 1_000; round++) {
+                for (long id = 1; id <= 100; id++) {
+                    repository.save(task(id, "Task " + id + " v" + round));
+                }
+            }
+            assertTrue(repository.fileSize() < 3 * (1 << 20), "size " + repository.fileSize());
+            assertEquals("Task 42 v999", repository.findById(42).getTitle());
+            assertEquals(100, repository.findAll().size());
+            repository.compact();
+            assertTrue(repository.fileSize() < 10_000, "size " + repository.fileSize());
+        }
+        try (FileTaskRepository reopened = new FileTaskRepository(file)) {
+            assertEquals("Task 100 v999", reopened.findAll().get(99).getTitle());
+        }
+    }
+
+    @Test
+    void testOffHeapRepository() {
+        OffHeapTaskRepository repository = new OffHeapTaskRepository();
+        checkContract(repository);
+
+        // Every field makes the trip to direct memory and back
+        Task chore = new Task("Water the plants ✍", "Zoë", LocalDate.of(2025, 3, 14), "", Task.Priority.HIGH);
+        chore.setId(4);
+        chore.setRecurrence(Recurrence.of(Recurrence.Frequency.DAILY));
+        chore.completeOccurrence(chore.getDueDate());
+        chore.setBlockedBy(List.of(2L, 3L));
+        repository.save(chore);
+        Task done = task(5, "Done");
+        done.setCompleted(true);
+        done.setCompletedOn(LocalDate.of(2025, 6, 1));
+        repository.save(done);
+
+        Task copy = repository.findById(4);
+        assertNotSame(copy, repository.findById(4), "decoded on every read");
+        assertEquals("Water the plants ✍", copy.getTitle());
+        assertEquals("Zoë", copy.getAssignee());
+        assertEquals("", copy.getType());
+        assertEquals(Task.Priority.HIGH, copy.getPriority());
+        assertEquals(chore.getDueDate(), copy.getCompletedThrough());
+        assertEquals(List.of(2L, 3L), new ArrayList<>(copy.getBlockedBy()));
+        assertEquals(LocalDate.of(2025, 6, 1), repository.findById(5).getCompletedOn());
+        assertTrue(repository.getOffHeapBytes() > 0);
+
+        repository.close();
+        assertThrows(IllegalStateException.class, () -> repository.findById(4));
+    }
+
+    @Test
+    void testOffHeapRepositoryCompactsAndMatchesLinkedHashMap() {
+        // Enough random saves and deletes to grow the table and compact the
+        // arena several times; the order must stay what a LinkedHashMap gives
+        Random random = new Random(26);
+        OffHeapTaskRepository repository = new OffHeapTaskRepository();
+        Map<Long, Task> expected = new LinkedHashMap<>();
+        String padding = "x".repeat(200);
+        for (int step = 0; step < 40_000; step++) {
+            long id = random.nextInt(3_000) - 100;   // a few negative ids too
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, repository.delete(id));
+            } else {
+                Task t = task(Math.abs(id), "Task " + step + padding);
+                t.setId(id);
+                expected.put(id, t);
+                repository.save(t);
+            }
+            assertEquals(expected.containsKey(id), repository.contains(id));
+        }
+        assertEquals(expected.size(), repository.size());
+        assertEquals(describe(new ArrayList<>(expected.values())), describe(repository.findAll()));
+        for (long id : expected.keySet()) {
+            assertEquals(expected.get(id).getTitle(), repository.findById(id).getTitle());
+        }
+
+        // 40,000 records of about 250 bytes were written, but compaction
+        // has kept the arena near the live data (a few 4 MB chunks at most)
+        assertTrue(repository.getOffHeapBytes() < 16 << 20, "bytes " + repository.getOffHeapBytes());
+
+        // After deleting most tasks, compact() gives the memory back
+        List<Long> ids = new ArrayList<>(expected.keySet());
+        for (int i = 10; i < ids.size(); i++) {
+            repository.delete(ids.get(i));
+            expected.remove(ids.get(i));
+        }
+        repository.compact();
+        assertEquals(describe(new ArrayList<>(expected.values())), describe(repository.findAll()));
+        assertTrue(repository.getOffHeapBytes() < 8 << 20, "bytes " + repository.getOffHeapBytes());
+    }
+
+    @Test
+    void testTaskManagerOnOffHeapRepository() {
+        OffHeapTaskRepository offHeap = new OffHeapTaskRepository();
+        CachingTaskRepository repository = new CachingTaskRepository(offHeap, 16);
+        TaskManager manager = new TaskManager(repository);
+        for (int i = 0; i < 50; i++) {
+            manager.addTask(task(0, "Task " + i));   // id 0: the manager gives one
+        }
+        List<Task> tasks = manager.getTasks();
+        manager.markComplete(tasks.get(3));
+        manager.removeTask(tasks.get(7));
+        assertTrue(manager.addDependency(tasks.get(1), tasks.get(2)));
+
+        // A new manager on the same store starts with the same board
+        TaskManager again = new TaskManager(offHeap);
+        assertEquals(describe(manager.getTasks()), describe(again.getTasks()));
+        assertEquals(1, again.getDependencyGraph().edgeCount());
+    }
+
+    @Test
+    void testCacheEvictsLeastRecentlyUsed() {
+        InMemoryTaskRepository backing = new InMemoryTaskRepository();
+        for (long id = 1; id <= 5; id++) {
+            backing.save(task(id, "T" + id));
+        }
+        CachingTaskRepository cache = new CachingTaskRepository(backing, 3);
+
+        cache.findById(1);   // miss
+        cache.findById(2);   // miss
+        cache.findById(3);   // miss
+        cache.findById(1);   // hit: 1 is now the most recent
+        cache.findById(4);   // miss: evicts 2, the least recently used
+        cache.findById(1);   // hit
+        cache.findById(2);   // miss again
+        assertEquals(2, cache.getHits());
+        assertEquals(5, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+        assertEquals(3, cache.getCachedCount());
+
+        // A full scan neither counts nor changes what is cached
+        assertEquals(5, cache.findAll().size());
+        cache.findById(4);
+        assertEquals(3, cache.getHits());
+
+        // Write-through: the repository behind sees every change
+        cache.save(task(6, "New"));
+        assertEquals("New", backing.findById(6).getTitle());
+        assertTrue(cache.delete(6));
+        assertFalse(backing.contains(6));
+        assertNull(cache.findById(6));
+
+        assertThrows(IllegalArgumentException.class, () -> new CachingTaskRepository(backing, 0));
+    }
+
+    /**
+     * The same random changes on a normal TaskManager and on one backed by
+     * a file with a tiny cache must give the same board.
+     */
+    @Test
+    void testTaskManagerOnCachedFileRepository() throws IOException {
+        Path file = dir.resolve("board.repo");
+        CachingTaskRepository repository = new CachingTaskRepository(new FileTaskRepository(file), 16);
+        TaskManager onFile = new TaskManager(repository);
+        TaskManager inMemory = new TaskManager();
+        Random random = new Random(3);
+
+        for (int step = 0; step < 3_000; step++) {
+            int action = random.nextInt(6);
+            if (inMemory.getTotalCount() < 10 || action == 0) {
+                inMemory.addTask(task(0, "Step " + step));   // id 0: the manager gives one
+                onFile.addTask(task(0, "Step " + step));
+                continue;
+            }
+            // Pick the same task on both sides by id; the file side may get a copy
+            List<Task> tasks = inMemory.getTasks();
+            long id = tasks.get(random.nextInt(tasks.size())).getId();
+            Task a = inMemory.getTask(id);
+            Task b = onFile.getTask(id);
+            if (action == 1) {
+                inMemory.removeTask(a);
+                onFile.removeTask(b);
+            } else if (action == 2) {
+                inMemory.markComplete(a);
+                onFile.markComplete(b);
+            } else if (action == 3) {
+                long blockerId = tasks.get(random.nextInt(tasks.size())).getId();
+                if (inMemory.canAddDependency(a, inMemory.getTask(blockerId))) {
+                    inMemory.addDependency(a, inMemory.getTask(blockerId));
+                    assertTrue(onFile.addDependency(b, onFile.getTask(blockerId)));
+                }
+            } else {
+                Task changes = task(step, "Edited " + step);
+                inMemory.updateTask(a, changes);
+                onFile.updateTask(b, changes);
+            }
+        }
+
+        assertEquals(describe(inMemory.getTasks()), describe(onFile.getTasks()));
+        assertEquals(describe(inMemory.findTasks(TaskQuery.pending())),
+                describe(onFile.findTasks(TaskQuery.pending())));
+        assertEquals(inMemory.getCompletedCount(), onFile.getCompletedCount());
+        assertEquals(0, repository.getHits() + repository.getMisses(),
+                "after the start TaskManager only writes to its repository: " + repository);
+
+        // Reopening the file brings the whole board back
+        repository.close();
+        try (FileTaskRepository reopened = new FileTaskRepository(file)) {
+            TaskManager again = new TaskManager(reopened);
+            assertEquals(describe(inMemory.getTasks()), describe(again.getTasks()));
+            assertEquals(inMemory.getDependencyGraph().edgeCount(), again.getDependencyGraph().edgeCount());
+        }
+    }
+
+    /**
+     * A repository that returns copies must not give TaskManager's callers
+     * copies: every read hands out the board's own object, so two editors
+     * of one task share one version counter and the second one gets a
+     * CONFLICT instead of silently overwriting the first.
+     */
+    @Test
+    void testTaskManagerOnFileRepositoryHandsOutLiveTasks() throws IOException {
+        try (FileTaskRepository file = new FileTaskRepository(dir.resolve("board.repo"))) {
+            file.save(task(7, "From last time"));
+            TaskManager manager = new TaskManager(file);
+
+            Task first = manager.getTask(7);
+            assertSame(first, manager.getTask(7));
+            assertSame(first, manager.getTasks().get(0));
+            assertSame(first, manager.findTasks(TaskQuery.all()).get(0));
+            assertNotSame(first, file.findById(7), "the repository itself still returns copies");
+
+            // Two dialogs open on the same task
+            long seenByA = manager.getTask(7).getVersion();
+            long seenByB = manager.getTask(7).getVersion();
+            Task editA = first.snapshot();
+            editA.setTitle("A's title");
+            Task editB = first.snapshot();
+            editB.setTitle("B's title");
+            assertEquals(UpdateResult.Status.APPLIED, manager.updateTask(manager.getTask(7), editA, seenByA).getStatus());
+            assertEquals(UpdateResult.Status.CONFLICT,
+                    manager.updateTask(manager.getTask(7), editB, seenByB).getStatus());
+            assertEquals("A's title", file.findById(7).getTitle(), "written through");
+
+            // A copy with the same id is not the task on the board
+            manager.removeTask(file.findById(7));
+            assertEquals(1, manager.getTotalCount());
+        }
+    }
+
+    private static Map<Long, String> describe(List<Task> tasks) {
+        Map<Long, String> result = new LinkedHashMap<>();
+        for (Task t : tasks) {
+            result.put(t.getId(), t.getTitle() + "|" + t.getDueDate() + "|" + t.getPriority()
+                    + "|" + t.isCompleted() + "|" + t.getBlockedBy());
+        }
+        return result;
+    }
+}
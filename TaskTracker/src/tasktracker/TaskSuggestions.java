@@ -0,0 +1,78 @@
+package tasktracker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskSuggestions knows every assignee and type used on the board and
+ * how often, so TaskDialog can suggest them while the user types.
+ *
+ * Why?
+ *  - "Alice", "alice" and "Alcie" would otherwise become three different
+ *    people, which splits the data and the filter index.
+ *
+ * It listens to TaskManager (TaskListener), so the counts are updated
+ * one task at a time — nothing is rebuilt when a task changes.
+ */
+public class TaskSuggestions implements TaskListener {
+
+    private final PrefixTrie assignees = new PrefixTrie();
+    private final PrefixTrie types = new PrefixTrie();
+
+    /**
+     * The assignee/type each task was last counted with, so an edit can
+     * take the OLD value away again. Index 0 = assignee, 1 = type.
+     */
+    private final Map<Long, String[]> countedValues = new HashMap<>();
+
+    /** Most used assignees starting with the prefix. */
+    public List<String> suggestAssignees(String prefix, int limit) {
+        return assignees.suggest(prefix, limit);
+    }
+
+    /** Most used types starting with the prefix. */
+    public List<String> suggestTypes(String prefix, int limit) {
+        return types.suggest(prefix, limit);
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        if (countedValues.containsKey(task.getId())) {
+            return;
+        }
+        count(task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        uncount(task.getId());
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        String[] old = countedValues.get(task.getId());
+        if (old == null) {
+            return;
+        }
+        // Only touch the tries if something actually changed
+        if (!old[0].equals(task.getAssignee()) || !old[1].equals(task.getType())) {
+            uncount(task.getId());
+            count(task);
+        }
+    }
+
+    private void count(Task task) {
+        assignees.add(task.getAssignee());
+        types.add(task.getType());
+        countedValues.put(task.getId(), new String[] {task.getAssignee(), task.getType()});
+    }
+
+    private void uncount(long id) {
+        String[] old = countedValues.remove(id);
+        if (old != null) {
+            assignees.remove(old[0]);
+            types.remove(old[1]);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package tasktracker;
 
 import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -111,4 +112,80 @@ class TaskTest {
         assertTrue(output.contains("2024-10-01"));
         assertTrue(output.contains("Work"));
     }
+
+    @Test
+    void testVersionChangesWithEveryChange() {
+        Task task = new Task("Test");
+        long v0 = task.getVersion();
+        task.setTitle("Renamed");
+        task.setPriority(Task.Priority.HIGH);
+        assertEquals(v0 + 4, task.getVersion());
+
+        // A failed compare-and-set changes nothing
+        assertFalse(task.compareAndSetCompleted(true, false));
+        assertEquals(v0 + 4, task.getVersion());
+        assertTrue(task.compareAndSetCompleted(false, true));
+        assertTrue(task.isCompleted());
+        assertEquals(v0 + 6, task.getVersion());
+    }
+
+    @Test
+    void testRefusedOccurrenceLeavesVersionUnchanged() {
+        LocalDate start = LocalDate.of(2025, 1, 6);
+        Task task = new Task("Standup", "", start, "", Task.Priority.LOW);
+        task.setRecurrence(new Recurrence(Recurrence.Frequency.DAILY, 1, null));
+        long v0 = task.getVersion();
+
+        // A missing date or a date off the rule claims nothing
+        assertFalse(task.completeOccurrence(null));
+        assertFalse(task.completeOccurrence(start.minusDays(1)));
+        assertEquals(v0, task.getVersion(), "the version must be even again, not stuck mid-change");
+
+        assertTrue(task.completeOccurrence(start));
+        assertEquals(v0 + 2, task.getVersion());
+    }
+
+    @Test
+    void testOnlyOneThreadCompletesTheTask() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            Task task = new Task("Race");
+            AtomicInteger winners = new AtomicInteger();
+            Thread[] threads = new Thread[4];
+            for (int n = 0; n < threads.length; n++) {
+                threads[n] = new Thread(() -> {
+                    if (task.compareAndSetCompleted(false, true)) {
+                        winners.incrementAndGet();
+                    }
+                });
+                threads[n].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(1, winners.get());
+        }
+    }
+
+    /**
+     * One thread keeps editing title and assignee together ("n" and "n");
+     * a snapshot must never show them from different edits.
+     */
+    @Test
+    void testSnapshotIsConsistent() throws InterruptedException {
+        Task task = new Task("0", "0", null, "", Task.Priority.LOW);
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 20_000; i++) {
+                Task changes = new Task(String.valueOf(i), String.valueOf(i), null, "", Task.Priority.LOW);
+                task.applyEdit(changes);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            Task copy = task.snapshot();
+            assertEquals(copy.getTitle(), copy.getAssignee());
+            assertEquals(0, copy.getVersion() % 2);
+        }
+        writer.join();
+        assertEquals("20000", task.snapshot().getAssignee());
+    }
 }
@@ -5,16 +5,36 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
 
 /**
  * TaskTrackerGUI is the main window of the program.
  * It displays:
  *   - A button to create a new task
  *   - A list of all tasks
- *   - Filters (All / Completed / Pending)
+ *   - A "Next up" panel with the open tasks to do first
+ *   - A workload heat map: open tasks due per day, week or month
+ *   - Filters (All / Completed / Pending, priority, type, overdue)
  *   - Buttons to complete, edit, or delete a task
+ *   - Undo / Redo (also Ctrl+Z / Ctrl+Y) for the last changes
+ *   - The change history of a task, and the board as it was on a past date
  *   - Stats and a progress bar
+ *   - With a BoardRegistry: a switcher between many boards (one per project)
  *
  * This class handles ALL visual user interaction.
  */
@@ -27,29 +47,102 @@ public class TaskTrackerGUI extends JFrame {
         ALL, COMPLETED, PENDING
     }
 
-    private final TaskManager taskManager;    // Stores and manages tasks
+    private TaskManager taskManager;          // Stores and manages tasks (of the board shown)
+
+    // Many boards (see BoardRegistry); null = a single board
+    private final BoardRegistry registry;
+    private Board currentBoard;                // null until a board is shown (or loaded from a file)
+    private JComboBox<String> boardCombo;
+    private boolean updatingBoardChoices = false;   // ignore combo events while refilling it
 
     // Swing components
     private DefaultListModel<Task> taskListModel;
     private JList<Task> taskList;
     private JLabel statsLabel;
+    private JLabel noticeLabel;   // e.g. "Loaded 1200 tasks in 85 ms"
     private JProgressBar progressBar;
 
+    // "Next up": the best few open tasks (see NextUpQueue)
+    private static final int NEXT_UP_COUNT = 5;
+    private DefaultListModel<Task> nextUpModel;
+    private JList<Task> nextUpList;
+
+    // How much is due per day / week / month (see CalendarHeatMapPanel)
+    private CalendarHeatMapPanel heatMap;
+
+    // Background loading of a saved board (see BoardLoader)
+    private JLabel loadingLabel;
+    private JProgressBar loadingBar;
+    private BoardLoader loader;
+    private Path boardFile;        // the file being loaded (null = tasks are not saved)
+    private long loadStartNanos;
+    private int replayedCount;     // changes replayed from the log while loading
+    private long logSequence = 0;  // last log sequence included in the loaded tasks
+
+    // Who changed what and when; saved to "<board>.history" (see TaskHistory)
+    private TaskHistory history = new TaskHistory();
+
+    // Buttons that change (or look back at) tasks; disabled while a board is loading
+    private final List<JButton> changeButtons = new ArrayList<>();
+    private boolean changesEnabled = true;
+
+    // Undo / Redo: only enabled when there is something to undo (see UndoJournal)
+    private JButton undoButton;
+    private JButton redoButton;
+
     // Current active filter (default = ALL)
     private Filter currentFilter = Filter.ALL;
 
+    // Extra filters, combined with the status filter into one TaskQuery
+    private final Map<Task.Priority, JCheckBox> priorityChecks = new EnumMap<>(Task.Priority.class);
+    private JComboBox<String> typeFilterCombo;
+    private JCheckBox overdueCheck;
+    private boolean updatingTypeChoices = false;   // ignore combo events while refilling it
+
+    private static final String ANY_TYPE = "All types";
+
     /**
-     * Constructor — sets up the window.
+     * Constructor — sets up the window for ONE board.
      */
     public TaskTrackerGUI(TaskManager taskManager) {
+        this(taskManager, null);
+    }
+
+    /**
+     * Constructor for MANY boards: a board switcher is shown and boards are
+     * opened through the registry. Call switchBoard(name) to show the first.
+     */
+    public TaskTrackerGUI(BoardRegistry registry) {
+        this(new TaskManager(), registry);   // an empty board until the first one is open
+    }
+
+    private TaskTrackerGUI(TaskManager taskManager, BoardRegistry registry) {
         this.taskManager = taskManager;
+        this.registry = registry;
+        if (registry == null) {
+            taskManager.addListener(history);   // boards from the registry have their own
+        }
 
         setTitle("Task Tracker");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(800, 550);              // Larger window for comfort
+        setSize(1000, 550);             // Larger window for comfort (room for "Next up")
         setLocationRelativeTo(null);    // Centers window on screen
 
         initComponents();               // Build all UI components
+        showSaveErrors();
+
+        if (registry != null) {
+            setChangesEnabled(false);   // until switchBoard has opened a board
+
+            // Every loaded board is saved on exit
+            setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    handleCloseBoards();
+                }
+            });
+        }
         setVisible(true);
     }
 
@@ -68,6 +161,33 @@ public class TaskTrackerGUI extends JFrame {
         JButton newTaskButton = new JButton("New Task");
         newTaskButton.addActionListener(this::handleNewTask);
         topPanel.add(newTaskButton);
+        changeButtons.add(newTaskButton);
+
+        // Board switcher (only with a BoardRegistry)
+        if (registry != null) {
+            boardCombo = new JComboBox<>();
+            boardCombo.addActionListener(e -> {
+                Object picked = boardCombo.getSelectedItem();
+                if (!updatingBoardChoices && picked != null) {
+                    switchBoard(picked.toString());
+                }
+            });
+            JButton newBoardButton = new JButton("New Board...");
+            newBoardButton.addActionListener(this::handleNewBoard);
+            topPanel.add(new JLabel("  Board:"));
+            topPanel.add(boardCombo);
+            topPanel.add(newBoardButton);
+            changeButtons.add(newBoardButton);
+        }
+
+        // Shown only while a saved board is loading in the background
+        loadingLabel = new JLabel("Loading board...");
+        loadingBar = new JProgressBar(0, 100);
+        loadingLabel.setVisible(false);
+        loadingBar.setVisible(false);
+        topPanel.add(loadingLabel);
+        topPanel.add(loadingBar);
+
         add(topPanel, BorderLayout.NORTH);
 
         // ───────────────────────────────────────────────
@@ -77,8 +197,29 @@ public class TaskTrackerGUI extends JFrame {
         taskList = new JList<>(taskListModel);
         taskList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
-        // Custom renderer to change each task's color + tooltip
-        taskList.setCellRenderer(new DefaultListCellRenderer() {
+        // Colour + tooltip per task (see TaskCellRenderer)
+        taskList.setCellRenderer(new TaskCellRenderer(task -> taskManager.isArchived(task)));
+
+        // Double-click = edit task
+        taskList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && changesEnabled) {
+                    editSelectedTask();
+                }
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(taskList);
+        add(scrollPane, BorderLayout.CENTER);
+
+        // ───────────────────────────────────────────────
+        // RIGHT — "Next up" (what to do first)
+        // ───────────────────────────────────────────────
+        nextUpModel = new DefaultListModel<>();
+        nextUpList = new JList<>(nextUpModel);
+        nextUpList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        nextUpList.setCellRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(
                     JList<?> list, Object value, int index,
@@ -89,47 +230,33 @@ public class TaskTrackerGUI extends JFrame {
 
                 if (value instanceof Task) {
                     Task task = (Task) value;
-
-                    // Text displayed in the list
-                    setText(task.toString());
-
-                    // Hover popup text
+                    setText((index + 1) + ". " + task.getTitle() + "  (" + describeDue(task) + ")");
                     setToolTipText(task.getTooltipText());
-
-                    if (!isSelected) { // Keep highlight color if selected
-                        LocalDate today = LocalDate.now();
-
-                        // ✔ Completed = green
-                        if (task.isCompleted()) {
-                            setForeground(new Color(0, 128, 0)); 
-                        }
-                        // ❗ Overdue = dark red
-                        else if (task.getDueDate() != null && task.getDueDate().isBefore(today)) {
-                            setForeground(new Color(150, 0, 0));
-                        }
-                        // ❗ Pending but not overdue = bright red
-                        else {
-                            setForeground(Color.RED);
-                        }
-                    }
                 }
-
                 return c;
             }
         });
 
-        // Double-click = edit task
-        taskList.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                if (e.getClickCount() == 2) {
-                    editSelectedTask();
-                }
+        // Clicking a task there selects it in the main list (if it is shown)
+        nextUpList.addListSelectionListener(e -> {
+            Task picked = nextUpList.getSelectedValue();
+            if (!e.getValueIsAdjusting() && picked != null) {
+                taskList.setSelectedValue(picked, true);
             }
         });
 
-        JScrollPane scrollPane = new JScrollPane(taskList);
-        add(scrollPane, BorderLayout.CENTER);
+        JPanel nextUpPanel = new JPanel(new BorderLayout());
+        nextUpPanel.setBorder(BorderFactory.createTitledBorder("Next up"));
+        nextUpPanel.add(new JScrollPane(nextUpList), BorderLayout.CENTER);
+
+        // Below it, the workload ahead
+        heatMap = new CalendarHeatMapPanel();
+
+        JPanel rightPanel = new JPanel(new BorderLayout(5, 5));
+        rightPanel.add(nextUpPanel, BorderLayout.CENTER);
+        rightPanel.add(heatMap, BorderLayout.SOUTH);
+        rightPanel.setPreferredSize(new Dimension(260, 0));
+        add(rightPanel, BorderLayout.EAST);
 
         // ───────────────────────────────────────────────
         // BOTTOM — Filters, action buttons, stats
@@ -168,24 +295,82 @@ public class TaskTrackerGUI extends JFrame {
         filterPanel.add(completedButton);
         filterPanel.add(pendingButton);
 
+        // ───── PRIORITY / TYPE / OVERDUE filters
+        filterPanel.add(new JLabel("  Priority:"));
+        for (Task.Priority p : Task.Priority.values()) {
+            JCheckBox check = new JCheckBox(p.name(), true);
+            check.addActionListener(e -> refreshView());
+            priorityChecks.put(p, check);
+            filterPanel.add(check);
+        }
+
+        typeFilterCombo = new JComboBox<>(new String[] {ANY_TYPE});
+        typeFilterCombo.addActionListener(e -> {
+            if (!updatingTypeChoices) {
+                refreshView();
+            }
+        });
+        filterPanel.add(new JLabel("  Type:"));
+        filterPanel.add(typeFilterCombo);
+
+        overdueCheck = new JCheckBox("Overdue only");
+        overdueCheck.addActionListener(e -> refreshView());
+        filterPanel.add(overdueCheck);
+
         bottomPanel.add(filterPanel, BorderLayout.NORTH);
 
-        // ───── ACTION BUTTONS (Complete, Edit, Delete)
+        // ───── ACTION BUTTONS (Complete, Edit, Delete, Undo, Redo, History, Board As Of)
         JPanel buttonPanel = new JPanel();
         JButton completeButton = new JButton("Mark Complete");
         JButton editButton = new JButton("Edit Task");
         JButton deleteButton = new JButton("Delete Task");
+        JButton historyButton = new JButton("History");
+        JButton asOfButton = new JButton("Board As Of...");
 
         completeButton.addActionListener(this::handleMarkComplete);
         editButton.addActionListener(this::handleEditTask);
         deleteButton.addActionListener(this::handleDeleteTask);
+        historyButton.addActionListener(this::handleShowHistory);
+        asOfButton.addActionListener(this::handleBoardAsOf);
+
+        undoButton = new JButton("Undo");
+        redoButton = new JButton("Redo");
+        undoButton.addActionListener(e -> handleUndo());
+        redoButton.addActionListener(e -> handleRedo());
 
         buttonPanel.add(completeButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
+        buttonPanel.add(undoButton);
+        buttonPanel.add(redoButton);
+        buttonPanel.add(historyButton);
+        buttonPanel.add(asOfButton);
+        changeButtons.add(completeButton);
+        changeButtons.add(editButton);
+        changeButtons.add(deleteButton);
+        changeButtons.add(historyButton);
+        changeButtons.add(asOfButton);
 
         bottomPanel.add(buttonPanel, BorderLayout.CENTER);
 
+        // Ctrl+Z / Ctrl+Y (and Ctrl+Shift+Z) anywhere in the window
+        InputMap keys = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke("control Z"), "undo");
+        keys.put(KeyStroke.getKeyStroke("control Y"), "redo");
+        keys.put(KeyStroke.getKeyStroke("control shift Z"), "redo");
+        getRootPane().getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleUndo();
+            }
+        });
+        getRootPane().getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleRedo();
+            }
+        });
+
         // ───── STATS + PROGRESS BAR (Bottom)
         JPanel statusPanel = new JPanel(new BorderLayout(5, 5));
 
@@ -193,7 +378,12 @@ public class TaskTrackerGUI extends JFrame {
         progressBar = new JProgressBar(0, 100);
         progressBar.setStringPainted(true);         // Show % inside bar
 
+        // One-line notices about the board (how long loading took, ...)
+        noticeLabel = new JLabel(" ");
+        noticeLabel.setForeground(Color.GRAY);
+
         statusPanel.add(statsLabel, BorderLayout.NORTH);
+        statusPanel.add(noticeLabel, BorderLayout.CENTER);
         statusPanel.add(progressBar, BorderLayout.SOUTH);
 
         bottomPanel.add(statusPanel, BorderLayout.SOUTH);
@@ -204,11 +394,392 @@ public class TaskTrackerGUI extends JFrame {
         refreshView();
     }
 
+    // ───────────────────────────────────────────────
+    // LOADING + SAVING A BOARD FILE
+    // ───────────────────────────────────────────────
+
+    /**
+     * Connects the window to a board file.
+     *
+     * If the file exists, its tasks are loaded in the background while the
+     * window is already visible (changes are disabled until loading ends).
+     * The loaded tasks then become a Board (see Board.attach), which logs
+     * every change next to the file, moves old completed tasks to the
+     * archive, and saves everything back when the window is closed —
+     * exactly like the boards of a BoardRegistry.
+     */
+    public void openBoard(Path file) {
+        this.boardFile = file;
+
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                handleClose();
+            }
+        });
+
+        // The loaded tasks are not new: the saved history already knows them,
+        // and loading is nothing to undo
+        taskManager.removeListener(history);
+        taskManager.getUndoJournal().setEnabled(false);
+
+        if (!Files.exists(file) && !Files.exists(Board.logDirectoryFor(file))) {
+            // New board — nothing to load, but the same files from now on
+            try {
+                List<String> warnings = new ArrayList<>();
+                TaskHistory newHistory = Board.readHistory(file.getFileName().toString(), file, warnings);
+                if (attachBoard(newHistory, TaskArchive.open(Board.archiveFileFor(file)), warnings)) {
+                    showNotice(" ", currentBoard.getWarnings());
+                }
+            } catch (IOException ex) {
+                boardNotSaved("Could not open the archive:\n" + ex.getMessage());
+            }
+            return;
+        }
+
+        loadingLabel.setVisible(true);
+        loadingBar.setVisible(true);
+        loadingBar.setValue(0);
+        setChangesEnabled(false);
+
+        loadStartNanos = System.nanoTime();
+        loader = new BoardLoader(file, this);
+        loader.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                loadingBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        loader.execute();
+    }
+
+    /**
+     * Called by BoardLoader (on the EDT) with the next batch of tasks.
+     * Only the new tasks are added to the list instead of rebuilding it.
+     */
+    void appendLoadedTasks(List<Task> loaded) {
+        TaskQuery query = buildQuery();
+        LocalDate today = Today.get();
+        List<Task> visible = new ArrayList<>();
+        for (Task t : loaded) {
+            taskManager.addTask(t);
+            if (query.matches(t, today)) {
+                visible.add(t);
+            }
+        }
+        taskListModel.addAll(visible);
+        updateTypeChoices();
+        updateStats();
+    }
+
+    /**
+     * Called by BoardLoader (on the EDT) with the changes from the operation
+     * log that were not yet in the snapshot, and the last sequence read.
+     */
+    void replayOperations(List<TaskOperation> operations, long lastSequence) {
+        logSequence = lastSequence;
+        replayedCount = operations.size();   // shown when loading ends
+        if (operations.isEmpty()) {
+            return;
+        }
+        for (TaskOperation op : operations) {
+            taskManager.apply(op);
+        }
+        refreshView();
+    }
+
+    /**
+     * Called by BoardLoader (on the EDT) when loading has ended, with the
+     * saved history, the archive and what went wrong reading them.
+     */
+    void finishLoading(int count, TaskHistory loadedHistory, TaskArchive archive,
+                       List<String> warnings, Throwable error) {
+        loadingLabel.setVisible(false);
+        loadingBar.setVisible(false);
+        setChangesEnabled(true);
+
+        if (error != null) {
+            // Do not overwrite a file we could not read
+            boardNotSaved("Could not load the board:\n" + error.getMessage());
+            return;
+        }
+
+        long millis = (System.nanoTime() - loadStartNanos) / 1_000_000;
+        if (attachBoard(loadedHistory, archive, warnings)) {
+            int archived = currentBoard.getArchivedOnOpen();
+            showNotice("Loaded " + count + " tasks in " + millis + " ms"
+                    + (replayedCount > 0 ? ", replayed " + replayedCount + " logged changes" : "")
+                    + (archived > 0 ? ", archived " + archived + " old completed tasks" : ""),
+                    currentBoard.getWarnings());
+        }
+        refreshView();
+    }
+
+    /**
+     * Hands the loaded tasks to a Board: from now on it logs, archives and
+     * saves them. Returns false (after telling the user) if it could not.
+     */
+    private boolean attachBoard(TaskHistory loadedHistory, TaskArchive archive, List<String> warnings) {
+        try {
+            currentBoard = Board.attach(boardFile.getFileName().toString(), boardFile,
+                    taskManager, logSequence, loadedHistory, archive, warnings, true);
+        } catch (IOException ex) {
+            boardNotSaved("Could not open the change log:\n" + ex.getMessage());
+            return false;
+        }
+        history = currentBoard.getHistory();
+        return true;
+    }
+
+    /**
+     * Loading or attaching the board failed: the window keeps working on
+     * the tasks it has, but they are not saved (so a board file we could
+     * not read is never overwritten).
+     */
+    private void boardNotSaved(String message) {
+        boardFile = null;
+        taskManager.addListener(history);
+        taskManager.getUndoJournal().setEnabled(true);
+        JOptionPane.showMessageDialog(this,
+                message + "\n\nChanges will not be saved.",
+                "Load Failed",
+                JOptionPane.ERROR_MESSAGE);
+        refreshView();
+    }
+
+    /**
+     * A change the board could not save reaches the window as an
+     * UncheckedIOException thrown out of TaskManager — e.g. when the
+     * change log's writer has failed (see WriteBehindLog.append). Swing
+     * would only print it, so it is shown here instead. The change itself
+     * is on the board; it is saved with the board when the window closes.
+     */
+    private void showSaveErrors() {
+        Thread.UncaughtExceptionHandler fallback = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            if (e instanceof UncheckedIOException && SwingUtilities.isEventDispatchThread()) {
+                refreshView();
+                JOptionPane.showMessageDialog(this,
+                        "Could not save the last change:\n" + e.getMessage()
+                                + "\n\nIt is kept on the board and saved when you close the window.",
+                        "Save Failed",
+                        JOptionPane.ERROR_MESSAGE);
+            } else if (fallback != null) {
+                fallback.uncaughtException(thread, e);
+            } else {
+                System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Shows how long it took from start-up until the window was on screen
+     * (Main measures it). Loading the board replaces it with its own notice.
+     */
+    void showFirstFrameTime(long millis) {
+        showNotice("Window ready after " + millis + " ms");
+    }
+
+    /** Shows a one-line notice in the status bar (replacing the last one). */
+    private void showNotice(String text) {
+        noticeLabel.setForeground(Color.GRAY);
+        noticeLabel.setText(text);
+    }
+
+    /**
+     * Like showNotice(text), but if something went wrong (see
+     * Board.getWarnings) the warnings are shown instead, in red: a board
+     * that silently stays unsaved is worse than a missing load time.
+     */
+    private void showNotice(String text, List<String> warnings) {
+        if (warnings.isEmpty()) {
+            showNotice(text);
+            return;
+        }
+        noticeLabel.setForeground(Color.RED.darker());
+        noticeLabel.setText(String.join("; ", warnings));
+    }
+
+    private void setChangesEnabled(boolean enabled) {
+        changesEnabled = enabled;
+        for (JButton b : changeButtons) {
+            b.setEnabled(enabled);
+        }
+        if (boardCombo != null) {
+            boardCombo.setEnabled(enabled);
+        }
+        updateUndoButtons();
+    }
+
+    /**
+     * Saves the board (if any) and exits.
+     */
+    private void handleClose() {
+        if (loader != null && !loader.isDone()) {
+            JOptionPane.showMessageDialog(this,
+                    "The board is still loading. Please wait a moment before closing.",
+                    "Still Loading",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        if (currentBoard != null) {
+            try {
+                currentBoard.close();   // archives, writes the board file and history, clears the log
+            } catch (IOException ex) {
+                int choice = JOptionPane.showConfirmDialog(this,
+                        "Could not save the board:\n" + ex.getMessage() + "\n\nExit anyway?",
+                        "Save Failed",
+                        JOptionPane.YES_NO_OPTION,
+                        JOptionPane.ERROR_MESSAGE);
+                if (choice != JOptionPane.YES_OPTION) {
+                    return;   // the board is still open and logging (see Board.close)
+                }
+            }
+        }
+
+        dispose();
+        System.exit(0);
+    }
+
+    // ───────────────────────────────────────────────
+    // MANY BOARDS (with a BoardRegistry)
+    // ───────────────────────────────────────────────
+
+    /**
+     * Shows another board. A recently used board is still in memory, so
+     * this is instant; any other board is loaded in the background first.
+     *
+     * The registry is always asked on a worker thread: opening a board may
+     * save and evict an old one, and that must not freeze the window.
+     * Changes are disabled meanwhile, because the board on screen might be
+     * the one being evicted.
+     */
+    public void switchBoard(String name) {
+        if (currentBoard != null && currentBoard.getName().equals(name)) {
+            return;
+        }
+        if (!registry.isLoaded(name)) {
+            loadingLabel.setText("Loading " + name + "...");
+            loadingLabel.setVisible(true);
+            loadingBar.setIndeterminate(true);
+            loadingBar.setVisible(true);
+        }
+        setChangesEnabled(false);
+
+        new SwingWorker<Board, Void>() {
+            @Override
+            protected Board doInBackground() throws IOException {
+                return registry.open(name);
+            }
+
+            @Override
+            protected void done() {
+                loadingLabel.setVisible(false);
+                loadingBar.setIndeterminate(false);
+                loadingBar.setVisible(false);
+                setChangesEnabled(true);
+                try {
+                    showBoard(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(TaskTrackerGUI.this,
+                            "Could not open board \"" + name + "\":\n" + cause.getMessage(),
+                            "Open Failed",
+                            JOptionPane.ERROR_MESSAGE);
+                    updateBoardChoices();   // select the current board again
+                }
+            }
+        }.execute();
+    }
+
+    /** Points the whole window at a loaded board. */
+    private void showBoard(Board board) {
+        currentBoard = board;
+        taskManager = board.getManager();
+        history = board.getHistory();
+        setTitle("Task Tracker — " + board.getName());
+        int archived = board.getArchivedOnOpen();
+        List<String> warnings = board.getWarnings();
+        String evictionFailure = registry.getEvictionFailure();
+        if (evictionFailure != null) {
+            warnings.add(evictionFailure);
+        }
+        showNotice(archived > 0 ? "Archived " + archived + " old completed tasks of " + board.getName() : " ",
+                warnings);
+        updateBoardChoices();
+        refreshView();
+    }
+
+    /** Refills the board switcher and selects the board on screen. */
+    private void updateBoardChoices() {
+        List<String> names;
+        try {
+            names = registry.getBoardNames();
+        } catch (IOException e) {
+            names = registry.getLoadedNames();
+        }
+        updatingBoardChoices = true;
+        try {
+            boardCombo.removeAllItems();
+            for (String name : names) {
+                boardCombo.addItem(name);
+            }
+            if (currentBoard != null) {
+                if (!names.contains(currentBoard.getName())) {
+                    boardCombo.addItem(currentBoard.getName());
+                }
+                boardCombo.setSelectedItem(currentBoard.getName());
+            }
+        } finally {
+            updatingBoardChoices = false;
+        }
+    }
+
+    private void handleNewBoard(ActionEvent e) {
+        String name = JOptionPane.showInputDialog(this,
+                "Name of the new board:", "New Board", JOptionPane.QUESTION_MESSAGE);
+        if (name == null) {
+            return;   // cancelled
+        }
+        name = name.trim();
+        if (!BoardRegistry.isValidName(name)) {
+            JOptionPane.showMessageDialog(this,
+                    "Board names may only use letters, digits, spaces, '-' and '_'.",
+                    "Invalid Name",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        switchBoard(name);   // a new name is an empty board
+    }
+
+    /**
+     * Saves every loaded board and exits.
+     */
+    private void handleCloseBoards() {
+        try {
+            registry.close();
+        } catch (IOException ex) {
+            int choice = JOptionPane.showConfirmDialog(this,
+                    "Could not save every board:\n" + ex.getMessage()
+                            + "\n\nTheir changes are still in the change logs. Exit anyway?",
+                    "Save Failed",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.ERROR_MESSAGE);
+            if (choice != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+        dispose();
+        System.exit(0);
+    }
+
     // ───────────────────────────────────────────────
     // NEW TASK
     // ───────────────────────────────────────────────
     private void handleNewTask(ActionEvent e) {
-        TaskDialog dialog = new TaskDialog(this);  // Open popup
+        TaskDialog dialog = new TaskDialog(this, taskManager.getSuggestions());  // Open popup
         dialog.setVisible(true);
 
         Task created = dialog.getCreatedTask();    // Retrieve task
@@ -253,11 +824,45 @@ public class TaskTrackerGUI extends JFrame {
                     JOptionPane.INFORMATION_MESSAGE);
             return;
         }
+        selected = restoreIfArchived(selected, "edit");
+        if (selected == null) {
+            return;
+        }
 
-        TaskDialog dialog = new TaskDialog(this, selected);
+        // Remember which version the user is editing: if the task changes
+        // while the dialog is open, we ask before overwriting that change.
+        long version = selected.getVersion();
+        TaskDialog dialog = new TaskDialog(this, selected, taskManager.getSuggestions());
         dialog.setVisible(true);
 
-        refreshView(); // Task was edited — refresh list
+        Task changes = dialog.getCreatedTask();    // null = cancelled
+        if (changes == null) {
+            return;
+        }
+
+        UpdateResult result = taskManager.updateTask(selected, changes, version);
+        while (result.getStatus() == UpdateResult.Status.CONFLICT) {
+            Task current = result.getCurrent();
+            int choice = JOptionPane.showConfirmDialog(this,
+                    "This task was changed while you were editing it.\n\n"
+                            + "It now reads:\n" + current + "\n\n"
+                            + "Overwrite it with your changes?",
+                    "Edit Conflict",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
+            if (choice != JOptionPane.YES_OPTION) {
+                break;
+            }
+            // Retry on top of the version we just showed
+            result = taskManager.updateTask(selected, changes, result.getVersion());
+        }
+        if (result.getStatus() == UpdateResult.Status.NOT_FOUND) {
+            JOptionPane.showMessageDialog(this,
+                    "This task was deleted while you were editing it.",
+                    "Task Deleted",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
+        refreshView(); // Task was (maybe) edited — refresh list
     }
 
     // ───────────────────────────────────────────────
@@ -282,53 +887,263 @@ public class TaskTrackerGUI extends JFrame {
         );
 
         if (confirm == JOptionPane.YES_OPTION) {
-            taskManager.removeTask(selected);
+            if (taskManager.isArchived(selected)) {
+                selected = restore(selected);   // it must be on the board to be deleted
+            }
+            if (selected != null) {
+                taskManager.removeTask(selected);
+            }
+            refreshView();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // UNDO / REDO
+    // ───────────────────────────────────────────────
+    private void handleUndo() {
+        if (changesEnabled && taskManager.undo() != null) {
+            refreshView();
+        }
+    }
+
+    private void handleRedo() {
+        if (changesEnabled && taskManager.redo() != null) {
             refreshView();
         }
     }
 
+    /** Enables Undo / Redo when there is something to undo / redo, and says what. */
+    private void updateUndoButtons() {
+        UndoJournal journal = taskManager.getUndoJournal();
+        String undo = journal.getUndoLabel();
+        String redo = journal.getRedoLabel();
+        undoButton.setEnabled(changesEnabled && undo != null);
+        redoButton.setEnabled(changesEnabled && redo != null);
+        undoButton.setToolTipText(undo != null ? "Undo " + undo + " (Ctrl+Z)" : "Nothing to undo");
+        redoButton.setToolTipText(redo != null ? "Redo " + redo + " (Ctrl+Y)" : "Nothing to redo");
+    }
+
+    /**
+     * Archived tasks are read-only copies. Offers to bring the task back
+     * onto the board first; returns the task to work on, or null.
+     */
+    private Task restoreIfArchived(Task selected, String action) {
+        if (!taskManager.isArchived(selected)) {
+            return selected;
+        }
+        int choice = JOptionPane.showConfirmDialog(this,
+                "\"" + selected.getTitle() + "\" is archived.\n"
+                        + "Move it back to the board to " + action + " it?",
+                "Archived Task",
+                JOptionPane.YES_NO_OPTION);
+        return choice == JOptionPane.YES_OPTION ? restore(selected) : null;
+    }
+
+    /** Moves an archived task back onto the board; null if that failed. */
+    private Task restore(Task archived) {
+        try {
+            return taskManager.restore(archived.getId());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Could not restore the task:\n" + ex.getMessage(),
+                    "Archive",
+                    JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // HISTORY (who changed what, and the board in the past)
+    // ───────────────────────────────────────────────
+    private void handleShowHistory(ActionEvent e) {
+        Task selected = taskList.getSelectedValue();
+
+        if (selected == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select a task to see its history.",
+                    "No Task Selected",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (TaskHistory.Change change : history.historyOf(selected.getId())) {
+            text.append(change).append('\n');
+        }
+        JTextArea area = new JTextArea(text.toString(), 15, 60);
+        area.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(area),
+                "History of \"" + selected.getTitle() + "\"",
+                JOptionPane.PLAIN_MESSAGE);
+    }
+
+    /**
+     * Asks for a date and shows the board as it was at the END of that day.
+     */
+    private void handleBoardAsOf(ActionEvent e) {
+        String input = JOptionPane.showInputDialog(this,
+                "Show the board as it was on (yyyy-MM-dd):",
+                Today.get().minusDays(7).toString());
+        if (input == null) {
+            return; // cancelled
+        }
+
+        LocalDate day;
+        try {
+            day = LocalDate.parse(input.trim());
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter a date like 2025-03-14.",
+                    "Invalid Date",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        Instant endOfDay = day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().minusMillis(1);
+        List<Task> past = history.boardAsOf(endOfDay);
+        JList<Task> list = new JList<>(past.toArray(new Task[0]));
+        list.setVisibleRowCount(15);
+        JOptionPane.showMessageDialog(this, new JScrollPane(list),
+                "Board on " + day + " (" + past.size() + " tasks)",
+                JOptionPane.PLAIN_MESSAGE);
+    }
+
     // ───────────────────────────────────────────────
     // FILTER LOGIC
     // ───────────────────────────────────────────────
-    private boolean shouldShow(Task t) {
+
+    /**
+     * Combines all filter controls into one TaskQuery, e.g.
+     * "pending AND priority in [HIGH, MEDIUM] AND type = Work AND overdue".
+     */
+    private TaskQuery buildQuery() {
+        TaskQuery query;
         switch (currentFilter) {
-            case ALL:
-                return true;
             case COMPLETED:
-                return t.isCompleted();
+                query = TaskQuery.completed();
+                break;
             case PENDING:
-                return !t.isCompleted();
+                query = TaskQuery.pending();
+                break;
             default:
-                return true;
+                query = TaskQuery.all();
+                break;
+        }
+
+        List<Task.Priority> priorities = new ArrayList<>();
+        for (Map.Entry<Task.Priority, JCheckBox> e : priorityChecks.entrySet()) {
+            if (e.getValue().isSelected()) {
+                priorities.add(e.getKey());
+            }
+        }
+        if (priorities.size() < priorityChecks.size()) {
+            query = query.and(TaskQuery.priorityIn(priorities.toArray(new Task.Priority[0])));
+        }
+
+        Object type = typeFilterCombo.getSelectedItem();
+        if (type != null && !ANY_TYPE.equals(type)) {
+            query = query.and(TaskQuery.typeIs((String) type));
+        }
+
+        if (overdueCheck.isSelected()) {
+            query = query.and(TaskQuery.overdue());
+        }
+        return query;
+    }
+
+    /**
+     * Refills the type filter with the types currently in use,
+     * keeping the selection if that type still exists.
+     */
+    private void updateTypeChoices() {
+        TreeSet<String> types = new TreeSet<>(taskManager.getQueryIndex().getTypes());
+        types.remove("");
+
+        List<String> wanted = new ArrayList<>();
+        wanted.add(ANY_TYPE);
+        wanted.addAll(types);
+
+        List<String> current = new ArrayList<>();
+        for (int i = 0; i < typeFilterCombo.getItemCount(); i++) {
+            current.add(typeFilterCombo.getItemAt(i));
         }
+        if (current.equals(wanted)) {
+            return;
+        }
+
+        Object selected = typeFilterCombo.getSelectedItem();
+        updatingTypeChoices = true;
+        typeFilterCombo.removeAllItems();
+        for (String t : wanted) {
+            typeFilterCombo.addItem(t);
+        }
+        typeFilterCombo.setSelectedItem(wanted.contains(selected) ? selected : ANY_TYPE);
+        updatingTypeChoices = false;
     }
 
     // ───────────────────────────────────────────────
     // REFRESH LIST + STATS + PROGRESS BAR
     // ───────────────────────────────────────────────
     private void refreshView() {
-        // Clear list, then re-add based on filter
+        updateTypeChoices();
+
+        // Clear list, then re-add the tasks matching the filters
         taskListModel.clear();
-        for (Task t : taskManager.getTasks()) {
-            if (shouldShow(t)) {
-                taskListModel.addElement(t);
+        taskListModel.addAll(taskManager.findTasks(buildQuery()));
+        if (currentFilter == Filter.COMPLETED) {
+            // Only searched when asked for: the archive can be big
+            taskListModel.addAll(taskManager.findArchived(buildQuery()));
+        }
+
+        nextUpModel.clear();
+        nextUpModel.addAll(taskManager.getNextUp(NEXT_UP_COUNT));
+        heatMap.showWorkload(taskManager);
+
+        updateStats();
+    }
+
+    /** "HIGH, due in 3 days", "LOW, 2 days overdue", "MEDIUM, no due date" ... */
+    private static String describeDue(Task task) {
+        LocalDate due = task.getNextDueDate();
+        String when;
+        if (due == null) {
+            when = "no due date";
+        } else {
+            long days = due.toEpochDay() - Today.get().toEpochDay();
+            if (days == 0) {
+                when = "due today";
+            } else if (days == 1) {
+                when = "due tomorrow";
+            } else if (days > 0) {
+                when = "due in " + days + " days";
+            } else {
+                when = -days + (days == -1 ? " day" : " days") + " overdue";
             }
         }
+        return task.getPriority() + ", " + when;
+    }
 
-        // Update stats
+    /**
+     * Updates the stats label and the progress bar.
+     */
+    private void updateStats() {
         int total = taskManager.getTotalCount();
         int completed = taskManager.getCompletedCount();
         int remaining = total - completed;
         double percent = taskManager.getCompletionPercent();
 
+        int archived = taskManager.getArchive().size();
         statsLabel.setText(
                 "Total: " + total +
                 " | Completed: " + completed +
-                " | Remaining: " + remaining
+                " | Remaining: " + remaining +
+                (archived > 0 ? " | Archived: " + archived : "")
         );
 
         progressBar.setValue((int) percent);
         progressBar.setString(String.format("%.1f%%", percent));
+
+        updateUndoButtons();
     }
 }
 
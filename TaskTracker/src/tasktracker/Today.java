@@ -0,0 +1,51 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Today.get() is LocalDate.now() without the garbage.
+ *
+ * LocalDate.now() looks up the time zone and builds an Instant and a
+ * LocalDate on every call. That is nothing once, but the list renderer
+ * and every query ask for it per cell / per call. So the date is worked
+ * out once and reused until the next midnight; until then a call only
+ * reads the clock (a plain long).
+ *
+ * The time zone is read again at every midnight, so a change of zone
+ * shows up at the latest the next day.
+ */
+final class Today {
+
+    /** The day and when it starts and ends, always read and replaced together. */
+    private static final class Day {
+        final LocalDate date;
+        final long startMillis;   // first millisecond of the day
+        final long endMillis;     // first millisecond of the next day
+
+        Day(LocalDate date, long startMillis, long endMillis) {
+            this.date = date;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+
+    private static volatile Day current = new Day(LocalDate.MIN, 0, 0);
+
+    private Today() {
+    }
+
+    static LocalDate get() {
+        Day day = current;
+        long now = System.currentTimeMillis();
+        if (now >= day.startMillis && now < day.endMillis) {   // also notices a clock set back
+            return day.date;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate date = LocalDate.now(zone);
+        current = new Day(date,
+                date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        return date;
+    }
+}
@@ -0,0 +1,465 @@
+package tasktracker;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * UndoJournal remembers the last changes made through a TaskManager, so
+ * they can be undone (and redone): TaskManager.undo() / redo().
+ *
+ * What is stored?
+ *  - One STEP per user action: "Edit", "Delete", or a whole
+ *    TaskManager.batch(...) — a bulk delete of 50,000 tasks is ONE step,
+ *    undone in one go (O(k) for k changes, no scan of the board).
+ *  - A step is a list of small CHANGES:
+ *      - "task X was added" / "task X was removed" (the Task object
+ *        itself is kept — it is the same object that comes back, not a copy)
+ *      - "field F of task X went from A to B", only for the fields that
+ *        really changed. Renaming a task stores one title, not the task.
+ *  - The changes of a step live in four parallel arrays (task, kind,
+ *    before, after) instead of one object per change, like LongTaskMap.
+ *
+ * Bounded by memory:
+ *  - Every step counts an ESTIMATE of the memory it keeps alive (see the
+ *    BYTES_PER_... constants: a removed task costs far more than a
+ *    changed title). When the total goes over getMaxBytes(), the OLDEST
+ *    steps are forgotten first.
+ *  - A single step bigger than the whole budget stops recording (it could
+ *    never be undone anyway) and drops the undo history, so the journal
+ *    never grows past its budget, even in the middle of a huge batch.
+ *
+ * How TaskManager feeds it (always under its write lock):
+ *   begin(label) ... end()     around every change; nested calls (a
+ *                              removeTask inside a batch) join the open step
+ *   before(task)               right before a task's fields change
+ *   updated(task)              after the change: the fields that differ
+ *                              from before(task) are recorded
+ *   added(task) / removed(task)
+ *
+ * Changes that cannot be undone safely — moving tasks to or from the
+ * archive, replaying the operation log — clear() the journal instead.
+ *
+ * NOT thread-safe on its own: TaskManager's lock protects it. The public
+ * getters are meant for the thread that makes the changes (the EDT).
+ */
+public final class UndoJournal {
+
+    /** Default memory budget (estimated): a 50k-task bulk delete fits. */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    // ==== Memory estimates (rough, like QueryCache's; checked with "TaskBenchmarks undo") ====
+    private static final long BYTES_PER_STEP = 144;          // the step and its four small arrays
+    private static final long BYTES_PER_STRING = 40;         // a String without its characters
+    private static final long BYTES_PER_CHANGE = 24;         // slots in the four arrays (grown by doubling)
+    private static final long BYTES_PER_VALUE = 24;          // an old date, rule or set kept alive
+    private static final long BYTES_PER_REMOVED_TASK = 200;  // a deleted Task kept alive
+
+    /**
+     * The fields a change can record, IN THE ORDER they are written back:
+     * due date and recurrence first (setting them tidies up the done
+     * occurrences), "completed" before the day it was completed on
+     * (reopening a task forgets that day).
+     */
+    enum Field {
+        TITLE, ASSIGNEE, DUE_DATE, TYPE, PRIORITY, RECURRENCE,
+        COMPLETED, COMPLETED_ON, COMPLETED_THROUGH, COMPLETED_EXCEPTIONS, BLOCKED_BY;
+
+        private static final Field[] ALL = values();
+
+        /** The field a change kind stands for (kind = ordinal). */
+        static Field of(byte kind) {
+            return ALL[kind];
+        }
+
+        Object read(Task task) {
+            switch (this) {
+                case TITLE:
+                    return task.getTitle();
+                case ASSIGNEE:
+                    return task.getAssignee();
+                case DUE_DATE:
+                    return task.getDueDate();
+                case TYPE:
+                    return task.getType();
+                case PRIORITY:
+                    return task.getPriority();
+                case RECURRENCE:
+                    return task.getRecurrence();
+                case COMPLETED:
+                    return task.isCompleted();   // Boolean.TRUE / FALSE: no new object
+                case COMPLETED_ON:
+                    return task.getCompletedOn();
+                case COMPLETED_THROUGH:
+                    return task.getCompletedThrough();
+                case COMPLETED_EXCEPTIONS:
+                    return task.getCompletedExceptions();
+                case BLOCKED_BY:
+                    return task.getBlockedBy();
+                default:
+                    throw new AssertionError(this);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(Task task, Object value) {
+            switch (this) {
+                case TITLE:
+                    task.setTitle((String) value);
+                    break;
+                case ASSIGNEE:
+                    task.setAssignee((String) value);
+                    break;
+                case DUE_DATE:
+                    task.setDueDate((LocalDate) value);
+                    break;
+                case TYPE:
+                    task.setType((String) value);
+                    break;
+                case PRIORITY:
+                    task.setPriority((Task.Priority) value);
+                    break;
+                case RECURRENCE:
+                    task.setRecurrence((Recurrence) value);
+                    break;
+                case COMPLETED:
+                    task.setCompleted((Boolean) value);
+                    break;
+                case COMPLETED_ON:
+                    task.setCompletedOn((LocalDate) value);
+                    break;
+                case COMPLETED_THROUGH:
+                    task.restoreOccurrences((LocalDate) value, task.getCompletedExceptions());
+                    break;
+                case COMPLETED_EXCEPTIONS:
+                    task.restoreOccurrences(task.getCompletedThrough(), (Collection<LocalDate>) value);
+                    break;
+                case BLOCKED_BY:
+                    task.setBlockedBy((Collection<Long>) value);
+                    break;
+                default:
+                    throw new AssertionError(this);
+            }
+        }
+    }
+
+    // Kinds of change besides "field number n changed"
+    static final byte ADDED = -1;
+    static final byte REMOVED = -2;
+
+    /**
+     * One undoable action: its changes in the order they were made.
+     * Undo walks them backwards, redo forwards.
+     */
+    static final class Step {
+        final String label;
+        private Task[] tasks = new Task[2];
+        private byte[] kinds = new byte[2];      // ADDED, REMOVED or a Field ordinal
+        private Object[] before = new Object[2]; // only for field changes
+        private Object[] after = new Object[2];
+        private int size = 0;
+        long bytes;
+
+        Step(String label) {
+            this.label = label;
+            this.bytes = BYTES_PER_STEP + BYTES_PER_STRING + label.length();
+        }
+
+        int size() {
+            return size;
+        }
+
+        Task task(int i) {
+            return tasks[i];
+        }
+
+        byte kind(int i) {
+            return kinds[i];
+        }
+
+        Object before(int i) {
+            return before[i];
+        }
+
+        Object after(int i) {
+            return after[i];
+        }
+
+        private void add(Task task, byte kind, Object oldValue, Object newValue) {
+            if (size == tasks.length) {
+                int capacity = size * 2;
+                tasks = Arrays.copyOf(tasks, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                before = Arrays.copyOf(before, capacity);
+                after = Arrays.copyOf(after, capacity);
+            }
+            tasks[size] = task;
+            kinds[size] = kind;
+            before[size] = oldValue;
+            after[size] = newValue;
+            size++;
+            bytes += BYTES_PER_CHANGE;
+            if (kind == REMOVED) {
+                bytes += BYTES_PER_REMOVED_TASK;
+            } else if (kind >= 0) {
+                // Only the OLD value lives on because of us: the new one is
+                // in the task (and counted as an old value once it changes)
+                bytes += oldValue instanceof String
+                        ? BYTES_PER_STRING + ((String) oldValue).length()
+                        : BYTES_PER_VALUE;
+            }
+        }
+    }
+
+    // Oldest first; the last one is undone next
+    private final Deque<Step> undoSteps = new ArrayDeque<>();
+    // The last one is redone next
+    private final Deque<Step> redoSteps = new ArrayDeque<>();
+
+    private long maxBytes;
+    private long bytes = 0;              // estimate for both deques and the open step
+    private boolean enabled = true;
+
+    // ==== The step being recorded ====
+    private int depth = 0;               // nested begin() calls
+    private Step open;                   // null = nothing recorded yet (or too big)
+    private String openLabel;
+    private boolean discarding;          // the open step is not recorded (too big, or cleared)
+
+    // ==== Field values captured by before(task) ====
+    private Task captured;
+    private final Object[] capturedValues = new Object[Field.ALL.length];
+
+    public UndoJournal() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public UndoJournal(long maxBytes) {
+        setMaxBytes(maxBytes);
+    }
+
+    // ───────────────────────────────────────────────
+    // Public: what can be undone, and the budget
+    // ───────────────────────────────────────────────
+
+    public boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /** What undo() would undo (e.g. "Delete \"Buy milk\""), or null. */
+    public String getUndoLabel() {
+        return undoSteps.isEmpty() ? null : undoSteps.peekLast().label;
+    }
+
+    /** What redo() would redo, or null. */
+    public String getRedoLabel() {
+        return redoSteps.isEmpty() ? null : redoSteps.peekLast().label;
+    }
+
+    public int getUndoCount() {
+        return undoSteps.size();
+    }
+
+    public int getRedoCount() {
+        return redoSteps.size();
+    }
+
+    /** Estimated memory kept alive by the journal. */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** Changes the memory budget; the oldest steps are dropped if needed. */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        evictToBudget();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording off (e.g. while a board is being loaded: loading is
+     * not something to undo) or back on. Either way the journal starts empty.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        clear();
+    }
+
+    /** Forgets everything that could be undone or redone. */
+    public void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+        bytes = 0;
+        open = null;
+        discarding = depth > 0;   // the rest of an open step can't be undone either
+        captured = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UndoJournal[undo=%d, redo=%d, ~%d of %d KB]",
+                undoSteps.size(), redoSteps.size(), bytes / 1024, maxBytes / 1024);
+    }
+
+    // ───────────────────────────────────────────────
+    // Recording (TaskManager, under its write lock)
+    // ───────────────────────────────────────────────
+
+    /** Starts a step, or joins the one already open (nested call). */
+    void begin(String label) {
+        if (depth++ == 0) {
+            openLabel = label;
+            open = null;          // created on the first change: most calls change nothing
+            discarding = false;
+            captured = null;
+        }
+    }
+
+    /** Ends a step; the outermost end() makes it undoable (if it changed anything). */
+    void end() {
+        if (--depth > 0) {
+            return;
+        }
+        Step step = open;
+        open = null;
+        captured = null;
+        if (step == null) {
+            return;
+        }
+        for (Step s : redoSteps) {
+            bytes -= s.bytes;
+        }
+        redoSteps.clear();        // a new change ends the redo history
+        undoSteps.addLast(step);  // its bytes were counted while it was recorded
+    }
+
+    /** True while inside begin()/end() (undo() is not allowed there). */
+    boolean isRecording() {
+        return depth > 0;
+    }
+
+    /** Remembers the fields of a task that is about to change. */
+    void before(Task task) {
+        if (!enabled || depth == 0 || discarding) {
+            return;
+        }
+        captured = task;
+        for (Field f : Field.ALL) {
+            capturedValues[f.ordinal()] = f.read(task);
+        }
+    }
+
+    /** Records the fields that changed since before(task). */
+    void updated(Task task) {
+        if (captured != task) {
+            return;   // not captured (or an undo/redo writing fields back)
+        }
+        captured = null;
+        for (Field f : Field.ALL) {
+            Object oldValue = capturedValues[f.ordinal()];
+            Object newValue = f.read(task);
+            capturedValues[f.ordinal()] = null;
+            if (!Objects.equals(oldValue, newValue)) {
+                record(task, (byte) f.ordinal(), oldValue, newValue);
+            }
+        }
+    }
+
+    /**
+     * Records the fields that differ between two copies of a task, taken
+     * just before and just after a change (for changes made outside the
+     * lock, where the live task may already have moved on).
+     */
+    void changed(Task task, Task before, Task after) {
+        for (Field f : Field.ALL) {
+            Object oldValue = f.read(before);
+            Object newValue = f.read(after);
+            if (!Objects.equals(oldValue, newValue)) {
+                record(task, (byte) f.ordinal(), oldValue, newValue);
+            }
+        }
+    }
+
+    void added(Task task) {
+        record(task, ADDED, null, null);
+    }
+
+    void removed(Task task) {
+        record(task, REMOVED, null, null);
+    }
+
+    private void record(Task task, byte kind, Object oldValue, Object newValue) {
+        if (!enabled || depth == 0 || discarding) {
+            return;
+        }
+        if (open == null) {
+            open = new Step(openLabel);
+            bytes += open.bytes;
+        }
+        long stepBytes = open.bytes;
+        open.add(task, kind, oldValue, newValue);
+        bytes += open.bytes - stepBytes;
+        evictToBudget();
+        if (bytes > maxBytes) {
+            // Even alone this step does not fit: stop recording it
+            bytes -= open.bytes;
+            open = null;
+            discarding = true;
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // Undo / redo (TaskManager replays the steps)
+    // ───────────────────────────────────────────────
+
+    /** Takes the step to undo (null = none); give it back with undone(step). */
+    Step takeUndo() {
+        return undoSteps.pollLast();
+    }
+
+    void undone(Step step) {
+        redoSteps.addLast(step);
+    }
+
+    /** Takes the step to redo (null = none); give it back with redone(step). */
+    Step takeRedo() {
+        return redoSteps.pollLast();
+    }
+
+    void redone(Step step) {
+        undoSteps.addLast(step);
+    }
+
+    /**
+     * Drops the oldest undo steps until the total fits the budget, then
+     * the furthest redo steps (they go anyway once the open step ends).
+     */
+    private void evictToBudget() {
+        while (bytes > maxBytes && !undoSteps.isEmpty()) {
+            bytes -= undoSteps.pollFirst().bytes;
+        }
+        Iterator<Step> furthest = redoSteps.iterator();
+        while (bytes > maxBytes && furthest.hasNext()) {
+            bytes -= furthest.next().bytes;
+            furthest.remove();
+        }
+    }
+}
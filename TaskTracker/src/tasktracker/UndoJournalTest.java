@@ -0,0 +1,273 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for undo/redo (TaskManager.undo / redo and UndoJournal).
+ *
+ * These tests verify:
+ *  - an edit stores only the fields that changed, and undo/redo swap them
+ *  - a deleted task comes back as the same object, with its dependencies
+ *  - a bulk delete in one batch is one step, undone in one call
+ *  - the journal stays within its memory budget
+ *  - after any mix of changes, undoing everything gives back the board
+ *    we started with, and redoing everything the board we ended with
+ */
+class UndoJournalTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 6, 1);
+
+    /** Every field of every task, by id: two boards are equal if these are. */
+    private static Map<Long, String> state(TaskManager manager) {
+        Map<Long, String> result = new TreeMap<>();
+        for (Task t : manager.getTasks()) {
+            result.put(t.getId(), String.join("|", t.getTitle(), t.getAssignee(),
+                    String.valueOf(t.getDueDate()), t.getType(), String.valueOf(t.getPriority()),
+                    String.valueOf(t.getRecurrence()), String.valueOf(t.isCompleted()),
+                    String.valueOf(t.getCompletedOn()), String.valueOf(t.getCompletedThrough()),
+                    String.valueOf(t.getCompletedExceptions()), String.valueOf(t.getBlockedBy())));
+        }
+        return result;
+    }
+
+    @Test
+    void testUndoAndRedoAnEdit() {
+        TaskManager manager = new TaskManager();
+        Task task = new Task("Draft", "Ann", START, "Work", Task.Priority.LOW);
+        manager.addTask(task);
+
+        Task changes = task.snapshot();
+        changes.setTitle("Final");
+        changes.setPriority(Task.Priority.HIGH);
+        manager.updateTask(task, changes);
+
+        UndoJournal journal = manager.getUndoJournal();
+        assertEquals("Edit \"Draft\"", journal.getUndoLabel(), "named after the task that was edited");
+        assertEquals(2, journal.getUndoCount(), "the add and the edit");
+
+        assertEquals("Edit \"Draft\"", manager.undo());
+        assertEquals("Draft", task.getTitle());
+        assertEquals(Task.Priority.LOW, task.getPriority());
+        assertEquals(1, manager.countTasks(TaskQuery.priorityIn(Task.Priority.LOW)), "indexes follow");
+        assertTrue(journal.canRedo());
+
+        assertEquals("Edit \"Draft\"", manager.redo());
+        assertEquals("Final", task.getTitle());
+        assertEquals(Task.Priority.HIGH, task.getPriority());
+        assertNull(manager.redo(), "nothing more to redo");
+
+        // Saving without changing anything is nothing to undo
+        manager.updateTask(task, task.snapshot());
+        assertEquals(2, journal.getUndoCount());
+    }
+
+    @Test
+    void testUndoDeleteBringsBackTheSameTask() {
+        TaskManager manager = new TaskManager();
+        Task blocker = new Task("Design", "", START, "", Task.Priority.HIGH);
+        Task waiting = new Task("Build", "", START.plusDays(5), "", Task.Priority.MEDIUM);
+        manager.addTask(blocker);
+        manager.addTask(waiting);
+        manager.addDependency(waiting, blocker);
+        long id = blocker.getId();
+
+        manager.removeTask(blocker);
+        assertTrue(waiting.getBlockedBy().isEmpty(), "deleting a blocker frees its dependents");
+
+        assertEquals("Delete \"Design\"", manager.undo());
+        assertSame(blocker, manager.getTask(id));
+        assertEquals(id, blocker.getId());
+        assertTrue(waiting.getBlockedBy().contains(id));
+        assertTrue(manager.isBlocked(waiting));
+
+        manager.redo();
+        assertNull(manager.getTask(id));
+        assertFalse(manager.isBlocked(waiting));
+
+        // A new change ends the redo history
+        manager.undo();
+        manager.markComplete(waiting);
+        assertFalse(manager.getUndoJournal().canRedo());
+    }
+
+    @Test
+    void testUndoCompletion() {
+        TaskManager manager = new TaskManager();
+        Task once = new Task("Report", "", START, "", Task.Priority.LOW);
+        Task daily = new Task("Stand-up", "", START, "", Task.Priority.LOW);
+        daily.setRecurrence(Recurrence.of(Recurrence.Frequency.DAILY));
+        manager.addTask(once);
+        manager.addTask(daily);
+
+        manager.markComplete(once);
+        manager.markComplete(daily);
+        manager.completeOccurrence(daily, START.plusDays(3));   // done early
+        assertEquals(START.plusDays(1), daily.getNextDueDate());
+
+        manager.undo();
+        manager.undo();
+        assertEquals(START, daily.getNextDueDate());
+        assertTrue(daily.getCompletedExceptions().isEmpty());
+        manager.undo();
+        assertFalse(once.isCompleted());
+        assertNull(once.getCompletedOn());
+        assertEquals(0, manager.getCompletedCount());
+
+        manager.redo();
+        assertTrue(once.isCompleted());
+        assertNotNull(once.getCompletedOn());
+    }
+
+    @Test
+    void testBulkDeleteIsOneStep() {
+        TaskManager manager = new TaskManager();
+        manager.getUndoJournal().setEnabled(false);   // like loading a board
+        for (int i = 0; i < 50_000; i++) {
+            manager.addTask(TaskBenchmarks.sampleTask(i));
+        }
+        manager.getUndoJournal().setEnabled(true);
+        Map<Long, String> before = state(manager);
+        assertFalse(manager.getUndoJournal().canUndo(), "loading is nothing to undo");
+
+        List<Task> all = manager.getTasks();
+        manager.batch("Delete " + all.size() + " tasks", () -> {
+            for (Task t : all) {
+                manager.removeTask(t);
+            }
+        });
+        assertEquals(0, manager.getTotalCount());
+        UndoJournal journal = manager.getUndoJournal();
+        assertEquals(1, journal.getUndoCount());
+        assertTrue(journal.getBytes() <= journal.getMaxBytes());
+
+        assertEquals("Delete 50000 tasks", manager.undo());
+        assertEquals(before, state(manager));
+        assertEquals(50_000, manager.countTasks(TaskQuery.all()));
+
+        manager.redo();
+        assertEquals(0, manager.getTotalCount());
+    }
+
+    @Test
+    void testMemoryBudget() {
+        TaskManager manager = new TaskManager();
+        Task task = new Task("Edit me");
+        manager.addTask(task);
+        UndoJournal journal = manager.getUndoJournal();
+        journal.setMaxBytes(4_000);
+
+        for (int i = 0; i < 1_000; i++) {
+            Task changes = task.snapshot();
+            changes.setTitle("Edit " + i);
+            manager.updateTask(task, changes);
+            assertTrue(journal.getBytes() <= journal.getMaxBytes());
+        }
+        int kept = journal.getUndoCount();
+        assertTrue(kept > 10 && kept < 1_000, "only the newest steps are kept: " + kept);
+        for (int i = 0; i < kept; i++) {
+            manager.undo();
+        }
+        assertEquals("Edit " + (999 - kept), task.getTitle());
+        assertNull(manager.undo());
+
+        // A step bigger than the whole budget is not recorded at all
+        manager.batch("Too big", () -> {
+            for (int i = 0; i < 1_000; i++) {
+                manager.addTask("New " + i);
+            }
+        });
+        assertFalse(journal.canUndo());
+        assertFalse(journal.canRedo());
+        assertEquals(0, journal.getBytes());
+    }
+
+    @Test
+    void testUndoEverythingGivesBackTheFirstBoard() {
+        Random random = new Random(5);
+        TaskManager manager = new TaskManager();
+        for (int i = 0; i < 50; i++) {
+            manager.addTask(TaskBenchmarks.sampleTask(i));
+        }
+        manager.getUndoJournal().clear();
+        Map<Long, String> first = state(manager);
+
+        int steps = 0;
+        for (int step = 0; step < 2_000; step++) {
+            List<Task> tasks = manager.getTasks();
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            int roll = random.nextInt(10);
+            if (roll < 2) {
+                Task added = new Task("New " + step, "Bob", START.plusDays(random.nextInt(60)), "Home",
+                        Task.Priority.values()[random.nextInt(3)]);
+                if (random.nextBoolean()) {
+                    added.setRecurrence(Recurrence.of(Recurrence.Frequency.WEEKLY));
+                }
+                manager.addTask(added);
+            } else if (roll < 3 && tasks.size() > 20) {
+                manager.removeTask(task);
+            } else if (roll < 5) {
+                manager.markComplete(task);
+            } else if (roll < 6) {
+                manager.completeOccurrence(task, task.getNextDueDate() == null ? START
+                        : task.getNextDueDate().plusWeeks(random.nextInt(3)));
+            } else if (roll < 8) {
+                Task changes = task.snapshot();
+                changes.setDueDate(random.nextInt(8) == 0 ? null : START.plusDays(random.nextInt(60)));
+                if (random.nextBoolean()) {
+                    changes.setTitle("Renamed " + step);
+                }
+                manager.updateTask(task, changes);
+            } else if (roll < 9) {
+                Task blocker = tasks.get(random.nextInt(tasks.size()));
+                if (manager.canAddDependency(task, blocker)) {
+                    manager.addDependency(task, blocker);
+                }
+            } else {
+                // A few changes as one step
+                List<Task> some = new ArrayList<>(tasks.subList(0, 5));
+                manager.batch(() -> {
+                    for (Task t : some) {
+                        manager.markComplete(t);
+                    }
+                    manager.removeTask(some.get(4));
+                });
+            }
+            steps = manager.getUndoJournal().getUndoCount();
+        }
+        Map<Long, String> last = state(manager);
+
+        for (int i = 0; i < steps; i++) {
+            assertNotNull(manager.undo());
+        }
+        assertEquals(first, state(manager));
+        for (int i = 0; i < steps; i++) {
+            assertNotNull(manager.redo());
+        }
+        assertEquals(last, state(manager));
+    }
+
+    @Test
+    void testArchivingClearsTheJournal() throws Exception {
+        TaskManager manager = new TaskManager();
+        Task task = new Task("Old work");
+        manager.addTask(task);
+        manager.markComplete(task);
+        task.setCompletedOn(START);
+        assertTrue(manager.getUndoJournal().canUndo());
+
+        assertEquals(1, manager.archiveCompleted(START.plusDays(1)));
+        assertFalse(manager.getUndoJournal().canUndo(), "undo must not bring back archived tasks");
+
+        manager.restore(task.getId());
+        assertFalse(manager.getUndoJournal().canUndo());
+    }
+}
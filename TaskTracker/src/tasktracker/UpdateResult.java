@@ -0,0 +1,57 @@
+package tasktracker;
+
+/**
+ * UpdateResult tells the caller what happened to an edit made with
+ * TaskManager.updateTask(task, changes, expectedVersion).
+ *
+ *  - APPLIED:   the edit was saved; getVersion() is the task's new version
+ *  - CONFLICT:  someone else changed the task after the editor read it.
+ *               Nothing was changed; getCurrent() shows what the task
+ *               looks like NOW, so the user can decide what to do
+ *  - NOT_FOUND: the task is not (or no longer) on the board
+ *
+ * Why not just overwrite? Two people editing the same task would silently
+ * lose one of the edits ("last writer wins"). Returning a CONFLICT lets the
+ * GUI ask instead.
+ */
+public final class UpdateResult {
+
+    public enum Status { APPLIED, CONFLICT, NOT_FOUND }
+
+    private final Status status;
+    private final Task current;     // a snapshot of the task (null for NOT_FOUND)
+
+    private UpdateResult(Status status, Task current) {
+        this.status = status;
+        this.current = current;
+    }
+
+    static UpdateResult applied(Task task) {
+        return new UpdateResult(Status.APPLIED, task.snapshot());
+    }
+
+    static UpdateResult conflict(Task task) {
+        return new UpdateResult(Status.CONFLICT, task.snapshot());
+    }
+
+    static UpdateResult notFound() {
+        return new UpdateResult(Status.NOT_FOUND, null);
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isApplied() { return status == Status.APPLIED; }
+
+    /** The task as it is now (a copy, all fields from one version), or null if NOT_FOUND. */
+    public Task getCurrent() { return current; }
+
+    /** Version of getCurrent() — pass it back to retry on top of it. -1 if NOT_FOUND. */
+    public long getVersion() {
+        return current == null ? -1 : current.getVersion();
+    }
+
+    /** Example: "CONFLICT (version 14)" */
+    @Override
+    public String toString() {
+        return current == null ? status.name() : status + " (version " + current.getVersion() + ")";
+    }
+}
@@ -0,0 +1,711 @@
+package tasktracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * WriteBehindLog saves every change to the board in append-only files
+ * (the "operation log"), WITHOUT making the user wait for the disk.
+ *
+ * Why?
+ *  - Saving only when the window closes loses everything after a crash.
+ *  - But writing + fsync'ing every single change on the GUI thread would
+ *    make bulk edits as slow as the disk (an fsync can take milliseconds).
+ *
+ * How it works ("write-behind" + "group commit"):
+ *  1. It is a TaskListener. Every add / edit / remove is turned into a
+ *     TaskOperation and put in a queue — that's all the caller pays for.
+ *  2. One background thread takes EVERYTHING that is waiting in the queue,
+ *     appends it to the file, and then calls fsync ONCE for the whole
+ *     batch. The busier it gets, the more operations share one fsync.
+ *  3. Every operation gets a sequence number. awaitDurable(n) / flush()
+ *     wait until operation n is safely on disk.
+ *
+ * When fsync happens is chosen with a DurabilityPolicy:
+ *  - EVERY_OPERATION  after each operation (safest, slowest)
+ *  - INTERVAL         at most every N milliseconds
+ *  - ON_IDLE          whenever the writer has caught up with the queue,
+ *                     or after MAX_BATCH operations
+ *
+ * SEGMENTS:
+ *  - The log is a directory of segment files named after the first
+ *    sequence number they hold, e.g. "00000000000000000001.seg".
+ *  - Only the newest ("active") segment is written to. When it reaches
+ *    segmentBytes, it is synced and a new one is started.
+ *  - Older ("sealed") segments never change again, so LogCompactor can
+ *    fold them into a checkpoint and delete them while new changes keep
+ *    going to the active segment.
+ *
+ * Segment layout:
+ *   header:  "TTLG" | version (1 byte)
+ *   record:  length (4 bytes) | CRC32 of body (4 bytes) | body
+ *   body:    sequence (varint) | TaskOperation bytes
+ *
+ * After a crash the last record may be half-written. Reading stops at the
+ * first record that is incomplete or fails its CRC, and opening the log
+ * cuts the active segment back to the last good record. That is only
+ * expected at the end of the ACTIVE segment: a damaged sealed segment or
+ * a gap in the sequence numbers is an error (see readEntries).
+ *
+ * The queue is bounded (MAX_QUEUED): if the disk falls that far behind,
+ * append() waits for the writer instead of filling the heap.
+ *
+ * If writing fails, the error is kept and reported by flush() / close(),
+ * and by every append() after it (see there). getUnwrittenEntries() hands
+ * back every operation that may not have reached the disk, so a new log
+ * can write them again.
+ */
+public final class WriteBehindLog implements TaskListener, Closeable {
+
+    /** When the writer thread forces the data to disk. */
+    public enum DurabilityPolicy {
+        EVERY_OPERATION,
+        INTERVAL,
+        ON_IDLE
+    }
+
+    /** One operation read back from the log, with its sequence number. */
+    public static final class Entry {
+        final long sequence;
+        final TaskOperation operation;
+
+        Entry(long sequence, TaskOperation operation) {
+            this.sequence = sequence;
+            this.operation = operation;
+        }
+
+        public long getSequence() { return sequence; }
+        public TaskOperation getOperation() { return operation; }
+    }
+
+    private static final byte[] MAGIC = {'T', 'T', 'L', 'G'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+
+    /** Records larger than this are treated as corruption. */
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    /** Most operations written (and, for ON_IDLE, left unsynced) in one go. */
+    static final int MAX_BATCH = 4096;
+
+    /** Most operations waiting in the queue; append() waits while it is full. */
+    static final int MAX_QUEUED = 16 * MAX_BATCH;
+
+    /** Default size at which the active segment is sealed. */
+    public static final long DEFAULT_SEGMENT_BYTES = 4L * 1024 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /** Put in the queue by close() to stop the writer thread. */
+    private static final Object CLOSE = new Object();
+
+    private final Path directory;
+    private final DurabilityPolicy policy;
+    private final long intervalNanos;
+    private final long segmentBytes;
+
+    // ==== Active segment (only touched by the writer thread after opening) ====
+    private FileChannel channel;
+    private DataOutputStream out;
+    private long activeBytes;
+    private volatile long activeFirstSequence;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    // ==== Guarded by "this" ====
+    private long lastSequence;       // last sequence number handed out
+    private long durableSequence;    // everything up to here is fsync'ed
+    private int queued = 0;          // operations in the queue
+    private IOException failure;     // first write error, if any
+    private List<Entry> failedEntries = new ArrayList<>();   // taken by the writer, maybe not on disk
+    private boolean closed = false;
+
+    // ==== Statistics (written by the writer thread only) ====
+    private volatile long syncCount = 0;
+    private volatile long writtenCount = 0;
+
+    /**
+     * Opens (or creates) the log directory and starts the writer thread.
+     *
+     * @param intervalMillis only used by DurabilityPolicy.INTERVAL
+     */
+    public WriteBehindLog(Path directory, DurabilityPolicy policy, long intervalMillis)
+            throws IOException {
+        this(directory, policy, intervalMillis, 0, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param afterSequence  new sequence numbers start above this (pass the
+     *                       sequence covered by the loaded checkpoint, so new
+     *                       changes are never mistaken for old ones)
+     * @param segmentBytes   size at which a segment is sealed
+     */
+    public WriteBehindLog(Path directory, DurabilityPolicy policy, long intervalMillis,
+                          long afterSequence, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMillis));
+        this.segmentBytes = Math.max(HEADER_SIZE + 1, segmentBytes);
+
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments(directory);
+
+        if (segments.isEmpty()) {
+            lastSequence = afterSequence;
+            openSegment(afterSequence + 1);
+        } else {
+            // Continue in the newest segment, after its last complete record
+            Path newest = segments.get(segments.size() - 1);
+            List<Entry> existing = new ArrayList<>();
+            long validLength = scan(newest, existing);
+            long first = firstSequenceOf(newest);
+            long lastInLog = existing.isEmpty() ? first - 1 : existing.get(existing.size() - 1).sequence;
+            lastSequence = Math.max(afterSequence, lastInLog);
+
+            channel = FileChannel.open(newest, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                channel.truncate(validLength);     // drop a half-written last record
+                channel.position(validLength);
+                out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+                if (validLength == 0) {
+                    writeHeader();
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            activeBytes = Math.max(validLength, HEADER_SIZE);
+            activeFirstSequence = first;
+        }
+        durableSequence = lastSequence;
+
+        writerThread = new Thread(this::runWriter, "task-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public Path getDirectory() { return directory; }
+    public DurabilityPolicy getPolicy() { return policy; }
+
+    // ───────────────────────────────────────────────
+    // TaskListener — called on the thread that changed the task
+    // ───────────────────────────────────────────────
+
+    @Override
+    public void taskAdded(Task task) {
+        append(TaskOperation.added(task));
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        append(TaskOperation.removed(task));
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        append(TaskOperation.updated(task));
+    }
+
+    /**
+     * Queues an operation for writing and returns its sequence number.
+     * Does not wait for the disk — unless MAX_QUEUED operations are already
+     * waiting, then it waits until the writer has taken some.
+     *
+     * Once the writer has failed nothing is written any more, so this
+     * throws an UncheckedIOException (with the write error as its cause):
+     * the caller's change is NOT on disk. The operation is still kept, up
+     * to MAX_QUEUED of them, for getUnwrittenEntries().
+     */
+    public synchronized long append(TaskOperation operation) {
+        if (closed) {
+            throw new IllegalStateException("Operation log is closed");
+        }
+        boolean interrupted = false;
+        while (queued >= MAX_QUEUED && failure == null) {
+            try {
+                wait();   // the writer wakes us when it takes a batch (or fails)
+            } catch (InterruptedException e) {
+                interrupted = true;   // the change must still be logged
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            if (queued < MAX_QUEUED) {
+                queue.add(new Entry(++lastSequence, operation));
+                queued++;
+            }
+            throw new UncheckedIOException("Operation log write failed, the change is not on disk: "
+                    + failure.getMessage(), failure);
+        }
+        long sequence = ++lastSequence;
+        queue.add(new Entry(sequence, operation));
+        queued++;
+        return sequence;
+    }
+
+    /** Sequence number of the most recently queued operation. */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /** Everything up to this sequence number is safely on disk. */
+    public synchronized long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * After the writer has failed (and the log is closed): every operation
+     * after getDurableSequence() that may not be on disk, oldest first,
+     * with its sequence number. Empty if the writer did not fail.
+     *
+     * Some of them may be on disk after all (written, but not synced yet).
+     * A new log on the same directory continues after the last one that
+     * is, so appending only the entries above its getLastSequence() writes
+     * each operation exactly once, with its old number.
+     */
+    public synchronized List<Entry> getUnwrittenEntries() {
+        List<Entry> unwritten = new ArrayList<>(failedEntries);
+        if (failure != null) {
+            for (Object item : queue) {
+                if (item != CLOSE) {
+                    unwritten.add((Entry) item);
+                }
+            }
+        }
+        return unwritten;
+    }
+
+    /**
+     * Segments that are complete and will never be written again,
+     * oldest first. Safe to read (and delete) from another thread.
+     */
+    public List<Path> getSealedSegments() throws IOException {
+        long active = activeFirstSequence;
+        List<Path> sealed = new ArrayList<>();
+        for (Path segment : listSegments(directory)) {
+            if (firstSequenceOf(segment) < active) {
+                sealed.add(segment);
+            }
+        }
+        return sealed;
+    }
+
+    public long getSyncCount() { return syncCount; }
+    public long getWrittenCount() { return writtenCount; }
+
+    /**
+     * Waits until the operation with this sequence number is on disk.
+     * Throws if the writer failed before getting there.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        synchronized (this) {
+            while (durableSequence < sequence && failure == null && writerThread.isAlive()) {
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the log");
+                }
+            }
+            if (durableSequence < sequence) {
+                throw new IOException("Operation log write failed", failure);
+            }
+        }
+    }
+
+    /** Waits until everything queued so far is on disk. */
+    public void flush() throws IOException {
+        awaitDurable(getLastSequence());
+    }
+
+    /**
+     * Writes and syncs everything still queued, then closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(CLOSE);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            out.close();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw new IOException("Operation log write failed", failure);
+            }
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // WRITER THREAD
+    // ───────────────────────────────────────────────
+
+    private void runWriter() {
+        List<Object> batch = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        long written = durableSequence;   // last sequence written (maybe not synced)
+        List<Entry> unsynced = new ArrayList<>();   // written since the last sync
+        long lastSync = System.nanoTime();
+
+        try {
+            while (true) {
+                // Wait for work. With INTERVAL and unsynced data, only wait
+                // until the next sync is due.
+                Object first;
+                if (policy == DurabilityPolicy.INTERVAL && !unsynced.isEmpty()) {
+                    long wait = intervalNanos - (System.nanoTime() - lastSync);
+                    first = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                } else {
+                    first = queue.take();
+                }
+
+                // Take everything that is already waiting (group commit)
+                boolean closing = false;
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    taken(batch);
+                }
+                for (Object item : batch) {
+                    if (item == CLOSE) {
+                        closing = true;
+                        continue;
+                    }
+                    Entry entry = (Entry) item;
+                    writeRecord(entry, crc);
+                    written = entry.sequence;
+                    unsynced.add(entry);
+                    if (policy == DurabilityPolicy.EVERY_OPERATION) {
+                        sync(written);
+                        unsynced.clear();
+                    }
+                }
+                batch.clear();
+
+                boolean syncNow;
+                switch (policy) {
+                    case INTERVAL:
+                        syncNow = System.nanoTime() - lastSync >= intervalNanos;
+                        break;
+                    case ON_IDLE:
+                        syncNow = queue.isEmpty() || unsynced.size() >= MAX_BATCH;
+                        break;
+                    default:
+                        syncNow = false;
+                        break;
+                }
+                if (!unsynced.isEmpty() && (syncNow || closing)) {
+                    sync(written);
+                    unsynced.clear();
+                    lastSync = System.nanoTime();
+                }
+                if (closing) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            fail(e, unsynced, batch);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Log writer interrupted"), unsynced, batch);
+        }
+    }
+
+    /** The writer took these from the queue: waiting appenders may go on. */
+    private synchronized void taken(List<Object> batch) {
+        for (Object item : batch) {
+            if (item != CLOSE) {
+                queued--;
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Keeps the error, and the operations the writer had taken that may
+     * not be on disk: the ones written since the last sync, then the rest
+     * of the batch (the queue still holds everything after that).
+     */
+    private synchronized void fail(IOException e, List<Entry> unsynced, List<Object> batch) {
+        failure = e;
+        failedEntries = new ArrayList<>(unsynced);
+        long last = unsynced.isEmpty() ? durableSequence : unsynced.get(unsynced.size() - 1).sequence;
+        for (Object item : batch) {
+            if (item != CLOSE && ((Entry) item).sequence > last) {
+                failedEntries.add((Entry) item);
+            }
+        }
+        notifyAll();
+    }
+
+    private void writeRecord(Entry entry, CRC32 crc) throws IOException {
+        byte[] operation = entry.operation.toBytes();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(operation.length + 10);
+        SnapshotCodec.writeVarLong(body, entry.sequence);
+        body.write(operation);
+        byte[] bytes = body.toByteArray();
+
+        crc.reset();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+        activeBytes += 8 + bytes.length;
+        writtenCount++;
+    }
+
+    /** Creates a new, empty active segment for sequences starting at "first". */
+    private void openSegment(long first) throws IOException {
+        Path file = directory.resolve(segmentName(first));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+            writeHeader();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        forceDirectory(directory);   // make the new file itself survive a crash
+        activeBytes = HEADER_SIZE;
+        activeFirstSequence = first;
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.flush();
+        channel.force(true);
+    }
+
+    /**
+     * Forces everything written so far to disk and wakes up waiting threads.
+     * A full segment is sealed here, so once an operation is durable its
+     * segment is either still active or complete.
+     */
+    private void sync(long upToSequence) throws IOException {
+        out.flush();
+        channel.force(false);
+        syncCount++;
+        if (activeBytes >= segmentBytes) {
+            out.close();
+            openSegment(upToSequence + 1);
+        }
+        synchronized (this) {
+            durableSequence = upToSequence;
+            notifyAll();
+        }
+    }
+
+    // ───────────────────────────────────────────────
+    // READING
+    // ───────────────────────────────────────────────
+
+    /**
+     * Reads every operation in the log directory with a sequence number
+     * above "afterSequence", oldest first. A missing directory is an empty log.
+     *
+     * The newest segment may end in a broken record (a write cut off by a
+     * crash); reading stops there. Anything else that would leave a HOLE
+     * throws an IOException instead of returning fewer operations:
+     *  - a sealed segment that is damaged before its end
+     *  - a sequence number that is skipped (a segment missing, or the log
+     *    not going on right after afterSequence)
+     * Replaying past a hole would apply newer changes to a board that is
+     * missing older ones, and nobody would notice.
+     */
+    public static List<Entry> readEntries(Path directory, long afterSequence) throws IOException {
+        return read(listSegments(directory), afterSequence, true);
+    }
+
+    /**
+     * Like readEntries, for segments that are ALL sealed (LogCompactor):
+     * none of them may end early.
+     */
+    static List<Entry> readSealed(List<Path> segments, long afterSequence) throws IOException {
+        return read(segments, afterSequence, false);
+    }
+
+    private static List<Entry> read(List<Path> segments, long afterSequence, boolean lastIsActive)
+            throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long previous = afterSequence;   // every change up to here is accounted for
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            List<Entry> read = new ArrayList<>();
+            long valid = scan(segment, read);
+            boolean active = lastIsActive && i == segments.size() - 1;
+            if (!active && valid < Files.size(segment)) {
+                throw new IOException("Operation log segment " + segment + " is damaged at byte " + valid
+                        + ": the changes after it cannot be replayed safely");
+            }
+            for (Entry e : read) {
+                if (e.sequence <= afterSequence) {
+                    continue;   // already covered (e.g. by the checkpoint)
+                }
+                if (e.sequence != previous + 1) {
+                    throw new IOException("Operation log " + segment.getParent() + " is missing changes "
+                            + (previous + 1) + " to " + (e.sequence - 1));
+                }
+                entries.add(e);
+                previous = e.sequence;
+            }
+        }
+        return entries;
+    }
+
+    /** Reads every complete, valid operation from one segment file. */
+    public static List<Entry> readSegment(Path segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        scan(segment, entries);
+        return entries;
+    }
+
+    /** Deletes every segment (after a checkpoint that covers all of them). */
+    public static void deleteSegments(Path directory) throws IOException {
+        for (Path segment : listSegments(directory)) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    /** Segment files in the directory, oldest first. */
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                 .forEach(segments::add);
+        }
+        // Names are zero-padded, so name order is sequence order
+        segments.sort(null);
+        return segments;
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequenceOf(Path segment) throws IOException {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad segment name: " + name, e);
+        }
+    }
+
+    /**
+     * Syncs a directory, so that newly created or renamed files in it
+     * survive a crash. Not every system supports this; then it is skipped.
+     */
+    static void forceDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // e.g. Windows can't open directories — best effort only
+        }
+    }
+
+    /**
+     * Reads valid records into "entries" and returns the file length up to
+     * the end of the last valid record (0 if even the header is missing).
+     */
+    private static long scan(Path file, List<Entry> entries) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream in = new DataInputStream(raw);
+
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                in.readFully(magic);
+                int version = in.readUnsignedByte();
+                if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                    throw new IOException("Not an operation log: " + file);
+                }
+            } catch (EOFException e) {
+                return 0;   // crashed while writing the header
+            }
+
+            long valid = HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            long previousSequence = 0;
+            while (true) {
+                byte[] body;
+                int expectedCrc;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    expectedCrc = in.readInt();
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;   // clean end, or a half-written last record
+                }
+
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+
+                Entry entry;
+                try {
+                    InputStream bodyIn = new ByteArrayInputStream(body);
+                    long sequence = SnapshotCodec.readVarLong(bodyIn);
+                    entry = new Entry(sequence, TaskOperation.fromBytes(bodyIn.readAllBytes()));
+                } catch (IOException e) {
+                    break;
+                }
+                if (entry.sequence <= previousSequence) {
+                    break;   // sequence numbers only go up
+                }
+                previousSequence = entry.sequence;
+
+                entries.add(entry);
+                valid += 8 + body.length;
+            }
+            return valid;
+        }
+    }
+}
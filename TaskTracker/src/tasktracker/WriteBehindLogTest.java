@@ -0,0 +1,288 @@
+package tasktracker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteBehindLog and TaskOperation.
+ *
+ * These tests verify:
+ *  - every change made through TaskManager can be replayed from the log
+ *  - a half-written or damaged last record is dropped, not the whole log
+ *  - damage anywhere else, or a missing segment, is an error (not a hole)
+ *  - each durability policy makes everything durable on flush()
+ *  - after the writer fails, append() throws and keeps a bounded backlog
+ */
+class WriteBehindLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static void assertSameBoard(TaskManager expected, TaskManager actual) {
+        List<Task> a = expected.getTasks();
+        List<Task> b = actual.getTasks();
+        assertEquals(a.size(), b.size());
+        for (Task t : a) {
+            Task other = actual.getTask(t.getId());
+            assertNotNull(other, "missing task " + t.getId());
+            assertEquals(t.toString(), other.toString());
+            assertEquals(t.getCompletedThrough(), other.getCompletedThrough());
+        }
+    }
+
+    private static TaskManager replay(Path file) throws IOException {
+        TaskManager manager = new TaskManager();
+        for (WriteBehindLog.Entry e : WriteBehindLog.readEntries(file, 0)) {
+            manager.apply(e.getOperation());
+        }
+        return manager;
+    }
+
+    /** Adds, edits, completes and deletes a few tasks. */
+    private static void makeChanges(TaskManager manager) {
+        Task a = new Task("Write report", "Sam", LocalDate.of(2026, 3, 1), "Work", Task.Priority.HIGH);
+        Task b = new Task("Water plants", "Kim", LocalDate.of(2026, 3, 2), "Home", Task.Priority.LOW);
+        b.setRecurrence(Recurrence.of(Recurrence.Frequency.WEEKLY));
+        Task c = new Task("Old idea");
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addTask(c);
+
+        manager.updateTask(a, new Task("Write final report", "Sam", null, "Work", Task.Priority.MEDIUM));
+        manager.markComplete(b);
+        manager.markComplete(a);
+        manager.removeTask(c);
+    }
+
+    @Test
+    void testChangesCanBeReplayed() throws IOException {
+        Path file = dir.resolve("board.log");
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = new WriteBehindLog(file, WriteBehindLog.DurabilityPolicy.ON_IDLE, 0)) {
+            manager.addListener(log);
+            makeChanges(manager);
+            log.flush();
+            assertEquals(7, log.getDurableSequence());
+        }
+
+        assertSameBoard(manager, replay(file));
+    }
+
+    @Test
+    void testReplayTwiceGivesSameBoard() throws IOException {
+        Path file = dir.resolve("board.log");
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = new WriteBehindLog(file, WriteBehindLog.DurabilityPolicy.ON_IDLE, 0)) {
+            manager.addListener(log);
+            makeChanges(manager);
+        }
+
+        // Like a crash after the snapshot was saved but before the log was deleted
+        TaskManager replayed = replay(file);
+        for (WriteBehindLog.Entry e : WriteBehindLog.readEntries(file, 0)) {
+            replayed.apply(e.getOperation());
+        }
+        assertSameBoard(manager, replayed);
+    }
+
+    @Test
+    void testTornLastRecordIsDropped() throws IOException {
+        Path file = dir.resolve("board.log");
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = new WriteBehindLog(file, WriteBehindLog.DurabilityPolicy.EVERY_OPERATION, 0)) {
+            manager.addListener(log);
+            manager.addTask(new Task("First"));
+            manager.addTask(new Task("Second"));
+        }
+
+        // Cut a few bytes off the end, as if the machine died mid-write
+        Path segment = WriteBehindLog.listSegments(file).get(0);
+        long size = Files.size(segment);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(size - 3);
+        }
+
+        assertEquals(1, WriteBehindLog.readEntries(file, 0).size());
+
+        // Reopening cuts the broken record away and continues after it
+        try (WriteBehindLog log = new WriteBehindLog(file, WriteBehindLog.DurabilityPolicy.ON_IDLE, 0)) {
+            assertEquals(1, log.getLastSequence());
+            log.append(TaskOperation.added(manager.getTasks().get(1)));
+        }
+        List<WriteBehindLog.Entry> entries = WriteBehindLog.readEntries(file, 0);
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(1).getSequence());
+    }
+
+    @Test
+    void testCorruptRecordStopsReading() throws IOException {
+        Path file = dir.resolve("board.log");
+        TaskManager manager = new TaskManager();
+        try (WriteBehindLog log = new WriteBehindLog(file, WriteBehindLog.DurabilityPolicy.ON_IDLE, 0)) {
+            manager.addListener(log);
+            manager.addTask(new Task("First"));
+            manager.addTask(new Task("Second"));
+        }
+
+        // Flip one byte inside the last record: its CRC no longer matches
+        Path segment = WriteBehindLog.listSegments(file).get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 2] ^= 0x55;
+        Files.write(segment, bytes);
+
+        assertEquals(1, WriteBehindLog.readEntries(file, 0).size());
+    }
+
+    /** 100 operations in segments of a few records each. */
+    private List<Path> writeSegments(Path file) throws IOException {
+        try (WriteBehindLog log = new WriteBehindLog(file, WriteBehindLog.DurabilityPolicy.EVERY_OPERATION,
+                0, 0, 300)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(TaskOperation.added(sample(i + 1)));
+            }
+            log.flush();
+        }
+        List<Path> segments = WriteBehindLog.listSegments(file);
+        assertTrue(segments.size() > 3, "several segments: " + segments.size());
+        assertEquals(100, WriteBehindLog.readEntries(file, 0).size());
+        return segments;
+    }
+
+    @Test
+    void testDamagedSealedSegmentIsAnError() throws IOException {
+        Path file = dir.resolve("board.log");
+        List<Path> segments = writeSegments(file);
+
+        // Damage the FIRST record of a sealed segment: the records after it
+        // (and the newer segments) must not be replayed as if nothing was missing
+        Path sealed = segments.get(1);
+        byte[] bytes = Files.readAllBytes(sealed);
+        bytes[14] ^= 0x55;
+        Files.write(sealed, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> WriteBehindLog.readEntries(file, 0));
+        assertTrue(e.getMessage().contains("damaged"), e.getMessage());
+        assertThrows(IOException.class, () -> WriteBehindLog.readSealed(segments.subList(0, 2), 0),
+                "the compactor must not fold it into a checkpoint either");
+    }
+
+    @Test
+    void testMissingSegmentIsAnError() throws IOException {
+        Path file = dir.resolve("board.log");
+        List<Path> segments = writeSegments(file);
+        long covered = WriteBehindLog.firstSequenceOf(segments.get(2)) - 1;
+
+        Files.delete(segments.get(1));
+        IOException e = assertThrows(IOException.class, () -> WriteBehindLog.readEntries(file, 0));
+        assertTrue(e.getMessage().contains("missing changes"), e.getMessage());
+
+        // Fine when a checkpoint already covers the missing part
+        List<WriteBehindLog.Entry> entries = WriteBehindLog.readEntries(file, covered);
+        assertEquals(covered + 1, entries.get(0).getSequence());
+        assertEquals(100, entries.get(entries.size() - 1).getSequence());
+
+        // ...but not when the log starts later than the checkpoint ends
+        Files.delete(segments.get(0));
+        assertThrows(IOException.class, () -> WriteBehindLog.readEntries(file, 0));
+    }
+
+    @Test
+    void testEveryPolicyIsDurableAfterFlush() throws IOException {
+        for (WriteBehindLog.DurabilityPolicy policy : WriteBehindLog.DurabilityPolicy.values()) {
+            Path file = dir.resolve(policy + ".log");
+            try (WriteBehindLog log = new WriteBehindLog(file, policy, 5)) {
+                for (int i = 0; i < 500; i++) {
+                    log.append(TaskOperation.added(sample(i + 1)));
+                }
+                log.flush();
+                assertEquals(500, log.getDurableSequence(), policy.toString());
+                assertEquals(500, log.getWrittenCount());
+                if (policy == WriteBehindLog.DurabilityPolicy.EVERY_OPERATION) {
+                    assertEquals(500, log.getSyncCount());
+                } else if (policy == WriteBehindLog.DurabilityPolicy.INTERVAL) {
+                    assertTrue(log.getSyncCount() < 500, "INTERVAL should batch fsyncs");
+                }
+            }
+            assertEquals(500, WriteBehindLog.readEntries(file, 0).size());
+        }
+    }
+
+    @Test
+    void testAppendAfterCloseFails() throws IOException {
+        WriteBehindLog log = new WriteBehindLog(dir.resolve("board.log"),
+                WriteBehindLog.DurabilityPolicy.ON_IDLE, 0);
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> log.append(TaskOperation.added(sample(1))));
+    }
+
+    @Test
+    void testAppendAfterWriterFailureThrows() throws Exception {
+        Set<Thread> before = writerThreads();
+        WriteBehindLog log = new WriteBehindLog(dir.resolve("board.log"),
+                WriteBehindLog.DurabilityPolicy.ON_IDLE, 0);
+        Set<Thread> writers = writerThreads();
+        writers.removeAll(before);
+        log.append(TaskOperation.added(sample(1)));
+        log.flush();
+
+        Thread writer = writers.iterator().next();
+        writer.interrupt();   // the writer fails (like a broken disk would)
+        writer.join();
+        UncheckedIOException error = assertThrows(UncheckedIOException.class,
+                () -> log.append(TaskOperation.added(sample(2))));
+        assertNotNull(error.getCause(), "the write error");
+        assertThrows(IOException.class, log::flush);
+
+        // Nothing drains the queue any more: it stops at MAX_QUEUED
+        for (int i = 0; i < WriteBehindLog.MAX_QUEUED + 10; i++) {
+            long id = i + 3;
+            assertThrows(UncheckedIOException.class, () -> log.append(TaskOperation.added(sample(id))));
+        }
+        assertThrows(IOException.class, log::close);
+        List<WriteBehindLog.Entry> unwritten = log.getUnwrittenEntries();
+        assertEquals(WriteBehindLog.MAX_QUEUED, unwritten.size());
+        assertEquals(2, unwritten.get(0).getSequence(), "kept for a new log, with their numbers");
+        assertEquals(1, log.getDurableSequence());
+    }
+
+    private static Set<Thread> writerThreads() {
+        Set<Thread> writers = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("task-log-writer") && t.isAlive()) {
+                writers.add(t);
+            }
+        }
+        return writers;
+    }
+
+    @Test
+    void testOperationKeepsStateAtCreationTime() {
+        Task t = sample(9);
+        TaskOperation op = TaskOperation.updated(t);
+        t.setTitle("Changed later");
+
+        assertEquals(TaskOperation.Kind.UPDATE, op.getKind());
+        assertEquals(9, op.getTaskId());
+        assertNotEquals("Changed later", op.toTask().getTitle());
+    }
+
+    private static Task sample(long id) {
+        Task t = TaskBenchmarks.sampleTask((int) id);
+        t.setId(id);
+        return t;
+    }
+}